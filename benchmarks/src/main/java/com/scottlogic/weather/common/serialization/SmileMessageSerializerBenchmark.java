@@ -0,0 +1,83 @@
+package com.scottlogic.weather.common.serialization;
+
+import akka.actor.ActorSystem;
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
+import com.lightbend.lagom.javadsl.api.deser.MessageSerializer.NegotiatedDeserializer;
+import com.lightbend.lagom.javadsl.api.deser.MessageSerializer.NegotiatedSerializer;
+import com.lightbend.lagom.javadsl.api.transport.MessageProtocol;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *   The wire format between the services: the recorded London forecast, 40 entries, written and
+ *   read by SmileMessageSerializer as JSON and as Smile, as the adapter answers the weather service.
+ *   These are the timings in the README's table; the payload sizes are checked by
+ *   OwmAdapterWireFormatTest.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SmileMessageSerializerBenchmark {
+	private static final Type WEATHER_DATA_LIST = new TypeReference<List<WeatherData>>() {}.getType();
+
+	@Param({ "json", "smile" })
+	public String format;
+
+	private ActorSystem actorSystem;
+	private NegotiatedSerializer<List<WeatherData>, ByteString> serializer;
+	private NegotiatedDeserializer<List<WeatherData>, ByteString> deserializer;
+
+	private List<WeatherData> forecast;
+	private ByteString wire;
+
+	@Setup
+	public void setup() throws IOException {
+		this.actorSystem = ActorSystem.create("SmileMessageSerializerBenchmark");
+		SmileMessageSerializer.useActorSystem(this.actorSystem);
+
+		final MessageProtocol protocol = this.format.equals("smile") ? SmileMessageSerializer.SMILE : SmileMessageSerializer.JSON;
+		final SmileMessageSerializer<List<WeatherData>> messageSerializer = SmileMessageSerializer.of(WEATHER_DATA_LIST);
+		this.serializer = messageSerializer.serializerForResponse(Collections.singletonList(protocol));
+		this.deserializer = messageSerializer.deserializer(protocol);
+
+		try (InputStream fixture = SmileMessageSerializerBenchmark.class.getResourceAsStream("/fixtures/forecast-london.json")) {
+			this.forecast = JacksonObjectMapperProvider.get(this.actorSystem).objectMapper()
+					.readValue(fixture, new TypeReference<List<WeatherData>>() {});
+		}
+		this.wire = this.serializer.serialize(this.forecast);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.actorSystem.terminate();
+	}
+
+	@Benchmark
+	public ByteString serialize() {
+		return this.serializer.serialize(this.forecast);
+	}
+
+	@Benchmark
+	public List<WeatherData> deserialize() {
+		return this.deserializer.deserialize(this.wire);
+	}
+}
@@ -0,0 +1,100 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *   The adapter's work on each OWM response, given the canned London responses its warm-up uses:
+ *   a current weather, and a forecast of 40 three-hourly entries.
+ * </p>
+ * <p>
+ *   decodeForecast is the StreamingJsonDecoder, as OwmClient runs it, with the document in one
+ *   chunk; so it includes running a stream on the materializer. readForecast is a plain
+ *   ObjectMapper.readValue of the same bytes, for comparison. The transforms turn decoded responses
+ *   into the adapter's WeatherData, in London's timezone.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OwmResponseBenchmark {
+	private static final ZoneId LONDON = ZoneId.of("Europe/London");
+
+	private ActorSystem actorSystem;
+	private Materializer materializer;
+	private ObjectMapper objectMapper;
+	private StreamingJsonDecoder decoder;
+
+	private byte[] forecastJson;
+	private OwmWeatherForecastResponse forecast;
+	private OwmCurrentWeatherResponse current;
+
+	@Setup
+	public void setup() throws IOException {
+		this.actorSystem = ActorSystem.create("OwmResponseBenchmark");
+		this.materializer = ActorMaterializer.create(this.actorSystem);
+		this.objectMapper = JacksonObjectMapperProvider.get(this.actorSystem).objectMapper();
+		this.decoder = new StreamingJsonDecoder(this.objectMapper);
+
+		this.forecastJson = resource("/warm-up/owm-adapter/forecast.json");
+		this.forecast = this.objectMapper.readValue(this.forecastJson, OwmWeatherForecastResponse.class);
+		this.current = this.objectMapper.readValue(resource("/warm-up/owm-adapter/weather.json"), OwmCurrentWeatherResponse.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.actorSystem.terminate();
+	}
+
+	@Benchmark
+	public OwmWeatherForecastResponse decodeForecast() throws Exception {
+		return this.decoder.decode(Source.single(ByteString.fromArray(this.forecastJson)), OwmWeatherForecastResponse.class, this.materializer)
+				.toCompletableFuture()
+				.get();
+	}
+
+	@Benchmark
+	public OwmWeatherForecastResponse readForecast() throws IOException {
+		return this.objectMapper.readValue(this.forecastJson, OwmWeatherForecastResponse.class);
+	}
+
+	@Benchmark
+	public List<WeatherData> transformForecast() {
+		return OwmAdapterImpl.transformOwmWeatherForecastData(this.forecast, LONDON);
+	}
+
+	@Benchmark
+	public WeatherData transformCurrentWeather() {
+		return OwmAdapterImpl.transformOwmCurrentWeatherData(this.current, LONDON);
+	}
+
+	private static byte[] resource(final String name) throws IOException {
+		try (InputStream in = OwmResponseBenchmark.class.getResourceAsStream(name)) {
+			return ByteStreams.toByteArray(in);
+		}
+	}
+}
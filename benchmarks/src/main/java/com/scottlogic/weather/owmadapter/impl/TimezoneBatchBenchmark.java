@@ -0,0 +1,86 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *   Batches of a thousand timezone lookups, as the adapter's timezones call makes them. Scores are
+ *   lookups per millisecond, which is also thousands of coordinates per second.
+ * </p>
+ * <p>
+ *   inOrder looks the points up in the order given, as the call does. byGridCell first sorts them
+ *   by one degree cell, so that neighbours are looked up together; it has not been worth the
+ *   sort, as a lookup's grid probe is already cheap and its time is in testing polygon edges,
+ *   which no ordering saves. It is kept to show whether that changes with the index.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimezoneBatchBenchmark {
+	private static final int POINTS = 1000;
+
+	@Param({ "random", "cities" })
+	public String points;
+
+	private final float[] lats = new float[POINTS];
+	private final float[] lngs = new float[POINTS];
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(20180801L);
+		for (int i = 0; i < POINTS; i++) {
+			if (this.points.equals("random")) {
+				this.lats[i] = (float) (random.nextDouble() * 180 - 90);
+				this.lngs[i] = (float) (random.nextDouble() * 360 - 180);
+			} else {
+				final double[] city = TimezoneMapperBenchmark.CITIES[random.nextInt(TimezoneMapperBenchmark.CITIES.length)];
+				this.lats[i] = (float) (city[0] + random.nextGaussian() * 0.05);
+				this.lngs[i] = (float) (city[1] + random.nextGaussian() * 0.05);
+			}
+		}
+
+		TimezoneMapper.latLngToTimezoneString(0, 0);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void inOrder(final Blackhole blackhole) {
+		final String[] zones = new String[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			zones[i] = TimezoneMapper.latLngToTimezoneString(this.lats[i], this.lngs[i]);
+		}
+		blackhole.consume(zones);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public void byGridCell(final Blackhole blackhole) {
+		final long[] order = new long[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			final long cell = (long) (this.lats[i] + 90f) * 360 + (long) (this.lngs[i] + 180f);
+			order[i] = cell << 32 | i;
+		}
+		Arrays.sort(order);
+
+		final String[] zones = new String[POINTS];
+		for (final long entry : order) {
+			final int i = (int) entry;
+			zones[i] = TimezoneMapper.latLngToTimezoneString(this.lats[i], this.lngs[i]);
+		}
+		blackhole.consume(zones);
+	}
+}
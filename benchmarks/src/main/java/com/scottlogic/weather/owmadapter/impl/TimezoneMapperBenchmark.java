@@ -0,0 +1,81 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *   Timezone lookups through the spatial index, against the generated decision tree it replaced.
+ * </p>
+ * <p>
+ *   Random points are spread evenly over the globe, so are mostly at sea; cities are where
+ *   lookups are actually made, and mostly near borders, where polygons have to be tested.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimezoneMapperBenchmark {
+	static final double[][] CITIES = {
+			{ 51.51, -0.13 }, { 48.85, 2.35 }, { 52.52, 13.41 }, { 59.33, 18.06 }, { 40.71, -74.01 },
+			{ 37.77, -122.42 }, { 35.69, 139.69 }, { -33.87, 151.21 }, { -23.55, -46.64 }, { -26.2, 28.04 },
+			{ 55.75, 37.62 }, { 41.01, 28.98 }, { 30.04, 31.24 }, { 6.52, 3.38 }, { -1.29, 36.82 },
+			{ 19.08, 72.88 }, { 28.61, 77.21 }, { 23.81, 90.41 }, { 13.76, 100.5 }, { 1.35, 103.82 },
+			{ -6.21, 106.85 }, { 14.6, 120.98 }, { 22.32, 114.17 }, { 31.23, 121.47 }, { 39.9, 116.41 },
+			{ 37.57, 126.98 }, { -37.81, 144.96 }, { -36.85, 174.76 }, { 21.31, -157.86 }, { 61.22, -149.9 },
+			{ 49.28, -123.12 }, { 34.05, -118.24 }, { 33.45, -112.07 }, { 39.74, -104.99 }, { 41.88, -87.63 },
+			{ 29.76, -95.37 }, { 19.43, -99.13 }, { 43.65, -79.38 }, { 45.5, -73.57 }, { 25.76, -80.19 },
+			{ 4.71, -74.07 }, { -12.05, -77.04 }, { -33.45, -70.67 }, { -34.6, -58.38 }, { 64.15, -21.94 },
+			{ 38.72, -9.14 }, { 40.42, -3.7 }, { 50.85, 4.35 }, { 47.37, 8.54 }, { 46.05, 14.51 }
+	};
+	private static final int POINTS = 1024;
+
+	@Param({ "random", "cities" })
+	public String points;
+
+	private final float[] lats = new float[POINTS];
+	private final float[] lngs = new float[POINTS];
+	private int next;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(20180801L);
+		for (int i = 0; i < POINTS; i++) {
+			if (this.points.equals("random")) {
+				this.lats[i] = (float) (random.nextDouble() * 180 - 90);
+				this.lngs[i] = (float) (random.nextDouble() * 360 - 180);
+			} else {
+				// Within a few km of a city.
+				final double[] city = CITIES[random.nextInt(CITIES.length)];
+				this.lats[i] = (float) (city[0] + random.nextGaussian() * 0.05);
+				this.lngs[i] = (float) (city[1] + random.nextGaussian() * 0.05);
+			}
+		}
+
+		// Load both implementations' data before measuring.
+		TimezoneMapper.latLngToTimezoneString(0, 0);
+		LegacyTimezoneMapper.latLngToTimezoneString(0, 0);
+	}
+
+	@Benchmark
+	public void spatialIndex(final Blackhole blackhole) {
+		final int i = this.next++ & (POINTS - 1);
+		blackhole.consume(TimezoneMapper.latLngToTimezoneString(this.lats[i], this.lngs[i]));
+	}
+
+	@Benchmark
+	public void decisionTree(final Blackhole blackhole) {
+		final int i = this.next++ & (POINTS - 1);
+		blackhole.consume(LegacyTimezoneMapper.latLngToTimezoneString(this.lats[i], this.lngs[i]));
+	}
+}
@@ -0,0 +1,78 @@
+package com.scottlogic.weather.weatherservice.impl;
+
+import akka.actor.ActorSystem;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.weatherservice.api.message.WeatherForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *   The weather service's work on each forecast, given the recorded London forecast the adapter's
+ *   tests use: 40 entries, as the adapter sends them.
+ * </p>
+ * <p>
+ *   fromWeatherData is MessageUtils turning them into the client's response; writeJson and
+ *   readJson are Lagom's ObjectMapper writing that response, as the service answers with it, and
+ *   reading it back, as a Java client of the service would.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeatherForecastResponseBenchmark {
+	private ActorSystem actorSystem;
+	private ObjectMapper objectMapper;
+
+	private WeatherData current;
+	private List<WeatherData> forecast;
+	private WeatherForecastResponse response;
+	private byte[] responseJson;
+
+	@Setup
+	public void setup() throws IOException {
+		this.actorSystem = ActorSystem.create("WeatherForecastResponseBenchmark");
+		this.objectMapper = JacksonObjectMapperProvider.get(this.actorSystem).objectMapper();
+
+		try (InputStream fixture = WeatherForecastResponseBenchmark.class.getResourceAsStream("/fixtures/forecast-london.json")) {
+			this.forecast = this.objectMapper.readValue(fixture, new TypeReference<List<WeatherData>>() {});
+		}
+		this.current = this.forecast.get(0);
+		this.response = MessageUtils.weatherDataToWeatherForecastResponse(this.current, this.forecast);
+		this.responseJson = this.objectMapper.writeValueAsBytes(this.response);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.actorSystem.terminate();
+	}
+
+	@Benchmark
+	public WeatherForecastResponse fromWeatherData() {
+		return MessageUtils.weatherDataToWeatherForecastResponse(this.current, this.forecast);
+	}
+
+	@Benchmark
+	public byte[] writeJson() throws IOException {
+		return this.objectMapper.writeValueAsBytes(this.response);
+	}
+
+	@Benchmark
+	public WeatherForecastResponse readJson() throws IOException {
+		return this.objectMapper.readValue(this.responseJson, WeatherForecastResponse.class);
+	}
+}
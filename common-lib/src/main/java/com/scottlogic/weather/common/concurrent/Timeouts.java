@@ -0,0 +1,79 @@
+package com.scottlogic.weather.common.concurrent;
+
+import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
+import akka.actor.Scheduler;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *   Gives up waiting for a stage after a time: the result is the stage's, or the given failure if
+ *   the time runs out first. The timer is on the actor system's scheduler, so no thread is blocked,
+ *   and is cancelled as soon as the stage completes.
+ * </p>
+ * <p>
+ *   Only the waiting is given up; the stage itself carries on, as it may be shared with others.
+ * </p>
+ */
+public class Timeouts {
+	private final Scheduler scheduler;
+	private final ExecutionContext executionContext;
+
+	public Timeouts(final ActorSystem actorSystem) {
+		this(actorSystem.scheduler(), actorSystem.dispatcher());
+	}
+
+	/**
+	 * With the failure, and whatever follows on from it, run on the given executionContext.
+	 */
+	public Timeouts(final Scheduler scheduler, final ExecutionContext executionContext) {
+		this.scheduler = scheduler;
+		this.executionContext = executionContext;
+	}
+
+	public <T> CompletionStage<T> within(
+			final Duration time,
+			final CompletionStage<T> stage,
+			final Supplier<? extends Throwable> failure
+	) {
+		return within(time, stage, failure, () -> {});
+	}
+
+	/**
+	 * As {@link #within(Duration, CompletionStage, Supplier)}, also running whenAbandoned if, and
+	 * only if, the time ran out before the stage completed; for counting them.
+	 */
+	public <T> CompletionStage<T> within(
+			final Duration time,
+			final CompletionStage<T> stage,
+			final Supplier<? extends Throwable> failure,
+			final Runnable whenAbandoned
+	) {
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		final Cancellable timer = this.scheduler.scheduleOnce(
+				FiniteDuration.create(time.toNanos(), TimeUnit.NANOSECONDS),
+				() -> {
+					if (result.completeExceptionally(failure.get())) {
+						whenAbandoned.run();
+					}
+				},
+				this.executionContext
+		);
+		stage.whenComplete((value, throwable) -> {
+			timer.cancel();
+			if (throwable == null) {
+				result.complete(value);
+			} else {
+				result.completeExceptionally(throwable);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,189 @@
+package com.scottlogic.weather.common.serialization;
+
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.util.ByteString;
+import akka.util.ByteStringBuilder;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.inject.Inject;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
+import com.lightbend.lagom.javadsl.api.deser.DeserializationException;
+import com.lightbend.lagom.javadsl.api.deser.SerializationException;
+import com.lightbend.lagom.javadsl.api.deser.StrictMessageSerializer;
+import com.lightbend.lagom.javadsl.api.transport.MessageProtocol;
+import org.pcollections.PSequence;
+import org.pcollections.TreePVector;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>
+ *   Serializes messages as Smile, Jackson's binary JSON format, to peers that accept it, and as
+ *   JSON to any that don't. Smile writes each field name once per message and refers back to it
+ *   thereafter, so a list of 40 forecasts costs a fraction of its JSON size to send and to parse.
+ * </p>
+ * <p>
+ *   The format is negotiated per call: a client accepts both formats, Smile first, and a server
+ *   answers in Smile only if it is accepted. Requests are always sent as JSON, since the server's
+ *   support is not known until it answers, and are read according to their content type. So
+ *   either side may be upgraded first; an older peer simply carries on with JSON.
+ * </p>
+ * <p>
+ *   The JSON is written by Lagom's own ObjectMapper, and the Smile by one configured in the same
+ *   way, with the same jackson-modules (including our {@link CommonServiceJacksonModule}).
+ * </p>
+ */
+public class SmileMessageSerializer<T> implements StrictMessageSerializer<T> {
+	public static final MessageProtocol SMILE = new MessageProtocol(
+			Optional.of("application/x-jackson-smile"), Optional.empty(), Optional.empty()
+	);
+	public static final MessageProtocol JSON = new MessageProtocol(
+			Optional.of("application/json"), Optional.of("utf-8"), Optional.empty()
+	);
+
+	// Here be dragons, as in CustomExceptionSerializer: the service descriptor takes an INSTANCE of
+	// a message serializer, so it cannot be given the actor system's ObjectMapper by injection. The
+	// modules of each service request static injection of this class instead.
+	private static volatile ObjectMapper jsonMapper = null;
+	private static volatile ObjectMapper smileMapper = null;
+
+	private final Type type;
+	private final PSequence<MessageProtocol> acceptResponseProtocols = TreePVector.<MessageProtocol>empty()
+			.plus(SMILE)
+			.plus(JSON);
+
+	public static <T> SmileMessageSerializer<T> of(final Type type) {
+		return new SmileMessageSerializer<>(type);
+	}
+
+	@Inject
+	public static void useActorSystem(final ActorSystem actorSystem) {
+		jsonMapper = JacksonObjectMapperProvider.get(actorSystem).objectMapper();
+		smileMapper = smileMapper((ExtendedActorSystem) actorSystem);
+	}
+
+	@Override
+	public PSequence<MessageProtocol> acceptResponseProtocols() {
+		return this.acceptResponseProtocols;
+	}
+
+	@Override
+	public NegotiatedSerializer<T, ByteString> serializerForRequest() {
+		return new Serializer(JSON, jsonMapper());
+	}
+
+	@Override
+	public NegotiatedDeserializer<T, ByteString> deserializer(final MessageProtocol protocol) {
+		return new Deserializer(isSmile(protocol) ? smileMapper() : jsonMapper());
+	}
+
+	@Override
+	public NegotiatedSerializer<T, ByteString> serializerForResponse(final List<MessageProtocol> acceptedMessageProtocols) {
+		return acceptedMessageProtocols.stream().anyMatch(SmileMessageSerializer::isSmile)
+				? new Serializer(SMILE, smileMapper())
+				: new Serializer(JSON, jsonMapper());
+	}
+
+	private SmileMessageSerializer(final Type type) {
+		this.type = type;
+	}
+
+	private static boolean isSmile(final MessageProtocol protocol) {
+		return protocol.contentType().equals(SMILE.contentType());
+	}
+
+	/**
+	 * Configured as Lagom configures its JSON ObjectMapper (see JacksonObjectMapperProvider).
+	 */
+	private static ObjectMapper smileMapper(final ExtendedActorSystem actorSystem) {
+		final ObjectMapper mapper = new ObjectMapper(new SmileFactory())
+				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+				.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+		final ClassLoader classLoader = actorSystem.dynamicAccess().classLoader();
+		final List<String> modules = actorSystem.settings().config().getStringList("lagom.serialization.json.jackson-modules");
+		if (modules.contains("*")) {
+			return mapper.registerModules(ObjectMapper.findModules(classLoader));
+		}
+		for (final String module : modules) {
+			try {
+				mapper.registerModule((Module) Class.forName(module, true, classLoader).newInstance());
+			} catch (ReflectiveOperationException e) {
+				// Lagom skips modules which are not on the classpath, and so must we.
+				actorSystem.log().debug("Could not load Jackson module [{}] for Smile: {}", module, e);
+			}
+		}
+		return mapper;
+	}
+
+	private static ObjectMapper jsonMapper() {
+		return initialised(jsonMapper);
+	}
+
+	private static ObjectMapper smileMapper() {
+		return initialised(smileMapper);
+	}
+
+	private static ObjectMapper initialised(final ObjectMapper mapper) {
+		if (mapper == null) {
+			throw new IllegalStateException(
+					"SmileMessageSerializer has no ObjectMapper; request static injection of it in the service's module"
+			);
+		}
+		return mapper;
+	}
+
+	private class Serializer implements NegotiatedSerializer<T, ByteString> {
+		private final MessageProtocol protocol;
+		private final ObjectMapper mapper;
+
+		private Serializer(final MessageProtocol protocol, final ObjectMapper mapper) {
+			this.protocol = protocol;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public MessageProtocol protocol() {
+			return this.protocol;
+		}
+
+		@Override
+		public ByteString serialize(final T message) {
+			try {
+				final ByteStringBuilder builder = ByteString.createBuilder();
+				this.mapper.writeValue(builder.asOutputStream(), message);
+				return builder.result();
+			} catch (IOException e) {
+				throw new SerializationException(e);
+			}
+		}
+	}
+
+	private class Deserializer implements NegotiatedDeserializer<T, ByteString> {
+		private final ObjectMapper mapper;
+		private final JavaType javaType;
+
+		private Deserializer(final ObjectMapper mapper) {
+			this.mapper = mapper;
+			this.javaType = mapper.getTypeFactory().constructType(type);
+		}
+
+		@Override
+		public T deserialize(final ByteString wire) {
+			try {
+				return this.mapper.readValue(wire.iterator().asInputStream(), this.javaType);
+			} catch (IOException e) {
+				throw new DeserializationException(e);
+			}
+		}
+	}
+}
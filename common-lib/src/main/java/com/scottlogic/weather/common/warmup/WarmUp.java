@@ -0,0 +1,170 @@
+package com.scottlogic.weather.common.warmup;
+
+import akka.actor.ActorSystem;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import akka.util.ByteString;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.MessageProtocol;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.common.serialization.SmileMessageSerializer;
+import com.typesafe.config.Config;
+import scala.concurrent.ExecutionContextExecutor;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * <p>
+ *   Runs a service's slow first-time work at startup, rather than in its first requests: loading
+ *   data, building Jackson's serializers, opening connections, recovering entities. Each service
+ *   adds its steps as it is created, and reports itself ready, through its is-ready call, only once
+ *   they have all finished. A load balancer checking that call then sends no traffic to a node
+ *   still warming up; is-alive, meanwhile, answers as soon as the node is up.
+ * </p>
+ * <p>
+ *   Steps may be added from several places, so the service is not ready until the warm-up has also
+ *   been sealed, once the last of them has been added; otherwise steps which finish quickly could
+ *   make it look ready before the rest had even been added.
+ * </p>
+ * <p>
+ *   Steps run at once, side by side. Warm-up only saves time, so a step that fails is logged and
+ *   counted as finished, and once {@code warm-up.timeout} has passed the service is ready whatever
+ *   is still running. With {@code warm-up.enabled} off, no steps are run and the service is ready
+ *   straight away.
+ * </p>
+ */
+@Singleton
+public class WarmUp {
+	private final LoggingAdapter log;
+	private final ExecutionContextExecutor executor;
+	private final boolean enabled;
+	// One more than the steps running, until sealed.
+	private final AtomicInteger running = new AtomicInteger(1);
+	private final AtomicBoolean sealed = new AtomicBoolean();
+	private final AtomicBoolean finished = new AtomicBoolean();
+
+	@Inject
+	public WarmUp(final ActorSystem actorSystem, final Config config) {
+		this.log = Logging.getLogger(actorSystem, this);
+		this.executor = actorSystem.dispatcher();
+
+		final Config warmUpConfig = config.getConfig("warm-up");
+		this.enabled = warmUpConfig.getBoolean("enabled");
+		if (this.enabled) {
+			final long timeoutMillis = warmUpConfig.getDuration("timeout", TimeUnit.MILLISECONDS);
+			actorSystem.scheduler().scheduleOnce(
+					FiniteDuration.create(timeoutMillis, TimeUnit.MILLISECONDS),
+					this::timeOut,
+					this.executor
+			);
+		}
+	}
+
+	/**
+	 * Starts a step, which the service is not ready until it has finished. Steps must all be added
+	 * before the warm-up is sealed.
+	 */
+	public void add(final String name, final Supplier<? extends CompletionStage<?>> step) {
+		if (this.sealed.get()) {
+			throw new IllegalStateException("Warm-up step [" + name + "] added after the warm-up was sealed");
+		}
+		if (!this.enabled) {
+			return;
+		}
+
+		this.running.incrementAndGet();
+		final long start = System.nanoTime();
+		CompletableFuture.supplyAsync(step, this.executor)
+				.thenCompose(started -> started)
+				.whenComplete((done, failure) -> {
+					final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					if (failure == null) {
+						log.info("Warm-up step [{}] finished in {}ms", name, millis);
+					} else {
+						log.warning("Warm-up step [{}] failed after {}ms: {}", name, millis, failure);
+					}
+					stepFinished();
+				});
+	}
+
+	/**
+	 * Declares that every step has been added, so that the service is ready once they have
+	 * finished. Sealing again does nothing.
+	 */
+	public void seal() {
+		if (this.sealed.compareAndSet(false, true)) {
+			stepFinished();
+		}
+	}
+
+	/**
+	 * Starts a step which writes each of the sample messages, and reads it back as its type, in
+	 * each format that SmileMessageSerializer speaks, so that Jackson has built its serializers
+	 * and deserializers for those types before the first real message. The samples are only made
+	 * once the step runs.
+	 */
+	public void addMessages(final String name, final Supplier<Map<Type, Object>> samples) {
+		add(name, () -> {
+			final Map<Type, Object> messages = samples.get();
+			messages.forEach(WarmUp::writeAndRead);
+			return completedFuture(messages.size());
+		});
+	}
+
+	public boolean isReady() {
+		return !this.enabled || this.finished.get();
+	}
+
+	/**
+	 * For a service's is-ready call: answers if the service is ready, and otherwise fails with a
+	 * 503, as a load balancer expects of a node not yet taking traffic.
+	 */
+	public CompletionStage<String> readiness(final String serviceName) {
+		if (isReady()) {
+			return completedFuture("Service \"" + serviceName + "\" is ready");
+		}
+		final CompletableFuture<String> notReady = new CompletableFuture<>();
+		notReady.completeExceptionally(TransportException.fromCodeAndMessage(
+				TransportErrorCode.ServiceUnavailable,
+				new ExceptionMessage("ServiceUnavailable", "Service \"" + serviceName + "\" is still warming up")
+		));
+		return notReady;
+	}
+
+	private void stepFinished() {
+		if (this.running.decrementAndGet() == 0 && this.finished.compareAndSet(false, true)) {
+			log.info("Warm-up finished; ready");
+		}
+	}
+
+	private void timeOut() {
+		if (this.finished.compareAndSet(false, true)) {
+			final boolean wasSealed = this.sealed.get();
+			final int stillRunning = this.running.get() - (wasSealed ? 0 : 1);
+			log.warning("Warm-up timed out with {} steps still running{}; ready anyway",
+					stillRunning, wasSealed ? "" : " and not sealed");
+		}
+	}
+
+	private static void writeAndRead(final Type type, final Object sample) {
+		final SmileMessageSerializer<Object> serializer = SmileMessageSerializer.of(type);
+		for (final MessageProtocol protocol : serializer.acceptResponseProtocols()) {
+			final ByteString wire = serializer.serializerForResponse(Collections.singletonList(protocol)).serialize(sample);
+			serializer.deserializer(protocol).deserialize(wire);
+		}
+	}
+}
@@ -1,42 +1,88 @@
 package com.scottlogic.weather.owmadapter.api;
 
 import akka.NotUsed;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.lightbend.lagom.javadsl.api.Descriptor;
 import com.lightbend.lagom.javadsl.api.Service;
 import com.lightbend.lagom.javadsl.api.ServiceCall;
+import com.scottlogic.weather.common.serialization.SmileMessageSerializer;
+import com.scottlogic.weather.owmadapter.api.message.LatLng;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
 import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.owmadapter.api.message.stats.AdapterStats;
 
+import java.lang.reflect.Type;
 import java.util.List;
 
 import static com.lightbend.lagom.javadsl.api.Service.named;
 import static com.lightbend.lagom.javadsl.api.Service.restCall;
 import static com.lightbend.lagom.javadsl.api.transport.Method.GET;
+import static com.lightbend.lagom.javadsl.api.transport.Method.POST;
 
 /**
  * The OpenWeatherMap Adapter interface.
  * <p>
- * Describes everything Lagom needs for serving and consuming this adapter service.
+ * Describes everything Lagom needs for serving and consuming this adapter service. Weather data
+ * is sent as Smile rather than JSON wherever both ends support it; see SmileMessageSerializer.
  * </p>
  */
 public interface OwmAdapter extends Service {
 
 	@Override
 	default Descriptor descriptor() {
+		final Type weatherDataList = new TypeReference<List<WeatherData>>() {}.getType();
+
 		return named("owm-adapter")
 				.withCalls(
 						restCall(GET, "/api/owm-adapter/is-alive", this::isAlive),
+						restCall(GET, "/api/owm-adapter/is-ready", this::isReady),
+						restCall(GET, "/api/owm-adapter/stats", this::getStats),
 						restCall(GET, "/api/owm-adapter/current?location", this::getCurrentWeatherByName),
 						restCall(GET, "/api/owm-adapter/current/:id", this::getCurrentWeatherById),
+						restCall(POST, "/api/owm-adapter/current", this::getCurrentWeatherByIds),
 						restCall(GET, "/api/owm-adapter/forecast?location", this::getWeatherForecastByName),
-						restCall(GET, "/api/owm-adapter/forecast/:id", this::getWeatherForecastById)
+						restCall(GET, "/api/owm-adapter/forecast/:id", this::getWeatherForecastById),
+						restCall(GET, "/api/owm-adapter/weather-and-forecast?location", this::getWeatherAndForecastByName),
+						restCall(GET, "/api/owm-adapter/weather-and-forecast/:id", this::getWeatherAndForecastById),
+						restCall(POST, "/api/owm-adapter/timezones", this::getTimezones)
 				)
+				.withMessageSerializer(WeatherData.class, SmileMessageSerializer.of(WeatherData.class))
+				.withMessageSerializer(weatherDataList, SmileMessageSerializer.of(weatherDataList))
+				.withMessageSerializer(WeatherAndForecast.class, SmileMessageSerializer.of(WeatherAndForecast.class))
 				.withAutoAcl(true);
 	}
 
 	ServiceCall<NotUsed, String> isAlive();
+
+	/**
+	 * Answers once the adapter has warmed up, and is ready for traffic; until then, fails with a 503.
+	 */
+	ServiceCall<NotUsed, String> isReady();
+
+	ServiceCall<NotUsed, AdapterStats> getStats();
 	ServiceCall<NotUsed, WeatherData> getCurrentWeatherByName(String location);
 	ServiceCall<NotUsed, WeatherData> getCurrentWeatherById(int id);
+
+	/**
+	 * Current weather for each of the given location ids, in the same order; ids that OWM does not
+	 * recognise are omitted.
+	 */
+	ServiceCall<List<Integer>, List<WeatherData>> getCurrentWeatherByIds();
+
 	ServiceCall<NotUsed, List<WeatherData>> getWeatherForecastByName(String location);
 	ServiceCall<NotUsed, List<WeatherData>> getWeatherForecastById(int location);
 
+	/**
+	 * Current weather and forecast together; where the adapter is configured to use OWM's One Call
+	 * endpoint, this costs a single upstream request rather than two.
+	 */
+	ServiceCall<NotUsed, WeatherAndForecast> getWeatherAndForecastByName(String location);
+	ServiceCall<NotUsed, WeatherAndForecast> getWeatherAndForecastById(int location);
+
+	/**
+	 * The timezone id, such as "Europe/London", at each of the given points, in the same order;
+	 * for services which need timezones without weather. OWM is not involved.
+	 */
+	ServiceCall<List<LatLng>, List<String>> getTimezones();
+
 }
@@ -0,0 +1,105 @@
+package com.scottlogic.weather.owmadapter.api;
+
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * <p>
+ *   The time by which a caller needs its answer, after which any work still under way for it is
+ *   wasted. Each hop caps its own timeouts at the time remaining, and gives up once it has passed.
+ * </p>
+ * <p>
+ *   Callers pass the deadline on in a header, e.g.
+ *   {@code owmAdapter.getCurrentWeatherByName(location).handleRequestHeader(deadline.header())}.
+ *   The header carries the milliseconds remaining rather than a point in time, so that the hosts'
+ *   clocks need not agree; the receiver counts down from when the request arrives, which means the
+ *   time spent in transit is not deducted. Requests without the header have no deadline.
+ * </p>
+ * <p>
+ *   A budget beyond {@link #MAX_BUDGET} is taken as that, so that a caller cannot overflow the
+ *   arithmetic, nor ask for a timer longer than the scheduler allows.
+ * </p>
+ */
+public final class RequestDeadline {
+	public static final String HEADER_NAME = "X-Request-Budget";
+	public static final RequestDeadline NONE = new RequestDeadline(Long.MAX_VALUE);
+	public static final Duration MAX_BUDGET = Duration.ofDays(1);
+
+	private final long deadlineNanos; // by System.nanoTime()
+
+	private RequestDeadline(final long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	public static RequestDeadline in(final Duration budget) {
+		final Duration capped = budget.compareTo(MAX_BUDGET) > 0 ? MAX_BUDGET : budget;
+		return new RequestDeadline(System.nanoTime() + capped.toNanos());
+	}
+
+	public static RequestDeadline of(final RequestHeader requestHeader) {
+		return requestHeader.getHeader(HEADER_NAME)
+				.flatMap(RequestDeadline::parseMillis)
+				.map(millis -> in(Duration.ofMillis(Math.min(millis, MAX_BUDGET.toMillis()))))
+				.orElse(NONE);
+	}
+
+	public boolean isNone() {
+		return this.deadlineNanos == Long.MAX_VALUE;
+	}
+
+	/**
+	 * Time left before the deadline, never negative; effectively forever if there is none.
+	 */
+	public Duration remaining() {
+		if (isNone()) {
+			return Duration.ofNanos(Long.MAX_VALUE);
+		}
+		return Duration.ofNanos(Math.max(0, this.deadlineNanos - System.nanoTime()));
+	}
+
+	public boolean hasExpired() {
+		return !isNone() && this.deadlineNanos - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * The lesser of the given timeout and the time remaining.
+	 */
+	public Duration cap(final Duration timeout) {
+		final Duration remaining = remaining();
+		return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+	}
+
+	public RequestDeadline earliest(final RequestDeadline other) {
+		if (isNone()) {
+			return other;
+		}
+		if (other.isNone()) {
+			return this;
+		}
+		return this.deadlineNanos - other.deadlineNanos <= 0 ? this : other;
+	}
+
+	public Function<RequestHeader, RequestHeader> header() {
+		if (isNone()) {
+			return Function.identity();
+		}
+		return requestHeader -> requestHeader.withHeader(HEADER_NAME, Long.toString(remaining().toMillis()));
+	}
+
+	@Override
+	public String toString() {
+		return isNone() ? "RequestDeadline(none)" : "RequestDeadline(in " + remaining().toMillis() + "ms)";
+	}
+
+	private static Optional<Long> parseMillis(final String value) {
+		try {
+			final long millis = Long.parseLong(value.trim());
+			return millis >= 0 ? Optional.of(millis) : Optional.empty();
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+}
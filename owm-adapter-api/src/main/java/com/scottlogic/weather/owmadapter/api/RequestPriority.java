@@ -0,0 +1,34 @@
+package com.scottlogic.weather.owmadapter.api;
+
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+
+import java.util.function.Function;
+
+/**
+ * <p>
+ *   How urgently a caller needs its request to reach OpenWeatherMap, when the adapter has to ration
+ *   its quota. Interactive requests always go ahead of background ones.
+ * </p>
+ * <p>
+ *   Callers declare the priority of a request in a header, e.g.
+ *   {@code owmAdapter.getCurrentWeatherByName(location).handleRequestHeader(BACKGROUND.header())};
+ *   requests without the header are treated as interactive.
+ * </p>
+ */
+public enum RequestPriority {
+	INTERACTIVE,
+	BACKGROUND;
+
+	public static final String HEADER_NAME = "X-Request-Priority";
+
+	public Function<RequestHeader, RequestHeader> header() {
+		return requestHeader -> requestHeader.withHeader(HEADER_NAME, name());
+	}
+
+	public static RequestPriority of(final RequestHeader requestHeader) {
+		return requestHeader.getHeader(HEADER_NAME)
+				.filter(BACKGROUND.name()::equalsIgnoreCase)
+				.map(value -> BACKGROUND)
+				.orElse(INTERACTIVE);
+	}
+}
@@ -0,0 +1,15 @@
+package com.scottlogic.weather.owmadapter.api.message;
+
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+
+/**
+ * The caller's deadline passed before its answer was ready (see RequestDeadline).
+ */
+public final class DeadlineExceeded extends TransportException {
+	public static final TransportErrorCode ERROR_CODE = TransportErrorCode.fromHttp(504);
+
+	public DeadlineExceeded(final String message) {
+		super(ERROR_CODE, message);
+	}
+}
@@ -0,0 +1,14 @@
+package com.scottlogic.weather.owmadapter.api.message;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A point on the globe, in degrees.
+ */
+@Value
+@Builder
+public class LatLng {
+	double latitude;
+	double longitude;
+}
@@ -0,0 +1,17 @@
+package com.scottlogic.weather.owmadapter.api.message;
+
+import com.lightbend.lagom.serialization.Jsonable;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Current weather and forecast for a location, fetched together.
+ */
+@Value
+@Builder
+public class WeatherAndForecast implements Jsonable {
+	WeatherData current;
+	List<WeatherData> forecast;
+}
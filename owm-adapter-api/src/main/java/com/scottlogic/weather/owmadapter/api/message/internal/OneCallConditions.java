@@ -0,0 +1,37 @@
+package com.scottlogic.weather.owmadapter.api.message.internal;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Value
+@Builder(toBuilder = true)
+public class OneCallConditions {
+	@JsonProperty("dt")
+	@JsonFormat(shape=JsonFormat.Shape.NUMBER, pattern="s")
+	Instant measuredAt;
+
+	// Current conditions only.
+	@JsonFormat(shape=JsonFormat.Shape.NUMBER, pattern="s")
+	Instant sunrise;
+
+	@JsonFormat(shape=JsonFormat.Shape.NUMBER, pattern="s")
+	Instant sunset;
+
+	BigDecimal temp;
+
+	short humidity; // percent
+
+	@JsonProperty("wind_speed")
+	BigDecimal windSpeed;
+
+	@JsonProperty("wind_deg")
+	short windFromDegrees;
+
+	List<Weather> weather;
+}
@@ -0,0 +1,44 @@
+package com.scottlogic.weather.owmadapter.api.message.internal;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Value
+@Builder
+public class OneCallDay {
+	@JsonProperty("dt")
+	@JsonFormat(shape=JsonFormat.Shape.NUMBER, pattern="s")
+	Instant measuredAt;
+
+	@JsonProperty("temp")
+	DailyTemperature temperature;
+
+	short humidity; // percent
+
+	@JsonProperty("wind_speed")
+	BigDecimal windSpeed;
+
+	@JsonProperty("wind_deg")
+	short windFromDegrees;
+
+	List<Weather> weather;
+
+	@Value
+	@Builder
+	public static class DailyTemperature {
+		BigDecimal min;
+		BigDecimal max;
+
+		// At about 00:00, 06:00, 12:00 and 18:00 local time.
+		BigDecimal night;
+		BigDecimal morn;
+		BigDecimal day;
+		BigDecimal eve;
+	}
+}
@@ -0,0 +1,16 @@
+package com.scottlogic.weather.owmadapter.api.message.internal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+@JsonDeserialize
+public class OwmGroupWeatherResponse {
+	@JsonProperty("list")
+	List<OwmCurrentWeatherResponse> weatherData;
+}
@@ -0,0 +1,28 @@
+package com.scottlogic.weather.owmadapter.api.message.internal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Response from OWM's One Call endpoint: current conditions, hourly forecasts for 48 hours and
+ * daily forecasts for a week, for a pair of coordinates.
+ */
+@Value
+@Builder
+@JsonDeserialize
+public class OwmOneCallResponse {
+	@JsonProperty("timezone")
+	String zoneId;
+
+	OneCallConditions current;
+
+	@JsonProperty("hourly")
+	List<OneCallConditions> hourlyForecasts;
+
+	@JsonProperty("daily")
+	List<OneCallDay> dailyForecasts;
+}
@@ -0,0 +1,29 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Live operational state of the adapter, for sizing and diagnosing our use of OpenWeatherMap.
+ */
+@Value
+@Builder
+public class AdapterStats {
+	ConnectionPoolStats connectionPool;
+	CoalescingStats coalescing;
+	CacheStats cache;
+	NegativeCacheStats negativeCache;
+	SchedulerStats scheduler; // all API keys together
+	List<ApiKeyStats> apiKeys;
+	BatchingStats batching;
+	CircuitBreakerStats circuitBreaker;
+	ConcurrencyLimitStats concurrencyLimit;
+	HedgingStats hedging;
+	CityIndexStats cityIndex;
+	OneCallStats oneCall;
+	TimezoneCacheStats timezones;
+	DeadlineStats deadlines;
+	List<BulkheadStats> bulkheads;
+}
@@ -0,0 +1,12 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ApiKeyStats {
+	String apiKey;    // masked; only the last few characters are shown
+	boolean refused;  // recently refused by OWM, so not in use
+	SchedulerStats scheduler;
+}
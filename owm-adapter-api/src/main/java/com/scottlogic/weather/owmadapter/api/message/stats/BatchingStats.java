@@ -0,0 +1,15 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class BatchingStats {
+	int maxBatchSize;
+
+	// Totals since startup
+	long requests;   // by-id current weather requests received
+	long batches;    // calls made to OWM for them
+	long groupCalls; // of which, calls to OWM's group endpoint
+}
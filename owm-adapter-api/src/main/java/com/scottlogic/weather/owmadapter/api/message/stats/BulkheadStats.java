@@ -0,0 +1,19 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class BulkheadStats {
+	String name;       // upstream-io, transform or timezone
+	String dispatcher; // the Akka dispatcher it runs on
+
+	// Live state
+	int queued; // tasks waiting for a thread
+	int active; // threads busy with a task
+
+	// Totals since startup
+	long completed;
+	long rejected;
+}
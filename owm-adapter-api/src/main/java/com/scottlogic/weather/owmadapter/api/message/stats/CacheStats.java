@@ -0,0 +1,17 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CacheStats {
+	int maxEntries;
+	int entries;
+
+	// Totals since startup
+	long hits;
+	long misses;
+	long evictions;   // removed to make room, while still fresh
+	long expirations; // removed because OWM will have newer data
+}
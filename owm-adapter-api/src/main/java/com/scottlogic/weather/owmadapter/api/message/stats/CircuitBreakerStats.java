@@ -0,0 +1,20 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CircuitBreakerStats {
+	// Live state
+	String state; // CLOSED, OPEN or HALF_OPEN
+	int bufferedCalls;
+	int failureRate;  // percent of buffered calls
+	int slowCallRate; // percent of buffered calls
+
+	// State transitions and rejections since startup
+	long opened;
+	long halfOpened;
+	long closed;
+	long rejected;
+}
@@ -0,0 +1,14 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CityIndexStats {
+	int entries; // names indexed; 0 if no index is configured
+
+	// Totals since startup
+	long resolved;   // names resolved to an id
+	long unresolved; // names passed to OWM as they are
+}
@@ -0,0 +1,12 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class CoalescingStats {
+	int inFlight;       // distinct requests currently awaiting OWM
+	long upstreamCalls; // requests actually sent on to OWM
+	long coalesced;     // requests that shared an in-flight result instead
+}
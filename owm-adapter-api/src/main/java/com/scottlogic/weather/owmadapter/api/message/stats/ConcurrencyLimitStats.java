@@ -0,0 +1,21 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ConcurrencyLimitStats {
+	// Live state
+	int limit;           // requests allowed in flight to OWM at once, as adapted so far
+	int minLimit;
+	int maxLimit;
+	long baselineMillis; // quickest recent response time, against which others are judged; -1 until known
+	int inFlight;
+	int queued;
+
+	// Totals since startup
+	long increases;
+	long decreases;
+	long rejected;       // requests refused with a 503, as the queue was full
+}
@@ -0,0 +1,23 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class ConnectionPoolStats {
+	// Configured limits
+	int maxConnections;
+	int maxOpenRequests;
+
+	// Live state
+	int openConnections;
+	int queued;   // waiting to be handed to the pool
+	int inFlight; // handed to the pool, awaiting a response
+
+	// Totals since startup
+	long connectionsOpened;
+	long completed;
+	long failed;
+	long rejected;
+}
@@ -0,0 +1,14 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class DeadlineStats {
+	// Totals since startup
+	long received;            // requests that arrived with a deadline
+	long expiredOnArrival;    // of which, already past it when they arrived
+	long abandoned;           // callers answered with DeadlineExceeded, their work left unfinished
+	long owmRequestsSkipped;  // requests not sent to OWM, as their deadline passed while queued for quota
+}
@@ -0,0 +1,15 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class HedgingStats {
+	boolean enabled;
+	long delayMillis; // current delay before hedging, or -1 if not yet known
+
+	// Totals since startup
+	long hedged;    // second requests sent
+	long hedgeWins; // of which, answered before the first
+}
@@ -0,0 +1,18 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class NegativeCacheStats {
+	// Not Found, remembered per location
+	int notFoundEntries;
+	long notFoundRecorded;
+	long notFoundReplayed;
+
+	// Unauthorized, remembered per API key
+	int unauthorizedEntries;
+	long unauthorizedRecorded;
+	long unauthorizedReplayed;
+}
@@ -0,0 +1,15 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class OneCallStats {
+	boolean enabled;
+	int knownPlaces; // locations whose coordinates are known
+
+	// Totals since startup
+	long oneCalls;  // combined requests made to OWM's One Call endpoint
+	long fallbacks; // combined requests made as separate current weather and forecast requests
+}
@@ -0,0 +1,24 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SchedulerStats {
+	// Configured limits
+	int requestsPerMinute;
+	int burst;
+	int maxQueued;
+
+	// Live state
+	int availableTokens;
+	int queuedInteractive;
+	int queuedBackground;
+
+	// Totals since startup
+	long granted;
+	long rejected;
+	long expired; // dropped from the queue, as their deadline passed while they waited
+	long refunded; // tokens given back, as the request was not sent after all
+}
@@ -0,0 +1,14 @@
+package com.scottlogic.weather.owmadapter.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class TimezoneCacheStats {
+	int entries; // locations whose timezone is known
+
+	// Totals since startup
+	long hits;
+	long misses; // looked up in the timezone polygons
+}
@@ -0,0 +1,113 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.common.warmup.WarmUp;
+import com.scottlogic.weather.owmadapter.api.message.LatLng;
+import com.scottlogic.weather.owmadapter.api.message.Sun;
+import com.scottlogic.weather.owmadapter.api.message.Temperature;
+import com.scottlogic.weather.owmadapter.api.message.Weather;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.owmadapter.api.message.Wind;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.AdapterStats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ *   The adapter's warm-up steps (see WarmUp), started at boot: on its own, by Standalone, which
+ *   OwmAdapterModule creates eagerly; co-located, along with the OwmAdapter, by
+ *   OwmAdapterInProcessModule, and the host service then seals the warm-up once its own steps are
+ *   added too:
+ * </p>
+ * <ul>
+ *   <li>timezones: maps the timezone data, on the timezone dispatcher</li>
+ *   <li>owm-responses: decodes canned OWM responses, from src/main/resources/warm-up/owm-adapter,
+ *       building the decoder's field filters and Jackson's deserializers for OWM's messages</li>
+ *   <li>messages: writes and reads back the adapter's own messages, in JSON and Smile</li>
+ *   <li>owm-connection: opens the first pooled connection to OWM</li>
+ * </ul>
+ */
+@Singleton
+class AdapterWarmUp {
+
+	@Inject
+	AdapterWarmUp(final WarmUp warmUp, final OwmClient owmClient, final Bulkheads bulkheads) {
+		warmUp.add("timezones", () -> CompletableFuture.supplyAsync(
+				() -> TimezoneMapper.latLngToTimezoneString(51.51, -0.13),
+				bulkheads.timezone()
+		));
+		warmUp.add("owm-responses", () -> owmClient.decode(canned("weather.json"), OwmCurrentWeatherResponse.class)
+				.thenCombine(
+						owmClient.decode(canned("forecast.json"), OwmWeatherForecastResponse.class),
+						(current, forecast) -> forecast.getForecasts().size()
+				)
+		);
+		warmUp.addMessages("messages", AdapterWarmUp::sampleMessages);
+		warmUp.add("owm-connection", owmClient::connect);
+	}
+
+	private static ImmutableMap<Type, Object> sampleMessages() {
+		final OffsetDateTime now = OffsetDateTime.now();
+		final WeatherData current = WeatherData.builder()
+				.id(2643743)
+				.location("London, GB")
+				.measured(now)
+				.weather(Weather.builder().id(500).description("light rain").build())
+				.temperature(Temperature.builder()
+						.current(new BigDecimal("23.73"))
+						.minimum(new BigDecimal("23.61"))
+						.maximum(new BigDecimal("24.64"))
+						.humidity((short) 59)
+						.build()
+				)
+				.wind(Wind.builder().speed(new BigDecimal("7.33")).fromDegrees((short) 353).build())
+				.sun(Sun.builder().sunrise(now.minusHours(8)).sunset(now.plusHours(8)).build())
+				.build();
+		final List<WeatherData> forecast = ImmutableList.of(current.withSun(null), current.withSun(null));
+
+		return ImmutableMap.<Type, Object>builder()
+				.put(WeatherData.class, current)
+				.put(new TypeReference<List<WeatherData>>() {}.getType(), forecast)
+				.put(WeatherAndForecast.class, WeatherAndForecast.builder().current(current).forecast(forecast).build())
+				.put(new TypeReference<List<LatLng>>() {}.getType(), ImmutableList.of(LatLng.builder().latitude(51.51).longitude(-0.13).build()))
+				.put(AdapterStats.class, AdapterStats.builder().build())
+				.build();
+	}
+
+	private static ByteString canned(final String name) {
+		try (InputStream in = AdapterWarmUp.class.getResourceAsStream("/warm-up/owm-adapter/" + name)) {
+			return ByteString.fromArray(ByteStreams.toByteArray(in));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Canned OWM response " + name + " could not be read", e);
+		}
+	}
+
+	/**
+	 * For the adapter on its own: its steps are the only ones, so seals the warm-up once they have
+	 * been added, as they have by the time it is given the AdapterWarmUp.
+	 */
+	@Singleton
+	static class Standalone {
+
+		@Inject
+		Standalone(final WarmUp warmUp, final AdapterWarmUp steps) {
+			warmUp.seal();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.RequestPriority;
+import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
+import com.scottlogic.weather.owmadapter.api.message.stats.ApiKeyStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.SchedulerStats;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ *   Spreads requests to OpenWeatherMap across several API keys, each rationed by its own
+ *   {@link RequestScheduler}, so that our throughput is the sum of their quotas.
+ * </p>
+ * <p>
+ *   Each request goes to the key with the most budget left: the most tokens available, less any
+ *   requests already waiting for them. A key which OWM has recently refused (see
+ *   {@link NegativeCache}) is left out until the refusal expires.
+ * </p>
+ */
+class ApiKeyPool {
+
+	private final List<ApiKey> apiKeys;
+	private final Predicate<String> isRefused;
+
+	ApiKeyPool(
+			final List<String> apiKeys,
+			final Function<String, RequestScheduler> schedulerFactory,
+			final Predicate<String> isRefused
+	) {
+		if (apiKeys.isEmpty()) {
+			throw new IllegalArgumentException("At least one OpenWeatherMap API key is required");
+		}
+		this.apiKeys = apiKeys.stream()
+				.distinct()
+				.map(apiKey -> new ApiKey(apiKey, schedulerFactory.apply(apiKey)))
+				.collect(Collectors.toList());
+		this.isRefused = isRefused;
+	}
+
+	/**
+	 * The API keys that are not currently refused.
+	 */
+	List<String> usableKeys() {
+		return this.apiKeys.stream()
+				.map(ApiKey::getValue)
+				.filter(this.isRefused.negate())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Completes with the API key to use once a request of the given priority may be sent to OWM;
+	 * fails with a 429 if even the key with most budget has too many requests waiting, or with
+	 * Unauthorized if OWM has refused every key.
+	 */
+	CompletionStage<String> acquire(final RequestPriority priority) {
+		return acquire(priority, RequestDeadline.NONE, Collections.emptySet());
+	}
+
+	/**
+	 * As {@link #acquire(RequestPriority)}, but failing with DeadlineExceeded if the deadline passes
+	 * while waiting, and never choosing any of the given keys; for a retry after OWM refused them.
+	 */
+	CompletionStage<String> acquire(final RequestPriority priority, final RequestDeadline deadline, final Set<String> excluded) {
+		ApiKey best = null;
+		double bestBudget = Double.NEGATIVE_INFINITY;
+		for (final ApiKey apiKey : this.apiKeys) {
+			if (excluded.contains(apiKey.value) || this.isRefused.test(apiKey.value)) {
+				continue;
+			}
+			final double budget = apiKey.scheduler.budget();
+			if (budget > bestBudget) {
+				best = apiKey;
+				bestBudget = budget;
+			}
+		}
+
+		if (best == null) {
+			final CompletableFuture<String> refused = new CompletableFuture<>();
+			refused.completeExceptionally(new Unauthorized("OpenWeatherMap has refused all of our API keys"));
+			return refused;
+		}
+		final String chosen = best.value;
+		return best.scheduler.acquire(priority, deadline).thenApply(granted -> chosen);
+	}
+
+	/**
+	 * Takes a token for the given key if one is free right now; see {@link RequestScheduler#tryAcquire()}.
+	 */
+	boolean tryAcquire(final String apiKey) {
+		return this.apiKeys.stream()
+				.filter(key -> key.value.equals(apiKey))
+				.anyMatch(key -> key.scheduler.tryAcquire());
+	}
+
+	/**
+	 * Gives back a token taken for the given key; see {@link RequestScheduler#refund()}.
+	 */
+	void refund(final String apiKey) {
+		this.apiKeys.stream()
+				.filter(key -> key.value.equals(apiKey))
+				.findFirst()
+				.ifPresent(key -> key.scheduler.refund());
+	}
+
+	/**
+	 * The schedulers of all keys, added together.
+	 */
+	SchedulerStats schedulerStats() {
+		return this.apiKeys.stream()
+				.map(apiKey -> apiKey.scheduler.stats())
+				.reduce((a, b) -> SchedulerStats.builder()
+						.requestsPerMinute(a.getRequestsPerMinute() + b.getRequestsPerMinute())
+						.burst(a.getBurst() + b.getBurst())
+						.maxQueued(a.getMaxQueued() + b.getMaxQueued())
+						.availableTokens(a.getAvailableTokens() + b.getAvailableTokens())
+						.queuedInteractive(a.getQueuedInteractive() + b.getQueuedInteractive())
+						.queuedBackground(a.getQueuedBackground() + b.getQueuedBackground())
+						.granted(a.getGranted() + b.getGranted())
+						.rejected(a.getRejected() + b.getRejected())
+						.expired(a.getExpired() + b.getExpired())
+						.refunded(a.getRefunded() + b.getRefunded())
+						.build()
+				)
+				.get();
+	}
+
+	List<ApiKeyStats> stats() {
+		return this.apiKeys.stream()
+				.map(apiKey -> ApiKeyStats.builder()
+						.apiKey(mask(apiKey.value))
+						.refused(this.isRefused.test(apiKey.value))
+						.scheduler(apiKey.scheduler.stats())
+						.build()
+				)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Enough of a key to tell which it is, without giving it away.
+	 */
+	static String mask(final String apiKey) {
+		return apiKey.length() <= 4
+				? "****"
+				: "****" + apiKey.substring(apiKey.length() - 4);
+	}
+
+	private static final class ApiKey {
+		private final String value;
+		private final RequestScheduler scheduler;
+
+		private ApiKey(final String value, final RequestScheduler scheduler) {
+			this.value = value;
+			this.scheduler = scheduler;
+		}
+
+		private String getValue() {
+			return this.value;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.dispatch.ExecutionContexts;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.message.stats.BulkheadStats;
+import scala.concurrent.ExecutionContextExecutor;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ *   Separate thread pools for the three kinds of work the adapter does, so that a backlog of one
+ *   cannot starve the others, nor the default dispatcher that serves every other call:
+ * </p>
+ * <ul>
+ *   <li>upstream-io: talking to OpenWeatherMap, i.e. the connection pool's streams, reading
+ *   response bodies, and the timers around them;</li>
+ *   <li>transform: turning OWM's responses into our own weather data;</li>
+ *   <li>timezone: finding the timezone of a location, which means testing it against polygons.</li>
+ * </ul>
+ * <p>
+ *   Each is an Akka dispatcher, configured under {@code source.owm.dispatchers}, and counts the
+ *   tasks it has queued and running.
+ * </p>
+ */
+@Singleton
+class Bulkheads {
+	private static final String CONFIG_PATH = "source.owm.dispatchers.";
+
+	private final Bulkhead upstreamIo;
+	private final Bulkhead transform;
+	private final Bulkhead timezone;
+
+	@Inject
+	Bulkheads(final ActorSystem actorSystem) {
+		this.upstreamIo = new Bulkhead(actorSystem, "upstream-io");
+		this.transform = new Bulkhead(actorSystem, "transform");
+		this.timezone = new Bulkhead(actorSystem, "timezone");
+	}
+
+	Bulkhead upstreamIo() {
+		return this.upstreamIo;
+	}
+
+	Bulkhead transform() {
+		return this.transform;
+	}
+
+	Bulkhead timezone() {
+		return this.timezone;
+	}
+
+	List<BulkheadStats> stats() {
+		return Stream.of(this.upstreamIo, this.transform, this.timezone)
+				.map(Bulkhead::stats)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Runs tasks on its dispatcher, keeping count of them on the way.
+	 */
+	static class Bulkhead implements Executor {
+		private final String name;
+		private final String dispatcherId;
+		private final ExecutionContextExecutor dispatcher;
+		private final ExecutionContextExecutor executionContext;
+
+		private final AtomicInteger queued = new AtomicInteger();
+		private final AtomicInteger active = new AtomicInteger();
+		private final LongAdder completed = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+
+		private Bulkhead(final ActorSystem actorSystem, final String name) {
+			this.name = name;
+			this.dispatcherId = CONFIG_PATH + name;
+			this.dispatcher = actorSystem.dispatchers().lookup(this.dispatcherId);
+			this.executionContext = ExecutionContexts.fromExecutor(this);
+		}
+
+		@Override
+		public void execute(final Runnable task) {
+			this.queued.incrementAndGet();
+			try {
+				this.dispatcher.execute(() -> {
+					this.queued.decrementAndGet();
+					this.active.incrementAndGet();
+					try {
+						task.run();
+					} finally {
+						this.completed.increment();
+						this.active.decrementAndGet();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				this.queued.decrementAndGet();
+				this.rejected.increment();
+				throw e;
+			}
+		}
+
+		/**
+		 * For Akka and Scala APIs, such as the scheduler, that take an ExecutionContext.
+		 */
+		ExecutionContextExecutor executionContext() {
+			return this.executionContext;
+		}
+
+		/**
+		 * For work that Akka runs on the dispatcher directly, such as streams; that is not counted.
+		 */
+		String dispatcherId() {
+			return this.dispatcherId;
+		}
+
+		BulkheadStats stats() {
+			return BulkheadStats.builder()
+					.name(this.name)
+					.dispatcher(this.dispatcherId)
+					.queued(this.queued.get())
+					.active(this.active.get())
+					.completed(this.completed.sum())
+					.rejected(this.rejected.sum())
+					.build();
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.message.stats.CityIndexStats;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   Resolves place names, such as "London, GB", to OpenWeatherMap city ids, so that the adapter can
+ *   always ask OWM by id. Every spelling of a city then shares one cache entry, and can be batched
+ *   with requests for other cities.
+ * </p>
+ * <p>
+ *   The index is a file built from OWM's city list by {@link CityIndexWriter}, and memory-mapped
+ *   rather than read, so it is available as soon as it is opened and costs no heap. It is an
+ *   open-addressing hash table of normalised names (see {@link RequestKey}) with and without
+ *   country code; names which are ambiguous (there are a great many Springfields) are left out, so
+ *   that OWM can resolve them itself. Lookups hash and compare the name in place, without
+ *   allocating.
+ * </p>
+ * <p>
+ *   If no index is configured, nothing is resolved and names are passed to OWM as before.
+ * </p>
+ * <pre>
+ *   header: int magic, int version, int slot count (a power of two), int entry count
+ *   slots:  per slot, int hash, int key offset (0 if empty), int city id
+ *   keys:   per key, unsigned short length, then the normalised name in UTF-8
+ * </pre>
+ */
+@Singleton
+class CityIndex {
+	static final int UNKNOWN = -1;
+
+	static final int MAGIC = 0x4f574d43; // "OWMC"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int SLOT_BYTES = 12;
+
+	private static final long END = -1L;
+	private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+	private static final int FNV_PRIME = 0x01000193;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final ByteBuffer index;
+	private final int mask;
+	private final int entries;
+	private final LongAdder resolved = new LongAdder();
+	private final LongAdder unresolved = new LongAdder();
+
+	@Inject
+	CityIndex(final Config config) {
+		this(pathFrom(config.getString("source.owm.city-index.path")));
+	}
+
+	CityIndex(final Path path) {
+		if (path == null) {
+			log.info("No city index configured; locations will be passed to OpenWeatherMap by name");
+			this.index = null;
+			this.mask = 0;
+			this.entries = 0;
+			return;
+		}
+
+		final long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			this.index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+		} catch (IOException e) {
+			throw new RuntimeException("City index [" + path + "] in config could not be opened", e);
+		}
+		if (this.index.capacity() < HEADER_BYTES || this.index.getInt(0) != MAGIC || this.index.getInt(4) != VERSION) {
+			throw new RuntimeException("City index [" + path + "] in config is not a version " + VERSION + " city index");
+		}
+		this.mask = this.index.getInt(8) - 1;
+		this.entries = this.index.getInt(12);
+
+		log.info("Opened city index [{}] of {} names in {}ms", path, this.entries,
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * The OWM id of the given place, or {@link #UNKNOWN} if the name is not in the index or is
+	 * ambiguous.
+	 */
+	int resolve(final String location) {
+		final int id = lookup(location);
+		if (id == UNKNOWN) {
+			this.unresolved.increment();
+		} else {
+			this.resolved.increment();
+		}
+		return id;
+	}
+
+	CityIndexStats stats() {
+		return CityIndexStats.builder()
+				.entries(this.entries)
+				.resolved(this.resolved.sum())
+				.unresolved(this.unresolved.sum())
+				.build();
+	}
+
+	private int lookup(final String location) {
+		if (this.index == null) {
+			return UNKNOWN;
+		}
+
+		final int start = trimmedStart(location);
+		final int end = trimmedEnd(location);
+		final int hash = hash(location, start, end);
+
+		for (int slot = hash & this.mask; ; slot = (slot + 1) & this.mask) {
+			final int position = HEADER_BYTES + slot * SLOT_BYTES;
+			final int keyOffset = this.index.getInt(position + 4);
+			if (keyOffset == 0) {
+				return UNKNOWN;
+			}
+			if (this.index.getInt(position) == hash && keyEquals(keyOffset, location, start, end)) {
+				return this.index.getInt(position + 8);
+			}
+		}
+	}
+
+	private boolean keyEquals(final int keyOffset, final String location, final int start, final int end) {
+		final int length = this.index.getShort(keyOffset) & 0xffff;
+		int position = keyOffset + 2;
+		final int limit = position + length;
+
+		for (long cursor = first(start); (cursor = next(location, end, cursor)) != END; ) {
+			final char c = (char) cursor;
+			final int bytes = encodedLength(c);
+			if (position + bytes > limit) {
+				return false;
+			}
+			for (int i = 0; i < bytes; i++) {
+				if (this.index.get(position++) != encodedByte(c, bytes, i)) {
+					return false;
+				}
+			}
+		}
+		return position == limit;
+	}
+
+	/**
+	 * The name in the normal form used by the index; for use when building it.
+	 */
+	static String normalise(final String location) {
+		final StringBuilder normalised = new StringBuilder(location.length());
+		final int end = trimmedEnd(location);
+		for (long cursor = first(trimmedStart(location)); (cursor = next(location, end, cursor)) != END; ) {
+			normalised.append((char) cursor);
+		}
+		return normalised.toString();
+	}
+
+	/**
+	 * FNV-1a hash of the UTF-8 encoding of the normalised name.
+	 */
+	static int hash(final String location, final int start, final int end) {
+		int hash = FNV_OFFSET_BASIS;
+		for (long cursor = first(start); (cursor = next(location, end, cursor)) != END; ) {
+			final char c = (char) cursor;
+			final int bytes = encodedLength(c);
+			for (int i = 0; i < bytes; i++) {
+				hash = (hash ^ (encodedByte(c, bytes, i) & 0xff)) * FNV_PRIME;
+			}
+		}
+		return hash;
+	}
+
+	/*
+	 * Names are normalised on the fly, a char at a time, by a cursor packed into a long: the index
+	 * of the next char to read in the high half, and the char just produced in the low 16 bits.
+	 * Whitespace is collapsed to a single space, except around commas where it is dropped, and
+	 * everything is lower-cased.
+	 */
+
+	private static long first(final int start) {
+		return (long) start << 32;
+	}
+
+	private static long next(final String location, final int end, final long cursor) {
+		final char previous = (char) cursor;
+		int i = (int) (cursor >>> 32);
+		while (i < end) {
+			final char c = location.charAt(i);
+			if (!Character.isWhitespace(c)) {
+				return ((long) (i + 1) << 32) | Character.toLowerCase(c);
+			}
+			// There is never trailing whitespace, as end is trimmed.
+			while (Character.isWhitespace(location.charAt(i))) {
+				i++;
+			}
+			if (previous != ',' && location.charAt(i) != ',') {
+				return ((long) i << 32) | ' ';
+			}
+		}
+		return END;
+	}
+
+	static int trimmedStart(final String location) {
+		int start = 0;
+		while (start < location.length() && Character.isWhitespace(location.charAt(start))) {
+			start++;
+		}
+		return start;
+	}
+
+	static int trimmedEnd(final String location) {
+		int end = location.length();
+		while (end > 0 && Character.isWhitespace(location.charAt(end - 1))) {
+			end--;
+		}
+		return end;
+	}
+
+	/*
+	 * Chars are encoded individually, so surrogates take three bytes each rather than four between
+	 * them; the writer encodes them the same way.
+	 */
+
+	static int encodedLength(final char c) {
+		return c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+	}
+
+	static byte encodedByte(final char c, final int length, final int i) {
+		switch (length) {
+			case 1:
+				return (byte) c;
+			case 2:
+				return (byte) (i == 0 ? 0xc0 | (c >> 6) : 0x80 | (c & 0x3f));
+			default:
+				return (byte) (i == 0 ? 0xe0 | (c >> 12) : i == 1 ? 0x80 | ((c >> 6) & 0x3f) : 0x80 | (c & 0x3f));
+		}
+	}
+
+	private static Path pathFrom(final String path) {
+		return path.isEmpty() ? null : Paths.get(path);
+	}
+}
@@ -0,0 +1,146 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ *   Builds a {@link CityIndex} file from OpenWeatherMap's city list, which can be downloaded from
+ *   http://bulk.openweathermap.org/sample/city.list.json.gz
+ * </p>
+ * <p>
+ *   Each city is indexed by name, and by name and country code. A name shared by more than one
+ *   city is left out of the index entirely.
+ * </p>
+ * <pre>
+ *   sbt "owm-adapter-impl/runMain com.scottlogic.weather.owmadapter.impl.CityIndexWriter city.list.json.gz city-index.bin"
+ * </pre>
+ */
+public final class CityIndexWriter {
+	private static final int AMBIGUOUS = Integer.MIN_VALUE;
+
+	private final Map<String, Integer> ids = new HashMap<>();
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: CityIndexWriter <city.list.json[.gz]> <index file>");
+			System.exit(1);
+		}
+
+		final CityIndexWriter writer = new CityIndexWriter();
+		final Path input = Paths.get(args[0]);
+		try (InputStream in = open(input);
+			 MappingIterator<JsonNode> cities = new ObjectMapper().readerFor(JsonNode.class).readValues(in)) {
+			while (cities.hasNext()) {
+				final JsonNode city = cities.next();
+				writer.add(city.path("name").asText(), city.path("country").asText(), city.path("id").asInt());
+			}
+		}
+
+		final int entries = writer.write(Paths.get(args[1]));
+		System.out.println("Indexed " + entries + " names");
+	}
+
+	/**
+	 * Adds a city under its name, and under its name qualified by country code if it has one.
+	 */
+	CityIndexWriter add(final String name, final String country, final int id) {
+		if (name.trim().isEmpty()) {
+			return this;
+		}
+		add(CityIndex.normalise(name), id);
+		if (!country.trim().isEmpty()) {
+			add(CityIndex.normalise(name + "," + country), id);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the index to the given file, returning the number of names indexed.
+	 */
+	int write(final Path path) throws IOException {
+		final Map<String, Integer> unambiguous = new HashMap<>();
+		this.ids.forEach((name, id) -> {
+			if (id != AMBIGUOUS) {
+				unambiguous.put(name, id);
+			}
+		});
+
+		// Keep the table at most half full, so that probe sequences stay short.
+		int slotCount = 2;
+		while (slotCount < unambiguous.size() * 2) {
+			slotCount <<= 1;
+		}
+
+		final ByteBuffer slots = ByteBuffer.allocate(slotCount * CityIndex.SLOT_BYTES);
+		final ByteBuffer keys = ByteBuffer.allocate(unambiguous.keySet().stream()
+				.mapToInt(name -> 2 + encodedLength(name))
+				.sum());
+		final int keysOffset = CityIndex.HEADER_BYTES + slots.capacity();
+
+		for (Map.Entry<String, Integer> entry : unambiguous.entrySet()) {
+			final String name = entry.getKey();
+			final int hash = CityIndex.hash(name, 0, name.length());
+
+			int slot = hash & (slotCount - 1);
+			while (slots.getInt(slot * CityIndex.SLOT_BYTES + 4) != 0) {
+				slot = (slot + 1) & (slotCount - 1);
+			}
+			slots.putInt(slot * CityIndex.SLOT_BYTES, hash);
+			slots.putInt(slot * CityIndex.SLOT_BYTES + 4, keysOffset + keys.position());
+			slots.putInt(slot * CityIndex.SLOT_BYTES + 8, entry.getValue());
+
+			keys.putShort((short) encodedLength(name));
+			for (int i = 0; i < name.length(); i++) {
+				final char c = name.charAt(i);
+				final int length = CityIndex.encodedLength(c);
+				for (int b = 0; b < length; b++) {
+					keys.put(CityIndex.encodedByte(c, length, b));
+				}
+			}
+		}
+
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+			out.writeInt(CityIndex.MAGIC);
+			out.writeInt(CityIndex.VERSION);
+			out.writeInt(slotCount);
+			out.writeInt(unambiguous.size());
+			out.write(slots.array());
+			out.write(keys.array());
+		}
+		return unambiguous.size();
+	}
+
+	private void add(final String name, final int id) {
+		if (encodedLength(name) > 0xffff) {
+			return;
+		}
+		this.ids.merge(name, id, (existing, added) -> existing.equals(added) ? existing : AMBIGUOUS);
+	}
+
+	private static int encodedLength(final String name) {
+		int length = 0;
+		for (int i = 0; i < name.length(); i++) {
+			length += CityIndex.encodedLength(name.charAt(i));
+		}
+		return length;
+	}
+
+	private static InputStream open(final Path path) throws IOException {
+		final InputStream in = new BufferedInputStream(Files.newInputStream(path));
+		return path.toString().endsWith(".gz") ? new GZIPInputStream(in) : in;
+	}
+}
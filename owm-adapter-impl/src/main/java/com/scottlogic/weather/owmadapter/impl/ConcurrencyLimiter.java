@@ -0,0 +1,225 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.owmadapter.api.message.stats.ConcurrencyLimitStats;
+import com.typesafe.config.Config;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>
+ *   Limits how many requests may be in flight to OpenWeatherMap at once, adapting the limit to how
+ *   OWM is coping: additive increase, multiplicative decrease (AIMD), driven by response times.
+ * </p>
+ * <p>
+ *   The baseline is the quickest response seen over the last window of samples. A request answered
+ *   within {@code tolerance} times the baseline, while the limit was at least half used, raises the
+ *   limit by one. A slower answer, or a timeout, server error or rate limiting, cuts it by the
+ *   {@code backoff-ratio} (see OwmFailures), as does a response cut short by its caller's deadline.
+ *   As the baseline is taken afresh from each window, it follows OWM if it becomes lastingly slower
+ *   or quicker.
+ * </p>
+ * <p>
+ *   A permit is held until OWM has answered, even if the caller has given up waiting by then, as
+ *   the request is still in flight.
+ * </p>
+ * <p>
+ *   Requests beyond the limit wait in a bounded queue, and once that is full are rejected
+ *   immediately with a 503.
+ * </p>
+ */
+class ConcurrencyLimiter {
+
+	private final Clock clock;
+	private final int minLimit;
+	private final int maxLimit;
+	private final int maxQueued;
+	private final double backoffRatio;
+	private final double tolerance;
+	private final int windowSize;
+
+	private final Deque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+	private double limit;
+	private int inFlight = 0;
+	private long baselineMillis = -1;
+	private long windowMinMillis = Long.MAX_VALUE;
+	private int windowSamples = 0;
+	private long increases = 0;
+	private long decreases = 0;
+	private long rejected = 0;
+
+	ConcurrencyLimiter(final Config limiterConfig, final Clock clock) {
+		this.clock = clock;
+		this.minLimit = limiterConfig.getInt("min-limit");
+		this.maxLimit = limiterConfig.getInt("max-limit");
+		this.maxQueued = limiterConfig.getInt("max-queued");
+		this.backoffRatio = limiterConfig.getDouble("backoff-ratio");
+		this.tolerance = limiterConfig.getDouble("tolerance");
+		this.windowSize = limiterConfig.getInt("window-size");
+		this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, limiterConfig.getInt("initial-limit")));
+	}
+
+	/**
+	 * Completes when a request may be sent, or fails with a 503 if there are already too many
+	 * waiting. The permit must be released once the request is answered.
+	 */
+	synchronized CompletionStage<Permit> acquire() {
+		if (this.waiting.isEmpty() && this.inFlight < currentLimit()) {
+			return CompletableFuture.completedFuture(grant());
+		}
+		if (this.waiting.size() >= this.maxQueued) {
+			this.rejected++;
+			final CompletableFuture<Permit> rejection = new CompletableFuture<>();
+			rejection.completeExceptionally(TransportException.fromCodeAndMessage(
+					TransportErrorCode.ServiceUnavailable,
+					new ExceptionMessage("ServiceUnavailable", "Too many concurrent requests to OpenWeatherMap")
+			));
+			return rejection;
+		}
+
+		final CompletableFuture<Permit> permit = new CompletableFuture<>();
+		this.waiting.add(permit);
+		return permit;
+	}
+
+	/**
+	 * A permit if a request may be sent right now, without waiting; for a hedged request, which is
+	 * only worth sending straight away.
+	 */
+	synchronized Optional<Permit> tryAcquire() {
+		if (this.waiting.isEmpty() && this.inFlight < currentLimit()) {
+			return Optional.of(grant());
+		}
+		return Optional.empty();
+	}
+
+	synchronized ConcurrencyLimitStats stats() {
+		return ConcurrencyLimitStats.builder()
+				.limit(currentLimit())
+				.minLimit(this.minLimit)
+				.maxLimit(this.maxLimit)
+				.baselineMillis(this.baselineMillis)
+				.inFlight(this.inFlight)
+				.queued(this.waiting.size())
+				.increases(this.increases)
+				.decreases(this.decreases)
+				.rejected(this.rejected)
+				.build();
+	}
+
+	private int currentLimit() {
+		return (int) this.limit;
+	}
+
+	private Permit grant() {
+		this.inFlight++;
+		return new Permit(this.clock.millis(), this.inFlight);
+	}
+
+	private void release(final Permit permit, final boolean sampled, final Throwable outcome) {
+		final List<CompletableFuture<Permit>> waiters = new ArrayList<>();
+		final List<Permit> permits = new ArrayList<>();
+		synchronized (this) {
+			this.inFlight--;
+			if (sampled) {
+				onSample(this.clock.millis() - permit.startMillis, permit.inFlightAtStart, isDropped(outcome));
+			}
+			while (!this.waiting.isEmpty() && this.inFlight < currentLimit()) {
+				waiters.add(this.waiting.poll());
+				permits.add(grant());
+			}
+		}
+		// Complete outside the lock, as completion runs the waiting callers' requests.
+		for (int i = 0; i < waiters.size(); i++) {
+			waiters.get(i).complete(permits.get(i));
+		}
+	}
+
+	private void onSample(final long latencyMillis, final int inFlightAtStart, final boolean dropped) {
+		if (!dropped) {
+			this.windowMinMillis = Math.min(this.windowMinMillis, latencyMillis);
+			if (++this.windowSamples >= this.windowSize || this.baselineMillis < 0) {
+				this.baselineMillis = this.windowMinMillis;
+			}
+			if (this.windowSamples >= this.windowSize) {
+				this.windowMinMillis = Long.MAX_VALUE;
+				this.windowSamples = 0;
+			}
+		}
+
+		// A baseline under a millisecond would make every later response look slow.
+		final boolean slow = this.baselineMillis >= 0 && latencyMillis > Math.max(1, this.baselineMillis) * this.tolerance;
+		if (dropped || slow) {
+			final double decreased = Math.max(this.minLimit, this.limit * this.backoffRatio);
+			if (decreased < this.limit) {
+				this.limit = decreased;
+				this.decreases++;
+			}
+		} else if (inFlightAtStart * 2 >= currentLimit() && this.limit < this.maxLimit) {
+			this.limit = Math.min(this.maxLimit, this.limit + 1);
+			this.increases++;
+		}
+	}
+
+	/**
+	 * Leave to send one request; release it with the request's outcome, or cancel it if the request
+	 * was not sent after all. Only the first of either counts; cancel tells whether it did.
+	 */
+	class Permit {
+		private final long startMillis;
+		private final int inFlightAtStart;
+		private boolean released = false;
+
+		private Permit(final long startMillis, final int inFlightAtStart) {
+			this.startMillis = startMillis;
+			this.inFlightAtStart = inFlightAtStart;
+		}
+
+		void release(final Throwable outcome) {
+			if (markReleased()) {
+				ConcurrencyLimiter.this.release(this, true, outcome);
+			}
+		}
+
+		boolean cancel() {
+			if (markReleased()) {
+				ConcurrencyLimiter.this.release(this, false, null);
+				return true;
+			}
+			return false;
+		}
+
+		private synchronized boolean markReleased() {
+			if (this.released) {
+				return false;
+			}
+			this.released = true;
+			return true;
+		}
+	}
+
+	/**
+	 * Whether OWM failed the request (see OwmFailures), or answered so slowly that the caller's
+	 * deadline cut the response short; either way the limit should come down.
+	 */
+	private static boolean isDropped(final Throwable outcome) {
+		return OwmFailures.isOverloaded(outcome) || unwrap(outcome) instanceof DeadlineExceeded;
+	}
+
+	private static Throwable unwrap(final Throwable throwable) {
+		return (throwable instanceof CompletionException && throwable.getCause() != null)
+				? throwable.getCause()
+				: throwable;
+	}
+}
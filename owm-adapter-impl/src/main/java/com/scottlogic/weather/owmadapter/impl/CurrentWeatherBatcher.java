@@ -0,0 +1,162 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.Done;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.RequestPriority;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.BatchingStats;
+import com.typesafe.config.Config;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ *   Gathers requests for current weather by location id over a short window, and sends them to
+ *   OpenWeatherMap together as a single call to its group endpoint; the results are then split
+ *   back out to each waiting caller. This spends one request of our quota where there would
+ *   otherwise have been up to 20.
+ * </p>
+ * <p>
+ *   A batch is sent when it is full or when the window closes, whichever comes first. A batch of
+ *   one uses the regular single-location endpoint, so a quiet service sees no difference. A batch
+ *   goes at the highest priority of any request within it.
+ * </p>
+ */
+@Singleton
+class CurrentWeatherBatcher {
+	// The most ids that OWM accepts in one group request.
+	private static final int OWM_MAX_GROUP_SIZE = 20;
+
+	private final OwmClient owmClient;
+	private final int maxBatchSize;
+	private final SourceQueueWithComplete<PendingRequest> queue;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder groupCalls = new LongAdder();
+
+	@Inject
+	CurrentWeatherBatcher(final OwmClient owmClient, final Materializer materializer, final Config config) {
+		final Config batchConfig = config.getConfig("source.owm.batch");
+		this.owmClient = owmClient;
+		this.maxBatchSize = Math.min(batchConfig.getInt("max-size"), OWM_MAX_GROUP_SIZE);
+
+		final FiniteDuration window = FiniteDuration.create(
+				batchConfig.getDuration("window", TimeUnit.MICROSECONDS), TimeUnit.MICROSECONDS
+		);
+		this.queue = Source.<PendingRequest>queue(batchConfig.getInt("max-queued"), OverflowStrategy.dropNew())
+				.groupedWithin(this.maxBatchSize, window)
+				.mapAsyncUnordered(batchConfig.getInt("max-concurrent-batches"), this::send)
+				.to(Sink.ignore())
+				.run(materializer);
+	}
+
+	CompletionStage<OwmCurrentWeatherResponse> getCurrentWeather(final int location, final RequestPriority priority) {
+		final PendingRequest request = new PendingRequest(location, priority);
+
+		this.requests.increment();
+		return this.queue.offer(request)
+				.thenCompose(result -> {
+					if (QueueOfferResult.enqueued().equals(result)) {
+						return request.response;
+					}
+					throw TransportException.fromCodeAndMessage(
+							TransportErrorCode.ServiceUnavailable,
+							new ExceptionMessage("ServiceUnavailable", "Too many requests waiting to be batched for OpenWeatherMap")
+					);
+				});
+	}
+
+	BatchingStats stats() {
+		return BatchingStats.builder()
+				.maxBatchSize(this.maxBatchSize)
+				.requests(this.requests.sum())
+				.batches(this.batches.sum())
+				.groupCalls(this.groupCalls.sum())
+				.build();
+	}
+
+	/**
+	 * Sends one batch to OWM and completes each of its requests; never fails, so that the batching
+	 * stream itself carries on regardless.
+	 */
+	private CompletionStage<Done> send(final List<PendingRequest> batch) {
+		final List<Integer> locations = batch.stream()
+				.map(request -> request.location)
+				.distinct()
+				.collect(Collectors.toList());
+		final RequestPriority priority = batch.stream()
+				.map(request -> request.priority)
+				.min(Comparator.naturalOrder())
+				.orElse(RequestPriority.INTERACTIVE);
+
+		this.batches.increment();
+		if (locations.size() == 1) {
+			return this.owmClient.getCurrentWeather(locations.get(0), priority)
+					.handle((response, throwable) -> {
+						batch.forEach(request -> request.complete(response, throwable));
+						return Done.getInstance();
+					});
+		}
+
+		this.groupCalls.increment();
+		return this.owmClient.getCurrentWeather(locations, priority)
+				.handle((groupResponse, throwable) -> {
+					if (throwable != null) {
+						batch.forEach(request -> request.complete(null, throwable));
+					} else {
+						final Map<Integer, OwmCurrentWeatherResponse> byLocation = groupResponse.getWeatherData().stream()
+								.collect(Collectors.toMap(OwmCurrentWeatherResponse::getId, Function.identity(), (a, b) -> a));
+						batch.forEach(request -> request.complete(byLocation.get(request.location), null));
+					}
+					return Done.getInstance();
+				});
+	}
+
+	private static final class PendingRequest {
+		private final int location;
+		private final RequestPriority priority;
+		private final CompletableFuture<OwmCurrentWeatherResponse> response = new CompletableFuture<>();
+
+		private PendingRequest(final int location, final RequestPriority priority) {
+			this.location = location;
+			this.priority = priority;
+		}
+
+		private void complete(final OwmCurrentWeatherResponse result, final Throwable throwable) {
+			if (throwable != null) {
+				this.response.completeExceptionally(
+						throwable instanceof CompletionException && throwable.getCause() != null
+								? throwable.getCause()
+								: throwable
+				);
+			} else if (result == null) {
+				// OWM leaves unknown ids out of a group response; report them as it would singly.
+				this.response.completeExceptionally(new NotFound("city not found"));
+			} else {
+				this.response.complete(result);
+			}
+		}
+	}
+}
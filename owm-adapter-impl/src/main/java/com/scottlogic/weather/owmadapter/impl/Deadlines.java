@@ -0,0 +1,94 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+import com.scottlogic.weather.common.concurrent.Timeouts;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.owmadapter.api.message.stats.DeadlineStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *   Enforces the deadlines that callers send with their requests: a caller still waiting when its
+ *   deadline passes is answered with {@link DeadlineExceeded} there and then, rather than being
+ *   left to time out for itself.
+ * </p>
+ * <p>
+ *   Abandoning a caller does not cancel work that is shared with others, such as a coalesced or
+ *   batched request to OpenWeatherMap; that runs with no deadline of its own, and its result is
+ *   cached for whoever asks next. Given a deadline, OwmClient avoids sending a request whose
+ *   deadline passed while it waited for quota, and counts those here too.
+ * </p>
+ */
+@Singleton
+class Deadlines {
+
+	private final Timeouts timeouts;
+
+	private final LongAdder received = new LongAdder();
+	private final LongAdder expiredOnArrival = new LongAdder();
+	private final LongAdder abandoned = new LongAdder();
+	private final LongAdder owmRequestsSkipped = new LongAdder();
+
+	@Inject
+	Deadlines(final ActorSystem actorSystem) {
+		this.timeouts = new Timeouts(actorSystem);
+	}
+
+	RequestDeadline received(final RequestHeader requestHeader) {
+		final RequestDeadline deadline = RequestDeadline.of(requestHeader);
+		if (!deadline.isNone()) {
+			this.received.increment();
+			if (deadline.hasExpired()) {
+				this.expiredOnArrival.increment();
+			}
+		}
+		return deadline;
+	}
+
+	/**
+	 * Starts the given work, unless the deadline has already passed, and answers with its result
+	 * or with {@link DeadlineExceeded}, whichever comes first.
+	 */
+	<T> CompletionStage<T> abandonAt(final RequestDeadline deadline, final Supplier<CompletionStage<T>> work) {
+		if (deadline.isNone()) {
+			return work.get();
+		}
+		if (deadline.hasExpired()) {
+			this.abandoned.increment();
+			return failed(exceeded());
+		}
+
+		return this.timeouts.within(deadline.remaining(), work.get(), this::exceeded, this.abandoned::increment);
+	}
+
+	void owmRequestSkipped() {
+		this.owmRequestsSkipped.increment();
+	}
+
+	DeadlineExceeded exceeded() {
+		return new DeadlineExceeded("Deadline passed before an answer was ready");
+	}
+
+	DeadlineStats stats() {
+		return DeadlineStats.builder()
+				.received(this.received.sum())
+				.expiredOnArrival(this.expiredOnArrival.sum())
+				.abandoned(this.abandoned.sum())
+				.owmRequestsSkipped(this.owmRequestsSkipped.sum())
+				.build();
+	}
+
+	private <T> CompletionStage<T> failed(final DeadlineExceeded exception) {
+		final CompletableFuture<T> failure = new CompletableFuture<>();
+		failure.completeExceptionally(exception);
+		return failure;
+	}
+}
@@ -0,0 +1,111 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.message.internal.City;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.OneCallStats;
+import com.typesafe.config.Config;
+import lombok.Value;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   Remembers where the locations we have been asked about are, for OWM's One Call endpoint,
+ *   which takes coordinates rather than a name or id, and doesn't say which city they belong to.
+ * </p>
+ * <p>
+ *   A place is learned from any current weather or forecast response, and remembered under the
+ *   name or id it was requested by, as well as its id. The least recently used place is forgotten
+ *   once there are too many.
+ * </p>
+ */
+@Singleton
+class KnownPlaces {
+
+	private final boolean oneCallEnabled;
+	private final int maxPlaces;
+	private final Map<RequestKey, Place> places;
+	private final LongAdder oneCalls = new LongAdder();
+	private final LongAdder fallbacks = new LongAdder();
+
+	@Inject
+	KnownPlaces(final Config config) {
+		final Config oneCallConfig = config.getConfig("source.owm.one-call");
+		this.oneCallEnabled = oneCallConfig.getBoolean("enabled");
+		this.maxPlaces = oneCallConfig.getInt("max-places");
+		this.places = new LinkedHashMap<RequestKey, Place>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<RequestKey, Place> eldest) {
+				return size() > maxPlaces;
+			}
+		};
+	}
+
+	boolean isOneCallEnabled() {
+		return this.oneCallEnabled;
+	}
+
+	synchronized Optional<Place> get(final RequestKey key) {
+		return Optional.ofNullable(this.places.get(placeKey(key)));
+	}
+
+	void countOneCall() {
+		this.oneCalls.increment();
+	}
+
+	void countFallback() {
+		this.fallbacks.increment();
+	}
+
+	synchronized OneCallStats stats() {
+		return OneCallStats.builder()
+				.enabled(this.oneCallEnabled)
+				.knownPlaces(this.places.size())
+				.oneCalls(this.oneCalls.sum())
+				.fallbacks(this.fallbacks.sum())
+				.build();
+	}
+
+	void learn(final RequestKey key, final OwmCurrentWeatherResponse response) {
+		learn(key, new Place(
+				response.getId(),
+				response.getName() + ", " + response.getLocaleData().getCountryCode(),
+				response.getCoordinates().getLatitude(),
+				response.getCoordinates().getLongitude()
+		));
+	}
+
+	void learn(final RequestKey key, final City city) {
+		learn(key, new Place(
+				city.getId(),
+				city.getName() + ", " + city.getCountryCode(),
+				city.getCoordinates().getLatitude(),
+				city.getCoordinates().getLongitude()
+		));
+	}
+
+	private synchronized void learn(final RequestKey key, final Place place) {
+		if (!this.oneCallEnabled) {
+			return;
+		}
+		this.places.put(placeKey(key), place);
+		this.places.put(RequestKey.oneCall(place.getId()), place);
+	}
+
+	private RequestKey placeKey(final RequestKey key) {
+		return key.withType(RequestKey.Type.ONE_CALL);
+	}
+
+	@Value
+	static class Place {
+		int id;
+		String location;
+		double latitude;
+		double longitude;
+	}
+}
@@ -0,0 +1,118 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.message.internal.Coordinates;
+import com.scottlogic.weather.owmadapter.api.message.stats.TimezoneCacheStats;
+import com.typesafe.config.Config;
+import lombok.Value;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   Remembers the timezone of each location we have had weather for, by OWM city id and
+ *   coordinates, so that it is looked up in the timezone polygons, and its ZoneId resolved, only
+ *   the first time. A city never moves, so entries never expire; the least recently used is
+ *   forgotten once there are too many.
+ * </p>
+ * <p>
+ *   {@link Offsets} then turns a run of instants into local times from the zone's rules, without
+ *   looking up the rules again for each.
+ * </p>
+ */
+@Singleton
+class LocationZones {
+
+	private final int maxEntries;
+	private final Map<Location, ZoneId> zones;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	@Inject
+	LocationZones(final Config config) {
+		this.maxEntries = config.getInt("source.owm.timezone-cache.max-entries");
+		this.zones = new LinkedHashMap<Location, ZoneId>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Location, ZoneId> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	synchronized Optional<ZoneId> get(final int id, final Coordinates coordinates) {
+		final Optional<ZoneId> zone = Optional.ofNullable(this.zones.get(Location.of(id, coordinates)));
+		if (zone.isPresent()) {
+			this.hits.increment();
+		} else {
+			this.misses.increment();
+		}
+		return zone;
+	}
+
+	synchronized ZoneId put(final int id, final Coordinates coordinates, final ZoneId zone) {
+		if (this.maxEntries > 0) {
+			this.zones.put(Location.of(id, coordinates), zone);
+		}
+		return zone;
+	}
+
+	synchronized TimezoneCacheStats stats() {
+		return TimezoneCacheStats.builder()
+				.entries(this.zones.size())
+				.hits(this.hits.sum())
+				.misses(this.misses.sum())
+				.build();
+	}
+
+	@Value(staticConstructor = "of")
+	private static class Location {
+		int id;
+		double latitude;
+		double longitude;
+
+		static Location of(final int id, final Coordinates coordinates) {
+			return of(id, coordinates.getLatitude(), coordinates.getLongitude());
+		}
+	}
+
+	/**
+	 * <p>
+	 *   Local times in one zone, for instants given in order, as those of a forecast are. The offset
+	 *   found for one instant is reused for the next until the zone's next transition, such as the
+	 *   start or end of daylight saving time, which is only a few times a year, if ever.
+	 * </p>
+	 * <p>
+	 *   Instants out of order are still right, just not as quick. Not thread safe; use one per run.
+	 * </p>
+	 */
+	static class Offsets {
+		private final ZoneRules rules;
+		private ZoneOffset offset;
+		private Instant from = Instant.MAX;
+		private Instant until = Instant.MIN;
+
+		Offsets(final ZoneId zone) {
+			this.rules = zone.getRules();
+		}
+
+		OffsetDateTime at(final Instant instant) {
+			if (instant.isBefore(this.from) || !instant.isBefore(this.until)) {
+				this.offset = this.rules.getOffset(instant);
+				final ZoneOffsetTransition next = this.rules.nextTransition(instant);
+				this.from = instant;
+				this.until = (next == null) ? Instant.MAX : next.getInstant();
+			}
+			return OffsetDateTime.ofInstant(instant, this.offset);
+		}
+	}
+}
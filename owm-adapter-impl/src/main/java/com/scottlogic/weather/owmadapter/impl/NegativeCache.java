@@ -0,0 +1,149 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
+import com.scottlogic.weather.owmadapter.api.message.stats.NegativeCacheStats;
+import com.typesafe.config.Config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   Remembers requests that OpenWeatherMap has recently refused, so that they can be failed again
+ *   straight away without spending any of our quota on an answer we already know.
+ * </p>
+ * <p>
+ *   Not Found is remembered per request, as it is specific to the location asked for; Unauthorized
+ *   is remembered per API key, as every request made with that key will be refused. Each has its
+ *   own TTL, and the original exception is replayed to callers.
+ * </p>
+ */
+class NegativeCache {
+
+	private final Clock clock;
+	private final int maxEntries;
+	private final Duration notFoundTtl;
+	private final Duration unauthorizedTtl;
+
+	private final Map<RequestKey, Entry> notFound;
+	private final Map<String, Entry> unauthorized = new HashMap<>();
+	private final LongAdder notFoundRecorded = new LongAdder();
+	private final LongAdder notFoundReplayed = new LongAdder();
+	private final LongAdder unauthorizedRecorded = new LongAdder();
+	private final LongAdder unauthorizedReplayed = new LongAdder();
+
+	NegativeCache(final Config negativeCacheConfig, final Clock clock) {
+		this.clock = clock;
+		this.maxEntries = negativeCacheConfig.getInt("max-entries");
+		this.notFoundTtl = negativeCacheConfig.getDuration("not-found-ttl");
+		this.unauthorizedTtl = negativeCacheConfig.getDuration("unauthorized-ttl");
+
+		this.notFound = new LinkedHashMap<RequestKey, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<RequestKey, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the exception to replay for the given request, if either its location or the API key
+	 * it would be made with have recently been refused.
+	 */
+	Optional<TransportException> get(final RequestKey key, final String apiKey) {
+		return get(key, Collections.singletonList(apiKey));
+	}
+
+	/**
+	 * Returns the exception to replay for the given request, if either its location or every one
+	 * of the API keys it could be made with have recently been refused.
+	 */
+	synchronized Optional<TransportException> get(final RequestKey key, final Collection<String> apiKeys) {
+		final Instant now = this.clock.instant();
+
+		TransportException unauthorizedException = null;
+		for (final String apiKey : apiKeys) {
+			unauthorizedException = live(this.unauthorized, apiKey, now);
+			if (unauthorizedException == null) {
+				break;
+			}
+		}
+		if (unauthorizedException != null) {
+			this.unauthorizedReplayed.increment();
+			return Optional.of(unauthorizedException);
+		}
+
+		final TransportException notFoundException = live(this.notFound, key, now);
+		if (notFoundException != null) {
+			this.notFoundReplayed.increment();
+			return Optional.of(notFoundException);
+		}
+
+		return Optional.empty();
+	}
+
+	/**
+	 * Whether OWM has recently refused the given API key.
+	 */
+	synchronized boolean isRefused(final String apiKey) {
+		return live(this.unauthorized, apiKey, this.clock.instant()) != null;
+	}
+
+	/**
+	 * Remembers the given failure if it is one that OWM would certainly repeat.
+	 */
+	synchronized void record(final RequestKey key, final String apiKey, final TransportException exception) {
+		final Instant now = this.clock.instant();
+
+		if (exception instanceof Unauthorized) {
+			this.unauthorized.put(apiKey, new Entry(exception, now.plus(this.unauthorizedTtl)));
+			this.unauthorizedRecorded.increment();
+		} else if (TransportErrorCode.NotFound.equals(exception.errorCode()) && this.maxEntries > 0) {
+			this.notFound.put(key, new Entry(exception, now.plus(this.notFoundTtl)));
+			this.notFoundRecorded.increment();
+		}
+	}
+
+	synchronized NegativeCacheStats stats() {
+		return NegativeCacheStats.builder()
+				.notFoundEntries(this.notFound.size())
+				.notFoundRecorded(this.notFoundRecorded.sum())
+				.notFoundReplayed(this.notFoundReplayed.sum())
+				.unauthorizedEntries(this.unauthorized.size())
+				.unauthorizedRecorded(this.unauthorizedRecorded.sum())
+				.unauthorizedReplayed(this.unauthorizedReplayed.sum())
+				.build();
+	}
+
+	private <K> TransportException live(final Map<K, Entry> entries, final K key, final Instant now) {
+		final Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (!now.isBefore(entry.expiresAt)) {
+			entries.remove(key);
+			return null;
+		}
+		return entry.exception;
+	}
+
+	private static final class Entry {
+		private final TransportException exception;
+		private final Instant expiresAt;
+
+		private Entry(final TransportException exception, final Instant expiresAt) {
+			this.exception = exception;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
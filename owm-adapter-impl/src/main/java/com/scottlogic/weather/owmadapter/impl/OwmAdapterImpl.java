@@ -1,37 +1,94 @@
 package com.scottlogic.weather.owmadapter.impl;
 
 import akka.NotUsed;
+import akka.japi.Pair;
 import com.google.inject.Inject;
 import com.lightbend.lagom.javadsl.api.ServiceCall;
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+import com.lightbend.lagom.javadsl.api.transport.ResponseHeader;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.lightbend.lagom.javadsl.server.ServerServiceCall;
+import com.scottlogic.weather.common.warmup.WarmUp;
 import com.scottlogic.weather.owmadapter.api.OwmAdapter;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.RequestPriority;
+import com.scottlogic.weather.owmadapter.api.message.LatLng;
 import com.scottlogic.weather.owmadapter.api.message.Sun;
 import com.scottlogic.weather.owmadapter.api.message.Temperature;
 import com.scottlogic.weather.owmadapter.api.message.Weather;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
 import com.scottlogic.weather.owmadapter.api.message.WeatherData;
 import com.scottlogic.weather.owmadapter.api.message.Wind;
 import com.scottlogic.weather.owmadapter.api.message.internal.City;
+import com.scottlogic.weather.owmadapter.api.message.internal.Coordinates;
+import com.scottlogic.weather.owmadapter.api.message.internal.OneCallConditions;
+import com.scottlogic.weather.owmadapter.api.message.internal.OneCallDay;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmOneCallResponse;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.AdapterStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
 
 public class OwmAdapterImpl implements OwmAdapter {
+	private static final long FORECAST_INTERVAL_SECS = 3 * 60 * 60;
+	private static final int FORECAST_ENTRIES = 40; // 5 days
+	// For requests to OWM, which may be shared by callers with different deadlines; see withRequestHeaders.
+	private static final RequestDeadline SHARED = RequestDeadline.NONE;
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 	private final OwmClient owmClient;
+	private final RequestCoalescer coalescer;
+	private final ResponseCache cache;
+	private final CurrentWeatherBatcher batcher;
+	private final CityIndex cityIndex;
+	private final KnownPlaces knownPlaces;
+	private final LocationZones locationZones;
+	private final Deadlines deadlines;
+	private final Bulkheads bulkheads;
+	private final WarmUp warmUp;
 
 	@Inject
-	public OwmAdapterImpl(final OwmClient owmClient) {
+	public OwmAdapterImpl(
+			final OwmClient owmClient,
+			final RequestCoalescer coalescer,
+			final ResponseCache cache,
+			final CurrentWeatherBatcher batcher,
+			final CityIndex cityIndex,
+			final KnownPlaces knownPlaces,
+			final LocationZones locationZones,
+			final Deadlines deadlines,
+			final Bulkheads bulkheads,
+			final WarmUp warmUp
+	) {
 		this.owmClient = owmClient;
+		this.coalescer = coalescer;
+		this.cache = cache;
+		this.batcher = batcher;
+		this.cityIndex = cityIndex;
+		this.knownPlaces = knownPlaces;
+		this.locationZones = locationZones;
+		this.deadlines = deadlines;
+		this.bulkheads = bulkheads;
+		this.warmUp = warmUp;
 	}
 
 	@Override
@@ -42,100 +99,397 @@ public class OwmAdapterImpl implements OwmAdapter {
 		);
 	}
 
+	@Override
+	public ServiceCall<NotUsed, String> isReady() {
+		return request -> this.warmUp.readiness(descriptor().name());
+	}
+
+	@Override
+	public ServiceCall<NotUsed, AdapterStats> getStats() {
+		return request -> completedFuture(
+				AdapterStats.builder()
+						.connectionPool(this.owmClient.connectionPoolStats())
+						.coalescing(this.coalescer.stats())
+						.cache(this.cache.stats())
+						.negativeCache(this.owmClient.negativeCacheStats())
+						.scheduler(this.owmClient.schedulerStats())
+						.apiKeys(this.owmClient.apiKeyStats())
+						.batching(this.batcher.stats())
+						.circuitBreaker(this.owmClient.circuitBreakerStats())
+						.concurrencyLimit(this.owmClient.concurrencyLimitStats())
+						.hedging(this.owmClient.hedgingStats())
+						.cityIndex(this.cityIndex.stats())
+						.oneCall(this.knownPlaces.stats())
+						.timezones(this.locationZones.stats())
+						.deadlines(this.deadlines.stats())
+						.bulkheads(this.bulkheads.stats())
+						.build()
+		);
+	}
+
 	@Override
 	public ServiceCall<NotUsed, WeatherData> getCurrentWeatherByName(final String location) {
-		return request -> {
+		return withRequestHeaders((priority, request) -> {
 			log.info("Received request for current weather in [{}]", location);
 
-			final WeatherData response = this.transformOwmCurrentWeatherData(
-					this.owmClient.getCurrentWeather(location)
-			);
+			final int id = this.cityIndex.resolve(location);
+			final CompletionStage<WeatherData> result = (id != CityIndex.UNKNOWN)
+					? currentWeatherById(id, priority)
+					: currentWeather(RequestKey.current(location), () -> this.owmClient.getCurrentWeather(location, priority, SHARED));
 
-			log.info("Sending current weather response for [{}]", response.getLocation());
-			return completedFuture(response);
-		};
+			return result
+					.thenApply(response -> {
+						log.info("Sending current weather response for [{}]", response.getLocation());
+						return response;
+					});
+		});
 	}
 
 	@Override
 	public ServiceCall<NotUsed, WeatherData> getCurrentWeatherById(final int location) {
-		return request -> {
+		return withRequestHeaders((priority, request) -> {
 			log.info("Received request for current weather for location [{}]", location);
 
-			final WeatherData response = this.transformOwmCurrentWeatherData(
-					this.owmClient.getCurrentWeather(location)
-			);
+			return currentWeatherById(location, priority)
+					.thenApply(response -> {
+						log.info("Sending current weather response for [{} ({})]", response.getLocation(), response.getId());
+						return response;
+					});
+		});
+	}
 
-			log.info("Sending current weather response for [{} ({})]", response.getLocation(), response.getId());
-			return completedFuture(response);
-		};
+	@Override
+	public ServiceCall<List<Integer>, List<WeatherData>> getCurrentWeatherByIds() {
+		return withRequestHeaders((priority, locations) -> {
+			log.info("Received request for current weather for locations {}", locations);
+
+			final List<CompletableFuture<Optional<WeatherData>>> results = locations.stream()
+					.map(location -> currentWeatherById(location, priority)
+							.thenApply(Optional::of)
+							.exceptionally(this::emptyIfNotFound)
+							.toCompletableFuture()
+					)
+					.collect(Collectors.toList());
+
+			return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+					.thenApply(done -> results.stream()
+							.map(CompletableFuture::join)
+							.filter(Optional::isPresent)
+							.map(Optional::get)
+							.collect(Collectors.toList())
+					)
+					.thenApply(response -> {
+						log.info("Sending current weather response for {} of {} locations", response.size(), locations.size());
+						return response;
+					});
+		});
 	}
 
 	@Override
 	public ServiceCall<NotUsed, List<WeatherData>> getWeatherForecastByName(final String location) {
-		return request -> {
+		return withRequestHeaders((priority, request) -> {
 			log.info("Received request for weather forecast for [{}]", location);
 
-			final List<WeatherData> response = this.transformOwmWeatherForecastData(
-					this.owmClient.getWeatherForecast(location)
-			);
+			final int id = this.cityIndex.resolve(location);
+			final CompletionStage<List<WeatherData>> result = (id != CityIndex.UNKNOWN)
+					? weatherForecastById(id, priority)
+					: weatherForecast(RequestKey.forecast(location), () -> this.owmClient.getWeatherForecast(location, priority, SHARED));
 
-			log.info("Sending weather forecast response for [{}]", response.get(0).getLocation());
-			return completedFuture(response);
-		};
+			return result
+					.thenApply(response -> {
+						log.info("Sending weather forecast response for [{}]", response.get(0).getLocation());
+						return response;
+					});
+		});
 	}
 
 	@Override
 	public ServiceCall<NotUsed, List<WeatherData>> getWeatherForecastById(final int location) {
-		return request -> {
+		return withRequestHeaders((priority, request) -> {
 			log.info("Received request for weather forecast for location [{}]", location);
 
-			final List<WeatherData> response = this.transformOwmWeatherForecastData(
-					this.owmClient.getWeatherForecast(location)
-			);
+			return weatherForecastById(location, priority)
+					.thenApply(response -> {
+						final WeatherData firstEntry = response.get(0);
+						log.info("Sending weather forecast response for [{} ({})]", firstEntry.getLocation(), firstEntry.getId());
+						return response;
+					});
+		});
+	}
+
+	@Override
+	public ServiceCall<NotUsed, WeatherAndForecast> getWeatherAndForecastByName(final String location) {
+		return withRequestHeaders((priority, request) -> {
+			log.info("Received request for current weather and forecast for [{}]", location);
+
+			final int id = this.cityIndex.resolve(location);
+			final CompletionStage<WeatherAndForecast> result = (id != CityIndex.UNKNOWN)
+					? weatherAndForecastById(id, priority)
+					: weatherAndForecast(
+							RequestKey.current(location),
+							RequestKey.forecast(location),
+							priority,
+							() -> currentWeather(RequestKey.current(location), () -> this.owmClient.getCurrentWeather(location, priority, SHARED)),
+							() -> weatherForecast(RequestKey.forecast(location), () -> this.owmClient.getWeatherForecast(location, priority, SHARED))
+					);
+
+			return result
+					.thenApply(response -> {
+						log.info("Sending current weather and forecast response for [{}]", response.getCurrent().getLocation());
+						return response;
+					});
+		});
+	}
+
+	@Override
+	public ServiceCall<NotUsed, WeatherAndForecast> getWeatherAndForecastById(final int location) {
+		return withRequestHeaders((priority, request) -> {
+			log.info("Received request for current weather and forecast for location [{}]", location);
 
-			final WeatherData firstEntry = response.get(0);
-			log.info("Sending weather forecast response for [{} ({})]", firstEntry.getLocation(), firstEntry.getId());
-			return completedFuture(response);
+			return weatherAndForecastById(location, priority)
+					.thenApply(response -> {
+						final WeatherData current = response.getCurrent();
+						log.info("Sending current weather and forecast response for [{} ({})]", current.getLocation(), current.getId());
+						return response;
+					});
+		});
+	}
+
+	@Override
+	public ServiceCall<List<LatLng>, List<String>> getTimezones() {
+		return withRequestHeaders((priority, points) -> {
+			log.info("Received request for the timezones of {} points", points.size());
+
+			return CompletableFuture.supplyAsync(() -> timezones(points), this.bulkheads.timezone());
+		});
+	}
+
+	private List<String> timezones(final List<LatLng> points) {
+		return points.stream()
+				.map(point -> TimezoneMapper.latLngToTimezoneString(point.getLatitude(), point.getLongitude()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * <p>
+	 *   Serves a call at the priority and by the deadline declared by the caller in its request
+	 *   headers. When invoked directly, without headers, the call is interactive, with no deadline.
+	 * </p>
+	 * <p>
+	 *   The deadline bounds only how long each caller waits for its answer. Requests to OWM may be
+	 *   shared between callers (see RequestCoalescer), so they are made with no deadline (SHARED),
+	 *   to OwmClient's own timeouts; otherwise one caller with a tiny budget would fail every other
+	 *   caller sharing its request.
+	 * </p>
+	 */
+	private <R, T> ServerServiceCall<R, T> withRequestHeaders(final HeaderAwareCall<R, T> call) {
+		return new ServerServiceCall<R, T>() {
+			@Override
+			public CompletionStage<Pair<ResponseHeader, T>> invokeWithHeaders(
+					final RequestHeader requestHeader,
+					final R request
+			) {
+				final RequestPriority priority = RequestPriority.of(requestHeader);
+				final RequestDeadline deadline = deadlines.received(requestHeader);
+				return deadlines.abandonAt(deadline, () -> call.apply(priority, request))
+						.thenApply(response -> Pair.create(ResponseHeader.OK, response));
+			}
+
+			@Override
+			public CompletionStage<T> invoke(final R request) {
+				return call.apply(RequestPriority.INTERACTIVE, request);
+			}
 		};
 	}
 
-	private WeatherData transformOwmCurrentWeatherData(final OwmCurrentWeatherResponse owmResponse) {
-		final String location = owmResponse.getName() + ", " + owmResponse.getLocaleData().getCountryCode();
-		final String zoneId = TimezoneMapper.latLngToTimezoneString(
-				owmResponse.getCoordinates().getLatitude(),
-				owmResponse.getCoordinates().getLongitude()
+	@FunctionalInterface
+	private interface HeaderAwareCall<R, T> {
+		CompletionStage<T> apply(RequestPriority priority, R request);
+	}
+
+	private CompletionStage<WeatherData> currentWeatherById(final int location, final RequestPriority priority) {
+		return currentWeather(RequestKey.current(location), () -> this.batcher.getCurrentWeather(location, priority));
+	}
+
+	private CompletionStage<List<WeatherData>> weatherForecastById(final int location, final RequestPriority priority) {
+		return weatherForecast(RequestKey.forecast(location), () -> this.owmClient.getWeatherForecast(location, priority, SHARED));
+	}
+
+	private CompletionStage<WeatherAndForecast> weatherAndForecastById(final int location, final RequestPriority priority) {
+		return weatherAndForecast(
+				RequestKey.current(location),
+				RequestKey.forecast(location),
+				priority,
+				() -> currentWeatherById(location, priority),
+				() -> weatherForecastById(location, priority)
 		);
-		log.info("TimeZone is " + zoneId);
+	}
+
+	/**
+	 * <p>
+	 *   Current weather and forecast together. With OWM's One Call endpoint enabled, both come from
+	 *   a single upstream request, which then serves both caches; but One Call needs coordinates,
+	 *   so the first request for any location is made separately, to learn where it is.
+	 * </p>
+	 * <p>
+	 *   Either way, the forecast is the same 5 days at 3-hourly intervals; see
+	 *   transformOwmOneCallData.
+	 * </p>
+	 */
+	private CompletionStage<WeatherAndForecast> weatherAndForecast(
+			final RequestKey currentKey,
+			final RequestKey forecastKey,
+			final RequestPriority priority,
+			final Supplier<CompletionStage<WeatherData>> separateCurrentWeather,
+			final Supplier<CompletionStage<List<WeatherData>>> separateWeatherForecast
+	) {
+		if (this.knownPlaces.isOneCallEnabled()) {
+			final Optional<WeatherData> cachedCurrent = this.cache.get(currentKey);
+			final Optional<List<WeatherData>> cachedForecast = this.cache.get(forecastKey);
+			if (cachedCurrent.isPresent() && cachedForecast.isPresent()) {
+				return completedFuture(weatherAndForecast(cachedCurrent.get(), cachedForecast.get()));
+			}
+
+			final Optional<KnownPlaces.Place> place = this.knownPlaces.get(currentKey);
+			if (place.isPresent()) {
+				final KnownPlaces.Place known = place.get();
+				return this.coalescer.coalesce(RequestKey.oneCall(known.getId()), () -> {
+					this.knownPlaces.countOneCall();
+					return this.owmClient.getWeatherAndForecast(known.getId(), known.getLatitude(), known.getLongitude(), priority, SHARED)
+							.thenCompose(response -> zoneAt(known.getId(), Coordinates.builder()
+									.latitude(known.getLatitude())
+									.longitude(known.getLongitude())
+									.build()
+							).thenApplyAsync(
+									zoneId -> transformOwmOneCallData(known, response, zoneId),
+									this.bulkheads.transform()
+							))
+							.thenApply(response -> weatherAndForecast(
+									this.cache.putCurrentWeather(currentKey, response.getCurrent()),
+									this.cache.putWeatherForecast(forecastKey, response.getForecast())
+							));
+				});
+			}
+			this.knownPlaces.countFallback();
+		}
+
+		return separateCurrentWeather.get().thenCombine(separateWeatherForecast.get(), OwmAdapterImpl::weatherAndForecast);
+	}
+
+	private static WeatherAndForecast weatherAndForecast(final WeatherData current, final List<WeatherData> forecast) {
+		return WeatherAndForecast.builder()
+				.current(current)
+				.forecast(forecast)
+				.build();
+	}
+
+	private Optional<WeatherData> emptyIfNotFound(final Throwable throwable) {
+		final Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null)
+				? throwable.getCause()
+				: throwable;
+		if (cause instanceof TransportException &&
+				TransportErrorCode.NotFound.equals(((TransportException) cause).errorCode())) {
+			return Optional.empty();
+		}
+		throw (throwable instanceof CompletionException)
+				? (CompletionException) throwable
+				: new CompletionException(throwable);
+	}
+
+	private CompletionStage<WeatherData> currentWeather(
+			final RequestKey key,
+			final Supplier<CompletionStage<OwmCurrentWeatherResponse>> owmRequest
+	) {
+		final Optional<WeatherData> cached = this.cache.get(key);
+		if (cached.isPresent()) {
+			return completedFuture(cached.get());
+		}
+		return this.coalescer.coalesce(key, () -> owmRequest.get()
+				.thenCompose(response -> {
+					this.knownPlaces.learn(key, response);
+					return zoneAt(response.getId(), response.getCoordinates()).thenApplyAsync(
+							zoneId -> {
+								log.info("TimeZone is " + zoneId);
+								return transformOwmCurrentWeatherData(response, zoneId);
+							},
+							this.bulkheads.transform()
+					);
+				})
+				.thenApply(weatherData -> this.cache.putCurrentWeather(key, weatherData))
+		);
+	}
+
+	private CompletionStage<List<WeatherData>> weatherForecast(
+			final RequestKey key,
+			final Supplier<CompletionStage<OwmWeatherForecastResponse>> owmRequest
+	) {
+		final Optional<List<WeatherData>> cached = this.cache.get(key);
+		if (cached.isPresent()) {
+			return completedFuture(cached.get());
+		}
+		return this.coalescer.coalesce(key, () -> owmRequest.get()
+				.thenCompose(response -> {
+					this.knownPlaces.learn(key, response.getCity());
+					return zoneAt(response.getCity().getId(), response.getCity().getCoordinates()).thenApplyAsync(
+							zoneId -> transformOwmWeatherForecastData(response, zoneId),
+							this.bulkheads.transform()
+					);
+				})
+				.thenApply(forecast -> this.cache.putWeatherForecast(key, forecast))
+		);
+	}
+
+	/**
+	 * Finding the timezone means testing the coordinates against timezone polygons, which is done on
+	 * its own dispatcher, but only the first time for each location.
+	 */
+	private CompletionStage<ZoneId> zoneAt(final int id, final Coordinates coordinates) {
+		final Optional<ZoneId> known = this.locationZones.get(id, coordinates);
+		if (known.isPresent()) {
+			return completedFuture(known.get());
+		}
+		return CompletableFuture.supplyAsync(
+				() -> this.locationZones.put(id, coordinates, ZoneId.of(
+						TimezoneMapper.latLngToTimezoneString(coordinates.getLatitude(), coordinates.getLongitude())
+				)),
+				this.bulkheads.timezone()
+		);
+	}
+
+	/**
+	 * The transforms of OWM's responses are static, and package-private, so that the benchmarks
+	 * can run them on their own.
+	 */
+	static WeatherData transformOwmCurrentWeatherData(final OwmCurrentWeatherResponse owmResponse, final ZoneId zoneId) {
+		final String location = owmResponse.getName() + ", " + owmResponse.getLocaleData().getCountryCode();
+		final LocationZones.Offsets offsets = new LocationZones.Offsets(zoneId);
 
 		return WeatherData.builder()
 				.id(owmResponse.getId())
 				.location(location)
-				.measured(instantToOffsetDateTime(owmResponse.getMeasuredAt(), zoneId))
+				.measured(offsets.at(owmResponse.getMeasuredAt()))
 				.weather(transformWeather(owmResponse.getWeather().get(0))) // OWM can return more than one; just use first
 				.temperature(transformTemperature(owmResponse.getTemperature()))
 				.wind(transformWind(owmResponse.getWind()))
 				.sun(Sun.builder()
-						.sunrise(instantToOffsetDateTime(owmResponse.getLocaleData().getSunrise(), zoneId))
-						.sunset(instantToOffsetDateTime(owmResponse.getLocaleData().getSunset(), zoneId))
+						.sunrise(offsets.at(owmResponse.getLocaleData().getSunrise()))
+						.sunset(offsets.at(owmResponse.getLocaleData().getSunset()))
 						.build()
 				)
 				.build();
 	}
 
-	private List<WeatherData> transformOwmWeatherForecastData(final OwmWeatherForecastResponse owmResponse) {
+	static List<WeatherData> transformOwmWeatherForecastData(final OwmWeatherForecastResponse owmResponse, final ZoneId zoneId) {
 		final City city = owmResponse.getCity();
 		final int id = city.getId();
 		final String location = city.getName() + ", " + city.getCountryCode();
-		final String zoneId = TimezoneMapper.latLngToTimezoneString(
-				city.getCoordinates().getLatitude(),
-				city.getCoordinates().getLongitude()
-		);
+		final LocationZones.Offsets offsets = new LocationZones.Offsets(zoneId);
 
-		return owmResponse.getForecasts().parallelStream()
+		return owmResponse.getForecasts().stream()
 				.map(forecast -> WeatherData.builder()
 						.id(id)
 						.location(location)
-						.measured(instantToOffsetDateTime(forecast.getMeasuredAt(), zoneId))
+						.measured(offsets.at(forecast.getMeasuredAt()))
 						.weather(transformWeather(forecast.getWeather().get(0))) // OWM can return more than one; just use first
 						.temperature(transformTemperature(forecast.getTemperature()))
 						.wind(transformWind(forecast.getWind()))
@@ -144,14 +498,149 @@ public class OwmAdapterImpl implements OwmAdapter {
 				.collect(Collectors.toList());
 	}
 
-	private Weather transformWeather(final com.scottlogic.weather.owmadapter.api.message.internal.Weather owmWeather) {
+	/**
+	 * <p>
+	 *   The current weather and 5 day forecast, as the separate calls give them, from One Call's
+	 *   response: the same 40 forecasts, at the same 3-hourly times after the current observation,
+	 *   in the timezone TimezoneMapper gives.
+	 * </p>
+	 * <p>
+	 *   For the 48 hours One Call forecasts hourly, a forecast is that hour's, with the lowest and
+	 *   highest temperatures of the three hours it stands for. After that, it is its day's: the
+	 *   day's night, morning, day or evening temperature, whichever is nearest the time, between
+	 *   the day's lowest and highest. The current minimum and maximum are today's, from its daily
+	 *   forecast, as One Call reports a single current temperature; only if OWM sent no forecast for
+	 *   today are they the current temperature.
+	 * </p>
+	 */
+	static WeatherAndForecast transformOwmOneCallData(
+			final KnownPlaces.Place place,
+			final OwmOneCallResponse owmResponse,
+			final ZoneId zoneId
+	) {
+		final LocationZones.Offsets offsets = new LocationZones.Offsets(zoneId);
+		final OneCallConditions current = owmResponse.getCurrent();
+
+		final List<OneCallConditions> hours = owmResponse.getHourlyForecasts();
+		final List<OneCallDay> days = owmResponse.getDailyForecasts();
+		final LocalDate today = offsets.at(current.getMeasuredAt()).toLocalDate();
+		final Optional<OneCallDay.DailyTemperature> todays = days.stream()
+				.filter(d -> offsets.at(d.getMeasuredAt()).toLocalDate().equals(today))
+				.findFirst()
+				.map(OneCallDay::getTemperature);
+
+		final WeatherData currentWeather = transformOneCallConditions(
+				place,
+				current,
+				todays.map(OneCallDay.DailyTemperature::getMin).orElse(current.getTemp()),
+				todays.map(OneCallDay.DailyTemperature::getMax).orElse(current.getTemp()),
+				offsets
+		)
+				.toBuilder()
+				.sun(Sun.builder()
+						.sunrise(offsets.at(current.getSunrise()))
+						.sunset(offsets.at(current.getSunset()))
+						.build()
+				)
+				.build();
+
+		final long first = (current.getMeasuredAt().getEpochSecond() / FORECAST_INTERVAL_SECS + 1) * FORECAST_INTERVAL_SECS;
+		final List<WeatherData> forecast = new ArrayList<>(FORECAST_ENTRIES);
+		for (int i = 0; i < FORECAST_ENTRIES; i++) {
+			final Instant from = Instant.ofEpochSecond(first + i * FORECAST_INTERVAL_SECS);
+			final Instant until = from.plusSeconds(FORECAST_INTERVAL_SECS);
+			final List<OneCallConditions> window = hours.stream()
+					.filter(hour -> !hour.getMeasuredAt().isBefore(from) && hour.getMeasuredAt().isBefore(until))
+					.collect(Collectors.toList());
+			if (!window.isEmpty()) {
+				forecast.add(transformOneCallConditions(
+						place,
+						window.get(0),
+						window.stream().map(OneCallConditions::getTemp).min(BigDecimal::compareTo).get(),
+						window.stream().map(OneCallConditions::getTemp).max(BigDecimal::compareTo).get(),
+						offsets
+				));
+				continue;
+			}
+
+			final OffsetDateTime local = offsets.at(from);
+			final Optional<OneCallDay> day = days.stream()
+					.filter(d -> offsets.at(d.getMeasuredAt()).toLocalDate().equals(local.toLocalDate()))
+					.findFirst();
+			if (!day.isPresent()) {
+				break; // One Call forecasts a week, so only if OWM sent less
+			}
+			forecast.add(transformOneCallDay(place, day.get(), local));
+		}
+
+		return weatherAndForecast(currentWeather, forecast);
+	}
+
+	private static WeatherData transformOneCallConditions(
+			final KnownPlaces.Place place,
+			final OneCallConditions conditions,
+			final BigDecimal minimum,
+			final BigDecimal maximum,
+			final LocationZones.Offsets offsets
+	) {
+		return WeatherData.builder()
+				.id(place.getId())
+				.location(place.getLocation())
+				.measured(offsets.at(conditions.getMeasuredAt()))
+				.weather(transformWeather(conditions.getWeather().get(0))) // OWM can return more than one; just use first
+				.temperature(Temperature.builder()
+						.minimum(minimum)
+						.current(conditions.getTemp())
+						.maximum(maximum)
+						.humidity(conditions.getHumidity())
+						.build()
+				)
+				.wind(Wind.builder()
+						.fromDegrees(conditions.getWindFromDegrees())
+						.speed(conditions.getWindSpeed())
+						.build()
+				)
+				.build();
+	}
+
+	private static WeatherData transformOneCallDay(
+			final KnownPlaces.Place place,
+			final OneCallDay day,
+			final OffsetDateTime measured
+	) {
+		final OneCallDay.DailyTemperature temp = day.getTemperature();
+		// The nearest of night (00:00), morning (06:00), day (12:00) and evening (18:00); after
+		// 21:00, back to the night.
+		final BigDecimal[] byQuarter = { temp.getNight(), temp.getMorn(), temp.getDay(), temp.getEve() };
+
+		return WeatherData.builder()
+				.id(place.getId())
+				.location(place.getLocation())
+				.measured(measured)
+				.weather(transformWeather(day.getWeather().get(0))) // OWM can return more than one; just use first
+				.temperature(Temperature.builder()
+						.minimum(temp.getMin())
+						.current(byQuarter[((measured.getHour() + 3) / 6) % 4])
+						.maximum(temp.getMax())
+						.humidity(day.getHumidity())
+						.build()
+				)
+				.wind(Wind.builder()
+						.fromDegrees(day.getWindFromDegrees())
+						.speed(day.getWindSpeed())
+						.build()
+				)
+				.build();
+	}
+
+	private static Weather transformWeather(final com.scottlogic.weather.owmadapter.api.message.internal.Weather owmWeather) {
 		return Weather.builder()
 				.id(owmWeather.getId())
 				.description(owmWeather.getDescription())
 				.build();
 	}
 
-	private Temperature transformTemperature(final com.scottlogic.weather.owmadapter.api.message.internal.Temperature temp) {
+	private static Temperature transformTemperature(final com.scottlogic.weather.owmadapter.api.message.internal.Temperature temp) {
 		return Temperature.builder()
 				.minimum(temp.getTempMin())
 				.current(temp.getTemp())
@@ -160,14 +649,10 @@ public class OwmAdapterImpl implements OwmAdapter {
 				.build();
 	}
 
-	private Wind transformWind(final com.scottlogic.weather.owmadapter.api.message.internal.Wind wind) {
+	private static Wind transformWind(final com.scottlogic.weather.owmadapter.api.message.internal.Wind wind) {
 		return Wind.builder()
 				.fromDegrees(wind.getFromDegrees())
 				.speed(wind.getSpeed())
 				.build();
 	}
-
-	private OffsetDateTime instantToOffsetDateTime(final Instant instant, final String zoneId) {
-		return OffsetDateTime.ofInstant(instant, ZoneId.of(zoneId));
-	}
 }
@@ -0,0 +1,40 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.OwmAdapter;
+
+/**
+ * <p>
+ *   Binds the OwmAdapter straight to its implementation, for a service which runs the adapter
+ *   co-located in its own JVM rather than calling the owm-adapter service through a Lagom client.
+ * </p>
+ * <p>
+ *   Calls are then plain method calls, with no HTTP hop and no JSON serialization of the
+ *   WeatherData sent back; the adapter's source.owm config is read from the host service. The
+ *   adapter's warm-up runs too, its steps added as the OwmAdapter is created, and the host service
+ *   is not ready until it has finished. The host service seals the warm-up (see WarmUp) once it
+ *   has been given the OwmAdapter and added steps of its own.
+ * </p>
+ */
+public class OwmAdapterInProcessModule extends AbstractModule {
+
+	@Override
+	protected void configure() {
+	}
+
+	@Provides
+	@Singleton
+	OwmAdapter owmAdapter(final OwmAdapterImpl owmAdapter, final AdapterWarmUp warmUp) {
+		// Taking the warm-up here adds its steps before anyone given the adapter can seal it.
+		return owmAdapter;
+	}
+
+	@Provides
+	Http http(final ActorSystem actorSystem) {
+		return Http.get(actorSystem);
+	}
+}
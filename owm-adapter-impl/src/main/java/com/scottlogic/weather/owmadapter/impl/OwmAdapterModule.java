@@ -5,6 +5,7 @@ import akka.http.javadsl.Http;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.lightbend.lagom.javadsl.server.ServiceGuiceSupport;
+import com.scottlogic.weather.common.serialization.SmileMessageSerializer;
 import com.scottlogic.weather.owmadapter.api.OwmAdapter;
 
 /**
@@ -15,6 +16,10 @@ public class OwmAdapterModule extends AbstractModule implements ServiceGuiceSupp
 	@Override
 	protected void configure() {
 		bindService(OwmAdapter.class, OwmAdapterImpl.class);
+		bind(AdapterWarmUp.Standalone.class).asEagerSingleton();
+
+		// Here be dragons! See comment in SmileMessageSerializer.
+		requestStaticInjection(SmileMessageSerializer.class);
 	}
 
 	@Provides
@@ -0,0 +1,220 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.stats.CircuitBreakerStats;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *   Stops us calling OpenWeatherMap while it is unwell, so that callers fail fast rather than
+ *   queueing up behind requests which are likely to fail or stall anyway.
+ * </p>
+ * <p>
+ *   The outcomes of the most recent calls are kept in a sliding window. When either the proportion
+ *   of failed calls or the proportion of slow calls within the window reaches its threshold, the
+ *   breaker opens and all calls are rejected with a 503. After a while it lets a few trial calls
+ *   through (half-open): if they all succeed promptly it closes again, otherwise it re-opens.
+ * </p>
+ * <p>
+ *   Only failures that suggest OWM itself is in trouble count against it (see OwmFailures).
+ * </p>
+ */
+class OwmCircuitBreaker {
+	enum State { CLOSED, OPEN, HALF_OPEN }
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Clock clock;
+	private final int minimumCalls;
+	private final int failureRateThreshold;
+	private final Duration slowCallDuration;
+	private final int slowCallRateThreshold;
+	private final Duration openDuration;
+	private final int halfOpenCalls;
+
+	// Ring buffer of recent outcomes, while closed.
+	private final boolean[] failed;
+	private final boolean[] slow;
+	private int next = 0;
+	private int buffered = 0;
+	private int failures = 0;
+	private int slowCalls = 0;
+
+	private State state = State.CLOSED;
+	private Instant openedAt;
+	private int halfOpenPermitted = 0;
+	private int halfOpenSucceeded = 0;
+
+	private long opened = 0;
+	private long halfOpened = 0;
+	private long closed = 0;
+	private long rejected = 0;
+
+	OwmCircuitBreaker(final Config circuitBreakerConfig, final Clock clock) {
+		this.clock = clock;
+		this.minimumCalls = circuitBreakerConfig.getInt("minimum-calls");
+		this.failureRateThreshold = circuitBreakerConfig.getInt("failure-rate-threshold");
+		this.slowCallDuration = circuitBreakerConfig.getDuration("slow-call-duration");
+		this.slowCallRateThreshold = circuitBreakerConfig.getInt("slow-call-rate-threshold");
+		this.openDuration = circuitBreakerConfig.getDuration("open-duration");
+		this.halfOpenCalls = circuitBreakerConfig.getInt("half-open-calls");
+
+		final int windowSize = circuitBreakerConfig.getInt("sliding-window-size");
+		this.failed = new boolean[windowSize];
+		this.slow = new boolean[windowSize];
+	}
+
+	/**
+	 * Makes the given call if the breaker allows, recording its outcome; otherwise fails
+	 * immediately.
+	 */
+	<T> CompletionStage<T> call(final Supplier<CompletionStage<T>> call) {
+		if (!tryAcquirePermission()) {
+			final CompletableFuture<T> rejection = new CompletableFuture<>();
+			rejection.completeExceptionally(circuitOpen());
+			return rejection;
+		}
+
+		final Instant start = this.clock.instant();
+		CompletionStage<T> result;
+		try {
+			result = call.get();
+		} catch (RuntimeException e) {
+			final CompletableFuture<T> failure = new CompletableFuture<>();
+			failure.completeExceptionally(e);
+			result = failure;
+		}
+		return result.whenComplete((value, throwable) -> onResult(
+				Duration.between(start, this.clock.instant()),
+				OwmFailures.isOverloaded(throwable)
+		));
+	}
+
+	/**
+	 * Whether calls are currently being rejected; lets callers avoid doing any preparatory work
+	 * for a call that would be rejected anyway.
+	 */
+	synchronized boolean isOpen() {
+		return this.state == State.OPEN && this.clock.instant().isBefore(this.openedAt.plus(this.openDuration));
+	}
+
+	/**
+	 * The failure with which to reject a call made while the breaker is open.
+	 */
+	synchronized TransportException rejection() {
+		this.rejected++;
+		return circuitOpen();
+	}
+
+	synchronized CircuitBreakerStats stats() {
+		return CircuitBreakerStats.builder()
+				.state(this.state.name())
+				.bufferedCalls(this.buffered)
+				.failureRate(rate(this.failures))
+				.slowCallRate(rate(this.slowCalls))
+				.opened(this.opened)
+				.halfOpened(this.halfOpened)
+				.closed(this.closed)
+				.rejected(this.rejected)
+				.build();
+	}
+
+	private synchronized boolean tryAcquirePermission() {
+		if (this.state == State.OPEN && !isOpen()) {
+			transitionTo(State.HALF_OPEN);
+		}
+		switch (this.state) {
+			case CLOSED:
+				return true;
+			case HALF_OPEN:
+				if (this.halfOpenPermitted < this.halfOpenCalls) {
+					this.halfOpenPermitted++;
+					return true;
+				}
+				// Fall through: enough trial calls are already under way.
+			default:
+				this.rejected++;
+				return false;
+		}
+	}
+
+	private synchronized void onResult(final Duration duration, final boolean isFailure) {
+		final boolean isSlow = duration.compareTo(this.slowCallDuration) >= 0;
+
+		if (this.state == State.HALF_OPEN) {
+			if (isFailure || isSlow) {
+				transitionTo(State.OPEN);
+			} else if (++this.halfOpenSucceeded >= this.halfOpenCalls) {
+				transitionTo(State.CLOSED);
+			}
+		} else if (this.state == State.CLOSED) {
+			record(isFailure, isSlow);
+			if (this.buffered >= this.minimumCalls &&
+					(rate(this.failures) >= this.failureRateThreshold || rate(this.slowCalls) >= this.slowCallRateThreshold)) {
+				transitionTo(State.OPEN);
+			}
+		}
+		// Calls that were already in flight when the breaker opened are ignored.
+	}
+
+	private void record(final boolean isFailure, final boolean isSlow) {
+		if (this.buffered == this.failed.length) {
+			this.failures -= this.failed[this.next] ? 1 : 0;
+			this.slowCalls -= this.slow[this.next] ? 1 : 0;
+		} else {
+			this.buffered++;
+		}
+		this.failed[this.next] = isFailure;
+		this.slow[this.next] = isSlow;
+		this.failures += isFailure ? 1 : 0;
+		this.slowCalls += isSlow ? 1 : 0;
+		this.next = (this.next + 1) % this.failed.length;
+	}
+
+	private void transitionTo(final State newState) {
+		log.warn("OpenWeatherMap circuit breaker {} -> {} (failure rate {}%, slow call rate {}%)",
+				this.state, newState, rate(this.failures), rate(this.slowCalls));
+		this.state = newState;
+
+		switch (newState) {
+			case OPEN:
+				this.openedAt = this.clock.instant();
+				this.opened++;
+				break;
+			case HALF_OPEN:
+				this.halfOpenPermitted = 0;
+				this.halfOpenSucceeded = 0;
+				this.halfOpened++;
+				break;
+			case CLOSED:
+				this.next = 0;
+				this.buffered = 0;
+				this.failures = 0;
+				this.slowCalls = 0;
+				this.closed++;
+				break;
+		}
+	}
+
+	private int rate(final int count) {
+		return this.buffered == 0 ? 0 : count * 100 / this.buffered;
+	}
+
+	private TransportException circuitOpen() {
+		return TransportException.fromCodeAndMessage(
+				TransportErrorCode.ServiceUnavailable,
+				new ExceptionMessage("ServiceUnavailable", "OpenWeatherMap is unavailable; circuit breaker is open")
+		);
+	}
+}
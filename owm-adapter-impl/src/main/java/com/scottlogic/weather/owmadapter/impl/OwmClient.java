@@ -1,15 +1,20 @@
 package com.scottlogic.weather.owmadapter.impl;
 
+import akka.Done;
 import akka.actor.ActorSystem;
+import akka.actor.Scheduler;
 import akka.http.javadsl.Http;
 import akka.http.javadsl.model.HttpEntity;
 import akka.http.javadsl.model.HttpRequest;
 import akka.http.javadsl.model.ResponseEntity;
 import akka.http.javadsl.model.StatusCode;
 import akka.http.javadsl.model.StatusCodes;
-import akka.http.javadsl.unmarshalling.Unmarshaller;
+import akka.stream.ActorMaterializer;
+import akka.stream.ActorMaterializerSettings;
 import akka.stream.Materializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
@@ -17,155 +22,558 @@ import com.lightbend.lagom.javadsl.api.deser.DeserializationException;
 import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
 import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
 import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.common.concurrent.Timeouts;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.RequestPriority;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
 import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
 import com.scottlogic.weather.owmadapter.api.message.internal.ErrorResponse;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmGroupWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmOneCallResponse;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.ApiKeyStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.CircuitBreakerStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.ConcurrencyLimitStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.ConnectionPoolStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.HedgingStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.NegativeCacheStats;
+import com.scottlogic.weather.owmadapter.api.message.stats.SchedulerStats;
 import com.typesafe.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import play.api.libs.concurrent.MaterializerProvider;
+import scala.concurrent.ExecutionContext;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ExecutionException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeoutException;
-
-import static java.util.concurrent.TimeUnit.SECONDS;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Singleton
 class OwmClient {
 	private static final String CURRENT_WEATHER_SEGMENT = "weather";
 	private static final String WEATHER_FORECAST_SEGMENT = "forecast";
-	private static final int REQUEST_TIMEOUT_SECS = 30;
+	private static final String GROUP_WEATHER_SEGMENT = "group";
+	private static final String ONE_CALL_SEGMENT = "onecall";
+	private static final String UNITS_SEGMENT = "?units=metric";
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+	private static final Duration UNMARSHALL_TIMEOUT = Duration.ofSeconds(5);
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
-	private final Http http;
 	private final Materializer materializer;
-	private final ObjectMapper objectMapper;
-	private final String baseUrl;
-	private final String unitsAndApiKeySegment;
+	private final Scheduler scheduler;
+	private final ExecutionContext executionContext;
+	private final Timeouts timeouts;
+	private final StreamingJsonDecoder jsonDecoder;
+	private final OwmConnectionPool connectionPool;
+	private final OwmTransport transport;
+	private final NegativeCache negativeCache;
+	private final ApiKeyPool apiKeys;
+	private final OwmCircuitBreaker circuitBreaker;
+	private final RequestHedger hedger;
+	private final ConcurrencyLimiter concurrencyLimiter;
+	private final Deadlines deadlines;
+	private final List<String> allApiKeys;
+	private final String basePath;
 
 	@Inject
-	OwmClient(final ActorSystem actorSystem, final Http http, final Config config) {
-		this.http = http;
-		this.materializer = new MaterializerProvider(actorSystem).get();
-		this.objectMapper = JacksonObjectMapperProvider.get(actorSystem).objectMapper();
+	OwmClient(
+			final ActorSystem actorSystem,
+			final Http http,
+			final Config config,
+			final Deadlines deadlines,
+			final Bulkheads bulkheads
+	) {
+		// Everything to do with the conversation with OWM runs on its own dispatcher, so that slow
+		// responses cannot hold up the rest of the service.
+		this.materializer = ActorMaterializer.create(
+				ActorMaterializerSettings.create(actorSystem).withDispatcher(bulkheads.upstreamIo().dispatcherId()),
+				actorSystem
+		);
+		this.scheduler = actorSystem.scheduler();
+		this.executionContext = bulkheads.upstreamIo().executionContext();
+		this.timeouts = new Timeouts(this.scheduler, this.executionContext);
+		this.jsonDecoder = new StreamingJsonDecoder(JacksonObjectMapperProvider.get(actorSystem).objectMapper());
 
 		final Config owmConfig = config.getConfig("source.owm");
 		// TODO Onboard user with this API key, and store in entity?
-		this.unitsAndApiKeySegment = "?units=metric&appid=" + owmConfig.getString("apiKey");
+		final List<String> apiKeys = owmConfig.getStringList("apiKeys");
+		this.allApiKeys = apiKeys.isEmpty()
+				? Collections.singletonList(owmConfig.getString("apiKey"))
+				: apiKeys;
 
 		final String url = owmConfig.getString("url");
-		this.baseUrl = url + (url.endsWith("/") ? "" : "/");
+		final String baseUrl = url + (url.endsWith("/") ? "" : "/");
 		try {
 			// Perform some simple URL validation.
-			new URL(this.baseUrl).toURI();
+			this.basePath = new URL(baseUrl).toURI().getRawPath();
 		} catch (MalformedURLException | URISyntaxException e) {
 			throw new RuntimeException("OpenWeatherMap URL in config is not valid", e);
 		}
+
+		this.connectionPool = new OwmConnectionPool(actorSystem, http, materializer, baseUrl, owmConfig.getConfig("pool"));
+		this.transport = transport(actorSystem, owmConfig.getConfig("recording"));
+		this.negativeCache = new NegativeCache(owmConfig.getConfig("negative-cache"), Clock.systemUTC());
+		this.apiKeys = new ApiKeyPool(
+				this.allApiKeys,
+				apiKey -> new RequestScheduler(this.scheduler, this.executionContext, owmConfig.getConfig("scheduler")),
+				this.negativeCache::isRefused
+		);
+		this.circuitBreaker = new OwmCircuitBreaker(owmConfig.getConfig("circuit-breaker"), Clock.systemUTC());
+		this.hedger = new RequestHedger(
+				this.scheduler,
+				this.executionContext,
+				owmConfig.getConfig("hedging")
+		);
+		this.concurrencyLimiter = new ConcurrencyLimiter(owmConfig.getConfig("concurrency-limit"), Clock.systemUTC());
+		this.deadlines = deadlines;
+	}
+
+	/**
+	 * The connection pool, unless OWM traffic is to be recorded, or replayed from a recording.
+	 */
+	private OwmTransport transport(final ActorSystem actorSystem, final Config recordingConfig) {
+		final String mode = recordingConfig.getString("mode");
+		final Path path = Paths.get(recordingConfig.getString("path"));
+		try {
+			switch (mode) {
+				case "off":
+					return this.connectionPool;
+				case "record":
+					log.info("Recording OpenWeatherMap responses to {}", path.toAbsolutePath());
+					final OwmRecording.Appender appender = OwmRecording.appendTo(path);
+					actorSystem.registerOnTermination(() -> {
+						try {
+							appender.close();
+						} catch (IOException e) {
+							log.warn("Failed to close OpenWeatherMap recording {}", path, e);
+						}
+					});
+					return new RecordingTransport(this.connectionPool, appender, this.materializer, Clock.systemUTC());
+				case "replay":
+					final ReplayTransport replay = new ReplayTransport(
+							OwmRecording.read(path),
+							recordingConfig.getDouble("speed"),
+							this.scheduler,
+							this.executionContext
+					);
+					log.info("Replaying {} distinct OpenWeatherMap requests from {}", replay.recordedRequests(), path.toAbsolutePath());
+					return replay;
+				default:
+					throw new IllegalArgumentException("Unknown OpenWeatherMap recording mode: " + mode);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("OpenWeatherMap recording " + path + " cannot be used", e);
+		}
+	}
+
+	/**
+	 * Decodes a response body already in hand, just as one read from OWM; for warming up.
+	 */
+	<T> CompletionStage<T> decode(final ByteString body, final Class<T> clazz) {
+		return this.jsonDecoder.decode(Source.single(body), clazz, this.materializer);
+	}
+
+	/**
+	 * Opens a connection to OWM ahead of the first request, unless replaying a recording. The request
+	 * is for the base URL, with no API key, so it costs no quota; whatever OWM answers is ignored.
+	 */
+	CompletionStage<Done> connect() {
+		if (this.transport instanceof ReplayTransport) {
+			return CompletableFuture.completedFuture(Done.getInstance());
+		}
+		return this.connectionPool.request(HttpRequest.HEAD(this.basePath))
+				.thenApply(response -> {
+					response.discardEntityBytes(this.materializer);
+					return Done.getInstance();
+				});
+	}
+
+	ConnectionPoolStats connectionPoolStats() {
+		return this.connectionPool.stats();
 	}
 
-	OwmCurrentWeatherResponse getCurrentWeather(final String location) throws TransportException {
+	NegativeCacheStats negativeCacheStats() {
+		return this.negativeCache.stats();
+	}
+
+	SchedulerStats schedulerStats() {
+		return this.apiKeys.schedulerStats();
+	}
+
+	List<ApiKeyStats> apiKeyStats() {
+		return this.apiKeys.stats();
+	}
+
+	CircuitBreakerStats circuitBreakerStats() {
+		return this.circuitBreaker.stats();
+	}
+
+	HedgingStats hedgingStats() {
+		return this.hedger.stats();
+	}
+
+	ConcurrencyLimitStats concurrencyLimitStats() {
+		return this.concurrencyLimiter.stats();
+	}
+
+	CompletionStage<OwmCurrentWeatherResponse> getCurrentWeather(
+			final String location,
+			final RequestPriority priority,
+			final RequestDeadline deadline
+	) {
 		return getWeather(
+				RequestKey.current(location),
+				priority,
+				deadline,
 				currentWeatherByNameUrl(location),
 				OwmCurrentWeatherResponse.class
 		);
 	}
 
-	OwmCurrentWeatherResponse getCurrentWeather(final int location) throws TransportException {
+	/**
+	 * Current weather for a single location id. Requests by id are batched (see
+	 * CurrentWeatherBatcher), and so shared, which is why these have no deadline of their own.
+	 */
+	CompletionStage<OwmCurrentWeatherResponse> getCurrentWeather(final int location, final RequestPriority priority) {
 		return getWeather(
+				RequestKey.current(location),
+				priority,
+				RequestDeadline.NONE,
 				currentWeatherByIdUrl(location),
 				OwmCurrentWeatherResponse.class
 		);
 	}
 
-	OwmWeatherForecastResponse getWeatherForecast(final String location) throws TransportException {
+	/**
+	 * Current weather for several locations in a single request, using OWM's group endpoint. OWM
+	 * accepts up to 20 ids, and silently omits any that it does not recognise.
+	 */
+	CompletionStage<OwmGroupWeatherResponse> getCurrentWeather(final List<Integer> locations, final RequestPriority priority) {
 		return getWeather(
+				RequestKey.group(locations),
+				priority,
+				RequestDeadline.NONE,
+				currentWeatherByIdsUrl(locations),
+				OwmGroupWeatherResponse.class
+		);
+	}
+
+	CompletionStage<OwmWeatherForecastResponse> getWeatherForecast(
+			final String location,
+			final RequestPriority priority,
+			final RequestDeadline deadline
+	) {
+		return getWeather(
+				RequestKey.forecast(location),
+				priority,
+				deadline,
 				weatherForecastByNameUrl(location),
 				OwmWeatherForecastResponse.class
 		);
 	}
 
-	OwmWeatherForecastResponse getWeatherForecast(final int location) throws TransportException {
+	CompletionStage<OwmWeatherForecastResponse> getWeatherForecast(
+			final int location,
+			final RequestPriority priority,
+			final RequestDeadline deadline
+	) {
 		return getWeather(
+				RequestKey.forecast(location),
+				priority,
+				deadline,
 				weatherForecastByIdUrl(location),
 				OwmWeatherForecastResponse.class
 		);
 	}
 
-	private <T> T getWeather(final String url, final Class<T> responseClass) throws TransportException {
-		try {
-			return this.http.singleRequest(HttpRequest.create(url))
-					.thenApply(httpResponse -> {
-						if (httpResponse.status().isSuccess()) {
-							return unmarshallWeatherResponse(httpResponse.entity(), responseClass);
-						}
-						throw transportExceptionFromFailureResponse(httpResponse.status(), httpResponse.entity());
-					})
-					.toCompletableFuture().get(REQUEST_TIMEOUT_SECS, SECONDS);
-		} catch (final ExecutionException e) {
-			final Throwable cause = e.getCause();
-			throw (TransportException.class.isAssignableFrom(cause.getClass()))
-					? (TransportException) e.getCause()
-					: internalServerError(e);
-		} catch (final InterruptedException | TimeoutException e) {
-			throw requestTimedOut(e);
-		}
+	/**
+	 * Current weather, hourly forecasts and daily forecasts in a single request, using OWM's One
+	 * Call endpoint. This is keyed by coordinates alone, so the caller must know the location's id.
+	 */
+	CompletionStage<OwmOneCallResponse> getWeatherAndForecast(
+			final int location,
+			final double latitude,
+			final double longitude,
+			final RequestPriority priority,
+			final RequestDeadline deadline
+	) {
+		return getWeather(
+				RequestKey.oneCall(location),
+				priority,
+				deadline,
+				weatherAndForecastUrl(latitude, longitude),
+				OwmOneCallResponse.class
+		);
 	}
 
-	private <T> T unmarshallWeatherResponse(final ResponseEntity entity, final Class<T> clazz) throws DeserializationException {
-		try {
-			final String jsonResponse = Unmarshaller.entityToString()
-					.unmarshal(entity, materializer)
-					.toCompletableFuture().get(5, SECONDS);
+	private <T> CompletionStage<T> getWeather(
+			final RequestKey key,
+			final RequestPriority priority,
+			final RequestDeadline deadline,
+			final String url,
+			final Class<T> responseClass
+	) {
+		return getWeather(key, priority, deadline, url, responseClass, Collections.emptySet());
+	}
 
-			return this.objectMapper.readValue(jsonResponse, clazz);
-		} catch (InterruptedException | ExecutionException | TimeoutException e) {
-			throw deserializationException("Failed to unmarshall weather data response entity", e);
-		} catch (IOException e) {
-			throw deserializationException("Failed to parse weather data response body", e);
+	/**
+	 * <p>
+	 *   Makes the request with any API key except those already refused for it, so that a retry
+	 *   after a 401 goes to another key, and the retries end once every key has been tried.
+	 * </p>
+	 * <p>
+	 *   Timeouts are capped at whatever remains of the caller's deadline, and a request whose
+	 *   deadline passes while it waits for quota is not sent at all.
+	 * </p>
+	 * <p>
+	 *   Only so many requests are in flight to OWM at once (see ConcurrencyLimiter); beyond that they
+	 *   wait their turn, or are refused if too many are waiting already. A request refused there, or
+	 *   otherwise not sent after all, gives its quota token back.
+	 * </p>
+	 */
+	private <T> CompletionStage<T> getWeather(
+			final RequestKey key,
+			final RequestPriority priority,
+			final RequestDeadline deadline,
+			final String url,
+			final Class<T> responseClass,
+			final Set<String> refusedKeys
+	) {
+		final Optional<TransportException> knownFailure = this.negativeCache.get(key, this.allApiKeys);
+		if (knownFailure.isPresent()) {
+			log.debug("Replaying recent failure for [{}]: {}", key, knownFailure.get().getMessage());
+			return failed(knownFailure.get());
 		}
+
+		// Don't spend quota on a request that the circuit breaker would reject anyway.
+		if (this.circuitBreaker.isOpen()) {
+			return failed(this.circuitBreaker.rejection());
+		}
+
+		// Wait for our turn within the quota of whichever key has most to spare, before starting the
+		// clock on the request itself.
+		return this.apiKeys.acquire(priority, deadline, refusedKeys)
+				.whenComplete((apiKey, throwable) -> {
+					if (unwrap(throwable) instanceof DeadlineExceeded) {
+						// Dropped from the queue when its deadline passed, without spending quota.
+						this.deadlines.owmRequestSkipped();
+					}
+				})
+				.thenCompose(apiKey -> {
+					final Supplier<CompletionStage<T>> send = () -> request(url + "&appid=" + apiKey, responseClass, deadline);
+					return this.concurrencyLimiter.acquire()
+							.whenComplete((permit, throwable) -> {
+								if (throwable != null) {
+									// Refused by the concurrency limiter, so the quota token goes unspent.
+									this.apiKeys.refund(apiKey);
+								}
+							})
+							.thenCompose(permit -> {
+								if (deadline.hasExpired()) {
+									permit.cancel();
+									this.apiKeys.refund(apiKey);
+									this.deadlines.owmRequestSkipped();
+									return this.<T>failed(this.deadlines.exceeded());
+								}
+								final AtomicBoolean sent = new AtomicBoolean();
+								return this.circuitBreaker
+										.call(() -> {
+											sent.set(true);
+											return withTimeout(
+													this.hedger.hedge(() -> holding(permit, send), () -> sendHedge(send, apiKey)),
+													REQUEST_TIMEOUT,
+													deadline
+											);
+										})
+										.whenComplete((response, throwable) -> {
+											if (!sent.get() && permit.cancel()) {
+												// Rejected by the circuit breaker, so never sent.
+												this.apiKeys.refund(apiKey);
+											}
+										});
+							})
+							.handle((response, throwable) -> {
+								if (throwable == null) {
+									return CompletableFuture.completedFuture(response);
+								}
+								final TransportException exception = toTransportException(unwrap(throwable));
+								this.negativeCache.record(key, apiKey, exception);
+								if (exception instanceof Unauthorized) {
+									final Set<String> refused = ImmutableSet.<String>builder().addAll(refusedKeys).add(apiKey).build();
+									if (this.apiKeys.usableKeys().stream().anyMatch(usable -> !refused.contains(usable))) {
+										log.error("OpenWeatherMap refused API key [{}]; retrying with another key", ApiKeyPool.mask(apiKey));
+										return getWeather(key, priority, deadline, url, responseClass, refused);
+									}
+								}
+								return this.<T>failed(exception);
+							})
+							.thenCompose(Function.identity());
+				});
 	}
 
-	private TransportException transportExceptionFromFailureResponse(final StatusCode statusCode, final HttpEntity errorEntity) {
+	/**
+	 * A hedge is another request in flight, so is only sent if both a concurrency permit and a
+	 * quota token are free right now.
+	 */
+	private <T> Optional<CompletionStage<T>> sendHedge(final Supplier<CompletionStage<T>> send, final String apiKey) {
+		final Optional<ConcurrencyLimiter.Permit> permit = this.concurrencyLimiter.tryAcquire();
+		if (!permit.isPresent()) {
+			return Optional.empty();
+		}
+		if (!this.apiKeys.tryAcquire(apiKey)) {
+			permit.get().cancel();
+			return Optional.empty();
+		}
+		return Optional.of(holding(permit.get(), send));
+	}
+
+	/**
+	 * Sends the request, holding the permit until OWM has answered rather than until the caller
+	 * stops waiting, as the request is in flight until then.
+	 */
+	private <T> CompletionStage<T> holding(final ConcurrencyLimiter.Permit permit, final Supplier<CompletionStage<T>> send) {
+		final CompletionStage<T> response;
 		try {
-			final String jsonResponse = Unmarshaller.entityToString()
-					.unmarshal(errorEntity, materializer)
-					.toCompletableFuture().get(5, SECONDS);
-			final ErrorResponse error = this.objectMapper.readValue(jsonResponse, ErrorResponse.class);
-
-			// Unauthorized exception not implemented in Lagom, for some reason (risk of info leak?)
-			if (StatusCodes.UNAUTHORIZED.equals(statusCode)) {
-				return new Unauthorized(error.getMessage());
-			}
+			response = send.get();
+		} catch (RuntimeException e) {
+			permit.release(e);
+			throw e;
+		}
+		return response.whenComplete((value, throwable) -> permit.release(throwable));
+	}
 
-			// For some status codes, there is an exception class named after the reason code (but
-			// with whitespace removed). If not, a generic TransportException will be constructed.
-			final String exceptionClassName = statusCode.reason().replace(" ", "");
-			return TransportException.fromCodeAndMessage(
-					TransportErrorCode.fromHttp(statusCode.intValue()),
-					new ExceptionMessage(exceptionClassName, error.getMessage())
-			);
-		} catch (InterruptedException | ExecutionException | TimeoutException e) {
-			return deserializationException("Failed to unmarshall error response entity", e);
-		} catch (IOException e) {
-			return deserializationException("Failed to parse error response body", e);
+	private <T> CompletionStage<T> request(final String url, final Class<T> responseClass, final RequestDeadline deadline) {
+		return this.transport.request(HttpRequest.create(url))
+				.thenCompose(httpResponse -> {
+					if (httpResponse.status().isSuccess()) {
+						return unmarshallWeatherResponse(httpResponse.entity(), responseClass, deadline);
+					}
+					return transportExceptionFromFailureResponse(httpResponse.status(), httpResponse.entity(), deadline)
+							.thenApply(exception -> {
+								throw exception;
+							});
+				});
+	}
+
+	private <T> CompletionStage<T> failed(final TransportException exception) {
+		final CompletableFuture<T> failure = new CompletableFuture<>();
+		failure.completeExceptionally(exception);
+		return failure;
+	}
+
+	private TransportException toTransportException(final Throwable cause) {
+		if (cause instanceof TransportException) {
+			return (TransportException) cause;
 		}
+		return (cause instanceof TimeoutException)
+				? requestTimedOut(cause)
+				: internalServerError(cause);
+	}
+
+	private <T> CompletionStage<T> unmarshallWeatherResponse(
+			final ResponseEntity entity,
+			final Class<T> clazz,
+			final RequestDeadline deadline
+	) {
+		return withTimeout(this.jsonDecoder.decode(entity.getDataBytes(), clazz, materializer), UNMARSHALL_TIMEOUT, deadline)
+				.exceptionally(throwable -> {
+					final Throwable cause = unwrap(throwable);
+					if (cause instanceof DeadlineExceeded) {
+						throw (DeadlineExceeded) cause;
+					}
+					throw isParseFailure(cause)
+							? deserializationException("Failed to parse weather data response body", cause)
+							: deserializationException("Failed to unmarshall weather data response entity", cause);
+				});
+	}
+
+	private CompletionStage<TransportException> transportExceptionFromFailureResponse(
+			final StatusCode statusCode,
+			final HttpEntity errorEntity,
+			final RequestDeadline deadline
+	) {
+		return withTimeout(this.jsonDecoder.decode(errorEntity.getDataBytes(), ErrorResponse.class, materializer), UNMARSHALL_TIMEOUT, deadline)
+				.handle((error, throwable) -> {
+					if (throwable != null) {
+						final Throwable cause = unwrap(throwable);
+						if (cause instanceof DeadlineExceeded) {
+							return (DeadlineExceeded) cause;
+						}
+						return isParseFailure(cause)
+								? deserializationException("Failed to parse error response body", cause)
+								: deserializationException("Failed to unmarshall error response entity", cause);
+					}
+
+					// Unauthorized exception not implemented in Lagom, for some reason (risk of info leak?)
+					if (StatusCodes.UNAUTHORIZED.equals(statusCode)) {
+						return new Unauthorized(error.getMessage());
+					}
+
+					// For some status codes, there is an exception class named after the reason code (but
+					// with whitespace removed). If not, a generic TransportException will be constructed.
+					final String exceptionClassName = statusCode.reason().replace(" ", "");
+					return TransportException.fromCodeAndMessage(
+							TransportErrorCode.fromHttp(statusCode.intValue()),
+							new ExceptionMessage(exceptionClassName, error.getMessage())
+					);
+				});
 	}
 
-	private DeserializationException deserializationException(final String message, final Exception e) {
+	/**
+	 * Fails the given stage with a {@link TimeoutException} if it has not completed within the
+	 * given time, or with {@link DeadlineExceeded} if the caller's deadline comes sooner. Uses the
+	 * actor system scheduler, so no thread is blocked while waiting.
+	 */
+	private <T> CompletionStage<T> withTimeout(
+			final CompletionStage<T> stage,
+			final Duration timeout,
+			final RequestDeadline deadline
+	) {
+		final Duration capped = deadline.cap(timeout);
+		return this.timeouts.within(capped, stage, () -> capped.compareTo(timeout) < 0
+				? this.deadlines.exceeded()
+				: new TimeoutException("No response within " + timeout.getSeconds() + " seconds")
+		);
+	}
+
+	private Throwable unwrap(final Throwable throwable) {
+		return (throwable instanceof CompletionException && throwable.getCause() != null)
+				? throwable.getCause()
+				: throwable;
+	}
+
+	private boolean isParseFailure(final Throwable throwable) {
+		return throwable instanceof IOException || throwable instanceof UncheckedIOException;
+	}
+
+	private DeserializationException deserializationException(final String message, final Throwable e) {
 		log.error(message, e);
 		return new DeserializationException(message);
 	}
 
-	private TransportException requestTimedOut(final Exception e) {
+	private TransportException requestTimedOut(final Throwable e) {
 		return TransportException.fromCodeAndMessage(
 				TransportErrorCode.fromHttp(StatusCodes.REQUEST_TIMEOUT.intValue()),
 				constructExceptionMessage(e)
@@ -194,6 +602,22 @@ class OwmClient {
 		return weatherByIdUrl(CURRENT_WEATHER_SEGMENT, location);
 	}
 
+	private String currentWeatherByIdsUrl(final List<Integer> locations) {
+		return this.basePath +
+				GROUP_WEATHER_SEGMENT +
+				UNITS_SEGMENT +
+				"&id=" + locations.stream().map(String::valueOf).collect(Collectors.joining(","));
+	}
+
+	private String weatherAndForecastUrl(final double latitude, final double longitude) {
+		return this.basePath +
+				ONE_CALL_SEGMENT +
+				UNITS_SEGMENT +
+				"&lat=" + latitude +
+				"&lon=" + longitude +
+				"&exclude=minutely,alerts";
+	}
+
 	private String weatherForecastByNameUrl(final String location) throws TransportException {
 		return weatherByNameUrl(WEATHER_FORECAST_SEGMENT, location);
 	}
@@ -205,9 +629,9 @@ class OwmClient {
 	private String weatherByNameUrl(final String segment, final String location) throws TransportException {
 		try {
 			final String locationEncoded = URLEncoder.encode(location, StandardCharsets.UTF_8.name());
-			return this.baseUrl +
+			return this.basePath +
 					segment +
-					this.unitsAndApiKeySegment +
+					UNITS_SEGMENT +
 					"&q=" + locationEncoded;
 		} catch (UnsupportedEncodingException e) {
 			log.error("Problem encoding URL for OpenWeatherMap", e);
@@ -216,9 +640,9 @@ class OwmClient {
 	}
 
 	private String weatherByIdUrl(final String segment, final int location) {
-		return this.baseUrl +
+		return this.basePath +
 				segment +
-				this.unitsAndApiKeySegment +
+				UNITS_SEGMENT +
 				"&id=" + location;
 	}
 }
@@ -0,0 +1,193 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.event.Logging;
+import akka.http.javadsl.ClientTransport;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.OutgoingConnection;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.Uri;
+import akka.http.javadsl.settings.ClientConnectionSettings;
+import akka.http.javadsl.settings.ConnectionPoolSettings;
+import akka.io.TcpSO;
+import akka.japi.Pair;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import akka.util.ByteString;
+import com.google.common.collect.ImmutableList;
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.stats.ConnectionPoolStats;
+import com.typesafe.config.Config;
+import scala.concurrent.duration.FiniteDuration;
+import scala.util.Try;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   A dedicated host-level connection pool for OpenWeatherMap, sized from the
+ *   {@code source.owm.pool} config rather than sharing akka-http's default pool.
+ * </p>
+ * <p>
+ *   Requests are offered to a bounded queue in front of the pool; when that is full, callers are
+ *   rejected immediately with a 503 rather than being left to time out. The pool counts queued and
+ *   in-flight requests, and wraps its TCP transport so that it can also count live connections.
+ * </p>
+ */
+class OwmConnectionPool implements OwmTransport {
+
+	private final Uri baseUri;
+	private final int maxConnections;
+	private final int maxOpenRequests;
+	private final SourceQueueWithComplete<Pair<HttpRequest, CompletableFuture<HttpResponse>>> queue;
+
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger openConnections = new AtomicInteger();
+	private final LongAdder connectionsOpened = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+
+	OwmConnectionPool(
+			final ActorSystem actorSystem,
+			final Http http,
+			final Materializer materializer,
+			final String baseUrl,
+			final Config poolConfig
+	) {
+		final ConnectionPoolSettings defaults = ConnectionPoolSettings.create(actorSystem);
+		final ClientConnectionSettings connectionSettings = defaults.getConnectionSettings()
+				.withSocketOptions(ImmutableList.of(TcpSO.keepAlive(poolConfig.getBoolean("keep-alive"))))
+				.withTransport(new ConnectionCountingTransport(ClientTransport.TCP()));
+		final ConnectionPoolSettings settings = defaults
+				.withMaxConnections(poolConfig.getInt("max-connections"))
+				.withMinConnections(poolConfig.getInt("min-connections"))
+				.withMaxOpenRequests(poolConfig.getInt("max-open-requests"))
+				.withPipeliningLimit(poolConfig.getInt("pipelining-limit"))
+				.withIdleTimeout(FiniteDuration.create(poolConfig.getDuration("idle-timeout", TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS))
+				.withConnectionSettings(connectionSettings);
+
+		this.maxConnections = settings.getMaxConnections();
+		this.maxOpenRequests = settings.getMaxOpenRequests();
+
+		// The super pool keeps a host pool, with these settings, for the host each request is addressed
+		// to. (Asked for a host pool directly, akka-http 10.1's Java API would use TLS even for an
+		// http:// URL.)
+		final Flow<Pair<HttpRequest, CompletableFuture<HttpResponse>>, Pair<Try<HttpResponse>, CompletableFuture<HttpResponse>>, ?> pool =
+				http.superPool(
+						settings,
+						Logging.getLogger(actorSystem, this),
+						materializer
+				);
+		this.baseUri = Uri.create(baseUrl);
+
+		this.queue = Source.<Pair<HttpRequest, CompletableFuture<HttpResponse>>>queue(this.maxOpenRequests, OverflowStrategy.dropNew())
+				.map(request -> {
+					this.queued.decrementAndGet();
+					this.inFlight.incrementAndGet();
+					return request;
+				})
+				.via(pool)
+				.to(Sink.foreach(this::completeRequest))
+				.run(materializer);
+	}
+
+	@Override
+	public CompletionStage<HttpResponse> request(final HttpRequest request) {
+		final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+
+		this.queued.incrementAndGet();
+		return this.queue.offer(Pair.create(addressed(request), response))
+				.thenCompose(result -> {
+					if (QueueOfferResult.enqueued().equals(result)) {
+						return response;
+					}
+					this.queued.decrementAndGet();
+					this.rejected.increment();
+					throw TransportException.fromCodeAndMessage(
+							TransportErrorCode.ServiceUnavailable,
+							new ExceptionMessage("ServiceUnavailable", "Too many requests queued for OpenWeatherMap")
+					);
+				});
+	}
+
+	/**
+	 * Requests are made with just the path and query; this adds the scheme, host and port of OWM.
+	 */
+	private HttpRequest addressed(final HttpRequest request) {
+		return request.withUri(request.getUri()
+				.scheme(this.baseUri.scheme())
+				.host(this.baseUri.host())
+				.port(this.baseUri.port())
+		);
+	}
+
+	ConnectionPoolStats stats() {
+		return ConnectionPoolStats.builder()
+				.maxConnections(this.maxConnections)
+				.maxOpenRequests(this.maxOpenRequests)
+				.openConnections(this.openConnections.get())
+				.queued(this.queued.get())
+				.inFlight(this.inFlight.get())
+				.connectionsOpened(this.connectionsOpened.sum())
+				.completed(this.completed.sum())
+				.failed(this.failed.sum())
+				.rejected(this.rejected.sum())
+				.build();
+	}
+
+	private void completeRequest(final Pair<Try<HttpResponse>, CompletableFuture<HttpResponse>> result) {
+		this.inFlight.decrementAndGet();
+
+		final Try<HttpResponse> response = result.first();
+		if (response.isSuccess()) {
+			this.completed.increment();
+			result.second().complete(response.get());
+		} else {
+			this.failed.increment();
+			result.second().completeExceptionally(response.failed().get());
+		}
+	}
+
+	/**
+	 * Delegates to another transport, keeping count of the connections it opens and closes.
+	 */
+	private class ConnectionCountingTransport extends ClientTransport {
+		private final ClientTransport delegate;
+
+		private ConnectionCountingTransport(final ClientTransport delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Flow<ByteString, ByteString, CompletionStage<OutgoingConnection>> connectTo(
+				final String host,
+				final int port,
+				final ClientConnectionSettings settings,
+				final ActorSystem system
+		) {
+			return this.delegate.connectTo(host, port, settings, system)
+					.watchTermination((connected, terminated) -> {
+						connected.thenRun(() -> {
+							connectionsOpened.increment();
+							openConnections.incrementAndGet();
+							terminated.whenComplete((done, throwable) -> openConnections.decrementAndGet());
+						});
+						return connected;
+					});
+		}
+	}
+}
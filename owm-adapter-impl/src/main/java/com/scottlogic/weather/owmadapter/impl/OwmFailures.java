@@ -0,0 +1,38 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Tells which failed requests to OpenWeatherMap suggest that OWM itself is in trouble, for the
+ * circuit breaker and the concurrency limiter to react to.
+ */
+final class OwmFailures {
+
+	private OwmFailures() {
+	}
+
+	/**
+	 * Server errors, timeouts, rate limiting and connection failures. A Not Found or Unauthorized
+	 * is a perfectly healthy answer, and a request cut short by its caller's deadline says nothing
+	 * about OWM at all.
+	 */
+	static boolean isOverloaded(final Throwable throwable) {
+		if (throwable == null) {
+			return false;
+		}
+		final Throwable cause = (throwable instanceof CompletionException && throwable.getCause() != null)
+				? throwable.getCause()
+				: throwable;
+		if (!(cause instanceof TransportException)) {
+			return true;
+		}
+		if (cause instanceof DeadlineExceeded) {
+			return false;
+		}
+		final int status = ((TransportException) cause).errorCode().http();
+		return status >= 500 || status == 408 || status == 429;
+	}
+}
@@ -0,0 +1,156 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.http.javadsl.model.Uri;
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <p>
+ *   A file of raw responses from OpenWeatherMap, as recorded by RecordingTransport and played
+ *   back by ReplayTransport; see {@code source.owm.recording}.
+ * </p>
+ * <p>
+ *   Each exchange is appended as its own deflated frame, preceded by the frame's length, and holds:
+ *   when the request was sent, how long the response took to arrive in full, the request's
+ *   endpoint and query (without the API key), the HTTP status, and the response body as sent. As
+ *   frames stand alone, a file can be appended to by one run after another, and can be read while
+ *   it is still being written, or after a crash, up to the last whole frame.
+ * </p>
+ */
+final class OwmRecording {
+	private static final String API_KEY_PARAM = "(^|&)appid=[^&]*";
+
+	private OwmRecording() {}
+
+	static Appender appendTo(final Path path) throws IOException {
+		return new Appender(path);
+	}
+
+	static List<Exchange> read(final Path path) throws IOException {
+		final List<Exchange> exchanges = new ArrayList<>();
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile())))) {
+			while (true) {
+				final byte[] frame;
+				try {
+					frame = new byte[in.readInt()];
+					in.readFully(frame);
+				} catch (EOFException e) {
+					// The end of the file, or of its last whole frame.
+					return exchanges;
+				}
+				exchanges.add(decode(frame));
+			}
+		}
+	}
+
+	/**
+	 * What identifies a request within a recording: its endpoint (the last segment of its path) and
+	 * its query, less the API key, so that a recording can be replayed with any key and base URL.
+	 */
+	static String requestKey(final Uri uri) {
+		final String path = uri.path();
+		final String endpoint = path.substring(path.lastIndexOf('/') + 1);
+		return endpoint + "?" + uri.rawQueryString().orElse("").replaceAll(API_KEY_PARAM, "").replaceFirst("^&", "");
+	}
+
+	private static Exchange decode(final byte[] frame) throws IOException {
+		try (final DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(frame)))) {
+			final Instant sentAt = Instant.ofEpochMilli(in.readLong());
+			final Duration latency = Duration.ofMillis(in.readInt());
+			final String request = in.readUTF();
+			final int status = in.readShort();
+			final byte[] body = new byte[in.readInt()];
+			in.readFully(body);
+			return new Exchange(sentAt, latency, request, status, body);
+		}
+	}
+
+	/**
+	 * One request to OWM, and the response it got.
+	 */
+	@Value
+	static class Exchange {
+		Instant sentAt;
+		Duration latency;
+		String request;
+		int status;
+		byte[] body;
+	}
+
+	/**
+	 * Appends exchanges to a recording, one whole frame at a time.
+	 */
+	static class Appender implements Closeable {
+		private final DataOutputStream out;
+
+		private Appender(final Path path) throws IOException {
+			truncateToLastWholeFrame(path);
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile(), true)));
+		}
+
+		/**
+		 * Drops any part-written frame left by a run that crashed, so that what is appended now can
+		 * be read back.
+		 */
+		private static void truncateToLastWholeFrame(final Path path) throws IOException {
+			if (!path.toFile().exists()) {
+				return;
+			}
+			try (final RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+				long wholeFrames = 0;
+				while (wholeFrames + Integer.BYTES <= file.length()) {
+					file.seek(wholeFrames);
+					final long next = wholeFrames + Integer.BYTES + file.readInt();
+					if (next > file.length()) {
+						break;
+					}
+					wholeFrames = next;
+				}
+				file.setLength(wholeFrames);
+			}
+		}
+
+		synchronized void append(final Exchange exchange) throws IOException {
+			final ByteArrayOutputStream frame = new ByteArrayOutputStream(exchange.getBody().length / 4 + 64);
+			final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+			try (final DataOutputStream record = new DataOutputStream(new DeflaterOutputStream(frame, deflater))) {
+				record.writeLong(exchange.getSentAt().toEpochMilli());
+				record.writeInt((int) exchange.getLatency().toMillis());
+				record.writeUTF(exchange.getRequest());
+				record.writeShort(exchange.getStatus());
+				record.writeInt(exchange.getBody().length);
+				record.write(exchange.getBody());
+			} finally {
+				deflater.end();
+			}
+			this.out.writeInt(frame.size());
+			frame.writeTo(this.out);
+			this.out.flush();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			this.out.close();
+		}
+	}
+}
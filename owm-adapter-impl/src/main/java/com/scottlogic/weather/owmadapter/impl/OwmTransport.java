@@ -0,0 +1,18 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * How OwmClient's requests reach OpenWeatherMap: through the connection pool, or, for recording
+ * or replaying traffic (see OwmRecording), something standing in front of or in place of it.
+ */
+interface OwmTransport {
+
+	/**
+	 * Sends a request given with just its path and query.
+	 */
+	CompletionStage<HttpResponse> request(HttpRequest request);
+}
@@ -0,0 +1,75 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.stream.Materializer;
+import com.scottlogic.weather.owmadapter.impl.OwmRecording.Appender;
+import com.scottlogic.weather.owmadapter.impl.OwmRecording.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>
+ *   Sends requests on to OpenWeatherMap, and appends each response, as received, to a recording
+ *   (see OwmRecording).
+ * </p>
+ * <p>
+ *   The response body is read in full before it is recorded and handed on, so while recording,
+ *   responses are no longer decoded as they arrive.
+ * </p>
+ */
+class RecordingTransport implements OwmTransport {
+	private static final long READ_TIMEOUT_MILLIS = Duration.ofSeconds(10).toMillis();
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final OwmTransport delegate;
+	private final Appender appender;
+	private final Materializer materializer;
+	private final Clock clock;
+
+	RecordingTransport(
+			final OwmTransport delegate,
+			final Appender appender,
+			final Materializer materializer,
+			final Clock clock
+	) {
+		this.delegate = delegate;
+		this.appender = appender;
+		this.materializer = materializer;
+		this.clock = clock;
+	}
+
+	@Override
+	public CompletionStage<HttpResponse> request(final HttpRequest request) {
+		final Instant sentAt = this.clock.instant();
+		return this.delegate.request(request)
+				.thenCompose(response -> response.entity().toStrict(READ_TIMEOUT_MILLIS, this.materializer)
+						.thenApply(entity -> {
+							record(new Exchange(
+									sentAt,
+									Duration.between(sentAt, this.clock.instant()),
+									OwmRecording.requestKey(request.getUri()),
+									response.status().intValue(),
+									entity.getData().toArray()
+							));
+							return response.withEntity(entity);
+						})
+				);
+	}
+
+	private void record(final Exchange exchange) {
+		try {
+			this.appender.append(exchange);
+		} catch (IOException e) {
+			// Losing a recording is no reason to fail the request.
+			log.warn("Failed to record OpenWeatherMap response to [{}]", exchange.getRequest(), e);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.Scheduler;
+import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpEntities;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.pattern.PatternsCS;
+import com.scottlogic.weather.owmadapter.impl.OwmRecording.Exchange;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ *   Answers requests from a recording (see OwmRecording) instead of from OpenWeatherMap, without
+ *   touching the network.
+ * </p>
+ * <p>
+ *   A request is answered with the responses recorded for the same endpoint and query, in the
+ *   order they were recorded, starting over once they run out; and after the time they took, divided
+ *   by the given speed. A request that was never recorded is answered with a 404.
+ * </p>
+ */
+class ReplayTransport implements OwmTransport {
+
+	private final Map<String, List<Exchange>> exchanges;
+	private final Map<String, AtomicInteger> next = new ConcurrentHashMap<>();
+	private final double speed;
+	private final Scheduler scheduler;
+	private final ExecutionContext executionContext;
+
+	/**
+	 * @param speed 1 to answer after the recorded response times, 2 to answer twice as fast, and so
+	 *              on; 0 to answer at once
+	 */
+	ReplayTransport(
+			final List<Exchange> exchanges,
+			final double speed,
+			final Scheduler scheduler,
+			final ExecutionContext executionContext
+	) {
+		this.exchanges = exchanges.stream().collect(Collectors.groupingBy(Exchange::getRequest));
+		this.speed = speed;
+		this.scheduler = scheduler;
+		this.executionContext = executionContext;
+	}
+
+	@Override
+	public CompletionStage<HttpResponse> request(final HttpRequest request) {
+		final String key = OwmRecording.requestKey(request.getUri());
+		final List<Exchange> recorded = this.exchanges.get(key);
+		if (recorded == null) {
+			return CompletableFuture.completedFuture(HttpResponse.create()
+					.withStatus(404)
+					.withEntity(HttpEntities.create(
+							ContentTypes.APPLICATION_JSON,
+							"{\"cod\":\"404\",\"message\":\"Not in the recording: " + key.replace("\"", "") + "\"}"
+					)));
+		}
+
+		final int index = this.next.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+		final Exchange exchange = recorded.get(Math.floorMod(index, recorded.size()));
+		final HttpResponse response = HttpResponse.create()
+				.withStatus(exchange.getStatus())
+				.withEntity(HttpEntities.create(ContentTypes.APPLICATION_JSON, exchange.getBody()));
+
+		final Duration delay = this.speed > 0
+				? Duration.ofNanos((long) (exchange.getLatency().toNanos() / this.speed))
+				: Duration.ZERO;
+		if (delay.isZero()) {
+			return CompletableFuture.completedFuture(response);
+		}
+		return PatternsCS.after(
+				FiniteDuration.create(delay.toNanos(), TimeUnit.NANOSECONDS),
+				this.scheduler,
+				this.executionContext,
+				CompletableFuture.completedFuture(response)
+		);
+	}
+
+	int recordedRequests() {
+		return this.exchanges.size();
+	}
+}
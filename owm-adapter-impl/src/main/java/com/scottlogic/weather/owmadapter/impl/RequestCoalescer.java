@@ -0,0 +1,74 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.message.stats.CoalescingStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *   Single-flight deduplication of upstream requests: while a request for a given key is in
+ *   flight, any further callers for the same key are handed the same pending result rather than
+ *   triggering another call to OpenWeatherMap.
+ * </p>
+ * <p>
+ *   A key is forgotten as soon as its request completes, successfully or not, so this never serves
+ *   stale data; it only collapses concurrent demand. Callers must treat the shared result as
+ *   read-only.
+ * </p>
+ */
+@Singleton
+class RequestCoalescer {
+
+	private final ConcurrentMap<RequestKey, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder upstreamCalls = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	<T> CompletionStage<T> coalesce(final RequestKey key, final Supplier<CompletionStage<T>> call) {
+		final CompletableFuture<T> result = new CompletableFuture<>();
+		final CompletableFuture<?> existing = this.inFlight.putIfAbsent(key, result);
+		if (existing != null) {
+			this.coalesced.increment();
+			// Each key maps to a single request type, hence a single result type.
+			return (CompletionStage<T>) existing;
+		}
+
+		this.upstreamCalls.increment();
+		try {
+			call.get().whenComplete((value, throwable) -> {
+				// Forget the key before completing, so that late arrivals start afresh.
+				this.inFlight.remove(key, result);
+				if (throwable == null) {
+					result.complete(value);
+				} else {
+					result.completeExceptionally(unwrap(throwable));
+				}
+			});
+		} catch (RuntimeException e) {
+			this.inFlight.remove(key, result);
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	CoalescingStats stats() {
+		return CoalescingStats.builder()
+				.inFlight(this.inFlight.size())
+				.upstreamCalls(this.upstreamCalls.sum())
+				.coalesced(this.coalesced.sum())
+				.build();
+	}
+
+	private Throwable unwrap(final Throwable throwable) {
+		return (throwable instanceof CompletionException && throwable.getCause() != null)
+				? throwable.getCause()
+				: throwable;
+	}
+}
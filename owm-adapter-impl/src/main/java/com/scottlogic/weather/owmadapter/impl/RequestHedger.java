@@ -0,0 +1,160 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.Cancellable;
+import akka.actor.Scheduler;
+import com.scottlogic.weather.owmadapter.api.message.stats.HedgingStats;
+import com.typesafe.config.Config;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ *   Cuts the tail latency of requests to OpenWeatherMap: if a request has not been answered within
+ *   the delay by which most requests normally are (a configurable percentile of recent response
+ *   times), a second, identical request is sent, and whichever answers successfully first is used.
+ * </p>
+ * <p>
+ *   A hedge is only sent if it can be afforded at that moment (i.e. a quota token and a concurrency
+ *   permit are free), and
+ *   never once the first request has failed outright; a failure is only reported once every
+ *   request sent has failed.
+ * </p>
+ */
+class RequestHedger {
+
+	private final Scheduler scheduler;
+	private final ExecutionContext executionContext;
+	private final boolean enabled;
+	private final int percentile;
+	private final long minDelayMillis;
+	private final int minSamples;
+
+	// Ring buffer of recent response times.
+	private final long[] samples;
+	private int next = 0;
+	private int sampled = 0;
+
+	private final LongAdder hedged = new LongAdder();
+	private final LongAdder hedgeWins = new LongAdder();
+
+	RequestHedger(
+			final Scheduler scheduler,
+			final ExecutionContext executionContext,
+			final Config hedgingConfig
+	) {
+		this.scheduler = scheduler;
+		this.executionContext = executionContext;
+		this.enabled = hedgingConfig.getBoolean("enabled");
+		this.percentile = hedgingConfig.getInt("percentile");
+		this.minDelayMillis = hedgingConfig.getDuration("min-delay", TimeUnit.MILLISECONDS);
+		this.minSamples = hedgingConfig.getInt("min-samples");
+		this.samples = new long[hedgingConfig.getInt("sample-size")];
+	}
+
+	/**
+	 * Sends the given request, and if it is slow to answer, asks for the hedge to be sent too: the
+	 * hedge supplier sends it if it can be afforded, and is empty if not.
+	 */
+	<T> CompletionStage<T> hedge(
+			final Supplier<CompletionStage<T>> request,
+			final Supplier<Optional<CompletionStage<T>>> hedge
+	) {
+		if (!this.enabled) {
+			return request.get();
+		}
+
+		final long delayMillis = hedgeDelayMillis();
+		final Attempts<T> attempts = new Attempts<>();
+		final long start = System.nanoTime();
+		attempts.track(request.get(), start, false);
+
+		if (delayMillis >= 0) {
+			final Cancellable timer = this.scheduler.scheduleOnce(
+					FiniteDuration.create(delayMillis, TimeUnit.MILLISECONDS),
+					() -> {
+						if (attempts.mayHedge()) {
+							final long hedgeStart = System.nanoTime();
+							hedge.get().ifPresent(sent -> {
+								this.hedged.increment();
+								attempts.track(sent, hedgeStart, true);
+							});
+						}
+					},
+					this.executionContext
+			);
+			attempts.result.whenComplete((result, throwable) -> timer.cancel());
+		}
+		return attempts.result;
+	}
+
+	HedgingStats stats() {
+		return HedgingStats.builder()
+				.enabled(this.enabled)
+				.delayMillis(this.enabled ? hedgeDelayMillis() : -1)
+				.hedged(this.hedged.sum())
+				.hedgeWins(this.hedgeWins.sum())
+				.build();
+	}
+
+	/**
+	 * The configured percentile of recent response times, or -1 if there are too few samples yet
+	 * to tell.
+	 */
+	private synchronized long hedgeDelayMillis() {
+		if (this.sampled < this.minSamples) {
+			return -1;
+		}
+		final long[] sorted = Arrays.copyOf(this.samples, this.sampled);
+		Arrays.sort(sorted);
+		final int index = (int) Math.ceil(this.percentile / 100.0 * sorted.length) - 1;
+		return Math.max(this.minDelayMillis, sorted[Math.max(index, 0)]);
+	}
+
+	private synchronized void sample(final long millis) {
+		this.samples[this.next] = millis;
+		this.next = (this.next + 1) % this.samples.length;
+		this.sampled = Math.min(this.sampled + 1, this.samples.length);
+	}
+
+	private final class Attempts<T> {
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private int outstanding = 0;
+		private boolean failed = false;
+
+		private synchronized boolean mayHedge() {
+			return !this.result.isDone() && !this.failed;
+		}
+
+		private void track(final CompletionStage<T> response, final long start, final boolean isHedge) {
+			synchronized (this) {
+				this.outstanding++;
+			}
+			response.whenComplete((value, throwable) -> {
+				if (throwable == null) {
+					sample(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+					if (this.result.complete(value) && isHedge) {
+						hedgeWins.increment();
+					}
+					return;
+				}
+
+				final boolean allFailed;
+				synchronized (this) {
+					this.failed = true;
+					allFailed = --this.outstanding == 0;
+				}
+				if (allFailed) {
+					this.result.completeExceptionally(throwable);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ *   Identifies an upstream request by what it asks OpenWeatherMap for, so that equivalent requests
+ *   can share one another's results.
+ * </p>
+ * <p>
+ *   Place names are normalised the way OWM itself treats them: case-insensitively, and ignoring
+ *   whitespace around the country code separator. Hence "London, GB" and "london,gb" are the same
+ *   request. Names and ids are never equal to each other, even when they resolve to the same city.
+ * </p>
+ */
+@EqualsAndHashCode
+final class RequestKey {
+	private static final Pattern SEPARATOR = Pattern.compile("\\s*,\\s*");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	enum Type { CURRENT, FORECAST, GROUP, ONE_CALL }
+
+	private final Type type;
+	private final String name;
+	private final int id;
+
+	private RequestKey(final Type type, final String name, final int id) {
+		this.type = type;
+		this.name = name;
+		this.id = id;
+	}
+
+	static RequestKey current(final String location) {
+		return new RequestKey(Type.CURRENT, normalise(location), 0);
+	}
+
+	static RequestKey current(final int location) {
+		return new RequestKey(Type.CURRENT, null, location);
+	}
+
+	static RequestKey group(final List<Integer> locations) {
+		return new RequestKey(
+				Type.GROUP,
+				locations.stream().map(String::valueOf).collect(Collectors.joining(",")),
+				0
+		);
+	}
+
+	static RequestKey forecast(final String location) {
+		return new RequestKey(Type.FORECAST, normalise(location), 0);
+	}
+
+	static RequestKey forecast(final int location) {
+		return new RequestKey(Type.FORECAST, null, location);
+	}
+
+	static RequestKey oneCall(final int location) {
+		return new RequestKey(Type.ONE_CALL, null, location);
+	}
+
+	/**
+	 * The same location, for a different type of request.
+	 */
+	RequestKey withType(final Type type) {
+		return new RequestKey(type, this.name, this.id);
+	}
+
+	Type getType() {
+		return this.type;
+	}
+
+	@Override
+	public String toString() {
+		return this.type + ":" + (this.name == null ? String.valueOf(this.id) : this.name);
+	}
+
+	private static String normalise(final String location) {
+		final String separated = SEPARATOR.matcher(location.trim()).replaceAll(",");
+		return WHITESPACE.matcher(separated).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+}
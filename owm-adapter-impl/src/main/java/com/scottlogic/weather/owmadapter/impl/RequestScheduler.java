@@ -0,0 +1,264 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.Done;
+import akka.actor.Scheduler;
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.RequestPriority;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.owmadapter.api.message.stats.SchedulerStats;
+import com.typesafe.config.Config;
+import scala.concurrent.ExecutionContext;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ *   Rations requests to OpenWeatherMap according to our quota, using a token bucket: tokens are
+ *   added at a steady rate up to a maximum burst, and each request to OWM spends one.
+ * </p>
+ * <p>
+ *   When no token is available, requests wait in a queue for their priority; whenever a token
+ *   becomes available, it goes to the longest-waiting interactive request if there is one, and only
+ *   then to a background request. The queues are bounded, and once full, requests are rejected
+ *   immediately with a 429 rather than being left to time out.
+ * </p>
+ * <p>
+ *   A request whose deadline passes while it waits is dropped from its queue, failing with
+ *   {@link DeadlineExceeded}, rather than being given a token only to be skipped.
+ * </p>
+ */
+class RequestScheduler {
+	private static final TransportErrorCode TOO_MANY_REQUESTS = TransportErrorCode.fromHttp(429);
+	private static final CompletableFuture<Done> GRANTED = CompletableFuture.completedFuture(Done.getInstance());
+
+	private final Scheduler scheduler;
+	private final ExecutionContext executionContext;
+	private final int requestsPerMinute;
+	private final int burst;
+	private final int maxQueued;
+	private final double tokensPerNano;
+
+	// Indexed by RequestPriority ordinal, so the highest priority comes first.
+	private final List<Deque<Waiting>> lanes = new ArrayList<>();
+	private int queued = 0;
+	private double tokens;
+	private long lastRefill;
+	private boolean drainScheduled = false;
+	private long granted = 0;
+	private long rejected = 0;
+	private long expired = 0;
+	private long refunded = 0;
+
+	RequestScheduler(final Scheduler scheduler, final ExecutionContext executionContext, final Config schedulerConfig) {
+		this.scheduler = scheduler;
+		this.executionContext = executionContext;
+		this.requestsPerMinute = schedulerConfig.getInt("requests-per-minute");
+		this.burst = schedulerConfig.getInt("burst");
+		this.maxQueued = schedulerConfig.getInt("max-queued");
+		this.tokensPerNano = this.requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+
+		for (int i = 0; i < RequestPriority.values().length; i++) {
+			this.lanes.add(new ArrayDeque<>());
+		}
+		this.tokens = this.burst;
+		this.lastRefill = System.nanoTime();
+	}
+
+	CompletionStage<Done> acquire(final RequestPriority priority) {
+		return acquire(priority, RequestDeadline.NONE);
+	}
+
+	/**
+	 * Completes when a request of the given priority may be sent to OWM; fails with a 429 if there
+	 * are already too many requests waiting, or with {@link DeadlineExceeded} if the deadline passes
+	 * first.
+	 */
+	synchronized CompletionStage<Done> acquire(final RequestPriority priority, final RequestDeadline deadline) {
+		if (deadline.hasExpired()) {
+			this.expired++;
+			return failed(deadlineExceeded());
+		}
+		refill();
+		if (this.queued == 0 && this.tokens >= 1) {
+			this.tokens--;
+			this.granted++;
+			return GRANTED;
+		}
+		if (this.queued >= this.maxQueued) {
+			dropExpired();
+		}
+		if (this.queued >= this.maxQueued) {
+			this.rejected++;
+			return failed(TransportException.fromCodeAndMessage(
+					TOO_MANY_REQUESTS,
+					new ExceptionMessage("TooManyRequests", "OpenWeatherMap request quota exhausted; try again later")
+			));
+		}
+
+		final CompletableFuture<Done> permit = new CompletableFuture<>();
+		this.lanes.get(priority.ordinal()).add(new Waiting(permit, deadline));
+		this.queued++;
+		scheduleDrain();
+		return permit;
+	}
+
+	/**
+	 * Takes a token if one is free right now and nobody is waiting for it; never queues. For
+	 * optional requests, such as hedges, which are only worth sending if they cost nothing.
+	 */
+	synchronized boolean tryAcquire() {
+		refill();
+		if (this.queued == 0 && this.tokens >= 1) {
+			this.tokens--;
+			this.granted++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gives back a token taken for a request which was not sent after all, e.g. as it was refused
+	 * by the concurrency limiter, so that the quota is not spent on nothing.
+	 */
+	void refund() {
+		final boolean waiting;
+		synchronized (this) {
+			refill();
+			this.tokens = Math.min(this.burst, this.tokens + 1);
+			this.refunded++;
+			waiting = this.queued > 0;
+		}
+		if (waiting) {
+			this.executionContext.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Tokens available less requests waiting for them; negative when there is a backlog.
+	 */
+	synchronized double budget() {
+		refill();
+		return this.tokens - this.queued;
+	}
+
+	synchronized SchedulerStats stats() {
+		refill();
+		return SchedulerStats.builder()
+				.requestsPerMinute(this.requestsPerMinute)
+				.burst(this.burst)
+				.maxQueued(this.maxQueued)
+				.availableTokens((int) this.tokens)
+				.queuedInteractive(this.lanes.get(RequestPriority.INTERACTIVE.ordinal()).size())
+				.queuedBackground(this.lanes.get(RequestPriority.BACKGROUND.ordinal()).size())
+				.granted(this.granted)
+				.rejected(this.rejected)
+				.expired(this.expired)
+				.refunded(this.refunded)
+				.build();
+	}
+
+	private void drain() {
+		final List<CompletableFuture<Done>> permits = new ArrayList<>();
+		final List<CompletableFuture<Done>> expiredPermits = new ArrayList<>();
+		synchronized (this) {
+			this.drainScheduled = false;
+			refill();
+			while (this.queued > 0 && this.tokens >= 1) {
+				final Waiting next = nextWaiting();
+				this.queued--;
+				if (next.deadline.hasExpired()) {
+					this.expired++;
+					expiredPermits.add(next.permit);
+					continue;
+				}
+				permits.add(next.permit);
+				this.tokens--;
+				this.granted++;
+			}
+			if (this.queued > 0) {
+				scheduleDrain();
+			}
+		}
+		// Complete outside the lock, as completion runs the callers' continuations.
+		permits.forEach(permit -> permit.complete(Done.getInstance()));
+		expiredPermits.forEach(permit -> permit.completeExceptionally(deadlineExceeded()));
+	}
+
+	private Waiting nextWaiting() {
+		for (final Deque<Waiting> lane : this.lanes) {
+			if (!lane.isEmpty()) {
+				return lane.poll();
+			}
+		}
+		throw new IllegalStateException("No request waiting");
+	}
+
+	/**
+	 * Makes room in a full queue by failing any requests there whose deadline has passed.
+	 */
+	private void dropExpired() {
+		for (final Deque<Waiting> lane : this.lanes) {
+			final Iterator<Waiting> waiting = lane.iterator();
+			while (waiting.hasNext()) {
+				final Waiting next = waiting.next();
+				if (next.deadline.hasExpired()) {
+					waiting.remove();
+					this.queued--;
+					this.expired++;
+					// Completed asynchronously, as this runs under the lock.
+					this.executionContext.execute(() -> next.permit.completeExceptionally(deadlineExceeded()));
+				}
+			}
+		}
+	}
+
+	private void scheduleDrain() {
+		if (this.drainScheduled) {
+			return;
+		}
+		this.drainScheduled = true;
+		final long nanosToNextToken = (long) Math.ceil((1 - this.tokens) / this.tokensPerNano);
+		this.scheduler.scheduleOnce(
+				FiniteDuration.create(Math.max(nanosToNextToken, 0), TimeUnit.NANOSECONDS),
+				this::drain,
+				this.executionContext
+		);
+	}
+
+	private static DeadlineExceeded deadlineExceeded() {
+		return new DeadlineExceeded("Deadline passed while waiting for OpenWeatherMap quota");
+	}
+
+	private static <T> CompletionStage<T> failed(final Throwable throwable) {
+		final CompletableFuture<T> failure = new CompletableFuture<>();
+		failure.completeExceptionally(throwable);
+		return failure;
+	}
+
+	private void refill() {
+		final long now = System.nanoTime();
+		this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefill) * this.tokensPerNano);
+		this.lastRefill = now;
+	}
+
+	private static class Waiting {
+		private final CompletableFuture<Done> permit;
+		private final RequestDeadline deadline;
+
+		private Waiting(final CompletableFuture<Done> permit, final RequestDeadline deadline) {
+			this.permit = permit;
+			this.deadline = deadline;
+		}
+	}
+}
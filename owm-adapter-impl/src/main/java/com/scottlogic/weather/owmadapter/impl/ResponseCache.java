@@ -0,0 +1,184 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.owmadapter.api.message.stats.CacheStats;
+import com.typesafe.config.Config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ *   A bounded, in-memory cache of weather data, keyed by request (see {@link RequestKey}).
+ * </p>
+ * <p>
+ *   Rather than a single fixed TTL, each entry lives until OpenWeatherMap is next expected to have
+ *   something new to say, based on its update cadence:
+ * </p>
+ * <ul>
+ *   <li>
+ *     Current weather observations are refreshed roughly every 10 minutes, so an observation
+ *     expires one update interval after it was measured.
+ *   </li>
+ *   <li>
+ *     Forecasts are issued every 3 hours, and each one starts at the next 3-hourly period. A
+ *     forecast is therefore superseded as soon as its first period begins.
+ *   </li>
+ * </ul>
+ * <p>
+ *   When an observation is already older than OWM's cadence would suggest, it is kept for a short
+ *   minimum TTL instead, so we don't hammer OWM for data that it hasn't yet refreshed. When full,
+ *   the least recently used entry is evicted.
+ * </p>
+ */
+@Singleton
+class ResponseCache {
+
+	private final Clock clock;
+	private final int maxEntries;
+	private final Duration currentWeatherUpdateInterval;
+	private final Duration forecastUpdateInterval;
+	private final Duration minTtl;
+
+	private final Map<RequestKey, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	@Inject
+	ResponseCache(final Config config) {
+		this(config, Clock.systemUTC());
+	}
+
+	ResponseCache(final Config config, final Clock clock) {
+		final Config cacheConfig = config.getConfig("source.owm.cache");
+		this.clock = clock;
+		this.maxEntries = cacheConfig.getInt("max-entries");
+		this.currentWeatherUpdateInterval = cacheConfig.getDuration("current-update-interval");
+		this.forecastUpdateInterval = cacheConfig.getDuration("forecast-update-interval");
+		this.minTtl = cacheConfig.getDuration("min-ttl");
+
+		this.entries = new LinkedHashMap<RequestKey, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<RequestKey, Entry> eldest) {
+				if (size() <= maxEntries) {
+					return false;
+				}
+				if (eldest.getValue().isExpiredAt(clock.instant())) {
+					expirations.increment();
+				} else {
+					evictions.increment();
+				}
+				return true;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> Optional<T> get(final RequestKey key) {
+		synchronized (this.entries) {
+			final Entry entry = this.entries.get(key);
+			if (entry != null && entry.isExpiredAt(this.clock.instant())) {
+				this.entries.remove(key);
+				this.expirations.increment();
+			} else if (entry != null) {
+				this.hits.increment();
+				// Each key maps to a single request type, hence a single value type.
+				return Optional.of((T) entry.value);
+			}
+		}
+		this.misses.increment();
+		return Optional.empty();
+	}
+
+	/**
+	 * Caches current weather under the given key, and also under its location id if the request
+	 * was by name, so that subsequent requests by id benefit too.
+	 */
+	WeatherData putCurrentWeather(final RequestKey key, final WeatherData weatherData) {
+		final Instant expiresAt = expiry(
+				weatherData.getMeasured().toInstant().plus(this.currentWeatherUpdateInterval),
+				this.currentWeatherUpdateInterval
+		);
+		put(key, weatherData, expiresAt);
+		put(RequestKey.current(weatherData.getId()), weatherData, expiresAt);
+		return weatherData;
+	}
+
+	/**
+	 * Caches a weather forecast under the given key, and also under its location id if the request
+	 * was by name, so that subsequent requests by id benefit too.
+	 */
+	List<WeatherData> putWeatherForecast(final RequestKey key, final List<WeatherData> forecast) {
+		if (forecast.isEmpty()) {
+			return forecast;
+		}
+		final WeatherData firstPeriod = forecast.get(0);
+		final Instant expiresAt = expiry(firstPeriod.getMeasured().toInstant(), this.forecastUpdateInterval);
+		put(key, forecast, expiresAt);
+		put(RequestKey.forecast(firstPeriod.getId()), forecast, expiresAt);
+		return forecast;
+	}
+
+	CacheStats stats() {
+		final int size;
+		synchronized (this.entries) {
+			size = this.entries.size();
+		}
+		return CacheStats.builder()
+				.maxEntries(this.maxEntries)
+				.entries(size)
+				.hits(this.hits.sum())
+				.misses(this.misses.sum())
+				.evictions(this.evictions.sum())
+				.expirations(this.expirations.sum())
+				.build();
+	}
+
+	/**
+	 * Clamps the time at which OWM is expected to have updated its data to between the minimum TTL
+	 * and one full update interval from now.
+	 */
+	private Instant expiry(final Instant expectedUpdate, final Duration updateInterval) {
+		final Instant now = this.clock.instant();
+		final Instant earliest = now.plus(this.minTtl);
+		final Instant latest = now.plus(updateInterval);
+
+		if (expectedUpdate.isBefore(earliest)) {
+			return earliest;
+		}
+		return expectedUpdate.isAfter(latest) ? latest : expectedUpdate;
+	}
+
+	private void put(final RequestKey key, final Object value, final Instant expiresAt) {
+		if (this.maxEntries <= 0) {
+			return;
+		}
+		synchronized (this.entries) {
+			this.entries.put(key, new Entry(value, expiresAt));
+		}
+	}
+
+	private static final class Entry {
+		private final Object value;
+		private final Instant expiresAt;
+
+		private Entry(final Object value, final Instant expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpiredAt(final Instant instant) {
+			return !instant.isBefore(this.expiresAt);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ *   Decodes a JSON document into a given type incrementally, as its bytes arrive, using Jackson's
+ *   non-blocking parser. The response entity is never gathered into a String: each ByteString is
+ *   fed straight to the parser, and the resulting tokens are buffered until the document is
+ *   complete, at which point they are bound to the target type.
+ * </p>
+ * <p>
+ *   Only the fields that the target type actually declares are buffered; anything else in the
+ *   document (OWM sends plenty we never read, such as pressure, clouds and icons) is skipped
+ *   token by token without ever being copied. The set of wanted fields is derived from Jackson's
+ *   own view of each type, so it stays in step with the message classes.
+ * </p>
+ */
+class StreamingJsonDecoder {
+
+	private final ObjectMapper objectMapper;
+	private final Map<JavaType, FieldFilter> filters = new ConcurrentHashMap<>();
+
+	StreamingJsonDecoder(final ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	<T> CompletionStage<T> decode(
+			final Source<ByteString, ?> dataBytes,
+			final Class<T> clazz,
+			final Materializer materializer
+	) {
+		final JavaType type = this.objectMapper.constructType(clazz);
+		final FieldFilter filter = this.filters.computeIfAbsent(type, t -> filterFor(t, new HashSet<>()));
+
+		return dataBytes
+				.runWith(Sink.fold(new Tokenizer(filter), Tokenizer::feed), materializer)
+				.thenApply(tokenizer -> tokenizer.complete(type));
+	}
+
+	/**
+	 * Builds a tree of field names wanted by the given type, from the names Jackson uses for each
+	 * bean property. Scalars, maps and anything from the JDK (Instant, BigDecimal...) are accepted
+	 * whole.
+	 */
+	private FieldFilter filterFor(final JavaType type, final Set<JavaType> visiting) {
+		if (type.isCollectionLikeType() || type.isArrayType()) {
+			return filterFor(type.getContentType(), visiting);
+		}
+		if (type.isPrimitive() || type.isEnumType() || type.isMapLikeType() ||
+				type.getRawClass().getName().startsWith("java.") ||
+				!visiting.add(type)) {
+			return FieldFilter.ACCEPT_ALL;
+		}
+
+		final BeanDescription description = this.objectMapper.getSerializationConfig().introspect(type);
+		final List<BeanPropertyDefinition> properties = description.findProperties();
+		if (properties.isEmpty()) {
+			return FieldFilter.ACCEPT_ALL;
+		}
+
+		final Map<String, FieldFilter> fields = new HashMap<>();
+		properties.forEach(property -> fields.put(property.getName(), filterFor(property.getPrimaryType(), visiting)));
+		visiting.remove(type);
+		return new FieldFilter(fields);
+	}
+
+	private final class Tokenizer {
+		private final JsonParser parser;
+		private final ByteArrayFeeder feeder;
+		private final TokenBuffer tokens;
+
+		// Filters of the containers currently open (and being kept), innermost first.
+		private final Deque<FieldFilter> open = new ArrayDeque<>();
+		private final FieldFilter rootFilter;
+		private FieldFilter nextValueFilter;
+		private boolean skipNextValue = false;
+		private int skipDepth = 0;
+		private boolean complete = false;
+
+		private Tokenizer(final FieldFilter rootFilter) {
+			try {
+				this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			this.feeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
+			this.tokens = new TokenBuffer(this.parser).forceUseOfBigDecimal(true);
+			this.rootFilter = rootFilter;
+			this.nextValueFilter = rootFilter;
+		}
+
+		private Tokenizer feed(final ByteString chunk) throws IOException {
+			final byte[] bytes = chunk.toArray();
+			this.feeder.feedInput(bytes, 0, bytes.length);
+			drain();
+			return this;
+		}
+
+		private <T> T complete(final JavaType type) {
+			try {
+				this.feeder.endOfInput();
+				drain();
+				if (!this.complete) {
+					throw new JsonParseException(this.parser, "Unexpected end of JSON input");
+				}
+				return objectMapper.readValue(this.tokens.asParser(objectMapper), type);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private void drain() throws IOException {
+			JsonToken token;
+			while ((token = this.parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+				if (this.complete) {
+					throw new JsonParseException(this.parser, "Unexpected content after end of JSON document");
+				}
+				handle(token);
+			}
+		}
+
+		private void handle(final JsonToken token) throws IOException {
+			if (this.skipDepth > 0) {
+				if (token.isStructStart()) {
+					this.skipDepth++;
+				} else if (token.isStructEnd()) {
+					this.skipDepth--;
+				}
+				return;
+			}
+			if (this.skipNextValue) {
+				this.skipNextValue = false;
+				if (token.isStructStart()) {
+					this.skipDepth = 1;
+				}
+				return;
+			}
+
+			if (token == JsonToken.FIELD_NAME) {
+				final FieldFilter parent = this.open.peek();
+				final String name = this.parser.getCurrentName();
+				if (!parent.accepts(name)) {
+					this.skipNextValue = true;
+					return;
+				}
+				this.nextValueFilter = parent.child(name);
+			} else if (token.isStructStart()) {
+				this.open.push(valueFilter());
+			} else if (token.isStructEnd()) {
+				this.open.pop();
+				this.complete = this.open.isEmpty();
+			} else if (this.open.isEmpty()) {
+				this.complete = true; // Scalar at the root.
+			}
+
+			this.tokens.copyCurrentEvent(this.parser);
+		}
+
+		private FieldFilter valueFilter() {
+			if (this.open.isEmpty()) {
+				return this.rootFilter;
+			}
+			// Elements of an array share the filter of the array itself.
+			return this.parser.getParsingContext().getParent().inArray()
+					? this.open.peek()
+					: this.nextValueFilter;
+		}
+	}
+
+	private static final class FieldFilter {
+		private static final FieldFilter ACCEPT_ALL = new FieldFilter(null);
+
+		private final Map<String, FieldFilter> fields;
+
+		private FieldFilter(final Map<String, FieldFilter> fields) {
+			this.fields = fields;
+		}
+
+		private boolean accepts(final String name) {
+			return this.fields == null || this.fields.containsKey(name);
+		}
+
+		private FieldFilter child(final String name) {
+			return this.fields == null ? ACCEPT_ALL : this.fields.get(name);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ *   Spatial index over the timezone data behind {@link TimezoneMapper}, giving the same zone for a
+ *   point as the decision tree it was generated as, in far fewer comparisons.
+ * </p>
+ * <p>
+ *   The world is divided into leaves: rectangles, each with a default zone and the polygons of any
+ *   other zones within it, tested in order. A leaf covers latitudes and longitudes from its lower
+ *   bounds (inclusive) to its upper ones (exclusive), just as the tree's {@code lat < x} tests
+ *   divided them. Leaves are bucketed on a grid, so a lookup only looks at the few leaves
+ *   overlapping its cell. Each polygon has a bounding box, checked before any of its edges, and
+ *   the crossing test itself is exactly the tree's, so the answer is the same even for points on
+ *   an edge.
+ * </p>
+ * <p>
+ *   The data is the timezones.bin resource, compiled at build time from src/main/timezones by
+ *   TimezoneDataCompiler, which also describes its layout. It is memory-mapped read-only, not read,
+ *   and used in place: leaves, cells and polygons are fixed-size records read at their offsets,
+ *   and a polygon's points, in millionths of a degree as differences from the point before, are
+ *   decoded as its edges are tested. Apart from the zone ids, it costs no heap.
+ * </p>
+ */
+final class TimezoneIndex {
+	static final int MAGIC = 0x4f574d54; // "OWMT"
+	static final int VERSION = 1;
+
+	private static final String RESOURCE = "/timezones.bin";
+	private static final int HEADER_BYTES = 48;
+	private static final int LEAF_BYTES = 24;
+	private static final int POLYGON_BYTES = 28;
+	private static final double DEGREES_PER_UNIT = 0.000_001d;
+	private static final float EDGE_TOLERANCE = 0.0001f;
+	// Beyond this, west of a polygon, a ray is certain to cross every edge spanning its latitude.
+	private static final float WEST_MARGIN = 0.001f;
+
+	private final ByteBuffer data;
+	private final String[] zoneIds;
+	private final int leafCount;
+	private final int cellsPerDegree;
+	private final int latCells;
+	private final int lngCells;
+	private final int leaves;
+	private final int cells;
+	private final int cellLeaves;
+	private final int polygons;
+	private final int points;
+
+	TimezoneIndex(final ByteBuffer data) {
+		if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("Not version " + VERSION + " timezone data");
+		}
+		this.data = data;
+		this.leafCount = data.getInt(12);
+		this.cellsPerDegree = data.getInt(20);
+		this.latCells = 180 * this.cellsPerDegree;
+		this.lngCells = 360 * this.cellsPerDegree;
+		this.leaves = data.getInt(28);
+		this.cells = data.getInt(32);
+		this.cellLeaves = data.getInt(36);
+		this.polygons = data.getInt(40);
+		this.points = data.getInt(44);
+
+		this.zoneIds = new String[data.getInt(8)];
+		int position = data.getInt(24);
+		for (int zone = 0; zone < this.zoneIds.length; zone++) {
+			final byte[] name = new byte[data.getShort(position) & 0xffff];
+			for (int i = 0; i < name.length; i++) {
+				name[i] = data.get(position + 2 + i);
+			}
+			this.zoneIds[zone] = new String(name, StandardCharsets.UTF_8);
+			position += 2 + name.length;
+		}
+	}
+
+	/**
+	 * Maps the timezone data on the classpath. If it is packaged in a jar, it is first copied out to
+	 * a temporary file, as only a file can be mapped.
+	 */
+	static TimezoneIndex open() {
+		final URL resource = TimezoneIndex.class.getResource(RESOURCE);
+		if (resource == null) {
+			throw new IllegalStateException("Timezone data " + RESOURCE + " is not on the classpath");
+		}
+
+		try {
+			final Path path;
+			if ("file".equals(resource.getProtocol())) {
+				path = Paths.get(resource.toURI());
+			} else {
+				path = Files.createTempFile("timezones", ".bin");
+				path.toFile().deleteOnExit();
+				try (InputStream in = resource.openStream()) {
+					Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				return new TimezoneIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Timezone data " + RESOURCE + " could not be mapped", e);
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException("Timezone data " + RESOURCE + " could not be mapped", e);
+		}
+	}
+
+	/**
+	 * The number of the zone at the given point.
+	 */
+	int zoneAt(final float lat, final float lng) {
+		final int cell = cell(lat + 90f, this.latCells) * this.lngCells + cell(lng + 180f, this.lngCells);
+		final int from = this.data.getInt(this.cells + cell * 4);
+		final int to = this.data.getInt(this.cells + cell * 4 + 4);
+		for (int i = from; i < to; i++) {
+			final int leaf = this.data.getShort(this.cellLeaves + i * 2) & 0xffff;
+			if (leafContains(leaf, lat, lng)) {
+				return zoneInLeaf(leaf, lat, lng);
+			}
+		}
+
+		// Only reachable for points off the grid, which leaves unbounded on that side still cover.
+		for (int leaf = 0; leaf < this.leafCount; leaf++) {
+			if (leafContains(leaf, lat, lng)) {
+				return zoneInLeaf(leaf, lat, lng);
+			}
+		}
+		return 0;
+	}
+
+	String zoneId(final int zone) {
+		return this.zoneIds[zone];
+	}
+
+	int leafCount() {
+		return this.leafCount;
+	}
+
+	/**
+	 * One of the bounds of a leaf: 0 and 1 are the lat from and to, 2 and 3 the lng from and to.
+	 */
+	float leafBound(final int leaf, final int bound) {
+		return this.data.getFloat(this.leaves + leaf * LEAF_BYTES + bound * 4);
+	}
+
+	private boolean leafContains(final int leaf, final float lat, final float lng) {
+		final int l = this.leaves + leaf * LEAF_BYTES;
+		return lat >= this.data.getFloat(l) && lat < this.data.getFloat(l + 4)
+				&& lng >= this.data.getFloat(l + 8) && lng < this.data.getFloat(l + 12);
+	}
+
+	private int zoneInLeaf(final int leaf, final float lat, final float lng) {
+		final int l = this.leaves + leaf * LEAF_BYTES;
+		final int to = this.data.getInt(l + LEAF_BYTES + 20);
+		for (int polygon = this.data.getInt(l + 20); polygon < to; polygon++) {
+			if (polygonContains(polygon, lat, lng)) {
+				return this.data.getInt(this.polygons + polygon * POLYGON_BYTES + 16);
+			}
+		}
+		return this.data.getInt(l + 16);
+	}
+
+	private boolean polygonContains(final int polygon, final float testy, final float testx) {
+		final int p = this.polygons + polygon * POLYGON_BYTES;
+		if (testy < this.data.getFloat(p) || testy >= this.data.getFloat(p + 4)
+				|| testx >= this.data.getFloat(p + 12) || testx < this.data.getFloat(p + 8) - WEST_MARGIN) {
+			return false;
+		}
+
+		int position = this.points + this.data.getInt(p + 20);
+		final int coordinates = this.data.getInt(p + 24) * 2;
+		int lat = 0;
+		int lng = 0;
+		float firstY = 0;
+		float firstX = 0;
+		float yj = 0;
+		float xj = 0;
+		boolean inside = false;
+		for (int k = 0; k < coordinates; k++) {
+			int zigzag = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data.get(position++);
+				zigzag |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			final int delta = (zigzag >>> 1) ^ -(zigzag & 1);
+
+			if ((k & 1) == 0) {
+				lat += delta;
+				continue;
+			}
+			lng += delta;
+			final float yi = (float) (lat * DEGREES_PER_UNIT);
+			final float xi = (float) (lng * DEGREES_PER_UNIT);
+			if (k == 1) {
+				firstY = yi;
+				firstX = xi;
+			} else if (crosses(yi, xi, yj, xj, testy, testx)) {
+				inside = !inside;
+			}
+			yj = yi;
+			xj = xi;
+		}
+		// The edge from the last point back to the first.
+		if (crosses(firstY, firstX, yj, xj, testy, testx)) {
+			inside = !inside;
+		}
+		return inside;
+	}
+
+	private static boolean crosses(
+			final float yi, final float xi, final float yj, final float xj, final float testy, final float testx
+	) {
+		return ((yi > testy) != (yj > testy)) && (testx < (xj - xi) * (testy - yi) / (yj - yi) + xi - EDGE_TOLERANCE);
+	}
+
+	private int cell(final float offset, final int cells) {
+		return Math.max(0, Math.min(cells - 1, (int) (offset * this.cellsPerDegree)));
+	}
+}
@@ -0,0 +1,123 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import com.google.common.collect.ImmutableList;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
+import com.scottlogic.weather.owmadapter.api.message.stats.ApiKeyStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for spreading OWM requests across API keys")
+class ApiKeyPoolTest {
+	private static ActorSystem actorSystem;
+
+	private final Set<String> refused = new HashSet<>();
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("ApiKeyPoolTest");
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@Test
+	void acquire_SeveralKeys_GoesToKeyWithMostBudgetLeft() throws Exception {
+		final ApiKeyPool sut = pool("key-aaaa", "key-bbbb");
+
+		final String first = acquire(sut);
+		final String second = acquire(sut);
+		final String third = acquire(sut);
+
+		assertThat(first, is("key-aaaa"));
+		assertThat(second, is("key-bbbb"));
+		assertThat(third, is("key-aaaa"));
+		assertThat(sut.schedulerStats().getGranted(), is(3L));
+		assertThat(sut.schedulerStats().getBurst(), is(4));
+	}
+
+	@Test
+	void acquire_KeyRefused_LeftOutUntilNoLongerRefused() throws Exception {
+		final ApiKeyPool sut = pool("key-aaaa", "key-bbbb");
+		refused.add("key-aaaa");
+
+		assertThat(acquire(sut), is("key-bbbb"));
+		assertThat(acquire(sut), is("key-bbbb"));
+		assertThat(sut.usableKeys(), contains("key-bbbb"));
+
+		refused.clear();
+		assertThat(acquire(sut), is("key-aaaa"));
+	}
+
+	@Test
+	void acquire_ExcludingKeys_GoesToAnotherKey() throws Exception {
+		final ApiKeyPool sut = pool("key-aaaa", "key-bbbb");
+
+		final String acquired = sut.acquire(INTERACTIVE, RequestDeadline.NONE, Collections.singleton("key-aaaa"))
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(acquired, is("key-bbbb"));
+	}
+
+	@Test
+	void acquire_AllKeysRefused_FailsWithUnauthorized() {
+		final ApiKeyPool sut = pool("key-aaaa", "key-bbbb");
+		refused.add("key-aaaa");
+		refused.add("key-bbbb");
+
+		final ExecutionException exception = assertThrows(ExecutionException.class, () -> acquire(sut));
+		assertThat(exception.getCause(), instanceOf(Unauthorized.class));
+	}
+
+	@Test
+	void stats_ReportsEachKeyMasked() throws Exception {
+		final ApiKeyPool sut = pool("e3016aec2ddbc58b9163152644390d53", "abc");
+		refused.add("abc");
+		acquire(sut);
+
+		final List<ApiKeyStats> stats = sut.stats();
+		assertThat(stats.get(0).getApiKey(), is("****0d53"));
+		assertThat(stats.get(0).isRefused(), is(false));
+		assertThat(stats.get(0).getScheduler().getGranted(), is(1L));
+		assertThat(stats.get(1).getApiKey(), is("****"));
+		assertThat(stats.get(1).isRefused(), is(true));
+	}
+
+	private ApiKeyPool pool(final String... apiKeys) {
+		return new ApiKeyPool(
+				ImmutableList.copyOf(apiKeys),
+				apiKey -> new RequestScheduler(
+						actorSystem.scheduler(),
+						actorSystem.dispatcher(),
+						ConfigFactory.parseString("requests-per-minute = 60\nburst = 2\nmax-queued = 10")
+				),
+				refused::contains
+		);
+	}
+
+	private String acquire(final ApiKeyPool sut) throws Exception {
+		return sut.acquire(INTERACTIVE).toCompletableFuture().get(5, SECONDS);
+	}
+}
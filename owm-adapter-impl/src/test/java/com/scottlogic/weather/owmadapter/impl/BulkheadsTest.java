@@ -0,0 +1,117 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import com.scottlogic.weather.owmadapter.api.message.stats.BulkheadStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+@DisplayName("Tests for the adapter's separate dispatchers")
+class BulkheadsTest {
+	private static ActorSystem actorSystem;
+
+	private Bulkheads sut;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create(
+				"BulkheadsTest",
+				ConfigFactory.parseString("source.owm.dispatchers.upstream-io.thread-pool-executor.fixed-pool-size = 1")
+						.withFallback(ConfigFactory.load())
+		);
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@BeforeEach
+	void beforeEach() {
+		sut = new Bulkheads(actorSystem);
+	}
+
+	@Test
+	void execute_RunsOnItsOwnDispatcher() throws Exception {
+		final String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), sut.timezone())
+				.get(5, SECONDS);
+
+		assertThat(thread, containsString("source.owm.dispatchers.timezone"));
+	}
+
+	@Test
+	void execute_AllThreadsBusy_CountsActiveAndQueuedTasks() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		final CompletableFuture<Void> blocking = CompletableFuture.runAsync(awaiting(release), sut.upstreamIo());
+		final CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {}, sut.upstreamIo());
+		awaitStats(() -> sut.upstreamIo().stats(), 1, 1);
+
+		release.countDown();
+		CompletableFuture.allOf(blocking, waiting).get(5, SECONDS);
+		awaitStats(() -> sut.upstreamIo().stats(), 0, 0);
+		assertThat(sut.upstreamIo().stats().getCompleted(), is(2L));
+	}
+
+	@Test
+	void execute_UpstreamIoSaturated_TransformStillRuns() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompletableFuture<Void> blocking = CompletableFuture.runAsync(awaiting(release), sut.upstreamIo());
+
+		try {
+			assertThat(CompletableFuture.supplyAsync(() -> "transformed", sut.transform()).get(5, SECONDS), is("transformed"));
+		} finally {
+			release.countDown();
+		}
+		blocking.get(5, SECONDS);
+	}
+
+	@Test
+	void stats_ListsEachBulkheadWithItsDispatcher() {
+		final List<BulkheadStats> stats = sut.stats();
+
+		assertThat(
+				stats.stream().map(BulkheadStats::getName).collect(Collectors.toList()),
+				contains("upstream-io", "transform", "timezone")
+		);
+		assertThat(
+				stats.stream().map(BulkheadStats::getDispatcher).collect(Collectors.toList()),
+				contains("source.owm.dispatchers.upstream-io", "source.owm.dispatchers.transform", "source.owm.dispatchers.timezone")
+		);
+	}
+
+	private Runnable awaiting(final CountDownLatch latch) {
+		return () -> {
+			try {
+				latch.await(5, SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	private void awaitStats(final Supplier<BulkheadStats> stats, final int active, final int queued) throws InterruptedException {
+		for (int i = 0; i < 100 && (stats.get().getActive() != active || stats.get().getQueued() != queued); i++) {
+			Thread.sleep(20);
+		}
+		assertThat(stats.get().getActive(), is(active));
+		assertThat(stats.get().getQueued(), is(queued));
+	}
+}
@@ -0,0 +1,83 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.scottlogic.weather.owmadapter.api.message.stats.CityIndexStats;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for resolving place names to OWM city ids")
+class CityIndexTest {
+	private static Path indexFile;
+
+	@BeforeAll
+	static void beforeAll() throws IOException {
+		indexFile = Files.createTempFile("city-index", ".bin");
+		indexFile.toFile().deleteOnExit();
+
+		new CityIndexWriter()
+				.add("London", "GB", 2643743)
+				.add("London", "CA", 6058560)
+				.add("São Paulo", "BR", 3448439)
+				.add("Saint-Étienne", "FR", 2980291)
+				.add("Frankfurt am Main", "DE", 2925533)
+				.write(indexFile);
+	}
+
+	@Test
+	void resolve_NameWithCountry_ResolvesWhateverTheSpacingAndCase() {
+		final CityIndex sut = new CityIndex(indexFile);
+
+		assertThat(sut.resolve("London,GB"), is(2643743));
+		assertThat(sut.resolve("  london , gb "), is(2643743));
+		assertThat(sut.resolve("LONDON,\tCA"), is(6058560));
+		assertThat(sut.resolve("frankfurt   AM main,de"), is(2925533));
+	}
+
+	@Test
+	void resolve_NonAsciiName_Resolves() {
+		final CityIndex sut = new CityIndex(indexFile);
+
+		assertThat(sut.resolve("São Paulo"), is(3448439));
+		assertThat(sut.resolve("SÃO PAULO, BR"), is(3448439));
+		assertThat(sut.resolve("saint-étienne"), is(2980291));
+	}
+
+	@Test
+	void resolve_AmbiguousOrUnknownName_IsUnknown() {
+		final CityIndex sut = new CityIndex(indexFile);
+
+		assertThat(sut.resolve("London"), is(CityIndex.UNKNOWN));
+		assertThat(sut.resolve("London,US"), is(CityIndex.UNKNOWN));
+		assertThat(sut.resolve("Lond"), is(CityIndex.UNKNOWN));
+		assertThat(sut.resolve(""), is(CityIndex.UNKNOWN));
+
+		final CityIndexStats stats = sut.stats();
+		assertThat(stats.getEntries(), is(8));
+		assertThat(stats.getUnresolved(), is(4L));
+	}
+
+	@Test
+	void resolve_NoIndexConfigured_NothingResolved() {
+		final CityIndex sut = new CityIndex((Path) null);
+
+		assertThat(sut.resolve("London,GB"), is(CityIndex.UNKNOWN));
+		assertThat(sut.stats().getEntries(), is(0));
+	}
+
+	@Test
+	void constructor_NotAnIndexFile_Throws() throws IOException {
+		final Path notAnIndex = Files.createTempFile("not-a-city-index", ".bin");
+		notAnIndex.toFile().deleteOnExit();
+		Files.write(notAnIndex, "[{\"id\":1}]".getBytes());
+
+		assertThrows(RuntimeException.class, () -> new CityIndex(notAnIndex));
+	}
+}
@@ -0,0 +1,182 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.owmadapter.api.message.stats.ConcurrencyLimitStats;
+import com.scottlogic.weather.owmadapter.impl.ConcurrencyLimiter.Permit;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for the adaptive limit on concurrent requests to OWM")
+class ConcurrencyLimiterTest {
+	private static final TransportException SERVER_ERROR = TransportException.fromCodeAndMessage(
+			TransportErrorCode.fromHttp(502),
+			new ExceptionMessage("BadGateway", "upstream unavailable")
+	);
+
+	private MutableClock clock;
+	private ConcurrencyLimiter sut;
+
+	@BeforeEach
+	void beforeEach() {
+		clock = new MutableClock(Instant.parse("2018-06-21T13:05:00Z"));
+		sut = new ConcurrencyLimiter(
+				ConfigFactory.parseString(
+						"initial-limit = 2, min-limit = 1, max-limit = 4, max-queued = 1, " +
+						"tolerance = 2.0, backoff-ratio = 0.5, window-size = 100"
+				),
+				clock
+		);
+	}
+
+	@Test
+	void acquire_LimitReached_QueuesThenRejectsWith503() throws Exception {
+		acquire();
+		acquire();
+		final CompletableFuture<Permit> queued = sut.acquire().toCompletableFuture();
+
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class,
+				() -> sut.acquire().toCompletableFuture().get()
+		);
+		assertThat(exception.getCause(), instanceOf(TransportException.class));
+		assertThat(((TransportException) exception.getCause()).errorCode().http(), is(503));
+
+		assertThat(queued.isDone(), is(false));
+		final ConcurrencyLimitStats stats = sut.stats();
+		assertThat(stats.getInFlight(), is(2));
+		assertThat(stats.getQueued(), is(1));
+		assertThat(stats.getRejected(), is(1L));
+	}
+
+	@Test
+	void release_RequestAnswered_GrantsQueuedRequest() throws Exception {
+		final Permit first = acquire();
+		acquire();
+		final CompletableFuture<Permit> queued = sut.acquire().toCompletableFuture();
+
+		first.cancel();
+
+		assertThat(queued.isDone(), is(true));
+		assertThat(sut.stats().getInFlight(), is(2));
+		assertThat(sut.stats().getQueued(), is(0));
+	}
+
+	@Test
+	void release_QuickResponsesWithLimitInUse_RaisesLimitUpToMax() throws Exception {
+		final Permit first = acquire();
+		final Permit second = acquire();
+		clock.advance(Duration.ofMillis(100));
+		first.release(null);
+		second.release(null);
+
+		final Permit third = acquire();
+		final Permit fourth = acquire();
+		clock.advance(Duration.ofMillis(100));
+		third.release(null);
+		fourth.release(null);
+
+		final ConcurrencyLimitStats stats = sut.stats();
+		assertThat(stats.getLimit(), is(4));
+		assertThat(stats.getIncreases(), is(2L));
+		assertThat(stats.getBaselineMillis(), is(100L));
+	}
+
+	@Test
+	void release_ResponseSlowerThanTolerated_CutsLimit() throws Exception {
+		final Permit quick = acquire();
+		clock.advance(Duration.ofMillis(100));
+		quick.release(null); // limit 2 -> 3
+
+		final Permit slow = acquire();
+		clock.advance(Duration.ofMillis(300));
+		slow.release(null);
+
+		final ConcurrencyLimitStats stats = sut.stats();
+		assertThat(stats.getLimit(), is(1));
+		assertThat(stats.getDecreases(), is(1L));
+	}
+
+	@Test
+	void release_ServerErrors_CutLimitNoLowerThanMin() throws Exception {
+		acquire().release(SERVER_ERROR);
+		acquire().release(SERVER_ERROR);
+
+		final ConcurrencyLimitStats stats = sut.stats();
+		assertThat(stats.getLimit(), is(1));
+		assertThat(stats.getDecreases(), is(1L));
+	}
+
+	@Test
+	void release_NotFound_CountsAsHealthyResponse() throws Exception {
+		acquire().release(new NotFound("city not found"));
+
+		assertThat(sut.stats().getDecreases(), is(0L));
+		assertThat(sut.stats().getBaselineMillis(), is(0L));
+	}
+
+	@Test
+	void release_DeadlineExceeded_CutsLimit() throws Exception {
+		final Permit permit = acquire();
+		clock.advance(Duration.ofSeconds(10));
+		permit.release(new DeadlineExceeded("too late"));
+
+		final ConcurrencyLimitStats stats = sut.stats();
+		assertThat(stats.getLimit(), is(1));
+		assertThat(stats.getDecreases(), is(1L));
+		assertThat(stats.getBaselineMillis(), is(-1L));
+		assertThat(stats.getInFlight(), is(0));
+	}
+
+	@Test
+	void release_ReleasedTwice_CountsOnce() throws Exception {
+		final Permit permit = acquire();
+		permit.release(null);
+		permit.cancel();
+
+		assertThat(sut.stats().getInFlight(), is(0));
+	}
+
+	@Test
+	void tryAcquire_LimitReached_EmptyWithoutQueueing() throws Exception {
+		acquire();
+		assertThat(sut.tryAcquire().isPresent(), is(true));
+
+		assertThat(sut.tryAcquire().isPresent(), is(false));
+		final ConcurrencyLimitStats stats = sut.stats();
+		assertThat(stats.getInFlight(), is(2));
+		assertThat(stats.getQueued(), is(0));
+		assertThat(stats.getRejected(), is(0L));
+	}
+
+	@Test
+	void cancel_AfterRelease_ReportsNotHeld() throws Exception {
+		final Permit released = acquire();
+		released.release(null);
+		final Permit unused = acquire();
+
+		assertThat(released.cancel(), is(false));
+		assertThat(unused.cancel(), is(true));
+	}
+
+	private Permit acquire() throws Exception {
+		final CompletableFuture<Permit> permit = sut.acquire().toCompletableFuture();
+		assertThat(permit.isDone(), is(true));
+		return permit.get();
+	}
+}
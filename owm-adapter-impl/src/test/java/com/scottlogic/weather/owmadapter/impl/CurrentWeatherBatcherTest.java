@@ -0,0 +1,124 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.testkit.javadsl.TestKit;
+import com.google.common.collect.ImmutableList;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmGroupWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.BatchingStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.BACKGROUND;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@DisplayName("Tests for batching current weather requests into OWM group requests")
+class CurrentWeatherBatcherTest {
+	private static ActorSystem actorSystem;
+	private static Materializer materializer;
+
+	@Mock private OwmClient owmClient;
+
+	private CurrentWeatherBatcher sut;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("CurrentWeatherBatcherTest");
+		materializer = ActorMaterializer.create(actorSystem);
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+		materializer = null;
+	}
+
+	@BeforeEach
+	void beforeEach() {
+		initMocks(this);
+		sut = new CurrentWeatherBatcher(owmClient, materializer, ConfigFactory.parseResources("valid.conf"));
+	}
+
+	@Test
+	void getCurrentWeather_SingleRequestInWindow_UsesSingleLocationRequest() throws Exception {
+		final OwmCurrentWeatherResponse expected = response(1);
+		when(owmClient.getCurrentWeather(1, BACKGROUND)).thenReturn(completedFuture(expected));
+
+		final OwmCurrentWeatherResponse result = sut.getCurrentWeather(1, BACKGROUND)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(result, is(expected));
+		verify(owmClient, never()).getCurrentWeather(anyList(), any());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void getCurrentWeather_SeveralRequestsInWindow_SplitsGroupResponseBetweenCallers() throws Exception {
+		final ArgumentCaptor<List<Integer>> captor = ArgumentCaptor.forClass(List.class);
+		when(owmClient.getCurrentWeather(captor.capture(), eq(INTERACTIVE))).thenReturn(completedFuture(
+				OwmGroupWeatherResponse.builder().weatherData(ImmutableList.of(response(2), response(1))).build()
+		));
+
+		final CompletableFuture<OwmCurrentWeatherResponse> first = sut.getCurrentWeather(1, BACKGROUND).toCompletableFuture();
+		final CompletableFuture<OwmCurrentWeatherResponse> second = sut.getCurrentWeather(2, INTERACTIVE).toCompletableFuture();
+		final CompletableFuture<OwmCurrentWeatherResponse> unknown = sut.getCurrentWeather(3, BACKGROUND).toCompletableFuture();
+
+		assertThat(first.get(5, SECONDS).getId(), is(1));
+		assertThat(second.get(5, SECONDS).getId(), is(2));
+		final ExecutionException exception = assertThrows(ExecutionException.class, () -> unknown.get(5, SECONDS));
+		assertThat(exception.getCause(), instanceOf(NotFound.class));
+
+		assertThat(captor.getValue(), containsInAnyOrder(1, 2, 3));
+		final BatchingStats stats = sut.stats();
+		assertThat(stats.getRequests(), is(3L));
+		assertThat(stats.getBatches(), is(1L));
+		assertThat(stats.getGroupCalls(), is(1L));
+	}
+
+	@Test
+	void getCurrentWeather_GroupRequestFails_FailsEveryCaller() {
+		final TransportException expectedException = new NotFound("whoops");
+		final CompletableFuture<OwmGroupWeatherResponse> failure = new CompletableFuture<>();
+		failure.completeExceptionally(expectedException);
+		when(owmClient.getCurrentWeather(anyList(), any())).thenReturn(failure);
+
+		final CompletableFuture<OwmCurrentWeatherResponse> first = sut.getCurrentWeather(1, INTERACTIVE).toCompletableFuture();
+		final CompletableFuture<OwmCurrentWeatherResponse> second = sut.getCurrentWeather(2, INTERACTIVE).toCompletableFuture();
+
+		assertThat(assertThrows(ExecutionException.class, () -> first.get(5, SECONDS)).getCause(), is(expectedException));
+		assertThat(assertThrows(ExecutionException.class, () -> second.get(5, SECONDS)).getCause(), is(expectedException));
+	}
+
+	private OwmCurrentWeatherResponse response(final int id) {
+		return OwmCurrentWeatherResponse.builder().id(id).name("City " + id).build();
+	}
+}
@@ -0,0 +1,85 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.scottlogic.weather.owmadapter.api.message.internal.Coordinates;
+import com.scottlogic.weather.owmadapter.api.message.stats.TimezoneCacheStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@DisplayName("Tests for remembering the timezones of locations")
+class LocationZonesTest {
+	private static final Coordinates LONDON = Coordinates.builder().latitude(51.51).longitude(-0.13).build();
+	private static final Coordinates PARIS = Coordinates.builder().latitude(48.85).longitude(2.35).build();
+	private static final ZoneId EUROPE_LONDON = ZoneId.of("Europe/London");
+
+	@Test
+	void get_LocationPut_RemembersItsZone() {
+		final LocationZones sut = locationZones(10);
+
+		assertThat(sut.get(2643743, LONDON), is(Optional.empty()));
+		sut.put(2643743, LONDON, EUROPE_LONDON);
+
+		assertThat(sut.get(2643743, LONDON), is(Optional.of(EUROPE_LONDON)));
+		assertThat(sut.get(0, LONDON), is(Optional.empty()));
+
+		final TimezoneCacheStats stats = sut.stats();
+		assertThat(stats.getEntries(), is(1));
+		assertThat(stats.getHits(), is(1L));
+		assertThat(stats.getMisses(), is(2L));
+	}
+
+	@Test
+	void put_TooManyLocations_ForgetsLeastRecentlyUsed() {
+		final LocationZones sut = locationZones(1);
+
+		sut.put(2643743, LONDON, EUROPE_LONDON);
+		sut.put(2988507, PARIS, ZoneId.of("Europe/Paris"));
+
+		assertThat(sut.get(2643743, LONDON), is(Optional.empty()));
+		assertThat(sut.get(2988507, PARIS), is(Optional.of(ZoneId.of("Europe/Paris"))));
+	}
+
+	@Test
+	void put_Disabled_RemembersNothing() {
+		final LocationZones sut = locationZones(0);
+
+		sut.put(2643743, LONDON, EUROPE_LONDON);
+
+		assertThat(sut.get(2643743, LONDON), is(Optional.empty()));
+	}
+
+	@Test
+	void offsetsAt_AcrossDaylightSavingTransitions_SameAsZone() {
+		final LocationZones.Offsets sut = new LocationZones.Offsets(EUROPE_LONDON);
+
+		// Every three hours, from before the clocks go forward to after they go back.
+		for (Instant instant = Instant.parse("2018-03-24T00:00:00Z");
+			 instant.isBefore(Instant.parse("2018-11-01T00:00:00Z"));
+			 instant = instant.plusSeconds(3 * 60 * 60)) {
+			assertThat(sut.at(instant), is(OffsetDateTime.ofInstant(instant, EUROPE_LONDON)));
+		}
+	}
+
+	@Test
+	void offsetsAt_InstantsOutOfOrder_SameAsZone() {
+		final LocationZones.Offsets sut = new LocationZones.Offsets(EUROPE_LONDON);
+		final Instant summer = Instant.parse("2018-06-21T12:00:00Z");
+		final Instant winter = Instant.parse("2018-01-21T12:00:00Z");
+
+		assertThat(sut.at(summer), is(OffsetDateTime.parse("2018-06-21T13:00:00+01:00")));
+		assertThat(sut.at(winter), is(OffsetDateTime.parse("2018-01-21T12:00:00Z")));
+		assertThat(sut.at(summer), is(OffsetDateTime.parse("2018-06-21T13:00:00+01:00")));
+	}
+
+	private LocationZones locationZones(final int maxEntries) {
+		return new LocationZones(ConfigFactory.parseString("source.owm.timezone-cache.max-entries = " + maxEntries));
+	}
+}
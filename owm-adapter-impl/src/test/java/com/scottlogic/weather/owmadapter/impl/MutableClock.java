@@ -0,0 +1,37 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock for tests, which only moves when told to.
+ */
+class MutableClock extends Clock {
+	private Instant instant;
+
+	MutableClock(final Instant instant) {
+		this.instant = instant;
+	}
+
+	void advance(final Duration duration) {
+		this.instant = this.instant.plus(duration);
+	}
+
+	@Override
+	public ZoneId getZone() {
+		return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(final ZoneId zone) {
+		return this;
+	}
+
+	@Override
+	public Instant instant() {
+		return this.instant;
+	}
+}
@@ -0,0 +1,102 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
+import com.scottlogic.weather.owmadapter.api.message.stats.NegativeCacheStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@DisplayName("Tests for remembering failures that OWM would repeat")
+class NegativeCacheTest {
+	private static final String API_KEY = "key";
+
+	private MutableClock clock;
+	private NegativeCache sut;
+
+	@BeforeEach
+	void beforeEach() {
+		clock = new MutableClock(Instant.parse("2018-06-21T13:05:00Z"));
+		sut = new NegativeCache(
+				ConfigFactory.parseResources("valid.conf").getConfig("source.owm.negative-cache"),
+				clock
+		);
+	}
+
+	@Test
+	void get_NotFoundRecorded_ReplaysSameExceptionForThatLocationOnly() {
+		final NotFound exception = new NotFound("city not found");
+		sut.record(RequestKey.current("Nowhere"), API_KEY, exception);
+
+		assertThat(sut.get(RequestKey.current("nowhere"), API_KEY), is(Optional.of(exception)));
+		assertThat(sut.get(RequestKey.current("Somewhere"), API_KEY), is(Optional.empty()));
+		assertThat(sut.get(RequestKey.forecast("Nowhere"), API_KEY), is(Optional.empty()));
+	}
+
+	@Test
+	void get_NotFoundRecorded_ExpiresAfterNotFoundTtl() {
+		final RequestKey key = RequestKey.current(1234);
+		sut.record(key, API_KEY, new NotFound("city not found"));
+
+		clock.advance(Duration.of(10, MINUTES).minusSeconds(1));
+		assertThat(sut.get(key, API_KEY).isPresent(), is(true));
+
+		clock.advance(Duration.of(1, SECONDS));
+		assertThat(sut.get(key, API_KEY).isPresent(), is(false));
+	}
+
+	@Test
+	void get_UnauthorizedRecorded_ReplaysForAnyLocationWithThatKeyUntilTtl() {
+		final Unauthorized exception = new Unauthorized("Invalid API key");
+		sut.record(RequestKey.current("Somewhere"), API_KEY, exception);
+
+		assertThat(sut.get(RequestKey.forecast(1234), API_KEY), is(Optional.of(exception)));
+		assertThat(sut.get(RequestKey.forecast(1234), "other key"), is(Optional.empty()));
+
+		clock.advance(Duration.of(1, MINUTES));
+		assertThat(sut.get(RequestKey.forecast(1234), API_KEY), is(Optional.empty()));
+	}
+
+	@Test
+	void record_OtherFailures_AreNotRemembered() {
+		final RequestKey key = RequestKey.current(1234);
+		sut.record(key, API_KEY, TransportException.fromCodeAndMessage(
+				TransportErrorCode.ServiceUnavailable, new ExceptionMessage("ServiceUnavailable", "busy")
+		));
+		sut.record(key, API_KEY, TransportException.fromCodeAndMessage(
+				TransportErrorCode.fromHttp(408), new ExceptionMessage("TimeoutException", "too slow")
+		));
+
+		assertThat(sut.get(key, API_KEY), is(Optional.empty()));
+	}
+
+	@Test
+	void stats_CountRecordedAndReplayedSeparately() {
+		sut.record(RequestKey.current(1), API_KEY, new NotFound("city not found"));
+		sut.record(RequestKey.current(2), "bad key", new Unauthorized("Invalid API key"));
+		sut.get(RequestKey.current(1), API_KEY);
+		sut.get(RequestKey.current(1), API_KEY);
+		sut.get(RequestKey.current(3), "bad key");
+
+		final NegativeCacheStats stats = sut.stats();
+		assertThat(stats.getNotFoundEntries(), is(1));
+		assertThat(stats.getNotFoundRecorded(), is(1L));
+		assertThat(stats.getNotFoundReplayed(), is(2L));
+		assertThat(stats.getUnauthorizedEntries(), is(1));
+		assertThat(stats.getUnauthorizedRecorded(), is(1L));
+		assertThat(stats.getUnauthorizedReplayed(), is(1L));
+	}
+}
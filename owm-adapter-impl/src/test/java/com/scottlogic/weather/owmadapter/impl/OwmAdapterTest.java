@@ -1,38 +1,88 @@
 package com.scottlogic.weather.owmadapter.impl;
 
+import akka.NotUsed;
+import akka.actor.ActorSystem;
+import akka.japi.Pair;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.testkit.javadsl.TestKit;
 import com.google.common.collect.ImmutableList;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
 import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+import com.lightbend.lagom.javadsl.api.transport.ResponseHeader;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
 import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.lightbend.lagom.javadsl.server.ServerServiceCall;
+import com.scottlogic.weather.common.warmup.WarmUp;
 import com.scottlogic.weather.owmadapter.api.OwmAdapter;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.owmadapter.api.message.LatLng;
 import com.scottlogic.weather.owmadapter.api.message.Sun;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
 import com.scottlogic.weather.owmadapter.api.message.WeatherData;
 import com.scottlogic.weather.owmadapter.api.message.internal.City;
 import com.scottlogic.weather.owmadapter.api.message.internal.Coordinates;
 import com.scottlogic.weather.owmadapter.api.message.internal.Forecast;
 import com.scottlogic.weather.owmadapter.api.message.internal.Locale;
+import com.scottlogic.weather.owmadapter.api.message.internal.OneCallConditions;
+import com.scottlogic.weather.owmadapter.api.message.internal.OneCallDay;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmGroupWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmOneCallResponse;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
 import com.scottlogic.weather.owmadapter.api.message.internal.Temperature;
 import com.scottlogic.weather.owmadapter.api.message.internal.Weather;
 import com.scottlogic.weather.owmadapter.api.message.internal.Wind;
+import com.scottlogic.weather.owmadapter.api.message.stats.DeadlineStats;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.scottlogic.weather.owmadapter.api.RequestDeadline.NONE;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.BACKGROUND;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
 import static java.time.temporal.ChronoUnit.HOURS;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -42,14 +92,46 @@ import static org.mockito.MockitoAnnotations.initMocks;
  */
 @DisplayName("Tests for the OWM Adapter implementation")
 class OwmAdapterTest {
+	private static ActorSystem actorSystem;
+	private static Materializer materializer;
+	private static Config config;
+
 	@Mock private OwmClient owmClient;
 
+	private WarmUp warmUp;
 	private OwmAdapter sut;
 
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("OwmAdapterTest");
+		materializer = ActorMaterializer.create(actorSystem);
+		config = ConfigFactory.parseResources("valid.conf");
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+		materializer = null;
+		config = null;
+	}
+
 	@BeforeEach
 	void beforeEach() {
 		initMocks(this);
-		sut = new OwmAdapterImpl(owmClient);
+		warmUp = new WarmUp(actorSystem, ConfigFactory.parseString("warm-up { enabled = on, timeout = 1m }"));
+		sut = new OwmAdapterImpl(
+				owmClient,
+				new RequestCoalescer(),
+				new ResponseCache(config),
+				new CurrentWeatherBatcher(owmClient, materializer, config),
+				new CityIndex(config),
+				new KnownPlaces(config),
+				new LocationZones(config),
+				new Deadlines(actorSystem),
+				new Bulkheads(actorSystem),
+				warmUp
+		);
 	}
 
 	@Test
@@ -58,7 +140,7 @@ class OwmAdapterTest {
 		final OwmCurrentWeatherResponse owmResponse = generateOwmCurrentWeatherResponse();
 		final WeatherData expectedResult = generateWeatherDataFrom(owmResponse);
 
-		when(owmClient.getCurrentWeather(location)).thenReturn(owmResponse);
+		when(owmClient.getCurrentWeather(location, INTERACTIVE, NONE)).thenReturn(completedFuture(owmResponse));
 
 		final WeatherData response = sut.getCurrentWeatherByName(location).invoke()
 				.toCompletableFuture().get(5, SECONDS);
@@ -71,14 +153,221 @@ class OwmAdapterTest {
 		final String location = "Anywhere";
 		final TransportException expectedException = new NotFound("whoops");
 
-		when(owmClient.getCurrentWeather(location)).thenThrow(expectedException);
+		when(owmClient.getCurrentWeather(location, INTERACTIVE, NONE)).thenReturn(failedFuture(expectedException));
 
-		final TransportException result = assertThrows(TransportException.class, () ->
+		final ExecutionException result = assertThrows(ExecutionException.class, () ->
 				sut.getCurrentWeatherByName(location).invoke()
 						.toCompletableFuture().get(5, SECONDS)
 		);
 
-		assertThat(result, is(expectedException));
+		assertThat(result.getCause(), is(expectedException));
+	}
+
+	@Test
+	void getCurrentWeatherByName_ConcurrentRequestsForSameLocation_ShareOneOwmRequest() throws Exception {
+		final OwmCurrentWeatherResponse owmResponse = generateOwmCurrentWeatherResponse();
+		final CompletableFuture<OwmCurrentWeatherResponse> pendingResponse = new CompletableFuture<>();
+
+		when(owmClient.getCurrentWeather("London, GB", INTERACTIVE, NONE)).thenReturn(pendingResponse);
+
+		final CompletableFuture<WeatherData> first = sut.getCurrentWeatherByName("London, GB").invoke()
+				.toCompletableFuture();
+		final CompletableFuture<WeatherData> second = sut.getCurrentWeatherByName(" london,gb").invoke()
+				.toCompletableFuture();
+		pendingResponse.complete(owmResponse);
+
+		assertThat(first.get(5, SECONDS), is(generateWeatherDataFrom(owmResponse)));
+		assertThat(second.get(5, SECONDS), is(first.get()));
+		verify(owmClient, times(1)).getCurrentWeather(anyString(), any(), any());
+	}
+
+	@Test
+	void getCurrentWeatherByName_RepeatedRequest_IsServedFromCache() throws Exception {
+		final String location = "Anywhere";
+		final OwmCurrentWeatherResponse owmResponse = generateOwmCurrentWeatherResponse();
+
+		when(owmClient.getCurrentWeather(location, INTERACTIVE, NONE)).thenReturn(completedFuture(owmResponse));
+
+		final WeatherData first = sut.getCurrentWeatherByName(location).invoke()
+				.toCompletableFuture().get(5, SECONDS);
+		final WeatherData second = sut.getCurrentWeatherByName(location).invoke()
+				.toCompletableFuture().get(5, SECONDS);
+		final WeatherData byId = sut.getCurrentWeatherById(owmResponse.getId()).invoke()
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(second, is(first));
+		assertThat(byId, is(first));
+		verify(owmClient, times(1)).getCurrentWeather(location, INTERACTIVE, NONE);
+		verify(owmClient, never()).getCurrentWeather(anyInt(), any());
+	}
+
+	@Test
+	void getCurrentWeatherByName_NameInCityIndex_RequestedById() throws Exception {
+		final Path indexFile = Files.createTempFile("city-index", ".bin");
+		indexFile.toFile().deleteOnExit();
+		new CityIndexWriter().add("Helsinki", "FI", 12345).write(indexFile);
+		sut = new OwmAdapterImpl(
+				owmClient,
+				new RequestCoalescer(),
+				new ResponseCache(config),
+				new CurrentWeatherBatcher(owmClient, materializer, config),
+				new CityIndex(indexFile),
+				new KnownPlaces(config),
+				new LocationZones(config),
+				new Deadlines(actorSystem),
+				new Bulkheads(actorSystem),
+				warmUp
+		);
+		final OwmCurrentWeatherResponse owmResponse = generateOwmCurrentWeatherResponse();
+
+		when(owmClient.getCurrentWeather(12345, INTERACTIVE)).thenReturn(completedFuture(owmResponse));
+
+		final WeatherData byName = sut.getCurrentWeatherByName("Helsinki, FI").invoke()
+				.toCompletableFuture().get(5, SECONDS);
+		final WeatherData byOtherName = sut.getCurrentWeatherByName("helsinki").invoke()
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(byName, is(generateWeatherDataFrom(owmResponse)));
+		assertThat(byOtherName, is(byName));
+		verify(owmClient, times(1)).getCurrentWeather(12345, INTERACTIVE);
+		verify(owmClient, never()).getCurrentWeather(anyString(), any(), any());
+	}
+
+	@Test
+	void getCurrentWeatherById_BackgroundPriorityHeader_RequestsAtBackgroundPriority() throws Exception {
+		final int location = 1234567;
+		final OwmCurrentWeatherResponse owmResponse = generateOwmCurrentWeatherResponse();
+
+		when(owmClient.getCurrentWeather(location, BACKGROUND)).thenReturn(completedFuture(owmResponse));
+
+		final ServerServiceCall<NotUsed, WeatherData> serviceCall =
+				(ServerServiceCall<NotUsed, WeatherData>) sut.getCurrentWeatherById(location);
+		final Pair<ResponseHeader, WeatherData> response = serviceCall
+				.invokeWithHeaders(BACKGROUND.header().apply(RequestHeader.DEFAULT), NotUsed.getInstance())
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response.second(), is(generateWeatherDataFrom(owmResponse)));
+		verify(owmClient, never()).getCurrentWeather(location, INTERACTIVE);
+	}
+
+	@Test
+	void getWeatherForecastById_DeadlinePassesBeforeOwmAnswers_AbandonsCallerWithDeadlineExceeded() throws Exception {
+		final int location = 9876543;
+
+		when(owmClient.getWeatherForecast(eq(location), eq(INTERACTIVE), any())).thenReturn(new CompletableFuture<>());
+
+		final ServerServiceCall<NotUsed, List<WeatherData>> serviceCall =
+				(ServerServiceCall<NotUsed, List<WeatherData>>) sut.getWeatherForecastById(location);
+		final RequestHeader requestHeader = RequestDeadline.in(Duration.ofMillis(100)).header().apply(RequestHeader.DEFAULT);
+		final ExecutionException exception = assertThrows(ExecutionException.class, () ->
+				serviceCall.invokeWithHeaders(requestHeader, NotUsed.getInstance()).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+		final DeadlineStats stats = sut.getStats().invoke().toCompletableFuture().get(5, SECONDS).getDeadlines();
+		assertThat(stats.getReceived(), is(1L));
+		assertThat(stats.getExpiredOnArrival(), is(0L));
+		assertThat(stats.getAbandoned(), is(1L));
+	}
+
+	@Test
+	void getWeatherForecastById_BudgetOutOfRange_TakenAsMaximum() throws Exception {
+		final int location = 9876543;
+		final OwmWeatherForecastResponse owmResponse = generateOwmWeatherForecastResponse();
+
+		when(owmClient.getWeatherForecast(location, INTERACTIVE, NONE)).thenReturn(completedFuture(owmResponse));
+
+		final ServerServiceCall<NotUsed, List<WeatherData>> serviceCall =
+				(ServerServiceCall<NotUsed, List<WeatherData>>) sut.getWeatherForecastById(location);
+		final RequestHeader requestHeader = RequestHeader.DEFAULT
+				.withHeader(RequestDeadline.HEADER_NAME, Long.toString(Long.MAX_VALUE));
+		assertThat(RequestDeadline.of(requestHeader).remaining().compareTo(RequestDeadline.MAX_BUDGET) <= 0, is(true));
+
+		final List<WeatherData> response = serviceCall.invokeWithHeaders(requestHeader, NotUsed.getInstance())
+				.toCompletableFuture().get(5, SECONDS)
+				.second();
+
+		assertThat(response, is(generateWeatherDataFrom(owmResponse)));
+	}
+
+	@Test
+	void getWeatherForecastById_SharedWithCallerWithTinyBudget_OtherCallerStillAnswered() throws Exception {
+		final int location = 9876543;
+		final OwmWeatherForecastResponse owmResponse = generateOwmWeatherForecastResponse();
+		final CompletableFuture<OwmWeatherForecastResponse> pendingResponse = new CompletableFuture<>();
+
+		when(owmClient.getWeatherForecast(location, INTERACTIVE, NONE)).thenReturn(pendingResponse);
+
+		final ServerServiceCall<NotUsed, List<WeatherData>> serviceCall =
+				(ServerServiceCall<NotUsed, List<WeatherData>>) sut.getWeatherForecastById(location);
+		final RequestHeader hurried = RequestDeadline.in(Duration.ofMillis(50)).header().apply(RequestHeader.DEFAULT);
+		final RequestHeader patient = RequestDeadline.in(Duration.ofSeconds(5)).header().apply(RequestHeader.DEFAULT);
+		final CompletableFuture<Pair<ResponseHeader, List<WeatherData>>> hurriedResult =
+				serviceCall.invokeWithHeaders(hurried, NotUsed.getInstance()).toCompletableFuture();
+		final CompletableFuture<Pair<ResponseHeader, List<WeatherData>>> patientResult =
+				serviceCall.invokeWithHeaders(patient, NotUsed.getInstance()).toCompletableFuture();
+
+		final ExecutionException exception = assertThrows(ExecutionException.class, () -> hurriedResult.get(5, SECONDS));
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+
+		pendingResponse.complete(owmResponse);
+		assertThat(patientResult.get(5, SECONDS).second(), is(generateWeatherDataFrom(owmResponse)));
+		verify(owmClient, times(1)).getWeatherForecast(location, INTERACTIVE, NONE);
+	}
+
+	@Test
+	void isReady_WarmUpStepStillRunning_RespondsServiceUnavailableUntilItFinishes() throws Exception {
+		final CompletableFuture<String> step = new CompletableFuture<>();
+		warmUp.add("test", () -> step);
+		warmUp.seal();
+
+		final ExecutionException notReady = assertThrows(ExecutionException.class, () ->
+				sut.isReady().invoke().toCompletableFuture().get(5, SECONDS)
+		);
+		assertThat(((TransportException) notReady.getCause()).errorCode(), is(TransportErrorCode.ServiceUnavailable));
+
+		step.complete("done");
+		for (int i = 0; i < 100 && !warmUp.isReady(); i++) {
+			Thread.sleep(20);
+		}
+
+		assertThat(sut.isReady().invoke().toCompletableFuture().get(5, SECONDS), is("Service \"owm-adapter\" is ready"));
+	}
+
+	@Test
+	void isReady_StepFinishesBeforeNextIsAdded_NotReadyUntilSealedAndAllFinished() throws Exception {
+		final CompletableFuture<String> first = new CompletableFuture<>();
+		warmUp.add("first", () -> first);
+		first.complete("done");
+		Thread.sleep(100);
+		assertThat(warmUp.isReady(), is(false));
+
+		final CompletableFuture<String> second = new CompletableFuture<>();
+		warmUp.add("second", () -> second);
+		warmUp.seal();
+		Thread.sleep(100);
+		assertThat(warmUp.isReady(), is(false));
+
+		second.complete("done");
+		for (int i = 0; i < 100 && !warmUp.isReady(); i++) {
+			Thread.sleep(20);
+		}
+
+		assertThat(sut.isReady().invoke().toCompletableFuture().get(5, SECONDS), is("Service \"owm-adapter\" is ready"));
+	}
+
+	@Test
+	void isReady_WarmUpStepFails_StillBecomesReady() throws Exception {
+		final CompletableFuture<String> step = new CompletableFuture<>();
+		warmUp.add("test", () -> step);
+		warmUp.seal();
+
+		step.completeExceptionally(new IllegalStateException("whoops"));
+		for (int i = 0; i < 100 && !warmUp.isReady(); i++) {
+			Thread.sleep(20);
+		}
+
+		assertThat(sut.isReady().invoke().toCompletableFuture().get(5, SECONDS), is("Service \"owm-adapter\" is ready"));
 	}
 
 	@Test
@@ -87,7 +376,7 @@ class OwmAdapterTest {
 		final OwmCurrentWeatherResponse owmResponse = generateOwmCurrentWeatherResponse();
 		final WeatherData expectedResult = generateWeatherDataFrom(owmResponse);
 
-		when(owmClient.getCurrentWeather(location)).thenReturn(owmResponse);
+		when(owmClient.getCurrentWeather(location, INTERACTIVE)).thenReturn(completedFuture(owmResponse));
 
 		final WeatherData response = sut.getCurrentWeatherById(location).invoke()
 				.toCompletableFuture().get(5, SECONDS);
@@ -100,14 +389,43 @@ class OwmAdapterTest {
 		final int location = 1234567;
 		final TransportException expectedException = new NotFound("whoops");
 
-		when(owmClient.getCurrentWeather(location)).thenThrow(expectedException);
+		when(owmClient.getCurrentWeather(location, INTERACTIVE)).thenReturn(failedFuture(expectedException));
 
-		final TransportException result = assertThrows(TransportException.class, () ->
+		final ExecutionException result = assertThrows(ExecutionException.class, () ->
 				sut.getCurrentWeatherById(location).invoke()
 						.toCompletableFuture().get(5, SECONDS)
 		);
 
-		assertThat(result, is(expectedException));
+		assertThat(result.getCause(), is(expectedException));
+	}
+
+	@Test
+	void getCurrentWeatherByIds_SeveralLocations_FetchedInOneGroupRequestOmittingUnknownIds() throws Exception {
+		final OwmCurrentWeatherResponse first = generateOwmCurrentWeatherResponse(111);
+		final OwmCurrentWeatherResponse third = generateOwmCurrentWeatherResponse(333);
+
+		when(owmClient.getCurrentWeather(anyList(), eq(INTERACTIVE))).thenReturn(completedFuture(
+				OwmGroupWeatherResponse.builder().weatherData(ImmutableList.of(third, first)).build()
+		));
+
+		final List<WeatherData> response = sut.getCurrentWeatherByIds().invoke(ImmutableList.of(111, 222, 333))
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response, is(ImmutableList.of(generateWeatherDataFrom(first), generateWeatherDataFrom(third))));
+		verify(owmClient, times(1)).getCurrentWeather(anyList(), eq(INTERACTIVE));
+		verify(owmClient, never()).getCurrentWeather(anyInt(), any());
+	}
+
+	@Test
+	void getTimezones_SeveralPoints_RespondsWithZoneOfEachInOrder() throws Exception {
+		final List<String> response = sut.getTimezones().invoke(ImmutableList.of(
+				LatLng.builder().latitude(35.69).longitude(139.69).build(),
+				LatLng.builder().latitude(51.51).longitude(-0.13).build(),
+				LatLng.builder().latitude(35.69).longitude(139.69).build()
+		)).toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response, is(ImmutableList.of("Asia/Tokyo", "Europe/London", "Asia/Tokyo")));
+		verify(owmClient, never()).getCurrentWeather(anyInt(), any());
 	}
 
 	@Test
@@ -116,7 +434,7 @@ class OwmAdapterTest {
 		final OwmWeatherForecastResponse owmResponse = generateOwmWeatherForecastResponse();
 		final List<WeatherData> expectedResult = generateWeatherDataFrom(owmResponse);
 
-		when(owmClient.getWeatherForecast(location)).thenReturn(owmResponse);
+		when(owmClient.getWeatherForecast(location, INTERACTIVE, NONE)).thenReturn(completedFuture(owmResponse));
 
 		final List<WeatherData> response = sut.getWeatherForecastByName(location).invoke()
 				.toCompletableFuture().get(5, SECONDS);
@@ -129,14 +447,14 @@ class OwmAdapterTest {
 		final String location = "Somewhere";
 		final TransportException expectedException = new NotFound("whoops");
 
-		when(owmClient.getWeatherForecast(location)).thenThrow(expectedException);
+		when(owmClient.getWeatherForecast(location, INTERACTIVE, NONE)).thenReturn(failedFuture(expectedException));
 
-		final TransportException result = assertThrows(TransportException.class, () ->
+		final ExecutionException result = assertThrows(ExecutionException.class, () ->
 				sut.getWeatherForecastByName(location).invoke()
 						.toCompletableFuture().get(5, SECONDS)
 		);
 
-		assertThat(result, is(expectedException));
+		assertThat(result.getCause(), is(expectedException));
 	}
 
 	@Test
@@ -145,7 +463,7 @@ class OwmAdapterTest {
 		final OwmWeatherForecastResponse owmResponse = generateOwmWeatherForecastResponse();
 		final List<WeatherData> expectedResult = generateWeatherDataFrom(owmResponse);
 
-		when(owmClient.getWeatherForecast(location)).thenReturn(owmResponse);
+		when(owmClient.getWeatherForecast(location, INTERACTIVE, NONE)).thenReturn(completedFuture(owmResponse));
 
 		final List<WeatherData> response = sut.getWeatherForecastById(location).invoke()
 				.toCompletableFuture().get(5, SECONDS);
@@ -158,14 +476,154 @@ class OwmAdapterTest {
 		final int location = 9876543;
 		final TransportException expectedException = new NotFound("whoops");
 
-		when(owmClient.getWeatherForecast(location)).thenThrow(expectedException);
+		when(owmClient.getWeatherForecast(location, INTERACTIVE, NONE)).thenReturn(failedFuture(expectedException));
 
-		final TransportException result = assertThrows(TransportException.class, () ->
+		final ExecutionException result = assertThrows(ExecutionException.class, () ->
 				sut.getWeatherForecastById(location).invoke()
 						.toCompletableFuture().get(5, SECONDS)
 		);
 
-		assertThat(result, is(expectedException));
+		assertThat(result.getCause(), is(expectedException));
+	}
+
+	@Test
+	void getWeatherAndForecastById_PlaceAlreadyKnown_FetchesBothInOneOwmRequest() throws Exception {
+		final Config uncached = ConfigFactory.parseString("source.owm.cache.max-entries = 0").withFallback(config);
+		sut = new OwmAdapterImpl(
+				owmClient,
+				new RequestCoalescer(),
+				new ResponseCache(uncached),
+				new CurrentWeatherBatcher(owmClient, materializer, uncached),
+				new CityIndex(uncached),
+				new KnownPlaces(uncached),
+				new LocationZones(uncached),
+				new Deadlines(actorSystem),
+				new Bulkheads(actorSystem),
+				warmUp
+		);
+		final Instant now = Instant.parse("2018-06-21T10:00:00Z");
+		final OneCallConditions hourly = OneCallConditions.builder()
+				.temp(BigDecimal.ONE)
+				.humidity((short) 50)
+				.windSpeed(BigDecimal.TEN)
+				.windFromDegrees((short) 90)
+				.weather(ImmutableList.of(Weather.builder().id(800).description("clear sky").build()))
+				.build();
+		final OwmOneCallResponse oneCallResponse = OwmOneCallResponse.builder()
+				.zoneId("Europe/Helsinki")
+				.current(hourly.toBuilder()
+						.measuredAt(now)
+						.sunrise(now.minus(10, HOURS))
+						.sunset(now.plus(10, HOURS))
+						.build()
+				)
+				.hourlyForecasts(IntStream.range(0, 48)
+						.mapToObj(hour -> hourly.toBuilder().measuredAt(now.plus(hour, HOURS)).build())
+						.collect(Collectors.toList())
+				)
+				.dailyForecasts(ImmutableList.of(OneCallDay.builder()
+						.measuredAt(now)
+						.temperature(OneCallDay.DailyTemperature.builder()
+								.min(BigDecimal.ZERO)
+								.max(BigDecimal.TEN)
+								.build()
+						)
+						.build()
+				))
+				.build();
+
+		when(owmClient.getCurrentWeather(12345, INTERACTIVE)).thenReturn(completedFuture(generateOwmCurrentWeatherResponse()));
+		when(owmClient.getWeatherForecast(12345, INTERACTIVE, NONE)).thenReturn(completedFuture(generateOwmWeatherForecastResponse()));
+		when(owmClient.getWeatherAndForecast(12345, 60.17, 24.94, INTERACTIVE, NONE)).thenReturn(completedFuture(oneCallResponse));
+
+		sut.getWeatherAndForecastById(12345).invoke().toCompletableFuture().get(5, SECONDS);
+		final WeatherAndForecast result = sut.getWeatherAndForecastById(12345).invoke()
+				.toCompletableFuture().get(5, SECONDS);
+
+		verify(owmClient, times(1)).getCurrentWeather(12345, INTERACTIVE);
+		verify(owmClient, times(1)).getWeatherForecast(12345, INTERACTIVE, NONE);
+		verify(owmClient, times(1)).getWeatherAndForecast(12345, 60.17, 24.94, INTERACTIVE, NONE);
+
+		final WeatherData current = result.getCurrent();
+		assertThat(current.getId(), is(12345));
+		assertThat(current.getLocation(), is("Helsinki, FI"));
+		assertThat(current.getMeasured(), is(OffsetDateTime.parse("2018-06-21T13:00:00+03:00")));
+		assertThat(current.getTemperature().getMaximum(), is(BigDecimal.ONE));
+		assertThat(current.getSun().getSunset(), is(OffsetDateTime.parse("2018-06-21T23:00:00+03:00")));
+
+		// Every third hour after the current observation, as from the 5 day forecast; only the hourly
+		// ones, as there is no daily forecast after today.
+		assertThat(result.getForecast(), hasSize(16));
+		assertThat(result.getForecast().get(0).getMeasured(), is(OffsetDateTime.parse("2018-06-21T15:00:00+03:00")));
+		assertThat(result.getForecast().get(0).getSun(), is(nullValue()));
+	}
+
+	/**
+	 * WeatherForecastResponse is made field for field from WeatherAndForecast, by
+	 * MessageUtils.weatherAndForecastToWeatherForecastResponse, so these are the responses too.
+	 */
+	@Test
+	void getWeatherAndForecastById_OneCall_SameShapeAsSeparateCalls() throws Exception {
+		final Config uncached = ConfigFactory.parseString("source.owm.cache.max-entries = 0").withFallback(config);
+		sut = new OwmAdapterImpl(
+				owmClient,
+				new RequestCoalescer(),
+				new ResponseCache(uncached),
+				new CurrentWeatherBatcher(owmClient, materializer, uncached),
+				new CityIndex(uncached),
+				new KnownPlaces(uncached),
+				new LocationZones(uncached),
+				new Deadlines(actorSystem),
+				new Bulkheads(actorSystem),
+				warmUp
+		);
+		final int london = 2643743;
+		when(owmClient.getCurrentWeather(london, INTERACTIVE))
+				.thenReturn(completedFuture(fixture("owm-weather-london.json", OwmCurrentWeatherResponse.class)));
+		when(owmClient.getWeatherForecast(london, INTERACTIVE, NONE))
+				.thenReturn(completedFuture(fixture("owm-forecast-london.json", OwmWeatherForecastResponse.class)));
+		when(owmClient.getWeatherAndForecast(eq(london), anyDouble(), anyDouble(), eq(INTERACTIVE), eq(NONE)))
+				.thenReturn(completedFuture(fixture("owm-onecall-london.json", OwmOneCallResponse.class)));
+
+		final WeatherAndForecast separate = sut.getWeatherAndForecastById(london).invoke()
+				.toCompletableFuture().get(5, SECONDS);
+		final WeatherAndForecast oneCall = sut.getWeatherAndForecastById(london).invoke()
+				.toCompletableFuture().get(5, SECONDS);
+
+		verify(owmClient, times(1)).getWeatherAndForecast(eq(london), anyDouble(), anyDouble(), eq(INTERACTIVE), eq(NONE));
+
+		// The same current weather, today's range included.
+		assertThat(oneCall.getCurrent(), is(separate.getCurrent()));
+
+		// The same 40 forecasts, at the same times and offsets. Those within One Call's 48 hourly
+		// forecasts are the same entirely; the rest are from its daily forecasts.
+		assertThat(oneCall.getForecast(), hasSize(40));
+		assertThat(separate.getForecast(), hasSize(40));
+		final Instant hourlyUntil = Instant.ofEpochSecond(1533124800L).plus(48, HOURS);
+		for (int i = 0; i < 40; i++) {
+			final WeatherData expected = separate.getForecast().get(i);
+			final WeatherData actual = oneCall.getForecast().get(i);
+			assertThat(actual.getMeasured(), is(expected.getMeasured()));
+			if (expected.getMeasured().toInstant().plus(3, HOURS).isAfter(hourlyUntil)) {
+				assertThat(actual.getId(), is(expected.getId()));
+				assertThat(actual.getLocation(), is(expected.getLocation()));
+				assertThat(actual.getSun(), is(nullValue()));
+			} else {
+				assertThat(actual, is(expected));
+			}
+		}
+	}
+
+	private <T> CompletionStage<T> failedFuture(final Throwable throwable) {
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(throwable);
+		return future;
+	}
+
+	private <T> T fixture(final String name, final Class<T> clazz) throws IOException {
+		try (InputStream in = getClass().getResourceAsStream("/fixtures/" + name)) {
+			return JacksonObjectMapperProvider.get(actorSystem).objectMapper().readValue(in, clazz);
+		}
 	}
 
 	private WeatherData generateWeatherDataFrom(final OwmCurrentWeatherResponse owmResponse) {
@@ -212,13 +670,17 @@ class OwmAdapterTest {
 	}
 
 	private OwmCurrentWeatherResponse generateOwmCurrentWeatherResponse() {
+		return generateOwmCurrentWeatherResponse(12345);
+	}
+
+	private OwmCurrentWeatherResponse generateOwmCurrentWeatherResponse(final int id) {
 		final Instant timeNow = Instant.parse("2018-06-21T13:00:00Z")
 				.minus(3, HOURS); // Helsinki is 3 hours ahead of UTC at the above time.
 		final Instant sunrise = timeNow.minus(10, HOURS);
 		final Instant sunset = timeNow.plus(10, HOURS);
 
 		return OwmCurrentWeatherResponse.builder()
-				.id(12345)
+				.id(id)
 				.name("Helsinki")
 				.coordinates(Coordinates.builder()
 						.longitude(24.94)
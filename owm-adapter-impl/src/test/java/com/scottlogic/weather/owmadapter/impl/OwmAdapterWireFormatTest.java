@@ -0,0 +1,147 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
+import com.lightbend.lagom.javadsl.api.deser.MessageSerializer.NegotiatedSerializer;
+import com.lightbend.lagom.javadsl.api.deser.StrictMessageSerializer;
+import com.lightbend.lagom.javadsl.api.transport.MessageProtocol;
+import com.scottlogic.weather.common.serialization.SmileMessageSerializer;
+import com.scottlogic.weather.owmadapter.api.OwmAdapter;
+import com.scottlogic.weather.owmadapter.api.message.Sun;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Tests for the wire format of OWM adapter calls")
+class OwmAdapterWireFormatTest {
+	private static final Type WEATHER_DATA_LIST = new TypeReference<List<WeatherData>>() {}.getType();
+	private static final MessageProtocol NO_CONTENT_TYPE = new MessageProtocol(Optional.empty(), Optional.empty(), Optional.empty());
+
+	private static ActorSystem actorSystem;
+	private static ObjectMapper lagomJsonMapper;
+	private static List<WeatherData> forecast;
+
+	@BeforeAll
+	static void beforeAll() throws Exception {
+		actorSystem = ActorSystem.create("OwmAdapterWireFormatTest");
+		lagomJsonMapper = JacksonObjectMapperProvider.get(actorSystem).objectMapper();
+		SmileMessageSerializer.useActorSystem(actorSystem);
+
+		try (InputStream fixture = OwmAdapterWireFormatTest.class.getResourceAsStream("/fixtures/forecast-london.json")) {
+			forecast = lagomJsonMapper.readValue(fixture, new TypeReference<List<WeatherData>>() {});
+		}
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+		lagomJsonMapper = null;
+		forecast = null;
+	}
+
+	@Test
+	void acceptResponseProtocols_PrefersSmileOverJson() {
+		assertThat(
+				serializerFor(WEATHER_DATA_LIST).acceptResponseProtocols(),
+				contains(SmileMessageSerializer.SMILE, SmileMessageSerializer.JSON)
+		);
+	}
+
+	@Test
+	void serializerForResponse_PeerAcceptsSmile_RoundTripsForecastAsSmile() {
+		final StrictMessageSerializer<List<WeatherData>> sut = serializerFor(WEATHER_DATA_LIST);
+
+		final NegotiatedSerializer<List<WeatherData>, ByteString> serializer =
+				sut.serializerForResponse(sut.acceptResponseProtocols());
+		final List<WeatherData> result = sut.deserializer(serializer.protocol()).deserialize(serializer.serialize(forecast));
+
+		assertThat(serializer.protocol(), is(SmileMessageSerializer.SMILE));
+		assertThat(result, hasSize(40));
+		assertThat(result, is(forecast));
+	}
+
+	@Test
+	void serializerForResponse_OlderPeerAcceptsOnlyJson_RespondsWithLagomJson() throws Exception {
+		final StrictMessageSerializer<List<WeatherData>> sut = serializerFor(WEATHER_DATA_LIST);
+
+		final NegotiatedSerializer<List<WeatherData>, ByteString> serializer =
+				sut.serializerForResponse(Collections.singletonList(SmileMessageSerializer.JSON));
+
+		assertThat(serializer.protocol(), is(SmileMessageSerializer.JSON));
+		assertThat(serializer.serialize(forecast).utf8String(), is(lagomJsonMapper.writeValueAsString(forecast)));
+	}
+
+	@Test
+	void serializerForResponse_NoAcceptHeader_RespondsWithJson() {
+		final StrictMessageSerializer<WeatherData> sut = serializerFor(WeatherData.class);
+
+		assertThat(sut.serializerForResponse(Collections.emptyList()).protocol(), is(SmileMessageSerializer.JSON));
+	}
+
+	@Test
+	void serializerForRequest_AlwaysJson() {
+		assertThat(serializerFor(WEATHER_DATA_LIST).serializerForRequest().protocol(), is(SmileMessageSerializer.JSON));
+	}
+
+	@Test
+	void deserializer_JsonFromOlderPeer_ReadsByContentType() throws Exception {
+		final StrictMessageSerializer<WeatherAndForecast> sut = serializerFor(WeatherAndForecast.class);
+		final WeatherAndForecast message = weatherAndForecast();
+		final ByteString json = ByteString.fromArray(lagomJsonMapper.writeValueAsBytes(message));
+
+		assertThat(sut.deserializer(SmileMessageSerializer.JSON).deserialize(json), is(message));
+		assertThat(sut.deserializer(NO_CONTENT_TYPE).deserialize(json), is(message));
+	}
+
+	@Test
+	void smile_RecordedForecast_IsSmallerThanJson() {
+		final StrictMessageSerializer<List<WeatherData>> sut = serializerFor(WEATHER_DATA_LIST);
+
+		final int smileSize = sut.serializerForResponse(Collections.singletonList(SmileMessageSerializer.SMILE))
+				.serialize(forecast).size();
+		final int jsonSize = sut.serializerForResponse(Collections.singletonList(SmileMessageSerializer.JSON))
+				.serialize(forecast).size();
+
+		assertThat(smileSize * 10, lessThan(jsonSize * 6));
+	}
+
+	private WeatherAndForecast weatherAndForecast() {
+		final WeatherData first = forecast.get(0);
+		return WeatherAndForecast.builder()
+				.current(first.withSun(Sun.builder()
+						.sunrise(first.getMeasured().withHour(5).withMinute(25))
+						.sunset(first.getMeasured().withHour(20).withMinute(47))
+						.build()
+				))
+				.forecast(forecast)
+				.build();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> StrictMessageSerializer<T> serializerFor(final Type type) {
+		final OwmAdapter owmAdapter = mock(OwmAdapter.class, CALLS_REAL_METHODS);
+		return (StrictMessageSerializer<T>) owmAdapter.descriptor().messageSerializers().get(type);
+	}
+}
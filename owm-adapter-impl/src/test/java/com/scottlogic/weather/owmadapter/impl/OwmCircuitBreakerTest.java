@@ -0,0 +1,147 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.deser.ExceptionMessage;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.TransportErrorCode;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.stats.CircuitBreakerStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for the circuit breaker around OWM")
+class OwmCircuitBreakerTest {
+	private static final TransportException SERVER_ERROR = TransportException.fromCodeAndMessage(
+			TransportErrorCode.fromHttp(502),
+			new ExceptionMessage("BadGateway", "upstream unavailable")
+	);
+
+	private MutableClock clock;
+	private OwmCircuitBreaker sut;
+
+	@BeforeEach
+	void beforeEach() {
+		clock = new MutableClock(Instant.parse("2018-06-21T13:05:00Z"));
+		sut = new OwmCircuitBreaker(
+				ConfigFactory.parseResources("valid.conf").getConfig("source.owm.circuit-breaker"),
+				clock
+		);
+	}
+
+	@Test
+	void call_FailureRateReachesThreshold_OpensAndRejectsWith503() {
+		callTimes(5, this::succeed);
+		callTimes(4, this::fail);
+		assertThat(sut.stats().getState(), is("CLOSED"));
+
+		callTimes(1, this::fail); // 5 of 10 calls failed
+
+		assertThat(sut.isOpen(), is(true));
+		assertRejected();
+
+		final CircuitBreakerStats stats = sut.stats();
+		assertThat(stats.getState(), is("OPEN"));
+		assertThat(stats.getFailureRate(), is(50));
+		assertThat(stats.getOpened(), is(1L));
+		assertThat(stats.getRejected(), is(1L));
+	}
+
+	@Test
+	void call_SlowCallRateReachesThreshold_Opens() {
+		callTimes(2, this::succeed);
+		callTimes(8, this::succeedSlowly);
+
+		assertThat(sut.stats().getSlowCallRate(), is(80));
+		assertThat(sut.isOpen(), is(true));
+	}
+
+	@Test
+	void call_NotFoundResponses_DoNotCountAsFailures() {
+		callTimes(10, () -> failWith(new NotFound("city not found")));
+
+		assertThat(sut.stats().getState(), is("CLOSED"));
+		assertThat(sut.stats().getFailureRate(), is(0));
+	}
+
+	@Test
+	void call_OpenDurationElapsedAndTrialCallsSucceed_Closes() {
+		callTimes(10, this::fail);
+		clock.advance(Duration.ofSeconds(30));
+
+		assertThat(sut.isOpen(), is(false));
+		callTimes(3, this::succeed);
+
+		final CircuitBreakerStats stats = sut.stats();
+		assertThat(stats.getState(), is("CLOSED"));
+		assertThat(stats.getHalfOpened(), is(1L));
+		assertThat(stats.getClosed(), is(1L));
+		assertThat(stats.getBufferedCalls(), is(0));
+	}
+
+	@Test
+	void call_TrialCallFails_ReopensAndLimitsTrialCalls() {
+		callTimes(10, this::fail);
+		clock.advance(Duration.ofSeconds(30));
+
+		final CompletableFuture<String> first = new CompletableFuture<>();
+		final CompletableFuture<String> second = new CompletableFuture<>();
+		final CompletableFuture<String> third = new CompletableFuture<>();
+		sut.call(() -> first);
+		sut.call(() -> second);
+		sut.call(() -> third);
+		assertRejected(); // All three trial calls are under way
+
+		first.completeExceptionally(SERVER_ERROR);
+
+		final CircuitBreakerStats stats = sut.stats();
+		assertThat(stats.getState(), is("OPEN"));
+		assertThat(stats.getOpened(), is(2L));
+	}
+
+	private void callTimes(final int times, final Supplier<CompletionStage<String>> call) {
+		for (int i = 0; i < times; i++) {
+			sut.call(call);
+		}
+	}
+
+	private CompletionStage<String> succeed() {
+		return CompletableFuture.completedFuture("ok");
+	}
+
+	private CompletionStage<String> succeedSlowly() {
+		clock.advance(Duration.ofSeconds(5));
+		return succeed();
+	}
+
+	private CompletionStage<String> fail() {
+		return failWith(SERVER_ERROR);
+	}
+
+	private CompletionStage<String> failWith(final Throwable throwable) {
+		final CompletableFuture<String> failure = new CompletableFuture<>();
+		failure.completeExceptionally(throwable);
+		return failure;
+	}
+
+	private void assertRejected() {
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class,
+				() -> sut.call(this::succeed).toCompletableFuture().get()
+		);
+		assertThat(exception.getCause(), instanceOf(TransportException.class));
+		assertThat(((TransportException) exception.getCause()).errorCode().http(), is(503));
+	}
+}
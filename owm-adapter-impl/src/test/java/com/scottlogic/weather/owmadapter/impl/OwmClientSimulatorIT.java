@@ -0,0 +1,130 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.testkit.javadsl.TestKit;
+import com.google.common.collect.ImmutableList;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmGroupWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import com.scottlogic.weather.owmsimulator.OwmSimulator;
+import com.scottlogic.weather.owmsimulator.SimulatorSettings;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static com.scottlogic.weather.owmadapter.api.RequestDeadline.NONE;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The real OwmClient, over real HTTP, against the OpenWeatherMap simulator.
+ */
+@DisplayName("Tests for OwmClient against the OpenWeatherMap simulator")
+class OwmClientSimulatorIT {
+	private static ActorSystem actorSystem;
+
+	private OwmSimulator simulator;
+	private OwmClient sut;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("OwmClientSimulatorIT");
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@AfterEach
+	void afterEach() throws Exception {
+		simulator.stop().toCompletableFuture().get(5, SECONDS);
+	}
+
+	@Test
+	void getCurrentWeatherByName_KnownCity_ParsesSimulatedResponse() throws Exception {
+		start(SimulatorSettings.instant(100));
+
+		final OwmCurrentWeatherResponse response = sut.getCurrentWeather("London, GB", INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response.getId(), is(2643743));
+		assertThat(response.getName(), is("London"));
+		assertThat(response.getLocaleData().getCountryCode(), is("GB"));
+		assertThat(response.getWeather().size(), is(1));
+		assertThat(simulator.stats().getAnswered(), is(1L));
+	}
+
+	@Test
+	void getWeatherForecastById_MadeUpCity_ParsesAllForecasts() throws Exception {
+		start(SimulatorSettings.instant(100));
+
+		final OwmWeatherForecastResponse response = sut.getWeatherForecast(9000042, INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response.getCity().getId(), is(9000042));
+		assertThat(response.getForecasts().size(), is(40));
+	}
+
+	@Test
+	void getCurrentWeatherByIds_Group_ParsesEveryCity() throws Exception {
+		start(SimulatorSettings.instant(100));
+
+		final OwmGroupWeatherResponse response = sut.getCurrentWeather(ImmutableList.of(2643743, 2988507, 9000001), INTERACTIVE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(
+				response.getWeatherData().stream().map(OwmCurrentWeatherResponse::getId).collect(Collectors.toList()),
+				contains(2643743, 2988507, 9000001)
+		);
+	}
+
+	@Test
+	void getCurrentWeatherByName_UnknownCity_ThrowsNotFound() throws Exception {
+		start(SimulatorSettings.instant(100));
+
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class,
+				() -> sut.getCurrentWeather("Atlantis", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(NotFound.class));
+	}
+
+	@Test
+	void getCurrentWeatherByName_ServerError_ThrowsTransportException() throws Exception {
+		start(SimulatorSettings.instant(100).toBuilder().errorRate(1.0).build());
+
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class,
+				() -> sut.getCurrentWeather("Paris", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(TransportException.class));
+		assertThat(((TransportException) exception.getCause()).errorCode().http() >= 500, is(true));
+	}
+
+	private void start(final SimulatorSettings settings) throws Exception {
+		simulator = OwmSimulator.start(actorSystem, settings).toCompletableFuture().get(5, SECONDS);
+		final Config config = ConfigFactory.parseResources("valid.conf")
+				.withValue("source.owm.url", ConfigValueFactory.fromAnyRef(simulator.url()));
+		sut = new OwmClient(actorSystem, Http.get(actorSystem), config, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+	}
+}
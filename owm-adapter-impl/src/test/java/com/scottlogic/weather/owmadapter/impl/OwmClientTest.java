@@ -1,24 +1,38 @@
 package com.scottlogic.weather.owmadapter.impl;
 
+import akka.NotUsed;
 import akka.actor.ActorSystem;
+import akka.event.LoggingAdapter;
 import akka.http.javadsl.Http;
+import akka.http.javadsl.model.ContentTypes;
 import akka.http.javadsl.model.HttpEntities;
 import akka.http.javadsl.model.HttpRequest;
 import akka.http.javadsl.model.HttpResponse;
 import akka.http.javadsl.model.Uri;
+import akka.http.javadsl.settings.ConnectionPoolSettings;
+import akka.japi.Pair;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Source;
 import akka.testkit.javadsl.TestKit;
 import com.google.common.collect.ImmutableList;
 import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
 import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
 import com.scottlogic.weather.owmadapter.api.message.internal.City;
 import com.scottlogic.weather.owmadapter.api.message.internal.Coordinates;
 import com.scottlogic.weather.owmadapter.api.message.internal.Forecast;
 import com.scottlogic.weather.owmadapter.api.message.internal.Locale;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmGroupWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmOneCallResponse;
 import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import com.scottlogic.weather.owmadapter.api.message.stats.ApiKeyStats;
 import com.scottlogic.weather.owmadapter.api.message.internal.Temperature;
 import com.scottlogic.weather.owmadapter.api.message.internal.Weather;
 import com.scottlogic.weather.owmadapter.api.message.internal.Wind;
+import com.scottlogic.weather.owmadapter.api.message.stats.ConnectionPoolStats;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import org.junit.jupiter.api.AfterAll;
@@ -26,23 +40,33 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import scala.util.Success;
+import scala.util.Try;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionStage;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.scottlogic.weather.owmadapter.api.RequestDeadline.NONE;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 @DisplayName("Tests for handling success and failure responses from OpenWeatherMap")
@@ -52,6 +76,7 @@ class OwmClientTest {
 	private static ActorSystem actorSystem;
 
 	@Mock private Http http;
+	private final AtomicReference<HttpRequest> lastRequest = new AtomicReference<>();
 
 	private OwmClient sut;
 
@@ -76,46 +101,46 @@ class OwmClientTest {
 	}
 
 	@Test
-	void getCurrentWeatherByName_200Response_ReturnsWeatherData() {
+	void getCurrentWeatherByName_200Response_ReturnsWeatherData() throws Exception {
 		final String location = "anywhere";
-		final ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
 		final OwmCurrentWeatherResponse expectedResponse = generateOwmCurrentWeatherResponse();
 
-		when(http.singleRequest(captor.capture())).thenReturn(
+		stubConnectionPool(
 				httpSuccessResponseWithEntity(
 						owmCurrentWeatherResponseToEntityString(expectedResponse)
 				)
 		);
 
-		sut = new OwmClient(actorSystem, http, configValid);
-		final OwmCurrentWeatherResponse response = sut.getCurrentWeather(location);
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final OwmCurrentWeatherResponse response = sut.getCurrentWeather(location, INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
 
 		assertThat(response, is(expectedResponse));
 
-		final Uri uri = captor.getValue().getUri();
+		final Uri uri = lastRequest.get().getUri();
 		assertThat(uri.path(), endsWith("weather"));
 		assertQueryParam(uri, "q", location);
 		assertQueryParam(uri, "units", "metric");
 	}
 
 	@Test
-	void getCurrentWeatherById_200Response_ReturnsWeatherData() {
+	void getCurrentWeatherById_200Response_ReturnsWeatherData() throws Exception {
 		final int location = 1234567;
-		final ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
 		final OwmCurrentWeatherResponse expectedResponse = generateOwmCurrentWeatherResponse();
 
-		when(http.singleRequest(captor.capture())).thenReturn(
+		stubConnectionPool(
 				httpSuccessResponseWithEntity(
 						owmCurrentWeatherResponseToEntityString(expectedResponse)
 				)
 		);
 
-		sut = new OwmClient(actorSystem, http, configValid);
-		final OwmCurrentWeatherResponse response = sut.getCurrentWeather(location);
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final OwmCurrentWeatherResponse response = sut.getCurrentWeather(location, INTERACTIVE)
+				.toCompletableFuture().get(5, SECONDS);
 
 		assertThat(response, is(expectedResponse));
 
-		final Uri uri = captor.getValue().getUri();
+		final Uri uri = lastRequest.get().getUri();
 		assertThat(uri.path(), endsWith("weather"));
 		assertQueryParam(uri, "id", Integer.toString(location));
 		assertQueryParam(uri, "units", "metric");
@@ -125,75 +150,77 @@ class OwmClientTest {
 	void getCurrentWeather_401Response_ThrowsUnauthorized() {
 		final String failureMessage = "Apocalypse Now";
 
-		when(http.singleRequest(any(HttpRequest.class))).thenReturn(
+		stubConnectionPool(
 				httpFailureResponseWithStatus(401, failureMessage)
 		);
 
-		sut = new OwmClient(actorSystem, http, configBadApiKey);
+		sut = new OwmClient(actorSystem, http, configBadApiKey, new Deadlines(actorSystem), new Bulkheads(actorSystem));
 
-		final Unauthorized exception = assertThrows(
-				Unauthorized.class, () -> sut.getCurrentWeather("anywhere")
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class, () -> sut.getCurrentWeather("anywhere", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
 		);
-		assertThat(exception.getMessage(), is(failureMessage));
+		assertThat(exception.getCause(), instanceOf(Unauthorized.class));
+		assertThat(exception.getCause().getMessage(), is(failureMessage));
 	}
 
 	@Test
 	void getCurrentWeather_404Response_ThrowsNotFound() {
 		final String failureMessage = "Whoops Apocalypse";
 
-		when(http.singleRequest(any(HttpRequest.class))).thenReturn(
+		stubConnectionPool(
 				httpFailureResponseWithStatus(404, failureMessage)
 		);
 
-		sut = new OwmClient(actorSystem, http, configValid);
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
 
-		final NotFound exception = assertThrows(
-				NotFound.class, () -> sut.getCurrentWeather("Shoogly")
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class, () -> sut.getCurrentWeather("Shoogly", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
 		);
-		assertThat(exception.getMessage(), is(failureMessage));
+		assertThat(exception.getCause(), instanceOf(NotFound.class));
+		assertThat(exception.getCause().getMessage(), is(failureMessage));
 	}
 
 	@Test
-	void getWeatherForecastByName_200Response_ReturnsWeatherData() {
+	void getWeatherForecastByName_200Response_ReturnsWeatherData() throws Exception {
 		final String location = "anywhere";
-		final ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
 		final OwmWeatherForecastResponse expectedResponse = generateOwmWeatherForecastResponse();
 
-		when(http.singleRequest(captor.capture())).thenReturn(
+		stubConnectionPool(
 				httpSuccessResponseWithEntity(
 						owmWeatherForecastResponseToEntityString(expectedResponse)
 				)
 		);
 
-		sut = new OwmClient(actorSystem, http, configValid);
-		final OwmWeatherForecastResponse response = sut.getWeatherForecast(location);
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final OwmWeatherForecastResponse response = sut.getWeatherForecast(location, INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
 
 		assertThat(response, is(expectedResponse));
 
-		final Uri uri = captor.getValue().getUri();
+		final Uri uri = lastRequest.get().getUri();
 		assertThat(uri.path(), endsWith("forecast"));
 		assertQueryParam(uri, "q", location);
 		assertQueryParam(uri, "units", "metric");
 	}
 
 	@Test
-	void getWeatherForecastById_200Response_ReturnsWeatherData() {
+	void getWeatherForecastById_200Response_ReturnsWeatherData() throws Exception {
 		final int location = 1234567;
-		final ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
 		final OwmWeatherForecastResponse expectedResponse = generateOwmWeatherForecastResponse();
 
-		when(http.singleRequest(captor.capture())).thenReturn(
+		stubConnectionPool(
 				httpSuccessResponseWithEntity(
 						owmWeatherForecastResponseToEntityString(expectedResponse)
 				)
 		);
 
-		sut = new OwmClient(actorSystem, http, configValid);
-		final OwmWeatherForecastResponse response = sut.getWeatherForecast(location);
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final OwmWeatherForecastResponse response = sut.getWeatherForecast(location, INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
 
 		assertThat(response, is(expectedResponse));
 
-		final Uri uri = captor.getValue().getUri();
+		final Uri uri = lastRequest.get().getUri();
 		assertThat(uri.path(), endsWith("forecast"));
 		assertQueryParam(uri, "id", Integer.toString(location));
 		assertQueryParam(uri, "units", "metric");
@@ -203,43 +230,268 @@ class OwmClientTest {
 	void getWeatherForecast_401Response_ThrowsUnauthorized() {
 		final String failureMessage = "Apocalypse, CA";
 
-		when(http.singleRequest(any(HttpRequest.class))).thenReturn(
+		stubConnectionPool(
 				httpFailureResponseWithStatus(401, failureMessage)
 		);
 
-		sut = new OwmClient(actorSystem, http, configBadApiKey);
+		sut = new OwmClient(actorSystem, http, configBadApiKey, new Deadlines(actorSystem), new Bulkheads(actorSystem));
 
-		final Unauthorized exception = assertThrows(
-				Unauthorized.class, () -> sut.getWeatherForecast("anywhere")
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class, () -> sut.getWeatherForecast("anywhere", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
 		);
-		assertThat(exception.getMessage(), is(failureMessage));
+		assertThat(exception.getCause(), instanceOf(Unauthorized.class));
+		assertThat(exception.getCause().getMessage(), is(failureMessage));
 	}
 
 	@Test
 	void getWeatherForecast_404Response_ThrowsNotFound() {
 		final String failureMessage = "X-Men: Apocalypse";
 
-		when(http.singleRequest(any(HttpRequest.class))).thenReturn(
+		stubConnectionPool(
 				httpFailureResponseWithStatus(404, failureMessage)
 		);
 
-		sut = new OwmClient(actorSystem, http, configValid);
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
 
-		final NotFound exception = assertThrows(
-				NotFound.class, () -> sut.getWeatherForecast("Shoogly")
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class, () -> sut.getWeatherForecast("Shoogly", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
 		);
-		assertThat(exception.getMessage(), is(failureMessage));
+		assertThat(exception.getCause(), instanceOf(NotFound.class));
+		assertThat(exception.getCause().getMessage(), is(failureMessage));
+	}
+
+	@Test
+	void getCurrentWeatherByIds_200Response_RequestsGroupOfIds() throws Exception {
+		final OwmCurrentWeatherResponse expectedResponse = generateOwmCurrentWeatherResponse();
+
+		stubConnectionPool(
+				httpSuccessResponseWithEntity(
+						"{\"cnt\":1,\"list\":[" + owmCurrentWeatherResponseToEntityString(expectedResponse) + "]}"
+				)
+		);
+
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final OwmGroupWeatherResponse response = sut.getCurrentWeather(ImmutableList.of(1234567, 7654321), INTERACTIVE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response.getWeatherData(), contains(expectedResponse));
+
+		final Uri uri = lastRequest.get().getUri();
+		assertThat(uri.path(), endsWith("group"));
+		assertQueryParam(uri, "id", "1234567,7654321");
+		assertQueryParam(uri, "units", "metric");
+	}
+
+	@Test
+	void getCurrentWeather_Repeated404_ReplaysNotFoundWithoutCallingOwm() {
+		stubConnectionPool(
+				httpFailureResponseWithStatus(404, "city not found")
+		);
+
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+
+		final ExecutionException first = assertThrows(
+				ExecutionException.class, () -> sut.getCurrentWeather("Nowhere", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
+		);
+		final ExecutionException second = assertThrows(
+				ExecutionException.class, () -> sut.getCurrentWeather("nowhere ", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(second.getCause(), is(first.getCause()));
+		assertThat(sut.connectionPoolStats().getCompleted(), is(1L));
+		assertThat(sut.negativeCacheStats().getNotFoundReplayed(), is(1L));
+	}
+
+	@Test
+	void getWeatherForecast_401Response_ReplaysUnauthorizedForAnyLocation() {
+		stubConnectionPool(
+				httpFailureResponseWithStatus(401, "Invalid API key")
+		);
+
+		sut = new OwmClient(actorSystem, http, configBadApiKey, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+
+		final ExecutionException first = assertThrows(
+				ExecutionException.class, () -> sut.getWeatherForecast("anywhere", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS)
+		);
+		final ExecutionException second = assertThrows(
+				ExecutionException.class, () -> sut.getCurrentWeather(1234567, INTERACTIVE).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(second.getCause(), is(first.getCause()));
+		assertThat(sut.connectionPoolStats().getCompleted(), is(1L));
+		assertThat(sut.negativeCacheStats().getUnauthorizedReplayed(), is(1L));
+	}
+
+	@Test
+	void getCurrentWeather_SeveralApiKeysAndOneRefused_RetriesWithAnotherKeyAndStopsUsingRefusedKey() throws Exception {
+		final OwmCurrentWeatherResponse expectedResponse = generateOwmCurrentWeatherResponse();
+		final HttpResponse success = httpSuccessResponseWithEntity(owmCurrentWeatherResponseToEntityString(expectedResponse));
+		stubConnectionPool(request -> request.getUri().query().get("appid").orElse("").equals("refusedkey1111")
+				? httpFailureResponseWithStatus(401, "Invalid API key")
+				: success
+		);
+
+		sut = new OwmClient(
+				actorSystem,
+				http,
+				ConfigFactory.parseString("source.owm.apiKeys = [refusedkey1111, goodkey2222]").withFallback(configValid),
+				new Deadlines(actorSystem),
+				new Bulkheads(actorSystem)
+		);
+		final OwmCurrentWeatherResponse first = sut.getCurrentWeather(1234567, INTERACTIVE)
+				.toCompletableFuture().get(5, SECONDS);
+		final OwmCurrentWeatherResponse second = sut.getCurrentWeather(7654321, INTERACTIVE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(first, is(expectedResponse));
+		assertThat(second, is(expectedResponse));
+		assertThat(sut.connectionPoolStats().getCompleted(), is(3L));
+
+		final List<ApiKeyStats> apiKeyStats = sut.apiKeyStats();
+		assertThat(apiKeyStats.get(0).getApiKey(), is("****1111"));
+		assertThat(apiKeyStats.get(0).isRefused(), is(true));
+		assertThat(apiKeyStats.get(0).getScheduler().getGranted(), is(1L));
+		assertThat(apiKeyStats.get(1).isRefused(), is(false));
+		assertThat(apiKeyStats.get(1).getScheduler().getGranted(), is(2L));
+	}
+
+	@Test
+	void getCurrentWeather_EveryApiKeyRefused_TriesEachKeyOnceThenThrowsUnauthorized() {
+		stubConnectionPool(httpFailureResponseWithStatus(401, "Invalid API key"));
+
+		sut = new OwmClient(
+				actorSystem,
+				http,
+				ConfigFactory.parseString("source.owm { apiKeys = [key1111, key2222], negative-cache.unauthorized-ttl = 0s }")
+						.withFallback(configValid),
+				new Deadlines(actorSystem),
+				new Bulkheads(actorSystem)
+		);
+		final ExecutionException exception = assertThrows(ExecutionException.class, () ->
+				sut.getCurrentWeather(1234567, INTERACTIVE).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(Unauthorized.class));
+		assertThat(sut.connectionPoolStats().getCompleted(), is(2L));
+	}
+
+	@Test
+	void getWeatherForecast_DeadlinePassesWhileReadingResponse_ThrowsDeadlineExceeded() {
+		stubConnectionPool(HttpResponse.create()
+				.withStatus(200)
+				.withEntity(HttpEntities.createChunked(ContentTypes.APPLICATION_JSON, Source.maybe()))
+		);
+
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final long started = System.nanoTime();
+		final ExecutionException exception = assertThrows(ExecutionException.class, () ->
+				sut.getWeatherForecast("anywhere", INTERACTIVE, RequestDeadline.in(Duration.ofMillis(200)))
+						.toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+		assertThat(Duration.ofNanos(System.nanoTime() - started), lessThan(Duration.ofSeconds(5)));
+		assertThat(sut.circuitBreakerStats().getFailureRate(), is(0));
+	}
+
+	@Test
+	void getCurrentWeather_DeadlineAlreadyPassed_NotSentToOwm() {
+		stubConnectionPool(
+				httpSuccessResponseWithEntity(
+						owmCurrentWeatherResponseToEntityString(generateOwmCurrentWeatherResponse())
+				)
+		);
+		final Deadlines deadlines = new Deadlines(actorSystem);
+
+		sut = new OwmClient(actorSystem, http, configValid, deadlines, new Bulkheads(actorSystem));
+		final ExecutionException exception = assertThrows(ExecutionException.class, () ->
+				sut.getCurrentWeather("anywhere", INTERACTIVE, RequestDeadline.in(Duration.ZERO))
+						.toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+		assertThat(sut.connectionPoolStats().getCompleted(), is(0L));
+		assertThat(deadlines.stats().getOwmRequestsSkipped(), is(1L));
+	}
+
+	@Test
+	void connectionPoolStats_AfterSuccessfulRequests_ReportsCompletedAndIdlePool() throws Exception {
+		stubConnectionPool(
+				httpSuccessResponseWithEntity(
+						owmCurrentWeatherResponseToEntityString(generateOwmCurrentWeatherResponse())
+				)
+		);
+
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		sut.getCurrentWeather(1234567, INTERACTIVE).toCompletableFuture().get(5, SECONDS);
+		sut.getCurrentWeather("anywhere", INTERACTIVE, NONE).toCompletableFuture().get(5, SECONDS);
+
+		final ConnectionPoolStats stats = sut.connectionPoolStats();
+		assertThat(stats.getMaxConnections(), is(4));
+		assertThat(stats.getMaxOpenRequests(), is(16));
+		assertThat(stats.getCompleted(), is(2L));
+		assertThat(stats.getQueued(), is(0));
+		assertThat(stats.getInFlight(), is(0));
+		assertThat(stats.getRejected(), is(0L));
 	}
 
 	@Test
 	void constructor_ConfigNotFound_ThrowsRuntimeException() {
 		final RuntimeException exception = assertThrows(
 				RuntimeException.class,
-				() -> new OwmClient(actorSystem, http, ConfigFactory.empty())
+				() -> new OwmClient(actorSystem, http, ConfigFactory.empty(), new Deadlines(actorSystem), new Bulkheads(actorSystem))
 		);
 		assertThat(exception.getMessage().toLowerCase(), containsString("no configuration setting found for key 'source'"));
 	}
 
+	@Test
+	void getWeatherAndForecast_200Response_RequestsOneCallByCoordinates() throws Exception {
+		stubConnectionPool(
+				httpSuccessResponseWithEntity("{" +
+						"\"lat\":60.17,\"lon\":24.94,\"timezone\":\"Europe/Helsinki\",\"timezone_offset\":10800," +
+						"\"current\":{\"dt\":1529584200,\"sunrise\":1529544054,\"sunset\":1529612512,\"temp\":18.5," +
+						"\"pressure\":1012,\"humidity\":60,\"wind_speed\":3.6,\"wind_deg\":250," +
+						"\"weather\":[{\"id\":801,\"main\":\"Clouds\",\"description\":\"few clouds\",\"icon\":\"02d\"}]}," +
+						"\"hourly\":[{\"dt\":1529586000,\"temp\":18.9,\"humidity\":58,\"wind_speed\":3.9,\"wind_deg\":255," +
+						"\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"clear sky\",\"icon\":\"01d\"}],\"pop\":0}]," +
+						"\"daily\":[{\"dt\":1529575200,\"temp\":{\"day\":18.2,\"min\":12.1,\"max\":20.4,\"night\":13}}]" +
+						"}")
+		);
+
+		sut = new OwmClient(actorSystem, http, configValid, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+		final OwmOneCallResponse response = sut.getWeatherAndForecast(12345, 60.17, 24.94, INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(response.getZoneId(), is("Europe/Helsinki"));
+		assertThat(response.getCurrent().getSunrise(), is(Instant.ofEpochSecond(1529544054)));
+		assertThat(response.getCurrent().getWindSpeed(), is(new BigDecimal("3.6")));
+		assertThat(response.getHourlyForecasts().get(0).getWeather().get(0).getDescription(), is("clear sky"));
+		assertThat(response.getDailyForecasts().get(0).getTemperature().getMax(), is(new BigDecimal("20.4")));
+
+		final Uri uri = lastRequest.get().getUri();
+		assertThat(uri.path(), endsWith("onecall"));
+		assertQueryParam(uri, "lat", "60.17");
+		assertQueryParam(uri, "lon", "24.94");
+		assertQueryParam(uri, "exclude", "minutely,alerts");
+	}
+
+	private void stubConnectionPool(final HttpResponse response) {
+		stubConnectionPool(request -> response);
+	}
+
+	private void stubConnectionPool(final Function<HttpRequest, HttpResponse> responder) {
+		final Flow<Pair<HttpRequest, Object>, Pair<Try<HttpResponse>, Object>, NotUsed> pool =
+				Flow.<Pair<HttpRequest, Object>>create()
+						.map(request -> {
+							lastRequest.set(request.first());
+							return Pair.create(new Success<>(responder.apply(request.first())), request.second());
+						});
+
+		doReturn(pool).when(http).superPool(
+				any(ConnectionPoolSettings.class), any(LoggingAdapter.class), any(Materializer.class)
+		);
+	}
+
 	private void assertQueryParam(final Uri uri, final String name, final String value) {
 		assertThat(uri.query().get(name).get(), is(value));
 	}
@@ -328,12 +580,10 @@ class OwmClientTest {
 				.build();
 	}
 
-	private CompletionStage<HttpResponse> httpSuccessResponseWithEntity(final String responseEntityAsString) {
-		return CompletableFuture.completedFuture(
-				HttpResponse.create()
-						.withStatus(200)
-						.withEntity(HttpEntities.create(responseEntityAsString))
-		);
+	private HttpResponse httpSuccessResponseWithEntity(final String responseEntityAsString) {
+		return HttpResponse.create()
+				.withStatus(200)
+				.withEntity(HttpEntities.create(responseEntityAsString));
 	}
 
 	private String owmCurrentWeatherResponseToEntityString(final OwmCurrentWeatherResponse current) {
@@ -420,13 +670,11 @@ class OwmClientTest {
 				"}";
 	}
 
-	private CompletionStage<HttpResponse> httpFailureResponseWithStatus(final int statusCode, final String message) {
-		return CompletableFuture.completedFuture(
-				HttpResponse.create()
-						.withStatus(statusCode)
-						.withEntity(HttpEntities.create(
-								"{\"cod\":\"" + statusCode +
-								"\",\"message\":\"" + message + "\"}"))
-		);
+	private HttpResponse httpFailureResponseWithStatus(final int statusCode, final String message) {
+		return HttpResponse.create()
+				.withStatus(statusCode)
+				.withEntity(HttpEntities.create(
+						"{\"cod\":\"" + statusCode +
+						"\",\"message\":\"" + message + "\"}"));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.Uri;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.testkit.javadsl.TestKit;
+import com.google.common.collect.ImmutableList;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.impl.OwmRecording.Appender;
+import com.scottlogic.weather.owmadapter.impl.OwmRecording.Exchange;
+import com.scottlogic.weather.owmsimulator.OwmSimulator;
+import com.scottlogic.weather.owmsimulator.SimulatorSettings;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigValueFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static com.scottlogic.weather.owmadapter.api.RequestDeadline.NONE;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@DisplayName("Tests for recording OWM responses and replaying them")
+class OwmRecordingTest {
+	private static ActorSystem actorSystem;
+	private static Materializer materializer;
+
+	private Path path;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("OwmRecordingTest");
+		materializer = ActorMaterializer.create(actorSystem);
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@BeforeEach
+	void beforeEach() throws Exception {
+		path = Files.createTempFile("owm-recording", ".bin");
+	}
+
+	@AfterEach
+	void afterEach() throws Exception {
+		Files.deleteIfExists(path);
+	}
+
+	@Test
+	void read_AppendedByTwoRuns_ReturnsEveryExchangeInOrder() throws Exception {
+		try (final Appender appender = OwmRecording.appendTo(path)) {
+			appender.append(exchange("weather?q=London", 200, "{\"id\":1}"));
+		}
+		try (final Appender appender = OwmRecording.appendTo(path)) {
+			appender.append(exchange("weather?q=Paris", 404, "{\"cod\":\"404\"}"));
+		}
+
+		final List<Exchange> exchanges = OwmRecording.read(path);
+
+		assertThat(exchanges.size(), is(2));
+		assertThat(exchanges.get(0).getRequest(), is("weather?q=London"));
+		assertThat(exchanges.get(0).getSentAt(), is(Instant.parse("2018-06-21T13:05:00Z")));
+		assertThat(exchanges.get(0).getLatency(), is(Duration.ofMillis(120)));
+		assertThat(new String(exchanges.get(0).getBody(), StandardCharsets.UTF_8), is("{\"id\":1}"));
+		assertThat(exchanges.get(1).getStatus(), is(404));
+	}
+
+	@Test
+	void appendTo_PartWrittenLastFrame_DropsItAndAppendsAfterLastWholeFrame() throws Exception {
+		try (final Appender appender = OwmRecording.appendTo(path)) {
+			appender.append(exchange("weather?q=London", 200, "{\"id\":1}"));
+			appender.append(exchange("weather?q=Paris", 200, "{\"id\":2}"));
+		}
+		try (final RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.setLength(file.length() - 3);
+		}
+		assertThat(OwmRecording.read(path).size(), is(1));
+
+		try (final Appender appender = OwmRecording.appendTo(path)) {
+			appender.append(exchange("weather?q=Rome", 200, "{\"id\":3}"));
+		}
+
+		final List<Exchange> exchanges = OwmRecording.read(path);
+		assertThat(exchanges.size(), is(2));
+		assertThat(exchanges.get(1).getRequest(), is("weather?q=Rome"));
+	}
+
+	@Test
+	void requestKey_WithApiKey_LeavesOutKeyAndBasePath() {
+		assertThat(
+				OwmRecording.requestKey(Uri.create("/data/2.5/weather?appid=secret&q=London&units=metric")),
+				is("weather?q=London&units=metric")
+		);
+		assertThat(
+				OwmRecording.requestKey(Uri.create("http://localhost:9000/weather?q=London&appid=secret")),
+				is("weather?q=London")
+		);
+	}
+
+	@Test
+	void replay_RepeatedRequest_CyclesThroughRecordedResponses() throws Exception {
+		final ReplayTransport sut = new ReplayTransport(
+				ImmutableList.of(
+						exchange("weather?q=London", 200, "first"),
+						exchange("weather?q=London", 503, "second")
+				),
+				0,
+				actorSystem.scheduler(),
+				actorSystem.dispatcher()
+		);
+
+		assertThat(replay(sut, "/weather?appid=a&q=London").status().intValue(), is(200));
+		assertThat(replay(sut, "/weather?appid=b&q=London").status().intValue(), is(503));
+		assertThat(replay(sut, "/weather?appid=a&q=London").status().intValue(), is(200));
+	}
+
+	@Test
+	void replay_UnrecordedRequest_Returns404() throws Exception {
+		final ReplayTransport sut = new ReplayTransport(
+				ImmutableList.of(exchange("weather?q=London", 200, "{}")),
+				0,
+				actorSystem.scheduler(),
+				actorSystem.dispatcher()
+		);
+
+		assertThat(replay(sut, "/weather?q=Paris").status().intValue(), is(404));
+	}
+
+	@Test
+	void replay_AtRecordedSpeed_WaitsRecordedResponseTime() throws Exception {
+		final ReplayTransport sut = new ReplayTransport(
+				ImmutableList.of(exchange("weather?q=London", 200, "{}")),
+				1.0,
+				actorSystem.scheduler(),
+				actorSystem.dispatcher()
+		);
+
+		final long start = System.nanoTime();
+		replay(sut, "/weather?q=London");
+
+		assertThat(System.nanoTime() - start >= Duration.ofMillis(120).toNanos(), is(true));
+	}
+
+	@Test
+	void owmClient_RecordThenReplay_AnswersFromRecordingWithoutOwm() throws Exception {
+		final OwmSimulator simulator = OwmSimulator.start(actorSystem, SimulatorSettings.instant(100))
+				.toCompletableFuture().get(5, SECONDS);
+		final OwmCurrentWeatherResponse recorded;
+		try {
+			recorded = client(simulator.url(), "record").getCurrentWeather("London, GB", INTERACTIVE, NONE)
+					.toCompletableFuture().get(5, SECONDS);
+		} finally {
+			simulator.stop().toCompletableFuture().get(5, SECONDS);
+		}
+
+		// Nothing is listening here: every answer must come from the recording.
+		final OwmCurrentWeatherResponse replayed = client("http://localhost:1/", "replay")
+				.getCurrentWeather("London, GB", INTERACTIVE, NONE)
+				.toCompletableFuture().get(5, SECONDS);
+
+		assertThat(replayed, is(recorded));
+		assertThat(OwmRecording.read(path).size(), is(1));
+	}
+
+	private OwmClient client(final String url, final String mode) {
+		final Config config = ConfigFactory.parseResources("valid.conf")
+				.withValue("source.owm.url", ConfigValueFactory.fromAnyRef(url))
+				.withValue("source.owm.recording.mode", ConfigValueFactory.fromAnyRef(mode))
+				.withValue("source.owm.recording.path", ConfigValueFactory.fromAnyRef(path.toString()))
+				.withValue("source.owm.recording.speed", ConfigValueFactory.fromAnyRef(0));
+		return new OwmClient(actorSystem, Http.get(actorSystem), config, new Deadlines(actorSystem), new Bulkheads(actorSystem));
+	}
+
+	private static HttpResponse replay(final ReplayTransport sut, final String uri) throws Exception {
+		final HttpResponse response = sut.request(HttpRequest.create(uri)).toCompletableFuture().get(5, SECONDS);
+		response.discardEntityBytes(materializer);
+		return response;
+	}
+
+	private static Exchange exchange(final String request, final int status, final String body) {
+		return new Exchange(
+				Instant.parse("2018-06-21T13:05:00Z"),
+				Duration.ofMillis(120),
+				request,
+				status,
+				body.getBytes(StandardCharsets.UTF_8)
+		);
+	}
+}
@@ -0,0 +1,107 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.scottlogic.weather.owmadapter.api.message.stats.CoalescingStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for single-flight coalescing of upstream requests")
+class RequestCoalescerTest {
+
+	private RequestCoalescer sut;
+
+	@BeforeEach
+	void beforeEach() {
+		sut = new RequestCoalescer();
+	}
+
+	@Test
+	void coalesce_ConcurrentCallsForSameKey_InvokeUpstreamOnce() throws Exception {
+		final CompletableFuture<String> upstream = new CompletableFuture<>();
+		final AtomicInteger calls = new AtomicInteger();
+
+		final CompletionStage<String> first = sut.coalesce(RequestKey.current("Paris, FR"), () -> {
+			calls.incrementAndGet();
+			return upstream;
+		});
+		final CompletionStage<String> second = sut.coalesce(RequestKey.current("PARIS ,  fr "), () -> {
+			calls.incrementAndGet();
+			return upstream;
+		});
+		upstream.complete("result");
+
+		assertThat(first.toCompletableFuture().get(5, SECONDS), is("result"));
+		assertThat(second.toCompletableFuture().get(5, SECONDS), is("result"));
+		assertThat(calls.get(), is(1));
+
+		final CoalescingStats stats = sut.stats();
+		assertThat(stats.getUpstreamCalls(), is(1L));
+		assertThat(stats.getCoalesced(), is(1L));
+		assertThat(stats.getInFlight(), is(0));
+	}
+
+	@Test
+	void coalesce_DifferentKeys_AreNotShared() {
+		final CompletableFuture<String> upstream = new CompletableFuture<>();
+
+		sut.coalesce(RequestKey.current("Paris, FR"), () -> upstream);
+		sut.coalesce(RequestKey.forecast("Paris, FR"), () -> upstream);
+		sut.coalesce(RequestKey.current(2988507), () -> upstream);
+
+		assertThat(sut.stats().getInFlight(), is(3));
+		assertThat(sut.stats().getCoalesced(), is(0L));
+		upstream.complete("done");
+		assertThat(sut.stats().getInFlight(), is(0));
+	}
+
+	@Test
+	void coalesce_CallAfterCompletion_InvokesUpstreamAgain() throws Exception {
+		final RequestKey key = RequestKey.forecast(2988507);
+
+		sut.coalesce(key, () -> completedFuture("first")).toCompletableFuture().get(5, SECONDS);
+		final String result = sut.coalesce(key, () -> completedFuture("second")).toCompletableFuture().get(5, SECONDS);
+
+		assertThat(result, is("second"));
+		assertThat(sut.stats().getUpstreamCalls(), is(2L));
+	}
+
+	@Test
+	void coalesce_UpstreamFailure_PropagatesToAllCallersAndIsForgotten() {
+		final RequestKey key = RequestKey.current("Nowhere");
+		final NotFound expectedException = new NotFound("whoops");
+		final CompletableFuture<String> upstream = new CompletableFuture<>();
+
+		final CompletionStage<String> first = sut.coalesce(key, () -> upstream);
+		final CompletionStage<String> second = sut.coalesce(key, () -> upstream);
+		upstream.completeExceptionally(expectedException);
+
+		final ExecutionException firstResult = assertThrows(ExecutionException.class, () ->
+				first.toCompletableFuture().get(5, SECONDS)
+		);
+		final ExecutionException secondResult = assertThrows(ExecutionException.class, () ->
+				second.toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(firstResult.getCause(), is(expectedException));
+		assertThat(secondResult.getCause(), is(expectedException));
+		assertThat(sut.stats().getInFlight(), is(0));
+	}
+
+	@Test
+	void requestKey_NameAndIdForSameCity_AreDifferentKeys() {
+		assertThat(RequestKey.current("2988507"), is(not(RequestKey.current(2988507))));
+	}
+}
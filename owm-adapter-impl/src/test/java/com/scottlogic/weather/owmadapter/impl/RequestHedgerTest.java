@@ -0,0 +1,170 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.scottlogic.weather.owmadapter.api.message.stats.HedgingStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for hedging slow OWM requests")
+class RequestHedgerTest {
+	private static ActorSystem actorSystem;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("RequestHedgerTest");
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@Test
+	void hedge_TooFewSamples_NoHedgeSent() throws Exception {
+		final RequestHedger sut = hedger();
+		final Requests requests = new Requests();
+
+		final CompletionStage<String> result = sut.hedge(requests, () -> Optional.of(requests.get()));
+		Thread.sleep(200);
+		requests.get(0).complete("first");
+
+		assertThat(result.toCompletableFuture().get(1, SECONDS), is("first"));
+		assertThat(requests.sent(), is(1));
+		assertThat(sut.stats().getDelayMillis(), is(-1L));
+	}
+
+	@Test
+	void hedge_FirstRequestSlow_HedgeSentAndFirstAnswerUsed() throws Exception {
+		final RequestHedger sut = warmedUp(hedger());
+		final Requests requests = new Requests();
+
+		final CompletionStage<String> result = sut.hedge(requests, () -> Optional.of(requests.get()));
+		awaitRequests(requests, 2);
+		requests.get(1).complete("second");
+		requests.get(0).complete("first");
+
+		assertThat(result.toCompletableFuture().get(1, SECONDS), is("second"));
+
+		final HedgingStats stats = sut.stats();
+		assertThat(stats.getHedged(), is(1L));
+		assertThat(stats.getHedgeWins(), is(1L));
+	}
+
+	@Test
+	void hedge_NoQuotaToSpare_NoHedgeSent() throws Exception {
+		final RequestHedger sut = warmedUp(hedger());
+		final Requests requests = new Requests();
+
+		final CompletionStage<String> result = sut.hedge(requests, Optional::empty);
+		Thread.sleep(200);
+		requests.get(0).complete("first");
+
+		assertThat(result.toCompletableFuture().get(1, SECONDS), is("first"));
+		assertThat(requests.sent(), is(1));
+		assertThat(sut.stats().getHedged(), is(0L));
+	}
+
+	@Test
+	void hedge_FirstRequestFailsAfterHedgeSent_WaitsForHedge() throws Exception {
+		final RequestHedger sut = warmedUp(hedger());
+		final Requests requests = new Requests();
+
+		final CompletionStage<String> result = sut.hedge(requests, () -> Optional.of(requests.get()));
+		awaitRequests(requests, 2);
+		requests.get(0).completeExceptionally(new NotFound("city not found"));
+		assertThat(result.toCompletableFuture().isDone(), is(false));
+
+		requests.get(1).complete("second");
+		assertThat(result.toCompletableFuture().get(1, SECONDS), is("second"));
+	}
+
+	@Test
+	void hedge_FirstRequestFailsBeforeDelay_FailsWithoutHedging() throws Exception {
+		final RequestHedger sut = warmedUp(hedger());
+		final Requests requests = new Requests();
+
+		final CompletionStage<String> result = sut.hedge(requests, () -> Optional.of(requests.get()));
+		requests.get(0).completeExceptionally(new NotFound("city not found"));
+
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class, () -> result.toCompletableFuture().get(1, SECONDS)
+		);
+		assertThat(exception.getCause(), instanceOf(NotFound.class));
+		Thread.sleep(200);
+		assertThat(requests.sent(), is(1));
+	}
+
+	private RequestHedger hedger() {
+		return new RequestHedger(
+				actorSystem.scheduler(),
+				actorSystem.dispatcher(),
+				ConfigFactory.parseString(
+						"enabled = on\n" +
+						"percentile = 95\n" +
+						"min-delay = 50ms\n" +
+						"sample-size = 10\n" +
+						"min-samples = 5"
+				)
+		);
+	}
+
+	/**
+	 * Feeds the hedger enough fast responses to settle on its minimum delay.
+	 */
+	private RequestHedger warmedUp(final RequestHedger hedger) throws Exception {
+		for (int i = 0; i < 5; i++) {
+			hedger.hedge(() -> CompletableFuture.completedFuture("fast"), Optional::empty).toCompletableFuture().get(1, SECONDS);
+		}
+		assertThat(hedger.stats().getDelayMillis(), is(50L));
+		return hedger;
+	}
+
+	private void awaitRequests(final Requests requests, final int count) throws InterruptedException {
+		for (int i = 0; i < 100 && requests.sent() < count; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(requests.sent(), is(count));
+	}
+
+	/**
+	 * Hands out a new, incomplete response for each request sent.
+	 */
+	private static class Requests implements Supplier<CompletionStage<String>> {
+		private final List<CompletableFuture<String>> responses = new ArrayList<>();
+
+		@Override
+		public synchronized CompletionStage<String> get() {
+			final CompletableFuture<String> response = new CompletableFuture<>();
+			responses.add(response);
+			return response;
+		}
+
+		private synchronized int sent() {
+			return responses.size();
+		}
+
+		private synchronized CompletableFuture<String> get(final int index) {
+			return responses.get(index);
+		}
+	}
+}
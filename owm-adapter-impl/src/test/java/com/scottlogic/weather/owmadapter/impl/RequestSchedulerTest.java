@@ -0,0 +1,156 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import com.lightbend.lagom.javadsl.api.transport.TransportException;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.RequestPriority;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.owmadapter.api.message.stats.SchedulerStats;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.BACKGROUND;
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.INTERACTIVE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for rationing OWM requests by quota and priority")
+class RequestSchedulerTest {
+	private static ActorSystem actorSystem;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("RequestSchedulerTest");
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@Test
+	void acquire_WithinBurst_GrantedImmediately() {
+		final RequestScheduler sut = scheduler(60, 2, 10);
+
+		assertThat(sut.acquire(BACKGROUND).toCompletableFuture().isDone(), is(true));
+		assertThat(sut.acquire(INTERACTIVE).toCompletableFuture().isDone(), is(true));
+		assertThat(sut.acquire(INTERACTIVE).toCompletableFuture().isDone(), is(false));
+		assertThat(sut.stats().getGranted(), is(2L));
+	}
+
+	@Test
+	void acquire_TokensExhausted_InteractiveGrantedAheadOfBackground() throws Exception {
+		final RequestScheduler sut = scheduler(600, 1, 10); // One token every 100ms
+		final List<RequestPriority> grantOrder = new CopyOnWriteArrayList<>();
+
+		sut.acquire(BACKGROUND);
+		final CompletableFuture<Done> background = track(sut.acquire(BACKGROUND), BACKGROUND, grantOrder);
+		final CompletableFuture<Done> interactive = track(sut.acquire(INTERACTIVE), INTERACTIVE, grantOrder);
+
+		final SchedulerStats queuedStats = sut.stats();
+		assertThat(queuedStats.getQueuedInteractive(), is(1));
+		assertThat(queuedStats.getQueuedBackground(), is(1));
+
+		CompletableFuture.allOf(background, interactive).get(5, SECONDS);
+		assertThat(grantOrder, contains(INTERACTIVE, BACKGROUND));
+	}
+
+	@Test
+	void acquire_QueueFull_RejectedImmediatelyWith429() {
+		final RequestScheduler sut = scheduler(1, 1, 1);
+
+		sut.acquire(INTERACTIVE);
+		sut.acquire(INTERACTIVE);
+
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class, () -> sut.acquire(INTERACTIVE).toCompletableFuture().get(1, SECONDS)
+		);
+		assertThat(exception.getCause(), instanceOf(TransportException.class));
+		assertThat(((TransportException) exception.getCause()).errorCode().http(), is(429));
+		assertThat(sut.stats().getRejected(), is(1L));
+	}
+
+	@Test
+	void acquire_DeadlinePassesWhileQueued_DroppedWithoutSpendingToken() throws Exception {
+		final RequestScheduler sut = scheduler(600, 1, 10); // One token every 100ms
+
+		sut.acquire(BACKGROUND);
+		final CompletableFuture<Done> expiring = sut.acquire(INTERACTIVE, RequestDeadline.in(Duration.ofMillis(20)))
+				.toCompletableFuture();
+		final CompletableFuture<Done> waiting = sut.acquire(BACKGROUND).toCompletableFuture();
+
+		final ExecutionException exception = assertThrows(ExecutionException.class, () -> expiring.get(5, SECONDS));
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+
+		// The token the expired request would have had goes to the next in line.
+		waiting.get(5, SECONDS);
+		final SchedulerStats stats = sut.stats();
+		assertThat(stats.getExpired(), is(1L));
+		assertThat(stats.getGranted(), is(2L));
+	}
+
+	@Test
+	void acquire_DeadlineAlreadyPassed_FailsImmediately() {
+		final RequestScheduler sut = scheduler(60, 2, 10);
+
+		final ExecutionException exception = assertThrows(
+				ExecutionException.class,
+				() -> sut.acquire(INTERACTIVE, RequestDeadline.in(Duration.ZERO)).toCompletableFuture().get(1, SECONDS)
+		);
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+		assertThat(sut.stats().getGranted(), is(0L));
+	}
+
+	@Test
+	void refund_TokenUnspent_NextWaiterGranted() throws Exception {
+		final RequestScheduler sut = scheduler(1, 1, 10);
+
+		sut.acquire(INTERACTIVE);
+		final CompletableFuture<Done> waiting = sut.acquire(INTERACTIVE).toCompletableFuture();
+		assertThat(waiting.isDone(), is(false));
+
+		sut.refund();
+		waiting.get(5, SECONDS);
+		assertThat(sut.stats().getRefunded(), is(1L));
+	}
+
+	private RequestScheduler scheduler(final int requestsPerMinute, final int burst, final int maxQueued) {
+		return new RequestScheduler(
+				actorSystem.scheduler(),
+				actorSystem.dispatcher(),
+				ConfigFactory.parseString(
+						"requests-per-minute = " + requestsPerMinute + "\n" +
+						"burst = " + burst + "\n" +
+						"max-queued = " + maxQueued
+				)
+		);
+	}
+
+	private CompletableFuture<Done> track(
+			final CompletionStage<Done> permit,
+			final RequestPriority priority,
+			final List<RequestPriority> grantOrder
+	) {
+		return permit.thenApply(done -> {
+			grantOrder.add(priority);
+			return done;
+		}).toCompletableFuture();
+	}
+}
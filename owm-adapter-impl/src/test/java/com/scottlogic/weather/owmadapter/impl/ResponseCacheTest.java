@@ -0,0 +1,136 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.owmadapter.api.message.stats.CacheStats;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@DisplayName("Tests for the weather data cache")
+class ResponseCacheTest {
+	private static final Instant NOW = Instant.parse("2018-06-21T13:05:00Z");
+
+	private MutableClock clock;
+	private ResponseCache sut;
+
+	@BeforeEach
+	void beforeEach() {
+		clock = new MutableClock(NOW);
+		sut = new ResponseCache(ConfigFactory.parseResources("valid.conf"), clock);
+	}
+
+	@Test
+	void get_NothingCached_IsAMiss() {
+		assertThat(sut.get(RequestKey.current(1234)), is(Optional.empty()));
+		assertThat(sut.stats().getMisses(), is(1L));
+	}
+
+	@Test
+	void putCurrentWeather_CachedUnderRequestKeyAndId() {
+		final WeatherData weatherData = weatherData(1234, NOW.minus(4, MINUTES));
+		sut.putCurrentWeather(RequestKey.current("Somewhere, GB"), weatherData);
+
+		assertThat(sut.get(RequestKey.current("somewhere,gb")), is(Optional.of(weatherData)));
+		assertThat(sut.get(RequestKey.current(1234)), is(Optional.of(weatherData)));
+		assertThat(sut.get(RequestKey.forecast(1234)), is(Optional.empty()));
+		assertThat(sut.stats().getHits(), is(2L));
+	}
+
+	@Test
+	void putCurrentWeather_ExpiresOneUpdateIntervalAfterMeasurement() {
+		final RequestKey key = RequestKey.current(1234);
+		sut.putCurrentWeather(key, weatherData(1234, NOW.minus(4, MINUTES)));
+
+		clock.advance(Duration.of(5, MINUTES).plus(59, SECONDS));
+		assertThat(sut.get(key).isPresent(), is(true));
+
+		clock.advance(Duration.of(1, SECONDS));
+		assertThat(sut.get(key).isPresent(), is(false));
+		assertThat(sut.stats().getExpirations(), is(1L));
+	}
+
+	@Test
+	void putCurrentWeather_OverdueObservation_KeptForMinimumTtl() {
+		final RequestKey key = RequestKey.current(1234);
+		sut.putCurrentWeather(key, weatherData(1234, NOW.minus(25, MINUTES)));
+
+		clock.advance(Duration.of(29, SECONDS));
+		assertThat(sut.get(key).isPresent(), is(true));
+
+		clock.advance(Duration.of(1, SECONDS));
+		assertThat(sut.get(key).isPresent(), is(false));
+	}
+
+	@Test
+	void putWeatherForecast_ExpiresWhenFirstPeriodBegins() {
+		final RequestKey key = RequestKey.forecast("Somewhere, GB");
+		final Instant firstPeriod = Instant.parse("2018-06-21T15:00:00Z");
+		final List<WeatherData> forecast = ImmutableList.of(
+				weatherData(1234, firstPeriod),
+				weatherData(1234, firstPeriod.plus(3, HOURS))
+		);
+		sut.putWeatherForecast(key, forecast);
+
+		assertThat(sut.get(RequestKey.forecast(1234)), is(Optional.of(forecast)));
+
+		clock.advance(Duration.between(NOW, firstPeriod).minusSeconds(1));
+		assertThat(sut.get(key).isPresent(), is(true));
+
+		clock.advance(Duration.of(1, SECONDS));
+		assertThat(sut.get(key).isPresent(), is(false));
+	}
+
+	@Test
+	void put_BeyondMaxEntries_EvictsLeastRecentlyUsed() {
+		final Config config = ConfigFactory.parseString("source.owm.cache.max-entries = 2")
+				.withFallback(ConfigFactory.parseResources("valid.conf"));
+		sut = new ResponseCache(config, clock);
+
+		sut.putCurrentWeather(RequestKey.current(1), weatherData(1, NOW));
+		sut.putCurrentWeather(RequestKey.current(2), weatherData(2, NOW));
+		sut.get(RequestKey.current(1));
+		sut.putCurrentWeather(RequestKey.current(3), weatherData(3, NOW));
+
+		assertThat(sut.get(RequestKey.current(1)).isPresent(), is(true));
+		assertThat(sut.get(RequestKey.current(2)).isPresent(), is(false));
+		assertThat(sut.get(RequestKey.current(3)).isPresent(), is(true));
+
+		final CacheStats stats = sut.stats();
+		assertThat(stats.getEntries(), is(2));
+		assertThat(stats.getEvictions(), is(1L));
+	}
+
+	@Test
+	void put_ZeroMaxEntries_DisablesCache() {
+		final Config config = ConfigFactory.parseString("source.owm.cache.max-entries = 0")
+				.withFallback(ConfigFactory.parseResources("valid.conf"));
+		sut = new ResponseCache(config, clock);
+
+		sut.putCurrentWeather(RequestKey.current(1), weatherData(1, NOW));
+
+		assertThat(sut.get(RequestKey.current(1)).isPresent(), is(false));
+	}
+
+	private WeatherData weatherData(final int id, final Instant measured) {
+		return WeatherData.builder()
+				.id(id)
+				.location("Somewhere, GB")
+				.measured(measured.atOffset(ZoneOffset.UTC))
+				.build();
+	}
+}
@@ -0,0 +1,156 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import akka.actor.ActorSystem;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Source;
+import akka.testkit.javadsl.TestKit;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lightbend.lagom.internal.jackson.JacksonObjectMapperProvider;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmCurrentWeatherResponse;
+import com.scottlogic.weather.owmadapter.api.message.internal.OwmWeatherForecastResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Tests for incremental decoding of JSON from a stream of bytes")
+class StreamingJsonDecoderTest {
+	private static final String CURRENT_WEATHER_JSON = "{" +
+			"\"coord\":{\"lon\":-0.13,\"lat\":51.51}," +
+			"\"weather\":[{\"id\":300,\"main\":\"Drizzle\",\"description\":\"light intensity drizzle\",\"icon\":\"09d\"}]," +
+			"\"base\":\"stations\"," +
+			"\"main\":{\"temp\":7.17,\"pressure\":1012,\"humidity\":81,\"temp_min\":6.00,\"temp_max\":8.00}," +
+			"\"visibility\":10000," +
+			"\"wind\":{\"speed\":4.1,\"deg\":80}," +
+			"\"clouds\":{\"all\":90}," +
+			"\"dt\":1485789600," +
+			"\"sys\":{\"type\":1,\"id\":5091,\"message\":0.0103,\"country\":\"GB\",\"sunrise\":1485762037,\"sunset\":1485794875}," +
+			"\"id\":2643743," +
+			"\"name\":\"London\"," +
+			"\"cod\":200" +
+			"}";
+
+	private static final String FORECAST_JSON = "{" +
+			"\"cod\":\"200\",\"message\":0.0032,\"cnt\":2," +
+			"\"list\":[" +
+				"{\"dt\":1487246400,\"main\":{\"temp\":8.21,\"temp_min\":7.55,\"temp_max\":8.21,\"pressure\":1024.69,\"humidity\":100}," +
+				"\"weather\":[{\"id\":800,\"main\":\"Clear\",\"description\":\"clear sky\",\"icon\":\"01n\"}]," +
+				"\"clouds\":{\"all\":0},\"wind\":{\"speed\":1.03,\"deg\":164.008},\"rain\":{},\"sys\":{\"pod\":\"n\"},\"dt_txt\":\"2017-02-16 12:00:00\"}," +
+				"{\"dt\":1487257200,\"main\":{\"temp\":6.04,\"temp_min\":5.54,\"temp_max\":6.04,\"pressure\":1024.5,\"humidity\":98}," +
+				"\"weather\":[{\"id\":500,\"main\":\"Rain\",\"description\":\"light rain\",\"icon\":\"10n\"}]," +
+				"\"clouds\":{\"all\":0},\"wind\":{\"speed\":1.1,\"deg\":176},\"rain\":{\"3h\":0.0150},\"sys\":{\"pod\":\"n\"},\"dt_txt\":\"2017-02-16 15:00:00\"}" +
+			"]," +
+			"\"city\":{\"id\":6940463,\"name\":\"Altstadt\",\"coord\":{\"lat\":48.137,\"lon\":11.5752},\"country\":\"DE\",\"population\":0}" +
+			"}";
+
+	private static ActorSystem actorSystem;
+	private static Materializer materializer;
+	private static ObjectMapper objectMapper;
+
+	private StreamingJsonDecoder sut;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("StreamingJsonDecoderTest");
+		materializer = ActorMaterializer.create(actorSystem);
+		objectMapper = JacksonObjectMapperProvider.get(actorSystem).objectMapper();
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+		materializer = null;
+		objectMapper = null;
+	}
+
+	@BeforeEach
+	void beforeEach() {
+		sut = new StreamingJsonDecoder(objectMapper);
+	}
+
+	@Test
+	void decode_SingleChunk_MatchesObjectMapper() throws Exception {
+		final OwmCurrentWeatherResponse expected = objectMapper.readValue(CURRENT_WEATHER_JSON, OwmCurrentWeatherResponse.class);
+
+		final OwmCurrentWeatherResponse result = decode(chunked(CURRENT_WEATHER_JSON, Integer.MAX_VALUE), OwmCurrentWeatherResponse.class);
+
+		assertThat(result, is(expected));
+	}
+
+	@Test
+	void decode_EveryPossibleChunkSize_MatchesObjectMapper() throws Exception {
+		final OwmWeatherForecastResponse expected = objectMapper.readValue(FORECAST_JSON, OwmWeatherForecastResponse.class);
+
+		for (int chunkSize = 1; chunkSize <= FORECAST_JSON.length(); chunkSize += 7) {
+			final OwmWeatherForecastResponse result = decode(chunked(FORECAST_JSON, chunkSize), OwmWeatherForecastResponse.class);
+			assertThat("chunk size " + chunkSize, result, is(expected));
+		}
+	}
+
+	@Test
+	void decode_DecimalValues_KeepTheirExactRepresentation() throws Exception {
+		final OwmCurrentWeatherResponse result = decode(chunked(CURRENT_WEATHER_JSON, 16), OwmCurrentWeatherResponse.class);
+
+		assertThat(result.getTemperature().getTempMin(), is(new BigDecimal("6.00")));
+		assertThat(result.getWind().getSpeed(), is(new BigDecimal("4.1")));
+	}
+
+	@Test
+	void decode_UnknownNestedStructures_AreSkipped() throws Exception {
+		final String json = "{\"extra\":{\"deep\":[[1,2,{\"a\":[]}],{}]},\"city\":{\"id\":1,\"name\":\"x\",\"unused\":[{}]}," +
+				"\"list\":[{\"dt\":1,\"other\":{\"dt\":2}}],\"trailing\":\"value\"}";
+
+		final OwmWeatherForecastResponse result = decode(chunked(json, 3), OwmWeatherForecastResponse.class);
+
+		assertThat(result.getCity().getId(), is(1));
+		assertThat(result.getForecasts(), hasSize(1));
+		assertThat(result.getForecasts().get(0).getMeasuredAt().getEpochSecond(), is(1L));
+	}
+
+	@Test
+	void decode_TruncatedDocument_Fails() {
+		final String truncated = CURRENT_WEATHER_JSON.substring(0, CURRENT_WEATHER_JSON.length() / 2);
+
+		assertThrows(
+				ExecutionException.class,
+				() -> decode(chunked(truncated, 10), OwmCurrentWeatherResponse.class)
+		);
+	}
+
+	@Test
+	void decode_EmptyEntity_Fails() {
+		assertThrows(
+				ExecutionException.class,
+				() -> decode(Source.empty(), OwmCurrentWeatherResponse.class)
+		);
+	}
+
+	private <T> T decode(final Source<ByteString, ?> bytes, final Class<T> clazz) throws Exception {
+		return sut.decode(bytes, clazz, materializer).toCompletableFuture().get(5, SECONDS);
+	}
+
+	private Source<ByteString, ?> chunked(final String json, final int chunkSize) {
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		final List<ByteString> chunks = new ArrayList<>();
+		for (int i = 0; i < bytes.length; i += chunkSize) {
+			chunks.add(ByteString.fromArray(bytes, i, Math.min(chunkSize, bytes.length - i)));
+		}
+		return Source.from(chunks);
+	}
+}
@@ -0,0 +1,86 @@
+package com.scottlogic.weather.owmadapter.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Checks the spatial index against the generated decision tree it replaced, kept as
+ * {@link LegacyTimezoneMapper}, over millions of points.
+ */
+@DisplayName("Tests for mapping coordinates to timezones")
+class TimezoneMapperTest {
+
+	@Test
+	void latLngToTimezoneString_KnownCities_AreInTheirZones() {
+		assertThat(TimezoneMapper.latLngToTimezoneString(51.51, -0.13), is("Europe/London"));
+		assertThat(TimezoneMapper.latLngToTimezoneString(48.85, 2.35), is("Europe/Paris"));
+		assertThat(TimezoneMapper.latLngToTimezoneString(40.71, -74.01), is("America/New_York"));
+		assertThat(TimezoneMapper.latLngToTimezoneString(35.69, 139.69), is("Asia/Tokyo"));
+		assertThat(TimezoneMapper.latLngToTimezoneString(-33.87, 151.21), is("Australia/Sydney"));
+	}
+
+	@Test
+	void latLngToTimezoneString_RandomPoints_SameAsDecisionTree() {
+		final Random random = new Random(20180801L);
+		final List<String> differences = new ArrayList<>();
+		for (int i = 0; i < 3_000_000; i++) {
+			compare(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, differences);
+		}
+
+		assertThat(differences.toString(), differences.isEmpty(), is(true));
+	}
+
+	@Test
+	void latLngToTimezoneString_DenseGridOverEurope_SameAsDecisionTree() {
+		// Europe has the most borders, and so the most polygons, in the least space.
+		final List<String> differences = new ArrayList<>();
+		for (int lat = 0; lat < 1250; lat++) {
+			for (int lng = 0; lng < 2000; lng++) {
+				compare(35 + lat * 0.02, -10 + lng * 0.02, differences);
+			}
+		}
+
+		assertThat(differences.toString(), differences.isEmpty(), is(true));
+	}
+
+	@Test
+	void latLngToTimezoneString_OnAndBesideLeafBoundaries_SameAsDecisionTree() {
+		final TimezoneIndex index = TimezoneIndex.open();
+		final List<String> differences = new ArrayList<>();
+		for (int leaf = 0; leaf < index.leafCount(); leaf++) {
+			for (int lat = 0; lat < 2; lat++) {
+				for (int lng = 2; lng < 4; lng++) {
+					compareAround(index.leafBound(leaf, lat), index.leafBound(leaf, lng), differences);
+				}
+			}
+		}
+
+		assertThat(differences.toString(), differences.isEmpty(), is(true));
+	}
+
+	private void compareAround(final float lat, final float lng, final List<String> differences) {
+		if (Float.isInfinite(lat) || Float.isInfinite(lng)) {
+			return;
+		}
+		for (final float nearLat : new float[] { Math.nextDown(lat), lat, Math.nextUp(lat) }) {
+			for (final float nearLng : new float[] { Math.nextDown(lng), lng, Math.nextUp(lng) }) {
+				compare(nearLat, nearLng, differences);
+			}
+		}
+	}
+
+	private void compare(final double lat, final double lng, final List<String> differences) {
+		final String expected = LegacyTimezoneMapper.latLngToTimezoneString(lat, lng);
+		final String actual = TimezoneMapper.latLngToTimezoneString(lat, lng);
+		if (!expected.equals(actual) && differences.size() < 10) {
+			differences.add("(" + lat + ", " + lng + "): " + actual + " but expected " + expected);
+		}
+	}
+}
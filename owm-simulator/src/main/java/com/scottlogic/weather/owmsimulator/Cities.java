@@ -0,0 +1,108 @@
+package com.scottlogic.weather.owmsimulator;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * <p>
+ *   The cities the simulator knows about, by OWM city id and by name.
+ * </p>
+ * <p>
+ *   A few real cities, with their real ids, come first, so that the locations the weather service
+ *   asks for by default are found; the rest are made up, and the same for a given seed each time.
+ *   Names are looked up as OWM does, as "name" or "name,country code", ignoring case and spaces.
+ * </p>
+ */
+class Cities {
+	private static final List<City> REAL = Collections.unmodifiableList(Arrays.asList(
+			new City(2643743, "London", "GB", 51.51, -0.13),
+			new City(2988507, "Paris", "FR", 48.85, 2.35),
+			new City(2950159, "Berlin", "DE", 52.52, 13.41),
+			new City(2673730, "Stockholm", "SE", 59.33, 18.06),
+			new City(5128581, "New York", "US", 40.71, -74.01),
+			new City(5391959, "San Francisco", "US", 37.77, -122.42),
+			new City(1850147, "Tokyo", "JP", 35.69, 139.69),
+			new City(2147714, "Sydney", "AU", -33.87, 151.21),
+			new City(3448439, "Sao Paulo", "BR", -23.55, -46.64),
+			new City(993800, "Johannesburg", "ZA", -26.2, 28.04)
+	));
+	private static final int FIRST_MADE_UP_ID = 9000000;
+	private static final String[] PREFIXES = {
+			"Ash", "Bel", "Car", "Dun", "Elm", "Fair", "Glen", "Har", "Inver", "Kings",
+			"Lang", "Mar", "New", "Oak", "Port", "Red", "Sand", "Thorn", "Wex", "York"
+	};
+	private static final String[] SUFFIXES = {
+			"ford", "ton", "ville", "burg", "mouth", "field", "haven", "stead", "bridge", "wick"
+	};
+	private static final String[] COUNTRIES = {
+			"GB", "FR", "DE", "SE", "US", "JP", "AU", "BR", "ZA", "CA", "IN", "NZ"
+	};
+
+	private final List<City> all = new ArrayList<>();
+	private final Map<Integer, City> byId = new HashMap<>();
+	private final Map<String, City> byName = new HashMap<>();
+
+	Cities(final int count, final long seed) {
+		REAL.stream().limit(count).forEach(this::add);
+
+		final Random random = new Random(seed);
+		for (int n = 0; this.all.size() < count; n++) {
+			final int round = n / (PREFIXES.length * SUFFIXES.length);
+			final String name = PREFIXES[n % PREFIXES.length] +
+					SUFFIXES[(n / PREFIXES.length) % SUFFIXES.length] +
+					(round == 0 ? "" : " " + (round + 1));
+			add(new City(
+					FIRST_MADE_UP_ID + n,
+					name,
+					COUNTRIES[n % COUNTRIES.length],
+					round(random.nextDouble() * 130 - 60),
+					round(random.nextDouble() * 360 - 180)
+			));
+		}
+	}
+
+	List<City> all() {
+		return Collections.unmodifiableList(this.all);
+	}
+
+	Optional<City> byId(final int id) {
+		return Optional.ofNullable(this.byId.get(id));
+	}
+
+	Optional<City> byName(final String location) {
+		return Optional.ofNullable(this.byName.get(normalise(location)));
+	}
+
+	private void add(final City city) {
+		this.all.add(city);
+		this.byId.put(city.getId(), city);
+		this.byName.putIfAbsent(normalise(city.getName()), city);
+		this.byName.put(normalise(city.getName() + "," + city.getCountry()), city);
+	}
+
+	private static String normalise(final String location) {
+		return location.replace(" ", "").toLowerCase(Locale.ROOT);
+	}
+
+	private static double round(final double degrees) {
+		return Math.round(degrees * 100) / 100.0;
+	}
+
+	@Value
+	static class City {
+		int id;
+		String name;
+		String country;
+		double latitude;
+		double longitude;
+	}
+}
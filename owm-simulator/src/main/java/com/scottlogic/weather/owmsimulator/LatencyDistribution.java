@@ -0,0 +1,66 @@
+package com.scottlogic.weather.owmsimulator;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * <p>
+ *   How long the simulator takes to answer a request:
+ * </p>
+ * <ul>
+ *   <li>fixed: always the median;</li>
+ *   <li>uniform: anywhere between zero and twice the median;</li>
+ *   <li>log-normal: mostly close to the median, with a long tail reaching the given 99th
+ *   percentile, much as response times from a real service are spread.</li>
+ * </ul>
+ */
+public abstract class LatencyDistribution {
+	// The 99th percentile of the standard normal distribution.
+	private static final double Z_99 = 2.326;
+
+	public static LatencyDistribution of(final String distribution, final Duration median, final Duration p99) {
+		switch (distribution) {
+			case "fixed":
+				return fixed(median);
+			case "uniform":
+				return uniform(median);
+			case "log-normal":
+				return logNormal(median, p99);
+			default:
+				throw new IllegalArgumentException("Unknown latency distribution: " + distribution);
+		}
+	}
+
+	public static LatencyDistribution fixed(final Duration latency) {
+		return new LatencyDistribution() {
+			@Override
+			Duration sample(final Random random) {
+				return latency;
+			}
+		};
+	}
+
+	public static LatencyDistribution uniform(final Duration median) {
+		return new LatencyDistribution() {
+			@Override
+			Duration sample(final Random random) {
+				return Duration.ofNanos((long) (random.nextDouble() * 2 * median.toNanos()));
+			}
+		};
+	}
+
+	public static LatencyDistribution logNormal(final Duration median, final Duration p99) {
+		if (median.isZero() || p99.compareTo(median) < 0) {
+			throw new IllegalArgumentException("Log-normal latency needs a median above zero, and a p99 no lower");
+		}
+		final double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+		return new LatencyDistribution() {
+			@Override
+			Duration sample(final Random random) {
+				return Duration.ofNanos((long) (median.toNanos() * Math.exp(sigma * random.nextGaussian())));
+			}
+		};
+	}
+
+	abstract Duration sample(Random random);
+}
@@ -0,0 +1,186 @@
+package com.scottlogic.weather.owmsimulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.scottlogic.weather.owmsimulator.Cities.City;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>
+ *   Builds response bodies in OpenWeatherMap's own JSON format, with all the fields OWM sends
+ *   rather than only those the adapter reads, so that parsing them costs what parsing OWM's does.
+ * </p>
+ * <p>
+ *   The weather is made up, but plausibly: warmer nearer the equator, with the sun rising and
+ *   setting by longitude. It is the same for a given city, seed and hour, so that repeated
+ *   requests agree with one another, as they do with OWM.
+ * </p>
+ */
+class OwmPayloads {
+	private static final int FORECASTS = 40;
+	private static final Duration FORECAST_INTERVAL = Duration.ofHours(3);
+	private static final Condition[] CONDITIONS = {
+			new Condition(800, "Clear", "clear sky", "01"),
+			new Condition(801, "Clouds", "few clouds", "02"),
+			new Condition(802, "Clouds", "scattered clouds", "03"),
+			new Condition(803, "Clouds", "broken clouds", "04"),
+			new Condition(804, "Clouds", "overcast clouds", "04"),
+			new Condition(500, "Rain", "light rain", "10"),
+			new Condition(501, "Rain", "moderate rain", "10"),
+			new Condition(300, "Drizzle", "light intensity drizzle", "09"),
+			new Condition(211, "Thunderstorm", "thunderstorm", "11"),
+			new Condition(600, "Snow", "light snow", "13"),
+			new Condition(741, "Fog", "fog", "50")
+	};
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final long seed;
+
+	OwmPayloads(final long seed) {
+		this.seed = seed;
+	}
+
+	String currentWeather(final City city, final Instant now) {
+		return currentWeatherNode(city, now).toString();
+	}
+
+	String group(final List<City> cities, final Instant now) {
+		final ObjectNode group = this.objectMapper.createObjectNode();
+		group.put("cnt", cities.size());
+		final ArrayNode list = group.putArray("list");
+		cities.forEach(city -> list.add(currentWeatherNode(city, now)));
+		return group.toString();
+	}
+
+	String forecast(final City city, final Instant now) {
+		final ObjectNode forecast = this.objectMapper.createObjectNode();
+		forecast.put("cod", "200");
+		forecast.put("message", 0);
+		forecast.put("cnt", FORECASTS);
+
+		final ArrayNode list = forecast.putArray("list");
+		final Instant first = now.truncatedTo(ChronoUnit.HOURS)
+				.plus(FORECAST_INTERVAL.toHours() - (now.getEpochSecond() / 3600) % FORECAST_INTERVAL.toHours(), ChronoUnit.HOURS);
+		for (int i = 0; i < FORECASTS; i++) {
+			final Instant at = first.plus(FORECAST_INTERVAL.multipliedBy(i));
+			final Random random = randomFor(city, at);
+			final Condition condition = CONDITIONS[random.nextInt(CONDITIONS.length)];
+
+			final ObjectNode entry = list.addObject();
+			entry.put("dt", at.getEpochSecond());
+			main(entry.putObject("main"), city, random);
+			weather(entry.putArray("weather"), condition, isDay(city, at));
+			entry.putObject("clouds").put("all", random.nextInt(101));
+			wind(entry.putObject("wind"), random);
+			entry.putObject("sys").put("pod", isDay(city, at) ? "d" : "n");
+			entry.put("dt_txt", at.toString().replace('T', ' ').replace("Z", ""));
+		}
+
+		final ObjectNode cityNode = forecast.putObject("city");
+		cityNode.put("id", city.getId());
+		cityNode.put("name", city.getName());
+		coordinates(cityNode.putObject("coord"), city);
+		cityNode.put("country", city.getCountry());
+		return forecast.toString();
+	}
+
+	String error(final int code, final String message) {
+		final ObjectNode error = this.objectMapper.createObjectNode();
+		error.put("cod", String.valueOf(code));
+		error.put("message", message);
+		return error.toString();
+	}
+
+	private ObjectNode currentWeatherNode(final City city, final Instant now) {
+		final Instant measuredAt = now.truncatedTo(ChronoUnit.MINUTES);
+		final Random random = randomFor(city, now.truncatedTo(ChronoUnit.HOURS));
+		final Condition condition = CONDITIONS[random.nextInt(CONDITIONS.length)];
+
+		final ObjectNode weather = this.objectMapper.createObjectNode();
+		coordinates(weather.putObject("coord"), city);
+		weather(weather.putArray("weather"), condition, isDay(city, measuredAt));
+		weather.put("base", "stations");
+		main(weather.putObject("main"), city, random);
+		weather.put("visibility", 10000);
+		wind(weather.putObject("wind"), random);
+		weather.putObject("clouds").put("all", random.nextInt(101));
+		weather.put("dt", measuredAt.getEpochSecond());
+
+		final Instant solarNoon = solarNoon(city, measuredAt);
+		final ObjectNode sys = weather.putObject("sys");
+		sys.put("type", 1);
+		sys.put("message", 0.0036);
+		sys.put("country", city.getCountry());
+		sys.put("sunrise", solarNoon.minus(Duration.ofHours(6)).getEpochSecond());
+		sys.put("sunset", solarNoon.plus(Duration.ofHours(6)).getEpochSecond());
+
+		weather.put("id", city.getId());
+		weather.put("name", city.getName());
+		weather.put("cod", 200);
+		return weather;
+	}
+
+	private void main(final ObjectNode main, final City city, final Random random) {
+		final double temp = 28 - 0.45 * Math.abs(city.getLatitude()) + random.nextGaussian() * 4;
+		main.put("temp", decimal(temp));
+		main.put("pressure", 990 + random.nextInt(41));
+		main.put("humidity", 35 + random.nextInt(61));
+		main.put("temp_min", decimal(temp - random.nextDouble() * 2));
+		main.put("temp_max", decimal(temp + random.nextDouble() * 2));
+	}
+
+	private void weather(final ArrayNode weather, final Condition condition, final boolean isDay) {
+		final ObjectNode entry = weather.addObject();
+		entry.put("id", condition.getId());
+		entry.put("main", condition.getMain());
+		entry.put("description", condition.getDescription());
+		entry.put("icon", condition.getIcon() + (isDay ? "d" : "n"));
+	}
+
+	private void wind(final ObjectNode wind, final Random random) {
+		wind.put("speed", decimal(Math.abs(random.nextGaussian() * 5)));
+		wind.put("deg", random.nextInt(360));
+	}
+
+	private void coordinates(final ObjectNode coord, final City city) {
+		coord.put("lon", city.getLongitude());
+		coord.put("lat", city.getLatitude());
+	}
+
+	private Random randomFor(final City city, final Instant at) {
+		return new Random(this.seed * 31 * 31 + city.getId() * 31L + at.getEpochSecond());
+	}
+
+	private static Instant solarNoon(final City city, final Instant at) {
+		final long offsetSeconds = (long) (city.getLongitude() / 15 * 3600);
+		return at.plusSeconds(offsetSeconds).truncatedTo(ChronoUnit.DAYS)
+				.plus(Duration.ofHours(12))
+				.minusSeconds(offsetSeconds);
+	}
+
+	private static boolean isDay(final City city, final Instant at) {
+		final Instant solarNoon = solarNoon(city, at);
+		return at.isAfter(solarNoon.minus(Duration.ofHours(6))) && at.isBefore(solarNoon.plus(Duration.ofHours(6)));
+	}
+
+	private static BigDecimal decimal(final double value) {
+		return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+	}
+
+	@Value
+	private static class Condition {
+		int id;
+		String main;
+		String description;
+		String icon;
+	}
+}
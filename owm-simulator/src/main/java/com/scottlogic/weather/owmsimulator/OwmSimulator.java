@@ -0,0 +1,238 @@
+package com.scottlogic.weather.owmsimulator;
+
+import akka.Done;
+import akka.actor.ActorSystem;
+import akka.http.javadsl.ConnectHttp;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.ServerBinding;
+import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpEntities;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.Query;
+import akka.http.javadsl.model.Uri;
+import akka.pattern.PatternsCS;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import com.scottlogic.weather.owmsimulator.Cities.City;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ *   A stand-in for OpenWeatherMap, serving its current weather ({@code weather}), forecast
+ *   ({@code forecast}) and current weather for several cities ({@code group}) endpoints over real
+ *   HTTP, so that the OWM adapter can be load tested offline, connection pool, JSON parsing and
+ *   all: point {@code source.owm.url} at {@link #url()}.
+ * </p>
+ * <p>
+ *   It can be made to answer slowly (see LatencyDistribution), to fail a proportion of requests
+ *   with server errors, and to ration each API key to so many calls a minute, answering any more
+ *   with a 429 as OWM does; see {@link SimulatorSettings}.
+ * </p>
+ * <p>
+ *   Start one within a test with {@link #start(ActorSystem, SimulatorSettings)}, or on its own with
+ *   OwmSimulatorMain.
+ * </p>
+ */
+public class OwmSimulator {
+	private static final int MAX_GROUP_SIZE = 20;
+
+	private final SimulatorSettings settings;
+	private final ActorSystem actorSystem;
+	private final Materializer materializer;
+	private final Cities cities;
+	private final OwmPayloads payloads;
+	private final Quota quota;
+	private final Clock clock = Clock.systemUTC();
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder answered = new LongAdder();
+	private final LongAdder notFound = new LongAdder();
+	private final LongAdder badRequests = new LongAdder();
+	private final LongAdder unauthorized = new LongAdder();
+	private final LongAdder rateLimited = new LongAdder();
+	private final LongAdder serverErrors = new LongAdder();
+
+	private ServerBinding binding;
+
+	private OwmSimulator(final ActorSystem actorSystem, final SimulatorSettings settings) {
+		this.settings = settings;
+		this.actorSystem = actorSystem;
+		this.materializer = ActorMaterializer.create(actorSystem);
+		this.cities = new Cities(settings.getCities(), settings.getSeed());
+		this.payloads = new OwmPayloads(settings.getSeed());
+		this.quota = new Quota(settings.getCallsPerMinute(), this.clock);
+	}
+
+	public static CompletionStage<OwmSimulator> start(final ActorSystem actorSystem, final SimulatorSettings settings) {
+		final OwmSimulator simulator = new OwmSimulator(actorSystem, settings);
+		return Http.get(actorSystem)
+				.bindAndHandleAsync(
+						simulator::handle,
+						ConnectHttp.toHost(settings.getHost(), settings.getPort()),
+						simulator.materializer
+				)
+				.thenApply(binding -> {
+					simulator.binding = binding;
+					return simulator;
+				});
+	}
+
+	/**
+	 * The base URL of the simulated API, to use as {@code source.owm.url}.
+	 */
+	public String url() {
+		return "http://" + this.settings.getHost() + ":" + this.binding.localAddress().getPort() + basePath();
+	}
+
+	public SimulatorStats stats() {
+		return SimulatorStats.builder()
+				.requests(this.requests.sum())
+				.answered(this.answered.sum())
+				.notFound(this.notFound.sum())
+				.badRequests(this.badRequests.sum())
+				.unauthorized(this.unauthorized.sum())
+				.rateLimited(this.rateLimited.sum())
+				.serverErrors(this.serverErrors.sum())
+				.build();
+	}
+
+	public CompletionStage<Done> stop() {
+		return this.binding.unbind();
+	}
+
+	private CompletionStage<HttpResponse> handle(final HttpRequest request) {
+		request.discardEntityBytes(this.materializer);
+		this.requests.increment();
+
+		final HttpResponse response = respond(request.getUri());
+		final Duration latency = this.settings.getLatency().sample(ThreadLocalRandom.current());
+		if (latency.isZero() || latency.isNegative()) {
+			return CompletableFuture.completedFuture(response);
+		}
+		return PatternsCS.after(
+				FiniteDuration.create(latency.toNanos(), TimeUnit.NANOSECONDS),
+				this.actorSystem.scheduler(),
+				this.actorSystem.dispatcher(),
+				CompletableFuture.completedFuture(response)
+		);
+	}
+
+	private HttpResponse respond(final Uri uri) {
+		final String path = uri.path();
+		if (!path.startsWith(basePath() + "/")) {
+			return failure(404, "Internal error");
+		}
+		final String endpoint = path.substring(basePath().length() + 1);
+		final Query query = uri.query();
+
+		final String apiKey = query.get("appid").orElse("");
+		if (apiKey.isEmpty() || !(this.settings.getApiKeys().isEmpty() || this.settings.getApiKeys().contains(apiKey))) {
+			return failure(401, "Invalid API key. Please see http://openweathermap.org/faq#error401 for more info.");
+		}
+		if (!this.quota.tryCall(apiKey)) {
+			return failure(429, "Your account is temporary blocked due to exceeding of requests limitation of your subscription type. Please choose the proper subscription http://openweathermap.org/price");
+		}
+		if (ThreadLocalRandom.current().nextDouble() < this.settings.getErrorRate()) {
+			return failure(Arrays.asList(500, 502, 503).get(ThreadLocalRandom.current().nextInt(3)), "Internal error");
+		}
+
+		switch (endpoint) {
+			case "weather":
+				return locate(query)
+						.map(city -> success(this.payloads.currentWeather(city, this.clock.instant())))
+						.orElseGet(() -> cityNotFound(query));
+			case "forecast":
+				return locate(query)
+						.map(city -> success(this.payloads.forecast(city, this.clock.instant())))
+						.orElseGet(() -> cityNotFound(query));
+			case "group":
+				return group(query);
+			default:
+				return failure(404, "Internal error");
+		}
+	}
+
+	private Optional<City> locate(final Query query) {
+		final Optional<String> id = query.get("id");
+		if (id.isPresent()) {
+			try {
+				return this.cities.byId(Integer.parseInt(id.get()));
+			} catch (NumberFormatException e) {
+				return Optional.empty();
+			}
+		}
+		return query.get("q").flatMap(this.cities::byName);
+	}
+
+	private HttpResponse cityNotFound(final Query query) {
+		if (!query.get("id").isPresent() && !query.get("q").isPresent()) {
+			return failure(400, "Nothing to geocode");
+		}
+		return failure(404, "city not found");
+	}
+
+	private HttpResponse group(final Query query) {
+		final List<String> ids = Arrays.asList(query.get("id").orElse("").split(","));
+		if (ids.size() > MAX_GROUP_SIZE) {
+			return failure(400, "Too many ids; at most " + MAX_GROUP_SIZE + " are allowed");
+		}
+		try {
+			final List<City> found = ids.stream()
+					.filter(id -> !id.isEmpty())
+					.map(id -> this.cities.byId(Integer.parseInt(id)))
+					.filter(Optional::isPresent)
+					.map(Optional::get)
+					.collect(Collectors.toList());
+			return success(this.payloads.group(found, this.clock.instant()));
+		} catch (NumberFormatException e) {
+			return failure(400, e.getMessage());
+		}
+	}
+
+	private String basePath() {
+		final String basePath = this.settings.getBasePath();
+		return basePath.endsWith("/") ? basePath.substring(0, basePath.length() - 1) : basePath;
+	}
+
+	private HttpResponse success(final String body) {
+		this.answered.increment();
+		return HttpResponse.create()
+				.withStatus(200)
+				.withEntity(HttpEntities.create(ContentTypes.APPLICATION_JSON, body));
+	}
+
+	private HttpResponse failure(final int status, final String message) {
+		switch (status) {
+			case 400:
+				this.badRequests.increment();
+				break;
+			case 401:
+				this.unauthorized.increment();
+				break;
+			case 404:
+				this.notFound.increment();
+				break;
+			case 429:
+				this.rateLimited.increment();
+				break;
+			default:
+				this.serverErrors.increment();
+		}
+		return HttpResponse.create()
+				.withStatus(status)
+				.withEntity(HttpEntities.create(ContentTypes.APPLICATION_JSON, this.payloads.error(status, message)));
+	}
+}
@@ -0,0 +1,44 @@
+package com.scottlogic.weather.owmsimulator;
+
+import akka.actor.ActorSystem;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ *   Runs the OpenWeatherMap simulator on its own, configured by {@code owm-simulator} (see
+ *   reference.conf), any setting of which may be overridden with a system property:
+ * </p>
+ * <pre>
+ *   sbt -Dowm-simulator.port=9100 -Dowm-simulator.error-rate=0.05 owm-simulator/run
+ * </pre>
+ * <p>
+ *   Then start the services with {@code source.owm.url} set to the URL it logs.
+ * </p>
+ */
+public class OwmSimulatorMain {
+	private static final Logger log = LoggerFactory.getLogger(OwmSimulatorMain.class);
+
+	public static void main(final String[] args) {
+		final Config config = ConfigFactory.load();
+		final ActorSystem actorSystem = ActorSystem.create("owm-simulator", config);
+		final SimulatorSettings settings = SimulatorSettings.fromConfig(config.getConfig("owm-simulator"));
+
+		OwmSimulator.start(actorSystem, settings)
+				.thenAccept(simulator -> log.info(
+						"OpenWeatherMap simulator listening at {} with {} cities; latency {}, error rate {}, {} calls per minute per key",
+						simulator.url(),
+						settings.getCities(),
+						config.getString("owm-simulator.latency.distribution"),
+						settings.getErrorRate(),
+						settings.getCallsPerMinute() > 0 ? settings.getCallsPerMinute() : "unlimited"
+				))
+				.exceptionally(throwable -> {
+					log.error("OpenWeatherMap simulator failed to start", throwable);
+					actorSystem.terminate();
+					return null;
+				});
+	}
+}
@@ -0,0 +1,45 @@
+package com.scottlogic.weather.owmsimulator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts calls made with each API key within the current minute, as OWM does for its free tier,
+ * and refuses any beyond the limit until the next minute starts.
+ */
+class Quota {
+	private static final long WINDOW_MILLIS = Duration.ofMinutes(1).toMillis();
+
+	private final int callsPerMinute;
+	private final Clock clock;
+	private final Map<String, Window> windows = new HashMap<>();
+
+	Quota(final int callsPerMinute, final Clock clock) {
+		this.callsPerMinute = callsPerMinute;
+		this.clock = clock;
+	}
+
+	synchronized boolean tryCall(final String apiKey) {
+		if (this.callsPerMinute <= 0) {
+			return true;
+		}
+		final long minute = this.clock.millis() / WINDOW_MILLIS;
+		final Window window = this.windows.computeIfAbsent(apiKey, key -> new Window());
+		if (window.minute != minute) {
+			window.minute = minute;
+			window.calls = 0;
+		}
+		if (window.calls >= this.callsPerMinute) {
+			return false;
+		}
+		window.calls++;
+		return true;
+	}
+
+	private static class Window {
+		private long minute = -1;
+		private int calls = 0;
+	}
+}
@@ -0,0 +1,62 @@
+package com.scottlogic.weather.owmsimulator;
+
+import com.typesafe.config.Config;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How the simulator behaves; see {@code owm-simulator} in reference.conf for what each setting means.
+ */
+@Value
+@Builder(toBuilder = true)
+public class SimulatorSettings {
+	String host;
+	int port;            // 0 for any free port
+	String basePath;
+	int cities;
+	long seed;
+	LatencyDistribution latency;
+	double errorRate;
+	int callsPerMinute;  // per API key; 0 for unlimited
+	List<String> apiKeys;
+
+	public static SimulatorSettings fromConfig(final Config config) {
+		final Config latency = config.getConfig("latency");
+		return SimulatorSettings.builder()
+				.host(config.getString("host"))
+				.port(config.getInt("port"))
+				.basePath(config.getString("base-path"))
+				.cities(config.getInt("cities"))
+				.seed(config.getLong("seed"))
+				.latency(LatencyDistribution.of(
+						latency.getString("distribution"),
+						latency.getDuration("median"),
+						latency.getDuration("p99")
+				))
+				.errorRate(config.getDouble("error-rate"))
+				.callsPerMinute(config.getInt("quota.calls-per-minute"))
+				.apiKeys(config.getStringList("api-keys"))
+				.build();
+	}
+
+	/**
+	 * Answers immediately, from any number of cities, and never fails or runs out of quota.
+	 */
+	public static SimulatorSettings instant(final int cities) {
+		return SimulatorSettings.builder()
+				.host("127.0.0.1")
+				.port(0)
+				.basePath("/data/2.5")
+				.cities(cities)
+				.seed(42)
+				.latency(LatencyDistribution.fixed(Duration.ZERO))
+				.errorRate(0)
+				.callsPerMinute(0)
+				.apiKeys(Collections.emptyList())
+				.build();
+	}
+}
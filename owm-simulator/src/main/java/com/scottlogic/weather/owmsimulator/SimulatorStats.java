@@ -0,0 +1,17 @@
+package com.scottlogic.weather.owmsimulator;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SimulatorStats {
+	// Totals since the simulator started
+	long requests;
+	long answered;     // 200 OK
+	long notFound;     // unknown city or endpoint
+	long badRequests;  // e.g. no location given, or too many ids in a group
+	long unauthorized; // no API key, or one not in the simulator's list
+	long rateLimited;  // over the API key's quota
+	long serverErrors; // injected, at the configured error rate
+}
@@ -0,0 +1,166 @@
+package com.scottlogic.weather.owmsimulator;
+
+import akka.actor.ActorSystem;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.model.HttpEntity;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.stream.ActorMaterializer;
+import akka.stream.Materializer;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.isOneOf;
+
+@DisplayName("Tests for the OpenWeatherMap simulator")
+class OwmSimulatorTest {
+	private static ActorSystem actorSystem;
+	private static Materializer materializer;
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private OwmSimulator sut;
+
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("OwmSimulatorTest");
+		materializer = ActorMaterializer.create(actorSystem);
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+		materializer = null;
+	}
+
+	@AfterEach
+	void afterEach() throws Exception {
+		if (sut != null) {
+			sut.stop().toCompletableFuture().get(5, SECONDS);
+		}
+	}
+
+	@Test
+	void weather_KnownCityByName_AnswersInOwmFormat() throws Exception {
+		start(SimulatorSettings.instant(10));
+
+		final HttpResponse response = get("/weather?units=metric&q=London,%20GB&appid=key");
+		final JsonNode body = body(response);
+
+		assertThat(response.status().intValue(), is(200));
+		assertThat(body.get("id").asInt(), is(2643743));
+		assertThat(body.get("name").asText(), is("London"));
+		assertThat(body.get("sys").get("country").asText(), is("GB"));
+		assertThat(body.get("main").has("temp"), is(true));
+		assertThat(body.get("weather").get(0).has("description"), is(true));
+	}
+
+	@Test
+	void forecast_MadeUpCityById_AnswersWith40Entries() throws Exception {
+		start(SimulatorSettings.instant(100));
+
+		final JsonNode body = body(get("/forecast?units=metric&id=9000050&appid=key"));
+
+		assertThat(body.get("city").get("id").asInt(), is(9000050));
+		assertThat(body.get("list").size(), is(40));
+	}
+
+	@Test
+	void group_SomeIdsUnknown_AnswersWithKnownCitiesOnly() throws Exception {
+		start(SimulatorSettings.instant(20));
+
+		final JsonNode body = body(get("/group?units=metric&id=2643743,2988507,1&appid=key"));
+
+		assertThat(body.get("cnt").asInt(), is(2));
+		assertThat(body.get("list").get(1).get("name").asText(), is("Paris"));
+	}
+
+	@Test
+	void weather_UnknownCity_Answers404() throws Exception {
+		start(SimulatorSettings.instant(10));
+
+		final HttpResponse response = get("/weather?units=metric&q=Atlantis&appid=key");
+
+		assertThat(response.status().intValue(), is(404));
+		assertThat(body(response).get("message").asText(), is("city not found"));
+	}
+
+	@Test
+	void weather_QuotaUsedUp_Answers429UntilNextMinute() throws Exception {
+		start(SimulatorSettings.instant(10).toBuilder().callsPerMinute(2).build());
+
+		get("/weather?q=London&appid=key");
+		get("/weather?q=London&appid=key");
+		final HttpResponse response = get("/weather?q=London&appid=key");
+
+		assertThat(response.status().intValue(), is(429));
+		assertThat(get("/weather?q=London&appid=other-key").status().intValue(), is(200));
+		assertThat(sut.stats().getRateLimited(), is(1L));
+	}
+
+	@Test
+	void weather_KeyNotAccepted_Answers401() throws Exception {
+		start(SimulatorSettings.instant(10).toBuilder().apiKeys(Collections.singletonList("good")).build());
+
+		assertThat(get("/weather?q=London&appid=bad").status().intValue(), is(401));
+		assertThat(get("/weather?q=London&appid=good").status().intValue(), is(200));
+	}
+
+	@Test
+	void weather_ErrorRateOfOne_AnswersWithServerErrors() throws Exception {
+		start(SimulatorSettings.instant(10).toBuilder().errorRate(1.0).build());
+
+		final HttpResponse response = get("/weather?q=London&appid=key");
+
+		assertThat(response.status().intValue(), isOneOf(500, 502, 503));
+		assertThat(sut.stats().getServerErrors(), is(1L));
+	}
+
+	@Test
+	void weather_FixedLatency_AnswersNoSooner() throws Exception {
+		start(SimulatorSettings.instant(10).toBuilder().latency(LatencyDistribution.fixed(Duration.ofMillis(300))).build());
+
+		final long started = System.nanoTime();
+		get("/weather?q=London&appid=key");
+
+		assertThat(Duration.ofNanos(System.nanoTime() - started).toMillis(), greaterThanOrEqualTo(300L));
+	}
+
+	@Test
+	void fromConfig_ReferenceConfig_IsValid() {
+		final SimulatorSettings settings = SimulatorSettings.fromConfig(ConfigFactory.load().getConfig("owm-simulator"));
+
+		assertThat(settings.getCities(), is(1000));
+		assertThat(settings.getCallsPerMinute(), is(60));
+	}
+
+	private void start(final SimulatorSettings settings) throws Exception {
+		sut = OwmSimulator.start(actorSystem, settings).toCompletableFuture().get(5, SECONDS);
+	}
+
+	private HttpResponse get(final String pathAndQuery) throws Exception {
+		final HttpResponse response = Http.get(actorSystem)
+				.singleRequest(HttpRequest.create(sut.url() + pathAndQuery))
+				.toCompletableFuture().get(5, SECONDS);
+		// Read the body now, so that the connection is freed whether or not the test needs it.
+		return response.withEntity(response.entity().toStrict(5000, materializer).toCompletableFuture().get(5, SECONDS));
+	}
+
+	private JsonNode body(final HttpResponse response) throws Exception {
+		return objectMapper.readTree(((HttpEntity.Strict) response.entity()).getData().utf8String());
+	}
+}
@@ -0,0 +1,228 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ *   Compiles owm-adapter-impl's timezone data, from the text files in src/main/timezones, into the
+ *   binary timezones.bin resource which the adapter's TimezoneIndex memory-maps.
+ * </p>
+ * <ul>
+ *   <li>zones.txt: one zone id per line; a zone's number is its line, from 0</li>
+ *   <li>leaves.txt: one leaf per line, lat from, lat to, lng from, lng to, default zone, then any
+ *       polygons as pairs of polygon number and zone, in the order they are tested</li>
+ *   <li>polygons.txt: one polygon per line, as lat and lng pairs with six decimal places</li>
+ * </ul>
+ * <p>
+ *   Polygons are renumbered so that each leaf's are consecutive, and their points are stored in
+ *   millionths of a degree, as differences from the point before. Every point is checked to
+ *   decode to exactly the float it was given as, so that lookups are unchanged.
+ * </p>
+ * <pre>
+ *   header:      int magic, int version, int zone count, int leaf count, int polygon count,
+ *                int cells per degree, then int offsets of each section below
+ *   zones:       per zone, unsigned short length, then the zone id in UTF-8
+ *   leaves:      per leaf, float lat from, lat to, lng from, lng to, int default zone, int first
+ *                polygon; then one more leaf, whose first polygon is the polygon count
+ *   cells:       per cell of the grid (by lat, then lng), int index of its first leaf in cell
+ *                leaves; then the total
+ *   cell leaves: unsigned short leaf numbers
+ *   polygons:    per polygon, float min lat, max lat, min lng, max lng, int zone, int offset of its
+ *                points, int point count
+ *   points:      lat then lng of each point as zigzag varints, the first absolute and the rest
+ *                relative to the point before
+ * </pre>
+ */
+public final class TimezoneDataCompiler {
+	public static final int MAGIC = 0x4f574d54; // "OWMT"
+	public static final int VERSION = 1;
+	public static final int CELLS_PER_DEGREE = 1;
+
+	private static final int LAT_CELLS = 180 * CELLS_PER_DEGREE;
+	private static final int LNG_CELLS = 360 * CELLS_PER_DEGREE;
+	private static final int HEADER_INTS = 6 + 6;
+	private static final double DEGREES_PER_UNIT = 0.000_001d;
+
+	private TimezoneDataCompiler() {
+	}
+
+	public static void main(final String[] args) throws IOException {
+		compile(new File(args[0]), new File(args[1]));
+	}
+
+	public static void compile(final File sourceDirectory, final File target) throws IOException {
+		final List<String> zones = lines(new File(sourceDirectory, "zones.txt"));
+		final List<String> polygonLines = lines(new File(sourceDirectory, "polygons.txt"));
+		final List<String[]> leaves = new ArrayList<>();
+		for (final String line : lines(new File(sourceDirectory, "leaves.txt"))) {
+			leaves.add(line.split(" "));
+		}
+
+		if (leaves.size() > 0xffff) {
+			throw new IllegalArgumentException("Too many leaves to number in an unsigned short: " + leaves.size());
+		}
+
+		final ByteArrayOutputStream zoneBytes = new ByteArrayOutputStream();
+		final DataOutputStream zoneOut = new DataOutputStream(zoneBytes);
+		for (final String zone : zones) {
+			final byte[] name = zone.getBytes(StandardCharsets.UTF_8);
+			zoneOut.writeShort(name.length);
+			zoneOut.write(name);
+		}
+
+		final ByteArrayOutputStream leafBytes = new ByteArrayOutputStream();
+		final DataOutputStream leafOut = new DataOutputStream(leafBytes);
+		final ByteArrayOutputStream polygonBytes = new ByteArrayOutputStream();
+		final DataOutputStream polygonOut = new DataOutputStream(polygonBytes);
+		final ByteArrayOutputStream pointBytes = new ByteArrayOutputStream();
+		final float[] leafBounds = new float[leaves.size() * 4];
+		int polygonCount = 0;
+		for (int leaf = 0; leaf < leaves.size(); leaf++) {
+			final String[] fields = leaves.get(leaf);
+			for (int i = 0; i < 4; i++) {
+				leafBounds[leaf * 4 + i] = Float.parseFloat(fields[i]);
+				leafOut.writeFloat(leafBounds[leaf * 4 + i]);
+			}
+			leafOut.writeInt(zone(fields[4], zones));
+			leafOut.writeInt(polygonCount);
+
+			for (int i = 5; i + 1 < fields.length; i += 2, polygonCount++) {
+				final String[] points = polygonLines.get(Integer.parseInt(fields[i])).split(" ");
+				writePolygon(points, zone(fields[i + 1], zones), pointBytes, polygonOut);
+			}
+		}
+		for (int i = 0; i < 5; i++) {
+			leafOut.writeInt(0);
+		}
+		leafOut.writeInt(polygonCount);
+
+		final ByteArrayOutputStream cellBytes = new ByteArrayOutputStream();
+		final DataOutputStream cellOut = new DataOutputStream(cellBytes);
+		final ByteArrayOutputStream cellLeafBytes = new ByteArrayOutputStream();
+		final DataOutputStream cellLeafOut = new DataOutputStream(cellLeafBytes);
+		final List<List<Integer>> cells = new ArrayList<>();
+		for (int cell = 0; cell < LAT_CELLS * LNG_CELLS; cell++) {
+			cells.add(new ArrayList<>());
+		}
+		for (int leaf = 0; leaf < leaves.size(); leaf++) {
+			final int latTo = cell(leafBounds[leaf * 4 + 1] + 90f, LAT_CELLS);
+			final int lngTo = cell(leafBounds[leaf * 4 + 3] + 180f, LNG_CELLS);
+			for (int lat = cell(leafBounds[leaf * 4] + 90f, LAT_CELLS); lat <= latTo; lat++) {
+				for (int lng = cell(leafBounds[leaf * 4 + 2] + 180f, LNG_CELLS); lng <= lngTo; lng++) {
+					cells.get(lat * LNG_CELLS + lng).add(leaf);
+				}
+			}
+		}
+		int cellLeaves = 0;
+		for (final List<Integer> cell : cells) {
+			cellOut.writeInt(cellLeaves);
+			for (final int leaf : cell) {
+				cellLeafOut.writeShort(leaf);
+				cellLeaves++;
+			}
+		}
+		cellOut.writeInt(cellLeaves);
+
+		final byte[][] sections = {
+				zoneBytes.toByteArray(), leafBytes.toByteArray(), cellBytes.toByteArray(),
+				cellLeafBytes.toByteArray(), polygonBytes.toByteArray(), pointBytes.toByteArray()
+		};
+		target.getParentFile().mkdirs();
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(target.toPath()))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(zones.size());
+			out.writeInt(leaves.size());
+			out.writeInt(polygonCount);
+			out.writeInt(CELLS_PER_DEGREE);
+			int offset = HEADER_INTS * 4;
+			for (final byte[] section : sections) {
+				out.writeInt(offset);
+				offset += section.length;
+			}
+			for (final byte[] section : sections) {
+				out.write(section);
+			}
+		}
+	}
+
+	private static void writePolygon(
+			final String[] points, final int zone, final ByteArrayOutputStream pointBytes, final DataOutputStream polygonOut
+	) throws IOException {
+		float minLat = Float.POSITIVE_INFINITY;
+		float maxLat = Float.NEGATIVE_INFINITY;
+		float minLng = Float.POSITIVE_INFINITY;
+		float maxLng = Float.NEGATIVE_INFINITY;
+		final int offset = pointBytes.size();
+		int previousLat = 0;
+		int previousLng = 0;
+		for (int i = 0; i + 1 < points.length; i += 2) {
+			final int lat = quantize(points[i]);
+			final int lng = quantize(points[i + 1]);
+			writeVarint(pointBytes, lat - previousLat);
+			writeVarint(pointBytes, lng - previousLng);
+			previousLat = lat;
+			previousLng = lng;
+
+			minLat = Math.min(minLat, Float.parseFloat(points[i]));
+			maxLat = Math.max(maxLat, Float.parseFloat(points[i]));
+			minLng = Math.min(minLng, Float.parseFloat(points[i + 1]));
+			maxLng = Math.max(maxLng, Float.parseFloat(points[i + 1]));
+		}
+		polygonOut.writeFloat(minLat);
+		polygonOut.writeFloat(maxLat);
+		polygonOut.writeFloat(minLng);
+		polygonOut.writeFloat(maxLng);
+		polygonOut.writeInt(zone);
+		polygonOut.writeInt(offset);
+		polygonOut.writeInt(points.length / 2);
+	}
+
+	/**
+	 * The coordinate in millionths of a degree, as long as that decodes to exactly the same float.
+	 */
+	private static int quantize(final String coordinate) {
+		final int units = new BigDecimal(coordinate).movePointRight(6).intValueExact();
+		if (Float.floatToIntBits((float) (units * DEGREES_PER_UNIT)) != Float.floatToIntBits(Float.parseFloat(coordinate))) {
+			throw new IllegalArgumentException("Coordinate " + coordinate + " would not survive quantization");
+		}
+		return units;
+	}
+
+	private static void writeVarint(final ByteArrayOutputStream out, final int value) {
+		int zigzag = (value << 1) ^ (value >> 31);
+		while ((zigzag & ~0x7f) != 0) {
+			out.write((zigzag & 0x7f) | 0x80);
+			zigzag >>>= 7;
+		}
+		out.write(zigzag);
+	}
+
+	private static int zone(final String number, final List<String> zones) {
+		final int zone = Integer.parseInt(number);
+		if (zone < 0 || zone >= zones.size()) {
+			throw new IllegalArgumentException("No zone " + zone);
+		}
+		return zone;
+	}
+
+	private static int cell(final float offset, final int cells) {
+		return Math.max(0, Math.min(cells - 1, (int) (offset * CELLS_PER_DEGREE)));
+	}
+
+	private static List<String> lines(final File file) throws IOException {
+		final List<String> lines = new ArrayList<>();
+		for (final String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!line.isEmpty()) {
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+}
@@ -11,6 +11,7 @@ import com.scottlogic.weather.weatherservice.api.message.CurrentWeatherResponse;
 import com.scottlogic.weather.weatherservice.api.message.SetEmitFrequencyRequest;
 import com.scottlogic.weather.weatherservice.api.message.WeatherForecastResponse;
 import com.scottlogic.weather.weatherservice.api.message.WeatherStreamParameters;
+import com.scottlogic.weather.weatherservice.api.message.stats.WeatherServiceStats;
 import com.scottlogic.weather.weatherservice.api.serialization.CustomExceptionSerializer;
 
 import static com.lightbend.lagom.javadsl.api.Service.named;
@@ -33,6 +34,7 @@ public interface WeatherService extends Service {
 		return named("weather-service")
 				.withCalls(
 						restCall(GET, "/api/weather-service/is-alive", this::isAlive),
+						restCall(GET, "/api/weather-service/is-ready", this::isReady),
 						restCall(GET, "/api/weather-service/current/:location", this::currentWeather),
 						restCall(GET, "/api/weather-service/forecast/:location", this::weatherForecast),
 						restCall(GET, "/api/weather-service/streaming/current", this::currentWeatherStream),
@@ -40,13 +42,15 @@ public interface WeatherService extends Service {
 						restCall(GET, "/api/weather-service/streaming/parameters", this::weatherStreamParameters),
 						restCall(PUT, "/api/weather-service/streaming/parameters/emit-frequency", this::setEmitFrequency),
 						restCall(POST, "/api/weather-service/streaming/parameters/locations", this::addLocation),
-						restCall(DELETE, "/api/weather-service/streaming/parameters/locations/:location", this::removeLocation)
+						restCall(DELETE, "/api/weather-service/streaming/parameters/locations/:location", this::removeLocation),
+						restCall(GET, "/api/weather-service/stats", this::getStats)
 				)
 				.withExceptionSerializer(CustomExceptionSerializer.getInstance())
 				.withAutoAcl(true);
 	}
 
 	ServiceCall<NotUsed, String> isAlive();
+	ServiceCall<NotUsed, String> isReady(); // 503 until warmed up
 	ServiceCall<NotUsed, CurrentWeatherResponse> currentWeather(String location);
 	ServiceCall<NotUsed, WeatherForecastResponse> weatherForecast(String location);
 	ServiceCall<NotUsed, Source<CurrentWeatherResponse, ?>> currentWeatherStream();
@@ -55,4 +59,5 @@ public interface WeatherService extends Service {
 	ServiceCall<SetEmitFrequencyRequest, Done> setEmitFrequency();
 	ServiceCall<AddLocationRequest, Done> addLocation();
 	ServiceCall<NotUsed, Done> removeLocation(String location);
+	ServiceCall<NotUsed, WeatherServiceStats> getStats();
 }
@@ -0,0 +1,13 @@
+package com.scottlogic.weather.weatherservice.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class RequestBudgetStats {
+	// Totals since startup
+	long requests;           // requests for weather, each made within its budget
+	long expiredOnArrival;   // of which, already past their deadline when they arrived
+	long abandoned;          // of which, answered with DeadlineExceeded before the adapter answered
+}
@@ -0,0 +1,13 @@
+package com.scottlogic.weather.weatherservice.api.message.stats;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Live operational state of the weather service, for diagnostics.
+ */
+@Value
+@Builder
+public class WeatherServiceStats {
+	RequestBudgetStats requestBudget;
+}
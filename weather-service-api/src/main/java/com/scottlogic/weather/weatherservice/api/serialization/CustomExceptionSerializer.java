@@ -5,6 +5,7 @@ import com.google.inject.Singleton;
 import com.lightbend.lagom.javadsl.api.deser.RawExceptionMessage;
 import com.lightbend.lagom.javadsl.api.transport.TransportException;
 import com.lightbend.lagom.javadsl.jackson.JacksonExceptionSerializer;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
 import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
 import play.Environment;
 
@@ -47,6 +48,12 @@ public class CustomExceptionSerializer extends JacksonExceptionSerializer {
 		) {
 			return new Unauthorized(throwable.getMessage());
 		}
+		if (throwable instanceof TransportException && Objects.equals(
+				((TransportException) throwable).errorCode(),
+				DeadlineExceeded.ERROR_CODE)
+		) {
+			return new DeadlineExceeded(throwable.getMessage());
+		}
 
 		return throwable;
 	}
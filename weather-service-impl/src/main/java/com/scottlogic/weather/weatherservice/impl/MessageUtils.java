@@ -1,5 +1,6 @@
 package com.scottlogic.weather.weatherservice.impl;
 
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
 import com.scottlogic.weather.owmadapter.api.message.WeatherData;
 import com.scottlogic.weather.weatherservice.api.message.CurrentWeatherResponse;
 import com.scottlogic.weather.weatherservice.api.message.Sun;
@@ -37,6 +38,12 @@ public class MessageUtils {
 				.build();
 	}
 
+	public static WeatherForecastResponse weatherAndForecastToWeatherForecastResponse(
+			final WeatherAndForecast weatherAndForecast
+	) {
+		return weatherDataToWeatherForecastResponse(weatherAndForecast.getCurrent(), weatherAndForecast.getForecast());
+	}
+
 	private static WeatherSnapshot weatherDataToWeatherSnapshot(WeatherData weatherData) {
 		return WeatherSnapshot.builder()
 				.measured(weatherData.getMeasured())
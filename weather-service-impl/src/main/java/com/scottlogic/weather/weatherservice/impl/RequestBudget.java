@@ -0,0 +1,87 @@
+package com.scottlogic.weather.weatherservice.impl;
+
+import akka.actor.ActorSystem;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+import com.scottlogic.weather.common.concurrent.Timeouts;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
+import com.scottlogic.weather.weatherservice.api.message.stats.RequestBudgetStats;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p>
+ *   The time allowed for answering a request for weather, from {@code weather.request-timeout},
+ *   or less if the caller sent a shorter deadline of its own (see RequestDeadline).
+ * </p>
+ * <p>
+ *   The deadline is passed on to the OWM adapter, which stops waiting for it there too; and the
+ *   caller is answered with {@link DeadlineExceeded} as soon as it passes, whether or not the
+ *   adapter has given up by then. Those abandoned are counted, for the service's stats.
+ * </p>
+ */
+@Singleton
+public class RequestBudget {
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final Duration requestTimeout;
+	private final Timeouts timeouts;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder expiredOnArrival = new LongAdder();
+	private final LongAdder abandoned = new LongAdder();
+
+	@Inject
+	public RequestBudget(final Config config, final ActorSystem actorSystem) {
+		this.requestTimeout = config.getDuration("weather.request-timeout");
+		this.timeouts = new Timeouts(actorSystem);
+	}
+
+	public RequestDeadline deadlineFor(final RequestHeader requestHeader) {
+		return RequestDeadline.of(requestHeader).earliest(RequestDeadline.in(this.requestTimeout));
+	}
+
+	/**
+	 * Makes the call with the given deadline, and answers with its result or with
+	 * {@link DeadlineExceeded}, whichever comes first.
+	 */
+	public <T> CompletionStage<T> within(
+			final RequestDeadline deadline,
+			final Function<RequestDeadline, CompletionStage<T>> call
+	) {
+		this.requests.increment();
+		if (deadline.hasExpired()) {
+			this.expiredOnArrival.increment();
+			this.abandoned.increment();
+			final CompletableFuture<T> result = new CompletableFuture<>();
+			result.completeExceptionally(deadlineExceeded());
+			return result;
+		}
+
+		return this.timeouts.within(deadline.remaining(), call.apply(deadline), this::deadlineExceeded, () -> {
+			this.abandoned.increment();
+			log.warn("Abandoned request at its deadline");
+		});
+	}
+
+	public RequestBudgetStats stats() {
+		return RequestBudgetStats.builder()
+				.requests(this.requests.sum())
+				.expiredOnArrival(this.expiredOnArrival.sum())
+				.abandoned(this.abandoned.sum())
+				.build();
+	}
+
+	private DeadlineExceeded deadlineExceeded() {
+		return new DeadlineExceeded("No weather within the time allowed");
+	}
+}
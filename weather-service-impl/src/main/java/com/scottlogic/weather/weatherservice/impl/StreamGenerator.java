@@ -32,6 +32,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static com.scottlogic.weather.owmadapter.api.RequestPriority.BACKGROUND;
+
 public class StreamGenerator {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
@@ -61,13 +63,15 @@ public class StreamGenerator {
 		this.materializer = materializer;
 		this.entityId = entityId;
 
-		this.getCurrentWeather = location -> this.owmAdapter.getCurrentWeatherByName(location).invoke()
+		// Streams refresh in the background, so give way to interactive requests for OWM quota.
+		this.getCurrentWeather = location -> this.owmAdapter.getCurrentWeatherByName(location)
+				.handleRequestHeader(BACKGROUND.header())
+				.invoke()
 				.thenApply(MessageUtils::weatherDataToCurrentWeatherResponse);
-		this.getWeatherForecast = location -> this.owmAdapter.getCurrentWeatherByName(location).invoke()
-				.thenCombine(
-						this.owmAdapter.getWeatherForecastByName(location).invoke(),
-						MessageUtils::weatherDataToWeatherForecastResponse
-				);
+		this.getWeatherForecast = location -> this.owmAdapter.getWeatherAndForecastByName(location)
+				.handleRequestHeader(BACKGROUND.header())
+				.invoke()
+				.thenApply(MessageUtils::weatherAndForecastToWeatherForecastResponse);
 	}
 
 	/**
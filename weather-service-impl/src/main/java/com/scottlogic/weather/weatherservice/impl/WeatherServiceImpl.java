@@ -2,12 +2,17 @@ package com.scottlogic.weather.weatherservice.impl;
 
 import akka.Done;
 import akka.NotUsed;
+import akka.japi.Pair;
 import akka.stream.javadsl.Source;
 import com.google.inject.Inject;
 import com.lightbend.lagom.javadsl.api.ServiceCall;
 import com.lightbend.lagom.javadsl.api.transport.BadRequest;
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+import com.lightbend.lagom.javadsl.api.transport.ResponseHeader;
+import com.lightbend.lagom.javadsl.server.ServerServiceCall;
+import com.scottlogic.weather.common.warmup.WarmUp;
 import com.scottlogic.weather.owmadapter.api.OwmAdapter;
-import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
 import com.scottlogic.weather.weatherservice.api.WeatherService;
 import com.scottlogic.weather.weatherservice.api.message.AddLocationRequest;
 import com.scottlogic.weather.weatherservice.api.message.CurrentWeatherResponse;
@@ -15,6 +20,7 @@ import com.scottlogic.weather.weatherservice.api.message.SetEmitFrequencyRequest
 import com.scottlogic.weather.weatherservice.api.message.WeatherForecastResponse;
 import com.scottlogic.weather.weatherservice.api.message.WeatherResponse;
 import com.scottlogic.weather.weatherservice.api.message.WeatherStreamParameters;
+import com.scottlogic.weather.weatherservice.api.message.stats.WeatherServiceStats;
 import com.scottlogic.weather.weatherservice.impl.entity.WeatherCommand.AddLocation;
 import com.scottlogic.weather.weatherservice.impl.entity.WeatherCommand.ChangeEmitFrequency;
 import com.scottlogic.weather.weatherservice.impl.entity.WeatherCommand.GetWeatherStreamParameters;
@@ -26,8 +32,8 @@ import org.slf4j.LoggerFactory;
 
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
@@ -41,21 +47,27 @@ public class WeatherServiceImpl implements WeatherService {
 	private final Pattern positiveNumberMatcher = Pattern.compile("\\d+");
 
 	// No user sessions for now; just one entity:
-	private final String entityId = "default";
+	static final String ENTITY_ID = "default";
 
 	private final OwmAdapter owmAdapter;
 	private final StreamGeneratorFactory streamGeneratorFactory;
 	private final PersistentEntityRegistryFacade entityRegistryFacade;
+	private final RequestBudget requestBudget;
+	private final WarmUp warmUp;
 
 	@Inject
 	public WeatherServiceImpl(
 			final OwmAdapter owmAdapter,
 			final StreamGeneratorFactory streamGeneratorFactory,
-			final PersistentEntityRegistryFacade entityRegistryFacade
+			final PersistentEntityRegistryFacade entityRegistryFacade,
+			final RequestBudget requestBudget,
+			final WarmUp warmUp
 	) {
 		this.owmAdapter = owmAdapter;
 		this.streamGeneratorFactory = streamGeneratorFactory;
 		this.entityRegistryFacade = entityRegistryFacade;
+		this.requestBudget = requestBudget;
+		this.warmUp = warmUp;
 		this.entityRegistryFacade.register(WeatherEntity.class);
 	}
 
@@ -67,6 +79,11 @@ public class WeatherServiceImpl implements WeatherService {
 		);
 	}
 
+	@Override
+	public ServiceCall<NotUsed, String> isReady() {
+		return request -> this.warmUp.readiness(descriptor().name());
+	}
+
 	@Override
 	public ServiceCall<NotUsed, CurrentWeatherResponse> currentWeather(final String location) {
 		return positiveNumberMatcher.matcher(location).matches()
@@ -85,7 +102,7 @@ public class WeatherServiceImpl implements WeatherService {
 	public ServiceCall<NotUsed, Source<CurrentWeatherResponse, ?>> currentWeatherStream() {
 		return request -> {
 			log.info("Received request for stream of current weather");
-			return completedFuture(this.streamGeneratorFactory.get(entityId).getSourceOfCurrentWeatherData());
+			return completedFuture(this.streamGeneratorFactory.get(ENTITY_ID).getSourceOfCurrentWeatherData());
 		};
 	}
 
@@ -93,7 +110,7 @@ public class WeatherServiceImpl implements WeatherService {
 	public ServiceCall<NotUsed, Source<WeatherForecastResponse, ?>> weatherForecastStream() {
 		return request -> {
 			log.info("Received request for stream of forecast weather");
-			return completedFuture(this.streamGeneratorFactory.get(entityId).getSourceOfWeatherForecastData());
+			return completedFuture(this.streamGeneratorFactory.get(ENTITY_ID).getSourceOfWeatherForecastData());
 		};
 	}
 
@@ -103,7 +120,7 @@ public class WeatherServiceImpl implements WeatherService {
 			log.info("Received request for stream parameters");
 			return this.entityRegistryFacade.sendCommandToPersistentEntity(
 					WeatherEntity.class,
-					entityId,
+					ENTITY_ID,
 					new GetWeatherStreamParameters()
 			).thenApply(this::logGenericResponse);
 		};
@@ -123,7 +140,7 @@ public class WeatherServiceImpl implements WeatherService {
 
 			return this.entityRegistryFacade.sendCommandToPersistentEntity(
 					WeatherEntity.class,
-					entityId,
+					ENTITY_ID,
 					new ChangeEmitFrequency(frequency)
 			);
 		};
@@ -143,7 +160,7 @@ public class WeatherServiceImpl implements WeatherService {
 
 			return this.entityRegistryFacade.sendCommandToPersistentEntity(
 					WeatherEntity.class,
-					entityId,
+					ENTITY_ID,
 					new AddLocation(location)
 			);
 		};
@@ -156,51 +173,78 @@ public class WeatherServiceImpl implements WeatherService {
 
 			return this.entityRegistryFacade.sendCommandToPersistentEntity(
 					WeatherEntity.class,
-					entityId,
+					ENTITY_ID,
 					new RemoveLocation(location)
 			);
 		};
 	}
 
+	@Override
+	public ServiceCall<NotUsed, WeatherServiceStats> getStats() {
+		return request -> completedFuture(
+				WeatherServiceStats.builder()
+						.requestBudget(this.requestBudget.stats())
+						.build()
+		);
+	}
+
 	private ServiceCall<NotUsed, CurrentWeatherResponse> currentWeatherByName(final String name) {
-		return request -> {
+		return withDeadline(deadline -> {
 			log.info("Received request for current weather in [{}]", name);
-			return this.owmAdapter.getCurrentWeatherByName(name).invoke()
+			return this.owmAdapter.getCurrentWeatherByName(name).handleRequestHeader(deadline.header()).invoke()
 					.thenApply(MessageUtils::weatherDataToCurrentWeatherResponse)
 					.thenApply(this::logWeatherResponse);
-		};
+		});
 	}
 
 	private ServiceCall<NotUsed, CurrentWeatherResponse> currentWeatherById(final int id) {
-		return request -> {
+		return withDeadline(deadline -> {
 			log.info("Received request for current weather for location [{}]", id);
-			return this.owmAdapter.getCurrentWeatherById(id).invoke()
+			return this.owmAdapter.getCurrentWeatherById(id).handleRequestHeader(deadline.header()).invoke()
 					.thenApply(MessageUtils::weatherDataToCurrentWeatherResponse)
 					.thenApply(this::logWeatherResponse);
-		};
+		});
 	}
 
 	private ServiceCall<NotUsed, WeatherForecastResponse> weatherForecastByName(final String name) {
-		return request -> {
+		return withDeadline(deadline -> {
 			log.info("Received request for weather forecast for [{}]", name);
 
-			final CompletionStage<WeatherData> current = this.owmAdapter.getCurrentWeatherByName(name).invoke();
-			final CompletionStage<List<WeatherData>> forecast = this.owmAdapter.getWeatherForecastByName(name).invoke();
-
-			return current.thenCombine(forecast, MessageUtils::weatherDataToWeatherForecastResponse)
+			return this.owmAdapter.getWeatherAndForecastByName(name).handleRequestHeader(deadline.header()).invoke()
+					.thenApply(MessageUtils::weatherAndForecastToWeatherForecastResponse)
 					.thenApply(this::logWeatherResponse);
-		};
+		});
 	}
 
 	private ServiceCall<NotUsed, WeatherForecastResponse> weatherForecastById(final int id) {
-		return request -> {
+		return withDeadline(deadline -> {
 			log.info("Received request for weather forecast for location [{}]", id);
 
-			final CompletionStage<WeatherData> current = this.owmAdapter.getCurrentWeatherById(id).invoke();
-			final CompletionStage<List<WeatherData>> forecast = this.owmAdapter.getWeatherForecastById(id).invoke();
-
-			return current.thenCombine(forecast, MessageUtils::weatherDataToWeatherForecastResponse)
+			return this.owmAdapter.getWeatherAndForecastById(id).handleRequestHeader(deadline.header()).invoke()
+					.thenApply(MessageUtils::weatherAndForecastToWeatherForecastResponse)
 					.thenApply(this::logWeatherResponse);
+		});
+	}
+
+	/**
+	 * Serves a call within the request budget, or by the caller's own deadline if that is sooner;
+	 * the deadline is passed on to the OWM adapter in a request header.
+	 */
+	private <T> ServerServiceCall<NotUsed, T> withDeadline(final Function<RequestDeadline, CompletionStage<T>> call) {
+		return new ServerServiceCall<NotUsed, T>() {
+			@Override
+			public CompletionStage<Pair<ResponseHeader, T>> invokeWithHeaders(
+					final RequestHeader requestHeader,
+					final NotUsed request
+			) {
+				return requestBudget.within(requestBudget.deadlineFor(requestHeader), call)
+						.thenApply(response -> Pair.create(ResponseHeader.OK, response));
+			}
+
+			@Override
+			public CompletionStage<T> invoke(final NotUsed request) {
+				return requestBudget.within(requestBudget.deadlineFor(RequestHeader.DEFAULT), call);
+			}
 		};
 	}
 
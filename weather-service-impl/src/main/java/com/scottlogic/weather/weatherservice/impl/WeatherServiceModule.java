@@ -2,21 +2,40 @@ package com.scottlogic.weather.weatherservice.impl;
 
 import com.google.inject.AbstractModule;
 import com.lightbend.lagom.javadsl.server.ServiceGuiceSupport;
+import com.scottlogic.weather.common.serialization.SmileMessageSerializer;
 import com.scottlogic.weather.owmadapter.api.OwmAdapter;
 import com.scottlogic.weather.weatherservice.api.WeatherService;
 import com.scottlogic.weather.weatherservice.api.serialization.CustomExceptionSerializer;
 
 /**
- * The module that binds the WeatherService so that it can be served.
+ * <p>
+ *   The module that binds the WeatherService so that it can be served.
+ * </p>
+ * <p>
+ *   The OwmAdapter is bound as a Lagom client of the separately deployed owm-adapter service. The
+ *   weather-service-inprocess deployable replaces this module with WeatherServiceInProcessModule,
+ *   which binds it to the adapter implementation itself, running in the same JVM.
+ * </p>
+ * <p>
+ *   WeatherServiceWarmUp is created eagerly, so that its warm-up starts at boot rather than on the
+ *   first request; it seals the warm-up, as it is given the OwmAdapter, and so the adapter's steps
+ *   when in-process, before adding its own.
+ * </p>
  */
 public class WeatherServiceModule extends AbstractModule implements ServiceGuiceSupport {
 
 	@Override
 	protected void configure() {
 		bindService(WeatherService.class, WeatherServiceImpl.class);
-		bindClient(OwmAdapter.class);
+		bindOwmAdapter();
+		bind(WeatherServiceWarmUp.class).asEagerSingleton();
 
-		// Here be dragons! See comment in CustomExceptionSerializer.
+		// Here be dragons! See comments in CustomExceptionSerializer and SmileMessageSerializer.
 		requestStaticInjection(CustomExceptionSerializer.class);
+		requestStaticInjection(SmileMessageSerializer.class);
+	}
+
+	protected void bindOwmAdapter() {
+		bindClient(OwmAdapter.class);
 	}
 }
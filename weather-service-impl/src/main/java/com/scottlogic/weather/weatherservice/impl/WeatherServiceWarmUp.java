@@ -0,0 +1,101 @@
+package com.scottlogic.weather.weatherservice.impl;
+
+import akka.util.ByteString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.scottlogic.weather.common.serialization.SmileMessageSerializer;
+import com.scottlogic.weather.common.warmup.WarmUp;
+import com.scottlogic.weather.owmadapter.api.OwmAdapter;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
+import com.scottlogic.weather.owmadapter.api.message.WeatherData;
+import com.scottlogic.weather.weatherservice.api.message.AddLocationRequest;
+import com.scottlogic.weather.weatherservice.api.message.CurrentWeatherResponse;
+import com.scottlogic.weather.weatherservice.api.message.SetEmitFrequencyRequest;
+import com.scottlogic.weather.weatherservice.api.message.WeatherForecastResponse;
+import com.scottlogic.weather.weatherservice.api.message.WeatherStreamParameters;
+import com.scottlogic.weather.weatherservice.impl.entity.WeatherCommand.GetWeatherStreamParameters;
+import com.scottlogic.weather.weatherservice.impl.entity.WeatherEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ *   The weather service's warm-up steps (see WarmUp), started as soon as WeatherServiceModule
+ *   binds it:
+ * </p>
+ * <ul>
+ *   <li>owm-adapter: calls the adapter's is-alive, which for a remote adapter looks it up and
+ *       opens the client's connection pool to it</li>
+ *   <li>weather-entity: recovers the weather entity from the journal, by asking its parameters</li>
+ *   <li>messages: reads a canned forecast, from src/main/resources/warm-up/weather-service, as
+ *       the adapter sends it; turns it into the service's responses; and writes and reads back
+ *       each message</li>
+ * </ul>
+ * <p>
+ *   With the adapter in-process, its own warm-up runs alongside; its steps are added as the
+ *   OwmAdapter is created, so before this seals the warm-up.
+ * </p>
+ */
+@Singleton
+class WeatherServiceWarmUp {
+	private static final Type WEATHER_DATA_LIST = new TypeReference<List<WeatherData>>() {}.getType();
+
+	@Inject
+	WeatherServiceWarmUp(
+			final WarmUp warmUp,
+			final OwmAdapter owmAdapter,
+			final PersistentEntityRegistryFacade entityRegistryFacade
+	) {
+		warmUp.add("owm-adapter", () -> owmAdapter.isAlive().invoke());
+		warmUp.add("weather-entity", () -> {
+			// WeatherServiceImpl registers it too, but may not have been created yet; registering the
+			// same entity again does nothing.
+			entityRegistryFacade.register(WeatherEntity.class);
+			return entityRegistryFacade.sendCommandToPersistentEntity(
+					WeatherEntity.class,
+					WeatherServiceImpl.ENTITY_ID,
+					new GetWeatherStreamParameters()
+			);
+		});
+		warmUp.addMessages("messages", WeatherServiceWarmUp::sampleMessages);
+		warmUp.seal();
+	}
+
+	private static Map<Type, Object> sampleMessages() {
+		final List<WeatherData> forecast = SmileMessageSerializer.<List<WeatherData>>of(WEATHER_DATA_LIST)
+				.deserializer(SmileMessageSerializer.JSON)
+				.deserialize(canned("forecast.json"));
+		final WeatherData current = forecast.get(0);
+
+		return ImmutableMap.<Type, Object>builder()
+				.put(WeatherData.class, current)
+				.put(WEATHER_DATA_LIST, forecast)
+				.put(WeatherAndForecast.class, WeatherAndForecast.builder().current(current).forecast(forecast).build())
+				.put(CurrentWeatherResponse.class, MessageUtils.weatherDataToCurrentWeatherResponse(current))
+				.put(WeatherForecastResponse.class, MessageUtils.weatherDataToWeatherForecastResponse(current, forecast))
+				.put(WeatherStreamParameters.class, WeatherStreamParameters.builder()
+						.emitFrequencySeconds(10)
+						.location(current.getLocation())
+						.build()
+				)
+				.put(AddLocationRequest.class, new AddLocationRequest(current.getLocation()))
+				.put(SetEmitFrequencyRequest.class, new SetEmitFrequencyRequest(10))
+				.build();
+	}
+
+	private static ByteString canned(final String name) {
+		try (InputStream in = WeatherServiceWarmUp.class.getResourceAsStream("/warm-up/weather-service/" + name)) {
+			return ByteString.fromArray(ByteStreams.toByteArray(in));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Canned message " + name + " could not be read", e);
+		}
+	}
+}
@@ -26,9 +26,14 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isA;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+/**
+ * Runs against the OWM adapter as it is bound in remote mode, i.e. where a Lagom client would be.
+ * WeatherServiceInProcessIT, in weather-service-inprocess, runs the same tests with the adapter
+ * in-process.
+ */
 class WeatherServiceIT {
 
-	private static TestServer server;
+	static TestServer server;
 
 	private WeatherService weatherService;
 
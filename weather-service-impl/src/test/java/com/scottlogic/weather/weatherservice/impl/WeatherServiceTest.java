@@ -1,9 +1,17 @@
 package com.scottlogic.weather.weatherservice.impl;
 
 import akka.Done;
+import akka.NotUsed;
+import akka.actor.ActorSystem;
 import akka.stream.javadsl.Source;
+import akka.testkit.javadsl.TestKit;
 import com.lightbend.lagom.javadsl.api.transport.BadRequest;
 import com.lightbend.lagom.javadsl.api.transport.NotFound;
+import com.lightbend.lagom.javadsl.api.transport.RequestHeader;
+import com.lightbend.lagom.javadsl.server.ServerServiceCall;
+import com.scottlogic.weather.common.warmup.WarmUp;
+import com.scottlogic.weather.owmadapter.api.RequestDeadline;
+import com.scottlogic.weather.owmadapter.api.message.DeadlineExceeded;
 import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
 import com.scottlogic.weather.weatherservice.api.message.AddLocationRequest;
 import com.scottlogic.weather.weatherservice.api.message.CurrentWeatherResponse;
@@ -16,17 +24,24 @@ import com.scottlogic.weather.weatherservice.impl.entity.WeatherCommand.GetWeath
 import com.scottlogic.weather.weatherservice.impl.entity.WeatherCommand.RemoveLocation;
 import com.scottlogic.weather.weatherservice.impl.entity.WeatherEntity;
 import com.scottlogic.weather.weatherservice.impl.stub.OwmAdapterStub;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -44,13 +59,39 @@ class WeatherServiceTest {
 	@Mock private StreamGenerator streamGenerator;
 	@Mock private PersistentEntityRegistryFacade registryFacade;
 
+	private static ActorSystem actorSystem;
+
 	private WeatherServiceImpl sut;
 
+	@BeforeAll
+	static void beforeAll() {
+		actorSystem = ActorSystem.create("WeatherServiceTest");
+	}
+
+	@AfterAll
+	static void afterAll() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
 	@BeforeEach
 	void beforeEach() {
 		initMocks(this);
 		when(streamGeneratorFactory.get(entityId)).thenReturn(streamGenerator);
-		sut = new WeatherServiceImpl(new OwmAdapterStub(), streamGeneratorFactory, registryFacade);
+		sut = new WeatherServiceImpl(
+				new OwmAdapterStub(),
+				streamGeneratorFactory,
+				registryFacade,
+				new RequestBudget(ConfigFactory.parseString("weather.request-timeout = 200ms"), actorSystem),
+				new WarmUp(actorSystem, ConfigFactory.parseString("warm-up { enabled = off, timeout = 1m }"))
+		);
+	}
+
+	@Test
+	void isReady_WarmUpDisabled_RespondsReady() throws Exception {
+		final String result = sut.isReady().invoke().toCompletableFuture().get(5, SECONDS);
+
+		assertThat(result, is("Service \"weather-service\" is ready"));
 	}
 
 	@Test
@@ -85,6 +126,17 @@ class WeatherServiceTest {
 		);
 	}
 
+	@Test
+	void currentWeather_AdapterDoesNotAnswer_ThrowsDeadlineExceededWhenBudgetRunsOut() {
+		final long started = System.nanoTime();
+		final ExecutionException exception = assertThrows(ExecutionException.class, () ->
+				sut.currentWeather(OwmAdapterStub.LOCATION_NO_ANSWER).invoke().toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+		assertThat(Duration.ofNanos(System.nanoTime() - started), lessThan(Duration.ofSeconds(5)));
+	}
+
 	@Test
 	void currentWeatherStream_InvokesSourceGeneratorAndGetsBackASource() throws Exception {
 		final Source<WeatherForecastResponse, ?> expectedResponse = Source.empty();
@@ -116,6 +168,33 @@ class WeatherServiceTest {
 		assertThat(result.getForecast().size(), is(40)); // 5 days, 8 forecasts per day
 	}
 
+	@Test
+	void weatherForecast_CallerBudgetOutOfRange_RespondsAsUsual() throws Exception {
+		final ServerServiceCall<NotUsed, WeatherForecastResponse> serviceCall =
+				(ServerServiceCall<NotUsed, WeatherForecastResponse>) sut.weatherForecast("Helsinki, FI");
+		final RequestHeader requestHeader = RequestHeader.DEFAULT
+				.withHeader(RequestDeadline.HEADER_NAME, Long.toString(Long.MAX_VALUE));
+
+		final WeatherForecastResponse result = serviceCall.invokeWithHeaders(requestHeader, NotUsed.getInstance())
+				.toCompletableFuture().get(5, SECONDS)
+				.second();
+
+		assertThat(result.getLocation(), is("Helsinki, FI"));
+	}
+
+	@Test
+	void weatherForecast_CallerDeadlineAlreadyPassed_ThrowsDeadlineExceeded() {
+		final ServerServiceCall<NotUsed, WeatherForecastResponse> serviceCall =
+				(ServerServiceCall<NotUsed, WeatherForecastResponse>) sut.weatherForecast("Helsinki, FI");
+		final RequestHeader requestHeader = RequestDeadline.in(Duration.ZERO).header().apply(RequestHeader.DEFAULT);
+
+		final ExecutionException exception = assertThrows(ExecutionException.class, () ->
+				serviceCall.invokeWithHeaders(requestHeader, NotUsed.getInstance()).toCompletableFuture().get(5, SECONDS)
+		);
+
+		assertThat(exception.getCause(), instanceOf(DeadlineExceeded.class));
+	}
+
 	@Test
 	void weatherForecastStream_InvokesSourceGeneratorAndGetsBackASource() throws Exception {
 		final Source<WeatherForecastResponse, ?> expectedResponse = Source.maybe();
@@ -4,18 +4,22 @@ import akka.NotUsed;
 import com.lightbend.lagom.javadsl.api.ServiceCall;
 import com.lightbend.lagom.javadsl.api.transport.NotFound;
 import com.scottlogic.weather.owmadapter.api.OwmAdapter;
+import com.scottlogic.weather.owmadapter.api.message.LatLng;
 import com.scottlogic.weather.owmadapter.api.message.Sun;
 import com.scottlogic.weather.owmadapter.api.message.Temperature;
 import com.scottlogic.weather.owmadapter.api.message.Unauthorized;
 import com.scottlogic.weather.owmadapter.api.message.Weather;
+import com.scottlogic.weather.owmadapter.api.message.WeatherAndForecast;
 import com.scottlogic.weather.owmadapter.api.message.WeatherData;
 import com.scottlogic.weather.owmadapter.api.message.Wind;
+import com.scottlogic.weather.owmadapter.api.message.stats.AdapterStats;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -28,6 +32,7 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 public class OwmAdapterStub implements OwmAdapter {
 	public static final String LOCATION_401 = "Anywhere,KP";
 	public static final String LOCATION_404 = "Trumpsbrain,US";
+	public static final String LOCATION_NO_ANSWER = "Limbo,VA"; // never answered
 
 	private static Random random = new Random();
 
@@ -36,6 +41,11 @@ public class OwmAdapterStub implements OwmAdapter {
 		return request -> completedFuture("yes");
 	}
 
+	@Override
+	public ServiceCall<NotUsed, String> isReady() {
+		return request -> completedFuture("yes");
+	}
+
 	@Override
 	public ServiceCall<NotUsed, WeatherData> getCurrentWeatherByName(final String location) {
 		// TODO Include a case for Service Unavailable? Work out what happens when OWM is unreachable.
@@ -46,6 +56,8 @@ public class OwmAdapterStub implements OwmAdapter {
 					throw new Unauthorized("denied");
 				case LOCATION_404:
 					throw new NotFound("no sir");
+				case LOCATION_NO_ANSWER:
+					return new CompletableFuture<>();
 				default:
 					return completedFuture(generateCurrentWeatherData(location));
 			}
@@ -57,6 +69,15 @@ public class OwmAdapterStub implements OwmAdapter {
 		return request -> completedFuture(generateCurrentWeatherData(id));
 	}
 
+	@Override
+	public ServiceCall<List<Integer>, List<WeatherData>> getCurrentWeatherByIds() {
+		return ids -> completedFuture(
+				ids.stream()
+						.map(this::generateCurrentWeatherData)
+						.collect(Collectors.toList())
+		);
+	}
+
 	@Override
 	public ServiceCall<NotUsed, List<WeatherData>> getWeatherForecastByName(final String location) {
 		return request -> {
@@ -76,6 +97,48 @@ public class OwmAdapterStub implements OwmAdapter {
 		return request -> completedFuture(generateWeatherForecastData(location));
 	}
 
+	@Override
+	public ServiceCall<NotUsed, WeatherAndForecast> getWeatherAndForecastByName(final String location) {
+		return request -> {
+			switch (location) {
+				case LOCATION_401:
+					throw new Unauthorized("denied");
+				case LOCATION_404:
+					throw new NotFound("no sir");
+				case LOCATION_NO_ANSWER:
+					return new CompletableFuture<>();
+				default:
+					return completedFuture(WeatherAndForecast.builder()
+							.current(generateCurrentWeatherData(location))
+							.forecast(generateWeatherForecastData(location))
+							.build()
+					);
+			}
+		};
+	}
+
+	@Override
+	public ServiceCall<NotUsed, WeatherAndForecast> getWeatherAndForecastById(final int location) {
+		return request -> completedFuture(WeatherAndForecast.builder()
+				.current(generateCurrentWeatherData(location))
+				.forecast(generateWeatherForecastData(location))
+				.build()
+		);
+	}
+
+	@Override
+	public ServiceCall<List<LatLng>, List<String>> getTimezones() {
+		return request -> completedFuture(request.stream()
+				.map(point -> "Etc/UTC")
+				.collect(Collectors.toList())
+		);
+	}
+
+	@Override
+	public ServiceCall<NotUsed, AdapterStats> getStats() {
+		return request -> completedFuture(AdapterStats.builder().build());
+	}
+
 	private List<WeatherData> generateWeatherForecastData(final int id) {
 		return generateWeatherForecastData(id, "Nowhere, US");
 	}
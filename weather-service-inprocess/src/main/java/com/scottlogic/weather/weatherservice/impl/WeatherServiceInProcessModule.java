@@ -0,0 +1,22 @@
+package com.scottlogic.weather.weatherservice.impl;
+
+import com.scottlogic.weather.owmadapter.impl.OwmAdapterInProcessModule;
+
+/**
+ * <p>
+ *   The module that binds the WeatherService with the OWM adapter running in this JVM
+ *   ("in-process"), in place of WeatherServiceModule; weather lookups are then plain method calls,
+ *   without the network hop or JSON serialization.
+ * </p>
+ * <p>
+ *   Only this deployable carries owm-adapter-impl, with its config and resources, so that the
+ *   weather service deployed on its own never does.
+ * </p>
+ */
+public class WeatherServiceInProcessModule extends WeatherServiceModule {
+
+	@Override
+	protected void bindOwmAdapter() {
+		install(new OwmAdapterInProcessModule());
+	}
+}
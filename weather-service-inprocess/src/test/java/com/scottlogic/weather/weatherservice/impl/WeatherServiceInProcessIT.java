@@ -0,0 +1,34 @@
+package com.scottlogic.weather.weatherservice.impl;
+
+import akka.http.javadsl.Http;
+import com.scottlogic.weather.weatherservice.impl.stub.OwmHttpStub;
+import org.junit.jupiter.api.BeforeAll;
+
+import static com.lightbend.lagom.javadsl.testkit.ServiceTest.bind;
+import static com.lightbend.lagom.javadsl.testkit.ServiceTest.defaultSetup;
+import static com.lightbend.lagom.javadsl.testkit.ServiceTest.startServer;
+
+/**
+ * The tests of {@link WeatherServiceIT}, with the OWM adapter running in-process. Rather than
+ * replacing the whole adapter, only its HTTP connection to OpenWeatherMap is stubbed, so requests
+ * go through the real adapter and OWM client.
+ */
+class WeatherServiceInProcessIT extends WeatherServiceIT {
+
+	@BeforeAll
+	static void beforeAll() {
+		server = startServer(defaultSetup()
+				.withCassandra()
+				.configureBuilder(b -> b
+						.configure("source.owm.apiKey", "test")
+						// The stub refuses our API key for one location only; don't take it out for the rest.
+						.configure("source.owm.negative-cache.unauthorized-ttl", "0s")
+						.overrides(
+								bind(Http.class).toInstance(OwmHttpStub.http()),
+								bind(StreamGeneratorFactory.class).toSelf(),
+								bind(PersistentEntityRegistryFacade.class).toSelf()
+						)
+				)
+		);
+	}
+}
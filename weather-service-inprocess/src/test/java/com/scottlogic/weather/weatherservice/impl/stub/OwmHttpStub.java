@@ -0,0 +1,135 @@
+package com.scottlogic.weather.weatherservice.impl.stub;
+
+import akka.NotUsed;
+import akka.event.LoggingAdapter;
+import akka.http.javadsl.Http;
+import akka.http.javadsl.model.HttpEntities;
+import akka.http.javadsl.model.HttpRequest;
+import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.Query;
+import akka.http.javadsl.model.Uri;
+import akka.http.javadsl.settings.ConnectionPoolSettings;
+import akka.japi.Pair;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Flow;
+import scala.util.Success;
+import scala.util.Try;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.scottlogic.weather.weatherservice.impl.stub.OwmAdapterStub.LOCATION_401;
+import static com.scottlogic.weather.weatherservice.impl.stub.OwmAdapterStub.LOCATION_404;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * <p>
+ *   Stub of the HTTP connection to OpenWeatherMap, for running the real OWM adapter in-process.
+ *   Answers current weather (by name, id or group of ids) and forecast requests with faked data,
+ *   in OWM's own JSON format; the same locations as in {@link OwmAdapterStub} are refused or not
+ *   found.
+ * </p>
+ */
+public class OwmHttpStub {
+	private static final int FORECASTS = 40;
+
+	public static Http http() {
+		final Flow<Pair<HttpRequest, Object>, Pair<Try<HttpResponse>, Object>, NotUsed> pool =
+				Flow.<Pair<HttpRequest, Object>>create()
+						.map(request -> Pair.create(new Success<>(respond(request.first().getUri())), request.second()));
+
+		final Http http = mock(Http.class);
+		doReturn(pool).when(http).superPool(
+				any(ConnectionPoolSettings.class), any(LoggingAdapter.class), any(Materializer.class)
+		);
+		return http;
+	}
+
+	private static HttpResponse respond(final Uri uri) {
+		final Query query = uri.query();
+		final String endpoint = uri.path().substring(uri.path().lastIndexOf('/') + 1);
+		final String location = query.get("q").orElse("Nowhere,US");
+
+		switch (location.replace(" ", "")) {
+			case LOCATION_401:
+				return failure(401, "Invalid API key");
+			case LOCATION_404:
+				return failure(404, "city not found");
+		}
+
+		final String[] nameAndCountry = location.split(",\\s*");
+		final int id = query.get("id").map(Integer::parseInt).orElse(1234567);
+
+		switch (endpoint) {
+			case "weather":
+				return success(currentWeather(id, nameAndCountry[0], nameAndCountry[1]));
+			case "group":
+				final String[] ids = query.get("id").get().split(",");
+				return success(
+						"{\"cnt\":" + ids.length + ",\"list\":[" +
+						Arrays.stream(ids)
+								.map(groupId -> currentWeather(Integer.parseInt(groupId), nameAndCountry[0], nameAndCountry[1]))
+								.collect(Collectors.joining(",")) +
+						"]}"
+				);
+			case "forecast":
+				return success(forecast(id, nameAndCountry[0], nameAndCountry[1]));
+			default:
+				return failure(404, "Unknown endpoint " + endpoint);
+		}
+	}
+
+	private static String currentWeather(final int id, final String name, final String country) {
+		final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+		return "{" +
+				"\"coord\":{\"lon\":18.07,\"lat\":59.33}," +
+				"\"weather\":[{\"id\":500,\"description\":\"light rain\",\"icon\":\"10d\"}]," +
+				"\"main\":{\"temp\":9.6,\"pressure\":1011,\"humidity\":81,\"temp_min\":8.0,\"temp_max\":10.4}," +
+				"\"wind\":{\"speed\":4.1,\"deg\":80}," +
+				"\"dt\":" + now.getEpochSecond() + "," +
+				"\"sys\":{\"country\":\"" + country + "\"" +
+					",\"sunrise\":" + now.minus(3, ChronoUnit.HOURS).getEpochSecond() +
+					",\"sunset\":" + now.plus(6, ChronoUnit.HOURS).getEpochSecond() +
+				"}," +
+				"\"id\":" + id + ",\"name\":\"" + name + "\",\"cod\":200" +
+				"}";
+	}
+
+	private static String forecast(final int id, final String name, final String country) {
+		final Instant first = Instant.now().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+		return "{" +
+				"\"cod\":\"200\",\"cnt\":" + FORECASTS + "," +
+				"\"city\":{\"id\":" + id + ",\"name\":\"" + name + "\",\"country\":\"" + country + "\"" +
+					",\"coord\":{\"lat\":59.33,\"lon\":18.07}" +
+				"}," +
+				"\"list\":[" +
+				IntStream.range(0, FORECASTS)
+						.mapToObj(i -> "{" +
+								"\"dt\":" + first.plus(i * 3, ChronoUnit.HOURS).getEpochSecond() + "," +
+								"\"main\":{\"temp\":9.6,\"temp_min\":8.0,\"temp_max\":10.4,\"humidity\":81}," +
+								"\"weather\":[{\"id\":800,\"description\":\"clear sky\",\"icon\":\"01d\"}]," +
+								"\"wind\":{\"speed\":1.1,\"deg\":176}" +
+								"}"
+						)
+						.collect(Collectors.joining(",")) +
+				"]" +
+				"}";
+	}
+
+	private static HttpResponse success(final String entity) {
+		return HttpResponse.create()
+				.withStatus(200)
+				.withEntity(HttpEntities.create(entity));
+	}
+
+	private static HttpResponse failure(final int statusCode, final String message) {
+		return HttpResponse.create()
+				.withStatus(statusCode)
+				.withEntity(HttpEntities.create("{\"cod\":\"" + statusCode + "\",\"message\":\"" + message + "\"}"));
+	}
+}